@@ -1,3 +1,4 @@
+import org.gradle.api.tasks.JavaExec
 import org.gradle.api.tasks.testing.Test
 
 import com.spotify.docker.client.DefaultDockerClient
@@ -53,6 +54,36 @@ dependencies {
     testCompile("com.google.code.gson:gson:2.8.0")
 }
 
+val jmhIncludesProp = "jmh.includes"
+
+// Micro-benchmarks source set. Benchmarks have access to the test classes (such as the Docker client test doubles).
+val sourceSets = the<JavaPluginConvention>().sourceSets
+val jmhSourceSet = sourceSets.create("jmh")
+val testSourceSet = sourceSets.getByName("test")
+jmhSourceSet.compileClasspath += testSourceSet.output + testSourceSet.compileClasspath
+jmhSourceSet.runtimeClasspath += testSourceSet.output + testSourceSet.runtimeClasspath
+
+dependencies {
+    "jmhCompile"("org.openjdk.jmh:jmh-core:1.19")
+    "jmhCompile"("org.openjdk.jmh:jmh-generator-annprocess:1.19")
+}
+
+task<JavaExec>("jmh") {
+    group = "Verification"
+    description = "Runs the JMH micro-benchmarks, with allocation profiling. The benchmarks to be run can be " +
+            "filtered using the $jmhIncludesProp property."
+
+    dependsOn(jmhSourceSet.classesTaskName)
+
+    main = "org.openjdk.jmh.Main"
+    classpath = jmhSourceSet.runtimeClasspath
+
+    args("-prof", "gc")
+    if (project.hasProperty(jmhIncludesProp)) {
+        args(project.properties[jmhIncludesProp])
+    }
+}
+
 val jsSrcDir: File = project.file("src/main/js")
 
 val processResources = tasks.getByPath("processResources") as ProcessResources
@@ -0,0 +1,85 @@
+package run.var.teamcity.cloud.docker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency between the scheduling of a task on the {@link DockerTaskScheduler} and the beginning of its execution.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=DockerTaskSchedulerBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DockerTaskSchedulerBenchmark {
+
+    @Param({"false", "true"})
+    private boolean concurrentClientTasks;
+
+    private DockerTaskScheduler scheduler;
+    private TestDockerCloudClient cloudClient;
+    private DockerInstance[] instances;
+    private int nextInstance;
+
+    @Setup
+    public void setup() {
+        scheduler = new DockerTaskScheduler(4, true, Duration.ofMinutes(1), concurrentClientTasks);
+        cloudClient = new TestDockerCloudClient();
+        DockerImage image = new DockerImage(null, new DockerImageConfig("benchmark", Node.EMPTY_OBJECT, false,
+                false, false, DockerRegistryCredentials.ANONYMOUS, 1, null));
+        instances = new DockerInstance[16];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new DockerInstance(image);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Void clientTask() {
+        CompletableFuture<Void> executed = new CompletableFuture<>();
+        scheduler.scheduleClientTask(new DockerClientTask("benchmark", cloudClient) {
+            @Override
+            void callInternal() {
+                executed.complete(null);
+            }
+        });
+        return executed.join();
+    }
+
+    @Benchmark
+    public Void instanceTask() {
+        CompletableFuture<Void> executed = new CompletableFuture<>();
+        DockerInstance instance = instances[nextInstance++ % instances.length];
+        scheduler.scheduleInstanceTask(new DockerInstanceTask("benchmark", instance, null) {
+            @Override
+            void callInternal() {
+                executed.complete(null);
+            }
+        });
+        return executed.join();
+    }
+}
@@ -0,0 +1,93 @@
+package run.var.teamcity.cloud.docker;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained stream of short tasks on a {@link DockerTaskScheduler} configured with a long task timeout. The number
+ * of pending maintenance tasks is reported after each iteration as an auxiliary counter, and must stay flat.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=DockerTaskTimeoutBenchmark}. The GC profiler reports the
+ *     allocation rate and the collections, which must stay flat as well.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DockerTaskTimeoutBenchmark {
+
+    private DockerTaskScheduler scheduler;
+    private DockerInstance[] instances;
+    private int nextInstance;
+
+    @Setup
+    public void setup() {
+        scheduler = new DockerTaskScheduler(4, true, Duration.ofHours(1));
+        DockerImage image = new DockerImage(null, new DockerImageConfig("benchmark", Node.EMPTY_OBJECT, false,
+                false, false, DockerRegistryCredentials.ANONYMOUS, 1, null));
+        instances = new DockerInstance[16];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new DockerInstance(image);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Void shortInstanceTask(MaintenanceCounters counters) {
+        CompletableFuture<Void> executed = new CompletableFuture<>();
+        DockerInstance instance = instances[nextInstance++ % instances.length];
+        scheduler.scheduleInstanceTask(new DockerInstanceTask("benchmark", instance, null) {
+            @Override
+            void callInternal() {
+                executed.complete(null);
+            }
+        });
+        return executed.join();
+    }
+
+    /**
+     * Counters reported along with the benchmark results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MaintenanceCounters {
+
+        public int pendingMaintenanceTasks;
+
+        private DockerTaskScheduler scheduler;
+
+        @Setup
+        public void setup(DockerTaskTimeoutBenchmark benchmark) {
+            scheduler = benchmark.scheduler;
+        }
+
+        @TearDown(Level.Iteration)
+        public void update() {
+            pendingMaintenanceTasks = scheduler.getPendingMaintenanceTaskCount();
+        }
+    }
+}
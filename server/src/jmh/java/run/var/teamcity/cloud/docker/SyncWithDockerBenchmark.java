@@ -0,0 +1,113 @@
+package run.var.teamcity.cloud.docker;
+
+import jetbrains.buildServer.clouds.CloudInstanceUserData;
+import jetbrains.buildServer.clouds.InstanceStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import run.var.teamcity.cloud.docker.client.DockerClientConfig;
+import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
+import run.var.teamcity.cloud.docker.test.TestCloudState;
+import run.var.teamcity.cloud.docker.test.TestDockerClient;
+import run.var.teamcity.cloud.docker.test.TestDockerImageResolver;
+import run.var.teamcity.cloud.docker.test.TestSBuildServer;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static run.var.teamcity.cloud.docker.test.TestUtils.waitUntil;
+
+/**
+ * Full synchronization of a {@link DefaultDockerCloudClient} with the Docker daemon, for a large number of running
+ * agent holders. The {@link TestDockerClient}, with no simulated latency, is used as daemon stand-in behind the
+ * {@link DefaultDockerClientFacade}, so that both the listing of the agent holders and the reconciliation with the
+ * cloud instances are measured.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=SyncWithDockerBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SyncWithDockerBenchmark {
+
+    @Param({"100", "1000"})
+    private int instanceCount;
+
+    @Param({"false", "true"})
+    private boolean concurrentSync;
+
+    private DefaultDockerCloudClient client;
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        DockerClientConfig dockerClientConfig = new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI,
+                DockerCloudUtils.DOCKER_API_TARGET_VERSION).connectionPoolSize(8);
+        TestDockerClient dockerClient = new TestDockerClient(dockerClientConfig, DockerRegistryCredentials.ANONYMOUS).
+                latency(Duration.ZERO).
+                localImage("image", "latest");
+
+        TestDockerCloudSupport cloudSupport = new TestDockerCloudSupport();
+        cloudSupport.setFacadeWrapper(new DefaultDockerClientFacade(dockerClient));
+
+        URL serverURL = new URL("http://not.a.real.server.url");
+        // Periodic sync is pushed far away, the benchmark explicitly requests each sync.
+        DockerCloudClientConfig clientConfig = new DockerCloudClientConfig(cloudSupport, UUID.randomUUID(),
+                dockerClientConfig, true, Duration.ofHours(1), Duration.ofMinutes(10), serverURL).
+                usingConcurrentSync(concurrentSync);
+        Node containerSpec = Node.EMPTY_OBJECT.editNode().put("Image", "image:latest").saveNode();
+        DockerImageConfig imageConfig = new DockerImageConfig("Benchmark", containerSpec, false, false, false,
+                DockerRegistryCredentials.ANONYMOUS, instanceCount, null);
+
+        client = new DefaultDockerCloudClient(clientConfig, Collections.singletonList(imageConfig),
+                new TestDockerImageResolver("image:latest"), new TestCloudState(), new TestSBuildServer());
+
+        DockerImage image = client.getImages().iterator().next();
+        waitUntil(() -> client.canStartNewInstance(image));
+
+        CloudInstanceUserData userData = new CloudInstanceUserData("benchmark", "", serverURL.toString(), null, "",
+                "", Collections.emptyMap());
+        for (int i = 0; i < instanceCount; i++) {
+            client.startNewInstance(image, userData);
+        }
+
+        waitUntil(() -> image.getInstances().stream().
+                allMatch(instance -> instance.getStatus() == InstanceStatus.RUNNING), 120);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.dispose();
+    }
+
+    @Benchmark
+    public Instant sync() {
+        Instant previousSync = client.getLastDockerSyncTime().orElse(null);
+        client.requestDockerSync();
+        Instant lastSync;
+        // Each sync records a new timestamp instance, even if its value may not change.
+        while ((lastSync = client.getLastDockerSyncTime().orElse(null)) == previousSync) {
+            Thread.yield();
+        }
+        return lastSync;
+    }
+}
@@ -0,0 +1,119 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.EditableNode;
+import run.var.teamcity.cloud.docker.util.Node;
+import run.var.teamcity.cloud.docker.util.StreamingNodeReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the full tree parsing of a container list response with the streaming extraction of container summaries.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=ContainerListParsingBenchmark}. The GC profiler reports the
+ *     allocation rate per operation ({@code gc.alloc.rate.norm}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ContainerListParsingBenchmark {
+
+    @Param({"1000"})
+    private int containerCount;
+
+    private byte[] response;
+
+    @Setup
+    public void setup() {
+        EditableNode containers = Node.EMPTY_ARRAY.editNode();
+        for (int i = 0; i < containerCount; i++) {
+            String imageId = "sha256:" + UUID.randomUUID().toString().replace("-", "");
+            EditableNode container = containers.addObject();
+            container.put("Id", UUID.randomUUID().toString().replace("-", ""));
+            container.getOrCreateArray("Names").add("/agent_" + i);
+            container.put("Image", "jetbrains/teamcity-agent:latest");
+            container.put("ImageID", imageId);
+            container.put("Command", "/run-services.sh");
+            container.put("Created", 1500000000L + i);
+            container.getOrCreateArray("Ports").addObject().
+                    put("PrivatePort", 9090).
+                    put("Type", "tcp");
+            EditableNode labels = container.getOrCreateObject("Labels");
+            labels.put(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL, imageId);
+            labels.put(DockerCloudUtils.CLIENT_ID_LABEL, UUID.randomUUID().toString());
+            labels.put(DockerCloudUtils.INSTANCE_ID_LABEL, UUID.randomUUID().toString());
+            labels.put("maintainer", "JetBrains");
+            container.put("State", i % 3 == 0 ? "exited" : "running");
+            container.put("Status", "Up 2 hours");
+            container.getOrCreateObject("HostConfig").put("NetworkMode", "default");
+            EditableNode network = container.getOrCreateObject("NetworkSettings").
+                    getOrCreateObject("Networks").
+                    getOrCreateObject("bridge");
+            network.put("NetworkID", UUID.randomUUID().toString().replace("-", ""));
+            network.put("EndpointID", UUID.randomUUID().toString().replace("-", ""));
+            network.put("Gateway", "172.17.0.1");
+            network.put("IPAddress", "172.17.0." + (i % 250 + 2));
+            network.put("IPPrefixLen", 16);
+            network.put("MacAddress", "02:42:ac:11:00:02");
+            container.getOrCreateArray("Mounts").addObject().
+                    put("Type", "volume").
+                    put("Name", UUID.randomUUID().toString().replace("-", "")).
+                    put("Destination", "/data/teamcity_agent/conf").
+                    put("Driver", "local").
+                    put("RW", true);
+        }
+        response = containers.saveNode().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<String> treeParsing() throws IOException {
+        Node containers = Node.parse(new ByteArrayInputStream(response));
+        return containers.getArrayValues().stream().
+                filter(container -> {
+                    Map<String, Node> labels = container.getObject("Labels", Node.EMPTY_OBJECT).getObjectValues();
+                    Node sourceImageId = labels.get(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL);
+                    return sourceImageId != null && sourceImageId.getAsString().equals(container.getAsString(
+                            "ImageID"));
+                }).
+                map(container -> container.getAsString("Id") + container.getAsString("State") +
+                        container.getAsLong("Created")).
+                collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> streamingExtraction() throws IOException {
+        try (StreamingNodeReader reader = StreamingNodeReader.create(new ByteArrayInputStream(response))) {
+            return ContainerSummary.readList(reader).stream().
+                    filter(container -> {
+                        String sourceImageId = container.getLabels().get(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL);
+                        return sourceImageId != null && container.getImageId().map(sourceImageId::equals).
+                                orElse(false);
+                    }).
+                    map(container -> container.getId() + container.getState() +
+                            container.getCreationTimestamp().getEpochSecond()).
+                    collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demultiplexing throughput of the {@link MultiplexedStreamHandler}, for a 1MiB stream split in fragments of various
+ * sizes. Small fragments are typical of interactive log streams, large ones of bulk log retrieval. The
+ * {@code demultiplexFrames} benchmark consumes the payload slices directly from the {@link MultiplexedFrameReader}.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=MultiplexedStreamHandlerBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MultiplexedStreamHandlerBenchmark {
+
+    private static final int STREAM_SIZE = 1024 * 1024;
+
+    @Param({"64", "4096", "65536"})
+    private int fragmentSize;
+
+    private byte[] multiplexedStream;
+    private final byte[] readBuffer = new byte[8192];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int fragmentCount = STREAM_SIZE / fragmentSize;
+        ByteBuffer bb = ByteBuffer.allocate(fragmentCount * (8 + fragmentSize));
+        byte[] payload = new byte[fragmentSize];
+        for (int i = 0; i < fragmentCount; i++) {
+            StdioType type = i % 4 == 0 ? StdioType.STDERR : StdioType.STDOUT;
+            random.nextBytes(payload);
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt((int) type.streamType());
+            bb.order(ByteOrder.BIG_ENDIAN);
+            bb.putInt(fragmentSize);
+            bb.put(payload);
+        }
+        multiplexedStream = bb.array();
+    }
+
+    @Benchmark
+    public long demultiplex() throws IOException {
+        MultiplexedStreamHandler handler = new MultiplexedStreamHandler(() -> { },
+                new ByteArrayInputStream(multiplexedStream), new ByteArrayOutputStream());
+
+        long total = 0;
+        StdioInputStream fragment;
+        while ((fragment = handler.getNextStreamFragment()) != null) {
+            int n;
+            while ((n = fragment.read(readBuffer)) != -1) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long demultiplexFrames() throws IOException {
+        MultiplexedStreamHandler handler = new MultiplexedStreamHandler(() -> { },
+                new ByteArrayInputStream(multiplexedStream), new ByteArrayOutputStream());
+
+        MultiplexedFrameReader frameReader = handler.getFrameReader();
+        long total = 0;
+        while (frameReader.next()) {
+            total += frameReader.getLength();
+        }
+        return total;
+    }
+}
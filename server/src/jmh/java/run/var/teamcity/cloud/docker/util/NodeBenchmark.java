@@ -0,0 +1,99 @@
+package run.var.teamcity.cloud.docker.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, edition and serialization of large container specifications, as performed for each agent holder
+ * creation.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=NodeBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+
+    /**
+     * Number of entries in each of the environment variables, labels, mounts and port bindings collections of the
+     * container specification.
+     */
+    @Param({"10", "500"})
+    private int entryCount;
+
+    private String serializedSpec;
+    private Node spec;
+
+    @Setup
+    public void setup() {
+        EditableNode editableSpec = Node.EMPTY_OBJECT.editNode();
+        editableSpec.put("Image", "jetbrains/teamcity-agent:latest");
+        editableSpec.put("Hostname", "agent");
+        editableSpec.put("Tty", false);
+        editableSpec.getOrCreateArray("Cmd").add("/run-services.sh");
+        EditableNode env = editableSpec.getOrCreateArray("Env");
+        EditableNode labels = editableSpec.getOrCreateObject("Labels");
+        EditableNode hostConfig = editableSpec.getOrCreateObject("HostConfig");
+        EditableNode binds = hostConfig.getOrCreateArray("Binds");
+        EditableNode portBindings = hostConfig.getOrCreateObject("PortBindings");
+        for (int i = 0; i < entryCount; i++) {
+            env.add("VAR_" + i + "=" + UUID.randomUUID());
+            labels.put("com.example.label_" + i, UUID.randomUUID().toString());
+            binds.add("/host/path/" + i + ":/container/path/" + i + ":ro");
+            portBindings.getOrCreateArray((9000 + i) + "/tcp").addObject().
+                    put("HostIp", "0.0.0.0").
+                    put("HostPort", String.valueOf(19000 + i));
+        }
+        hostConfig.put("Memory", 2147483648L);
+        hostConfig.put("CpuShares", 512);
+
+        spec = editableSpec.saveNode();
+        serializedSpec = spec.toString();
+    }
+
+    @Benchmark
+    public Node parse() throws IOException {
+        return Node.parse(serializedSpec);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return spec.toString();
+    }
+
+    @Benchmark
+    public Node editAndSave() {
+        EditableNode editableSpec = spec.editNode();
+        editableSpec.getOrCreateObject("Labels").
+                put(DockerCloudUtils.CLIENT_ID_LABEL, "a64c9bf2-4b9b-4d4c-8f10-1d4a3fa56bd7").
+                put(DockerCloudUtils.INSTANCE_ID_LABEL, "0ab2bb31-0e48-4e5b-a6b5-ef7c11e1c9e8");
+        editableSpec.getOrCreateArray("Env").
+                add(DockerCloudUtils.ENV_PREFIX + "SERVER_URL=http://teamcity.example.com");
+        return editableSpec.saveNode();
+    }
+
+    @Benchmark
+    public String roundTrip() throws IOException {
+        EditableNode editableSpec = Node.parse(serializedSpec).editNode();
+        editableSpec.getOrCreateObject("Labels").
+                put(DockerCloudUtils.INSTANCE_ID_LABEL, "0ab2bb31-0e48-4e5b-a6b5-ef7c11e1c9e8");
+        return editableSpec.saveNode().toString();
+    }
+}
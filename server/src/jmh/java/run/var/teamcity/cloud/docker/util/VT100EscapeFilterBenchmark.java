@@ -0,0 +1,91 @@
+package run.var.teamcity.cloud.docker.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link VT100EscapeFilter} with the regular expression previously used to strip control sequences, on
+ * multi-megabytes logs. The {@code chunked} benchmark feeds the filter with 4KiB chunks, as when consuming a stream.
+ * <p>
+ *     Run with {@code gradlew :server:jmh -Pjmh.includes=VT100EscapeFilterBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VT100EscapeFilterBenchmark {
+
+    private static final Pattern VT100_ESCAPE_PTN = Pattern.compile("\u001B\\[[\\d;]*[^\\d;]");
+
+    private static final int CHUNK_SIZE = 4096;
+
+    @Param({"4194304"})
+    private int logsSize;
+
+    /**
+     * Percentage of log lines using colors.
+     */
+    @Param({"0", "20", "100"})
+    private int coloredLinesRatio;
+
+    private String logs;
+    private char[] logsChars;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(logsSize + 256);
+        int lineNumber = 0;
+        while (sb.length() < logsSize) {
+            boolean colored = random.nextInt(100) < coloredLinesRatio;
+            if (colored) {
+                sb.append("\u001B[1;3").append(random.nextInt(8)).append('m');
+            }
+            sb.append("[2017-09-12 10:11:12,123]   INFO - jetbrains.buildServer.AGENT - Log line ").
+                    append(lineNumber++);
+            if (colored) {
+                sb.append("\u001B[0m");
+            }
+            sb.append('\n');
+        }
+        logs = sb.toString();
+        logsChars = logs.toCharArray();
+    }
+
+    @Benchmark
+    public String regex() {
+        return VT100_ESCAPE_PTN.matcher(logs).replaceAll("");
+    }
+
+    @Benchmark
+    public String filter() {
+        return VT100EscapeFilter.strip(logs);
+    }
+
+    @Benchmark
+    public int chunked() {
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder out = new StringBuilder(logsChars.length);
+        for (int offset = 0; offset < logsChars.length; offset += CHUNK_SIZE) {
+            filter.filter(logsChars, offset, Math.min(CHUNK_SIZE, logsChars.length - offset), out);
+        }
+        filter.flush(out);
+        return out.length();
+    }
+}
@@ -0,0 +1,110 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lifecycle event related to an agent holder, as reported by the daemon.
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ */
+public class AgentHolderEvent {
+
+    /**
+     * Event types.
+     */
+    public enum Type {
+        /**
+         * The agent holder has been started.
+         */
+        STARTED,
+        /**
+         * The agent holder has exited.
+         */
+        DIED,
+        /**
+         * The agent holder has been destroyed.
+         */
+        DESTROYED
+    }
+
+    private final Type type;
+    private final String agentHolderId;
+    private final Map<String, String> labels;
+    private final Instant timestamp;
+
+    /**
+     * Creates a new event.
+     *
+     * @param type the event type
+     * @param agentHolderId the agent holder ID
+     * @param labels the agent holder labels
+     * @param timestamp the event timestamp
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public AgentHolderEvent(@Nonnull Type type, @Nonnull String agentHolderId, @Nonnull Map<String, String> labels,
+                            @Nonnull Instant timestamp) {
+        this.type = DockerCloudUtils.requireNonNull(type, "Event type cannot be null.");
+        this.agentHolderId = DockerCloudUtils.requireNonNull(agentHolderId, "Agent holder id cannot be null.");
+        DockerCloudUtils.requireNonNull(labels, "Labels cannot be null.");
+        this.labels = Collections.unmodifiableMap(new HashMap<>(labels));
+        this.timestamp = DockerCloudUtils.requireNonNull(timestamp, "Timestamp cannot be null.");
+    }
+
+    /**
+     * Gets the event type.
+     *
+     * @return the event type
+     */
+    @Nonnull
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the agent holder to which the event relates.
+     *
+     * @return the agent holder ID
+     */
+    @Nonnull
+    public String getAgentHolderId() {
+        return agentHolderId;
+    }
+
+    /**
+     * Gets the labels of the agent holder to which the event relates.
+     *
+     * @return the agent holder labels
+     */
+    @Nonnull
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Gets the timestamp at which the daemon emitted the event.
+     *
+     * @return the event timestamp
+     */
+    @Nonnull
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentHolderEvent{" +
+                "type=" + type +
+                ", agentHolderId='" + agentHolderId + '\'' +
+                ", labels=" + labels +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package run.var.teamcity.cloud.docker;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A stream of {@link AgentHolderEvent}s.
+ * <p>
+ * Closing the stream from another thread will unblock any pending call to {@link #next()}.
+ * </p>
+ */
+public interface AgentHolderEventStream extends Closeable {
+
+    /**
+     * Gets the next event on the stream, blocking until one is available, or {@code null} if the end has been
+     * reached.
+     *
+     * @return the next event or {@code null}
+     *
+     * @throws IOException if the next event cannot be fetched from the stream
+     */
+    @Nullable
+    AgentHolderEvent next() throws IOException;
+
+    @Override
+    void close();
+}
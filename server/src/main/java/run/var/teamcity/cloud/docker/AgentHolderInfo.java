@@ -119,4 +119,20 @@ public class AgentHolderInfo {
     public boolean isRunning() {
         return running;
     }
+
+    /**
+     * Checks if the given info set describes the same agent holder in the same state. Only the agent holder ID, the
+     * task ID, the running flag and the state message are compared.
+     *
+     * @param other the info set to compare with
+     *
+     * @return {@code true} if both info sets describe the same agent holder state
+     *
+     * @throws NullPointerException if {@code other} is {@code null}
+     */
+    public boolean hasSameState(@Nonnull AgentHolderInfo other) {
+        DockerCloudUtils.requireNonNull(other, "Info set cannot be null.");
+        return running == other.running && id.equals(other.id) && taskId.equals(other.taskId) &&
+                stateMsg.equals(other.stateMsg);
+    }
 }
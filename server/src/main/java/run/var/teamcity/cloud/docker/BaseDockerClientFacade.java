@@ -4,6 +4,7 @@ import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.StdioInputStream;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.EditableNode;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -20,6 +21,16 @@ abstract class BaseDockerClientFacade implements DockerClientFacade {
         this.client = client;
     }
 
+    @Nonnull
+    @Override
+    public final NewAgentHolderInfo createAgent(@Nonnull CreateAgentParameters createAgentParameters) {
+        DockerCloudUtils.requireNonNull(createAgentParameters, "Agent creation parameters cannot be null.");
+
+        PreparedAgentHolderSpec preparedSpec = prepareAgentHolder(createAgentParameters);
+
+        return createAgent(preparedSpec, createAgentParameters.getLabels(), createAgentParameters.getEnv());
+    }
+
     final void applyLabels(EditableNode spec, Map<String, String> labels) {
         assert spec != null && labels != null;
 
@@ -50,6 +61,17 @@ abstract class BaseDockerClientFacade implements DockerClientFacade {
         return sb;
     }
 
+    final CharSequence demuxLogs(StreamHandler streamHandler, LogsCursor cursor, VT100EscapeFilter filter) {
+        // Lines already retrieved are discarded first, so only the new text goes through the filter.
+        CharSequence newLogs = cursor.process(demuxLogs(streamHandler));
+
+        StringBuilder sb = new StringBuilder(newLogs.length());
+        // The filter is not flushed: a sequence left incomplete by this fetch will be completed by the next one, the
+        // cursor having already discarded the text fetched twice.
+        filter.filter(newLogs, sb);
+        return sb;
+    }
+
     @Nonnull
     @Override
     public final Optional<DockerDaemonOS> getDaemonOS() {
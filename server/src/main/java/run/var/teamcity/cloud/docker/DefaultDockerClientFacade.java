@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import run.var.teamcity.cloud.docker.client.BadRequestException;
 import run.var.teamcity.cloud.docker.client.ContainerAlreadyStoppedException;
+import run.var.teamcity.cloud.docker.client.ContainerSummary;
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientConfig;
 import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
@@ -11,19 +12,27 @@ import run.var.teamcity.cloud.docker.client.NotFoundException;
 import run.var.teamcity.cloud.docker.client.StdioType;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.EditableNode;
+import run.var.teamcity.cloud.docker.util.LockHandler;
 import run.var.teamcity.cloud.docker.util.Node;
 import run.var.teamcity.cloud.docker.util.NodeProcessingException;
 import run.var.teamcity.cloud.docker.util.NodeStream;
 import run.var.teamcity.cloud.docker.util.Stopwatch;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -40,13 +49,30 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
      */
     public static final String CONTAINER_RUNNING_STATE = "running";
 
+    /**
+     * Default time-to-live of the cached image inspections.
+     */
+    public static final Duration DEFAULT_IMAGE_INSPECTION_TTL = Duration.ofSeconds(30);
+
+    private final ImageInspectionCache imageInspectionCache;
+
+    /**
+     * Pulls currently in progress, indexed by image reference.
+     */
+    private final Map<String, SharedPull> pendingPulls = new ConcurrentHashMap<>();
+
     public DefaultDockerClientFacade(@Nonnull DockerClient client) {
+        this(client, DEFAULT_IMAGE_INSPECTION_TTL);
+    }
+
+    DefaultDockerClientFacade(@Nonnull DockerClient client, @Nonnull Duration imageInspectionTtl) {
         super(DockerCloudUtils.requireNonNull(client, "Docker client cannot be null."));
+        this.imageInspectionCache = new ImageInspectionCache(imageInspectionTtl);
     }
 
     @Nonnull
     @Override
-    public NewAgentHolderInfo createAgent(@Nonnull CreateAgentParameters createAgentParameters) {
+    public PreparedAgentHolderSpec prepareAgentHolder(@Nonnull CreateAgentParameters createAgentParameters) {
         DockerCloudUtils.requireNonNull(createAgentParameters, "Agent creation parameters cannot be null.");
 
         try {
@@ -60,22 +86,56 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
                 throw new DockerClientFacadeException("Failed to determine image name.");
             }
 
-            pullIfRequired(resolvedImage, createAgentParameters.getPullStrategy(),
-                      createAgentParameters.getPullStatusListener(), createAgentParameters.getRegistryCredentials());
+            boolean pulled = false;
+            if (!imageInspectionCache.isPullValidated(resolvedImage)) {
+                pulled = pullIfRequired(resolvedImage, createAgentParameters.getPullStrategy(),
+                        createAgentParameters.getPullStatusListener(), createAgentParameters.getRegistryCredentials());
+            }
 
             EditableNode editableContainerSpec = agentHolderSpec.editNode();
 
-            Node imageInspect = client.inspectImage(resolvedImage);
+            Node imageInspect = imageInspectionCache.getInspection(resolvedImage).orElse(null);
+            if (imageInspect == null) {
+                imageInspect = client.inspectImage(resolvedImage);
+                imageInspectionCache.put(resolvedImage, imageInspect, pulled);
+            }
 
             pinContainerImage(editableContainerSpec, imageInspect);
 
             clearExistingPluginProperties(editableContainerSpec, imageInspect);
 
-            applyEnv(editableContainerSpec, createAgentParameters.getEnv());
+            return new PreparedAgentHolderSpec(editableContainerSpec.saveNode(), resolvedImage);
+        } catch (NodeProcessingException e) {
+            throw new DockerClientFacadeException("Failed to setup agent container.", e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public NewAgentHolderInfo createAgent(@Nonnull PreparedAgentHolderSpec preparedSpec,
+                                          @Nonnull Map<String, String> labels, @Nonnull Map<String, String> env) {
+        DockerCloudUtils.requireNonNull(preparedSpec, "Prepared specification cannot be null.");
+        DockerCloudUtils.requireNonNull(labels, "Labels map cannot be null.");
+        DockerCloudUtils.requireNonNull(env, "Environment map cannot be null.");
+
+        try {
+            String resolvedImage = preparedSpec.getResolvedImage().orElseThrow(() ->
+                    new DockerClientFacadeException("Failed to determine image name."));
+
+            EditableNode editableContainerSpec = preparedSpec.getAgentHolderSpec().editNode();
+
+            applyEnv(editableContainerSpec, env);
 
-            applyLabels(editableContainerSpec, createAgentParameters.getLabels());
+            applyLabels(editableContainerSpec, labels);
 
-            Node containerNode = client.createContainer(editableContainerSpec.saveNode(), null);
+            Node containerNode;
+            try {
+                containerNode = client.createContainer(editableContainerSpec.saveNode(), null);
+            } catch (NotFoundException e) {
+                // The pinned image may have been removed since it was inspected.
+                imageInspectionCache.invalidate(resolvedImage);
+                throw e;
+            }
 
             String id = containerNode.getAsString("Id");
             List<String> warnings = containerNode.getArray("Warnings", Node.EMPTY_ARRAY).getArrayValues().
@@ -95,18 +155,19 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
         }
     }
 
-    private void pullIfRequired(String image, PullStrategy pullStrategy, PullStatusListener listener,
+    private boolean pullIfRequired(String image, PullStrategy pullStrategy, PullStatusListener listener,
                            DockerRegistryCredentials credentials) {
         if (pullStrategy == PullStrategy.NO_PULL) {
-            return;
+            return false;
         }
 
         try {
             pull(image, listener, credentials);
+            return true;
         } catch (Exception e) {
             if (pullStrategy == PullStrategy.PULL_IGNORE_FAILURE) {
                 LOG.warn("Pull of image " + image + " failed.", e);
-                return;
+                return false;
             }
 
             if (e instanceof DockerClientFacadeException) {
@@ -137,21 +198,58 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
 
     @Nonnull
     @Override
-    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nonnull String valueFilter) {
+    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nullable String valueFilter) {
+        DockerCloudUtils.requireNonNull(labelFilter, "Label filter key cannot be null.");
+        List<ContainerSummary> containers = client.listContainerSummariesWithLabel(
+                Collections.singletonMap(labelFilter, valueFilter));
+
+        return containers.stream().filter(container -> {
+            String sourceImageId = container.getLabels().get(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL);
+            return sourceImageId != null && container.getImageId().map(sourceImageId::equals).orElse(false);
+        }).map(this::toAgentHolderInfo).collect(Collectors.toList());
+    }
+
+    @Nonnull
+    @Override
+    public AgentHolderEventStream streamAgentHolderEvents(@Nonnull String labelFilter, @Nonnull String valueFilter) {
         DockerCloudUtils.requireNonNull(labelFilter, "Label filter key cannot be null.");
         DockerCloudUtils.requireNonNull(valueFilter, "Label filter value cannot be null.");
-        Node containerNodes = client.listContainersWithLabel(Collections.singletonMap(labelFilter, valueFilter));
 
-        try {
-            return containerNodes.getArrayValues().stream().filter(containerNode -> {
-                String sourceImageId = containerNode.getObject("Labels", Node.EMPTY_OBJECT).
-                        getAsString(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL, null);
-                String currentImageId = containerNode.getAsString("ImageID");
-                return sourceImageId != null && sourceImageId.equals(currentImageId);
-            }).map(this::parseContainerInfo).collect(Collectors.toList());
-        } catch (NodeProcessingException e) {
-            throw new DockerClientFacadeException("Failed to list agent containers.", e);
-        }
+        NodeStream eventStream = client.streamEvents(Collections.singletonMap(labelFilter, valueFilter));
+
+        return new AgentHolderEventStream() {
+            @Override
+            public AgentHolderEvent next() throws IOException {
+                Node event;
+                while ((event = eventStream.next()) != null) {
+                    AgentHolderEvent agentHolderEvent;
+                    try {
+                        agentHolderEvent = parseContainerEvent(event);
+                    } catch (NodeProcessingException e) {
+                        LOG.error("Failed to parse event: " + event, e);
+                        continue;
+                    }
+                    if (agentHolderEvent != null) {
+                        return agentHolderEvent;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    eventStream.close();
+                } catch (IOException e) {
+                    LOG.debug("Failed to close event stream.", e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean supportStreamingEvents() {
+        return true;
     }
 
     @Override
@@ -182,9 +280,48 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
 
     private final static BigInteger UNKNOWN_PROGRESS = BigInteger.valueOf(-1);
 
-    private void pull(String image, PullStatusListener
-            statusListener, DockerRegistryCredentials credentials)  {
+    private final static String PULL_DIGEST_STATUS_PREFIX = "Digest: ";
+    private final static String PULL_NEWER_IMAGE_STATUS_PREFIX = "Status: Downloaded newer image";
+
+    private void pull(String image, PullStatusListener statusListener, DockerRegistryCredentials credentials) {
+        SharedPull newPull = new SharedPull(credentials);
+        SharedPull pendingPull = pendingPulls.putIfAbsent(image, newPull);
+
+        if (pendingPull == null) {
+            newPull.addListener(statusListener);
+            try {
+                performPull(image, newPull, credentials);
+                newPull.result.complete(null);
+            } catch (Throwable e) {
+                // Errors must be reported as well, the pending requests would otherwise wait forever.
+                newPull.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                pendingPulls.remove(image, newPull);
+            }
+        } else if (pendingPull.credentials.equals(credentials)) {
+            LOG.debug("Pull of image " + image + " already in progress, waiting for completion.");
+            pendingPull.addListener(statusListener);
+            try {
+                pendingPull.result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DockerClientFacadeException("Interrupted while waiting for pull of image " + image + ".", e);
+            } catch (ExecutionException e) {
+                throw new DockerClientFacadeException("Pull of image " + image + " failed.", e.getCause());
+            } finally {
+                pendingPull.removeListener(statusListener);
+            }
+        } else {
+            // Pull in progress with different credentials, cannot be shared.
+            performPull(image, statusListener, credentials);
+        }
+    }
+
+    private void performPull(String image, PullStatusListener statusListener, DockerRegistryCredentials credentials) {
         try (NodeStream nodeStream = client.createImage(image, null, credentials)) {
+            String digest = null;
+            boolean newerImage = false;
             Node status;
             while ((status = nodeStream.next()) != null) {
 
@@ -199,13 +336,19 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
                         throw new DockerClientFacadeException("Failed to handlePull image: " + error + " -- " + details
                                 .getAsString("message", null), null);
                     }
-                    if (statusListener == PullStatusListener.NOOP) {
+                    statusMsg = status.getAsString("status", null);
+
+                    if (statusMsg == null) {
                         continue;
                     }
 
-                    statusMsg = status.getAsString("status", null);
+                    if (statusMsg.startsWith(PULL_DIGEST_STATUS_PREFIX)) {
+                        digest = statusMsg.substring(PULL_DIGEST_STATUS_PREFIX.length()).trim();
+                    } else if (statusMsg.startsWith(PULL_NEWER_IMAGE_STATUS_PREFIX)) {
+                        newerImage = true;
+                    }
 
-                    if (statusMsg == null) {
+                    if (statusListener == PullStatusListener.NOOP) {
                         continue;
                     }
 
@@ -232,11 +375,71 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
 
                 statusListener.pullInProgress(statusMsg, layer, percent);
             }
+
+            imageInspectionCache.pullCompleted(image, digest, newerImage);
         } catch (IOException e) {
             throw new DockerClientFacadeException("Pull failed.", e);
         }
     }
 
+    /**
+     * A pull operation, shared between all the concurrent requests to pull the same image. The pull progress is
+     * dispatched to all the registered listeners. Late listeners will be first notified with the last known status
+     * for each layer.
+     */
+    private static class SharedPull implements PullStatusListener {
+
+        final DockerRegistryCredentials credentials;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private final LockHandler lock = LockHandler.newReentrantLock();
+        private final List<PullStatusListener> listeners = new ArrayList<>();
+        private final Map<String, PullStatus> lastStatusByLayer = new LinkedHashMap<>();
+
+        SharedPull(DockerRegistryCredentials credentials) {
+            this.credentials = credentials;
+        }
+
+        void addListener(PullStatusListener listener) {
+            List<PullStatus> lastStatuses = lock.call(() -> {
+                listeners.add(listener);
+                return new ArrayList<>(lastStatusByLayer.values());
+            });
+            // Listeners are never invoked while holding the lock.
+            lastStatuses.forEach(status -> status.notify(listener));
+        }
+
+        void removeListener(PullStatusListener listener) {
+            lock.run(() -> listeners.remove(listener));
+        }
+
+        @Override
+        public void pullInProgress(@Nonnull String status, @Nullable String layer, int percent) {
+            PullStatus pullStatus = new PullStatus(status, layer, percent);
+            List<PullStatusListener> currentListeners = lock.call(() -> {
+                lastStatusByLayer.put(layer, pullStatus);
+                return new ArrayList<>(listeners);
+            });
+            currentListeners.forEach(pullStatus::notify);
+        }
+    }
+
+    private static class PullStatus {
+        final String status;
+        final String layer;
+        final int percent;
+
+        PullStatus(String status, String layer, int percent) {
+            this.status = status;
+            this.layer = layer;
+            this.percent = percent;
+        }
+
+        void notify(PullStatusListener listener) {
+            listener.pullInProgress(status, layer, percent);
+        }
+    }
+
     @Nonnull
     @Override
     public CharSequence getLogs(@Nonnull String containerId) {
@@ -245,6 +448,19 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
         return demuxLogs(streamHandler);
     }
 
+    @Nonnull
+    @Override
+    public CharSequence getLogs(@Nonnull String containerId, @Nonnull LogsCursor cursor,
+            @Nonnull VT100EscapeFilter filter) {
+        DockerCloudUtils.requireNonNull(cursor, "Logs cursor cannot be null.");
+        DockerCloudUtils.requireNonNull(filter, "Logs filter cannot be null.");
+        Instant since = cursor.getSince().orElse(null);
+        // Initial fetch is limited to the usual context, all lines are then fetched from the last timestamp.
+        StreamHandler streamHandler = client.streamLogs(containerId, since == null ? 10000 : -1, StdioType.all(),
+                since, true, false, !hasTty(containerId));
+        return demuxLogs(streamHandler, cursor, filter);
+    }
+
     @Nonnull
     @Override
     public StreamHandler streamLogs(@Nonnull String containerId) {
@@ -285,19 +501,55 @@ public class DefaultDockerClientFacade extends BaseDockerClientFacade {
     }
 
 
-    private AgentHolderInfo parseContainerInfo(Node container) {
-        String id = container.getAsString("Id");
-        Map<String, String> labels = container.getObject("Labels", Node.EMPTY_OBJECT).getObjectValues().entrySet().stream()
-                .collect
-                (Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getAsString()));
+    private AgentHolderEvent parseContainerEvent(Node event) {
+        if (!"container".equals(event.getAsString("Type", null))) {
+            return null;
+        }
+
+        AgentHolderEvent.Type type;
+        switch (event.getAsString("Action", "")) {
+            case "start":
+                type = AgentHolderEvent.Type.STARTED;
+                break;
+            case "die":
+                type = AgentHolderEvent.Type.DIED;
+                break;
+            case "destroy":
+                type = AgentHolderEvent.Type.DESTROYED;
+                break;
+            default:
+                // Not relevant to the agent holder lifecycle.
+                return null;
+        }
+
+        Node actor = event.getObject("Actor");
+        String id = actor.getAsString("ID");
+
+        // Labels are published along with some other container attributes (such as the image or the exit code).
+        Map<String, String> attributes = actor.getObject("Attributes", Node.EMPTY_OBJECT).getObjectValues().entrySet()
+                .stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getAsString()));
+
+        BigInteger timeNano = event.getAsBigInt("timeNano", null);
+        Instant timestamp;
+        if (timeNano != null) {
+            BigInteger[] secAndNanos = timeNano.divideAndRemainder(NANOS_PER_SECOND);
+            timestamp = Instant.ofEpochSecond(secAndNanos[0].longValue(), secAndNanos[1].longValue());
+        } else {
+            timestamp = Instant.ofEpochSecond(event.getAsLong("time"));
+        }
+
+        return new AgentHolderEvent(type, id, attributes, timestamp);
+    }
 
-        String state = container.getAsString("State");
+    private final static BigInteger NANOS_PER_SECOND = BigInteger.valueOf(1_000_000_000);
 
-        String name = container.getArray("Names").getArrayValues().stream().map(Node::getAsString).findFirst()
-                .orElseThrow(() -> new DockerClientFacadeException("No container name available"));
-        Instant creationTimestamp = Instant.ofEpochSecond(container.getAsLong("Created"));
+    private AgentHolderInfo toAgentHolderInfo(ContainerSummary container) {
+        String id = container.getId();
+        String state = container.getState();
+        String name = container.getName().orElseThrow(() -> new DockerClientFacadeException("No container name " +
+                "available"));
 
-        return new AgentHolderInfo(id, id, labels, state, name, creationTimestamp,
+        return new AgentHolderInfo(id, id, container.getLabels(), state, name, container.getCreationTimestamp(),
                 CONTAINER_RUNNING_STATE.equals(state));
     }
 }
@@ -23,7 +23,10 @@ import org.jetbrains.annotations.NotNull;
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientConfig;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.LatencyHistogram;
 import run.var.teamcity.cloud.docker.util.LockHandler;
+import run.var.teamcity.cloud.docker.util.NamedThreadFactory;
+import run.var.teamcity.cloud.docker.util.Stopwatch;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,11 +39,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A Docker {@link CloudClient}.
@@ -49,6 +58,19 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
     private final Logger LOG = DockerCloudUtils.getLogger(DefaultDockerCloudClient.class);
 
+    private final static Duration EVENT_LISTENER_MIN_RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * Maximum age of a start batch that new starts may still join. Older batches are left to complete, but will not
+     * share their prepared specification anymore.
+     */
+    private final static Duration START_BATCH_MAX_AGE = Duration.ofMinutes(2);
+
+    /**
+     * Maximum number of starts that may join a single batch.
+     */
+    private final static int START_BATCH_MAX_SIZE = 100;
+
     /**
      * Type of this cloud client.
      */
@@ -65,7 +87,8 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
     private final DockerTaskScheduler taskScheduler;
 
     /**
-     * Lock to synchronize the mutable state of this class.
+     * Lock to serialize the state transitions of this class. Read-only accessors invoked by the server must not
+     * acquire it: the state they depend on is either immutable or volatile.
      */
     private final LockHandler lock = LockHandler.newReentrantLock();
 
@@ -74,10 +97,21 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
      */
     private boolean dockerSyncScheduled = false;
 
+    /**
+     * Latest shared synchronization result not yet applied. A shared sync task is scheduled only when no result is
+     * already pending, subsequent results replacing the pending one.
+     */
+    private SharedSyncResult pendingSharedSync = null;
+
+    /**
+     * Indicates if a replenishment of the warm pools was explicitly scheduled.
+     */
+    private boolean warmPoolReplenishmentScheduled = false;
+
     /**
      * Holds the error status for this instance.
      */
-    private CloudErrorInfo errorInfo;
+    private volatile CloudErrorInfo errorInfo;
 
     /**
      * Cloud state handler. Used to report cloud instance related events.
@@ -87,7 +121,13 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
     /**
      * Timestamp of the last sync with Docker. Initially {@code null}.
      */
-    private Instant lastDockerSyncTime = null;
+    private volatile Instant lastDockerSyncTime = null;
+
+    /**
+     * Outcome of the last sync with Docker, used to skip the reconciliation when nothing changed. Initially
+     * {@code null}.
+     */
+    private volatile SyncGeneration syncGeneration = null;
 
     private enum State {
         /**
@@ -107,12 +147,81 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
     /**
      * Client state.
      */
-    private State state = State.CREATED;
+    private volatile State state = State.CREATED;
+
+    /**
+     * Executor running the daemon events listener. Will be {@code null} if the event-driven synchronization is not
+     * enabled.
+     */
+    private final ExecutorService eventListenerExecutor;
+
+    /**
+     * Rate of the full synchronization with the daemon while the daemon events are being tracked.
+     */
+    private final Duration reconciliationRate;
+
+    /**
+     * Rate of the synchronization with the daemon.
+     */
+    private final Duration dockerSyncRate;
+
+    /**
+     * Maximal delay between two synchronizations with the daemon. Will be {@code null} if the adaptive
+     * synchronization rate is not enabled.
+     */
+    private final Duration maxDockerSyncRate;
 
     /**
-     * Map of cloud images indexed with their UUID.
+     * Current delay between two synchronizations with the daemon when using the adaptive synchronization rate.
      */
-    private final Map<UUID, DockerImage> images = new HashMap<>();
+    private Duration adaptiveSyncDelay;
+
+    /**
+     * The periodic synchronization task. Will be {@code null} if the shared synchronization is enabled.
+     */
+    private final SyncWithDockerTask periodicSyncTask;
+
+    /**
+     * Our subscription to the shared agent holders poller. Will be {@code null} if the shared synchronization is not
+     * enabled.
+     */
+    private final SharedSyncSubscriber sharedSyncSubscriber;
+
+    /**
+     * The daemon events stream currently open, if any.
+     */
+    private volatile AgentHolderEventStream eventStream = null;
+
+    /**
+     * Immutable map of cloud images indexed with their UUID.
+     */
+    private final Map<UUID, DockerImage> images;
+
+    /**
+     * Registered cloud instances, across all images, indexed with their UUID.
+     */
+    private final Map<UUID, DockerInstance> instancesByUuid = new ConcurrentHashMap<>();
+
+    /**
+     * Registered cloud instances indexed with the runtime UUID of the agent connected to them.
+     */
+    private final Map<UUID, DockerInstance> instancesByAgentRuntimeUuid = new ConcurrentHashMap<>();
+
+    /**
+     * Batches of agent starts currently being processed, indexed with the UUID of their image.
+     */
+    private final Map<UUID, StartBatch> startBatches = new HashMap<>();
+
+    /**
+     * Durations of the completed start batches, from the first start request to the last agent holder started.
+     */
+    private final LatencyHistogram scaleOutTime = new LatencyHistogram();
+
+    /**
+     * User data of the most recent start request for each image, indexed with the image UUID. Used to create the
+     * agent holders of the warm pools.
+     */
+    private final Map<UUID, CloudInstanceUserData> lastUserData = new HashMap<>();
 
     // IMPORTANT: access to the TeamCity API must be as much as possible be performed without locking the cloud client
     // to prevent dead-locks.
@@ -161,6 +270,14 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         this.serverURL = clientConfig.getServerURL();
         this.buildServer = buildServer;
 
+        // Images must be available before publishing any reference to this client.
+        Map<UUID, DockerImage> images = new LinkedHashMap<>();
+        for (DockerImageConfig imageConfig : imageConfigs) {
+            DockerImage image = new DockerImage(DefaultDockerCloudClient.this, imageConfig);
+            images.put(image.getUuid(), image);
+        }
+        this.images = Collections.unmodifiableMap(images);
+        LOG.info(images.size() + " image definitions loaded: " + images);
 
         buildServerListener = new BuildServerAdapter() {
             @Override
@@ -172,17 +289,21 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
                     UUID agentRuntimeUuid = readAgentRuntimeUuid(agent);
                     if (agentRuntimeUuid != null) {
                         instance.registerAgentRuntimeUuid(agentRuntimeUuid);
+                        if (instance.getAgentRuntimeUuid().filter(agentRuntimeUuid::equals).isPresent()) {
+                            instancesByAgentRuntimeUuid.put(agentRuntimeUuid, instance);
+                        }
                     }
                 }
             }
 
             @Override
             public void agentUnregistered(@NotNull SBuildAgent agent) {
-                    DockerInstance instance = findInstanceByAgent(agent);
+                DockerInstance instance = findInstanceByAgent(agent);
                 if (instance != null) {
                     UUID agentRuntimeUuid = readAgentRuntimeUuid(agent);
                     if (agentRuntimeUuid != null) {
                         instance.unregisterAgentRuntimeUUid(agentRuntimeUuid);
+                        instancesByAgentRuntimeUuid.remove(agentRuntimeUuid, instance);
                     }
                 }
             }
@@ -191,15 +312,23 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         buildServer.addListener(buildServerListener);
 
         taskScheduler = new DockerTaskScheduler(clientConfig.getDockerClientConfig().getConnectionPoolSize(),
-                clientConfig.isUsingDaemonThreads(), clientConfig.getTaskTimeout());
-
-        for (DockerImageConfig imageConfig : imageConfigs) {
-            DockerImage image = new DockerImage(DefaultDockerCloudClient.this, imageConfig);
-            images.put(image.getUuid(), image);
-        }
-        LOG.info(images.size() + " image definitions loaded: " + images);
+                clientConfig.isUsingDaemonThreads(), clientConfig.getTaskTimeout(),
+                clientConfig.isUsingConcurrentSync(), DockerCloudUtils.isUsingVirtualThreads());
 
         this.dockerClientConfig = clientConfig.getDockerClientConfig();
+        this.reconciliationRate = clientConfig.getReconciliationRate();
+        this.dockerSyncRate = clientConfig.getDockerSyncRate();
+        this.maxDockerSyncRate = clientConfig.getMaxDockerSyncRate();
+        this.adaptiveSyncDelay = dockerSyncRate;
+        this.sharedSyncSubscriber = clientConfig.isUsingSharedSync() ? new SharedSyncSubscriber() : null;
+        this.periodicSyncTask = sharedSyncSubscriber == null ? new SyncWithDockerTask(dockerSyncRate) : null;
+
+        if (clientConfig.isUsingEventDrivenSync()) {
+            eventListenerExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("DockerEventListener",
+                    clientConfig.isUsingDaemonThreads()));
+        } else {
+            eventListenerExecutor = null;
+        }
 
         // Register our agent name generator.
         buildServer.registerExtension(AgentNameGenerator.class, agentNameGeneratorUuid.toString(), sBuildAgent -> {
@@ -223,7 +352,27 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
         state = State.READY;
 
-        taskScheduler.scheduleClientTask(new SyncWithDockerTask(clientConfig.getDockerSyncRate()));
+        if (sharedSyncSubscriber != null) {
+            SharedAgentHolderPoller.subscribe(cloudSupport, dockerClientConfig, sharedSyncSubscriber);
+        } else {
+            taskScheduler.scheduleClientTask(periodicSyncTask);
+        }
+
+        boolean usingWarmPool = imageConfigs.stream().anyMatch(imageConfig -> imageConfig.getWarmPoolSize() > 0);
+        if (usingWarmPool) {
+            taskScheduler.scheduleClientTask(new ReplenishWarmPoolsTask(clientConfig.getDockerSyncRate()));
+        }
+
+        if (eventListenerExecutor != null) {
+            eventListenerExecutor.execute(() -> {
+                try {
+                    listenToEvents(clientConfig.getDockerSyncRate());
+                } catch (Throwable e) {
+                    // Nobody is waiting on this task: make sure failures are not lost.
+                    LOG.error("Daemon events listener terminated unexpectedly.", e);
+                }
+            });
+        }
     }
 
     @Nullable
@@ -270,28 +419,34 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
     @Override
     public boolean isInitialized() {
-        return lock.call(() -> state != State.CREATED);
+        return state != State.CREATED;
     }
 
     @Nullable
     @Override
     public DockerImage findImageById(@Nonnull String id) throws CloudException {
-        return lock.call(() -> {
-            for (DockerImage img : images.values()) {
-                if (img.getId().equals(id)) {
-                    return img;
-                }
+        for (DockerImage img : images.values()) {
+            if (img.getId().equals(id)) {
+                return img;
             }
-            return null;
-        });
+        }
+        return null;
     }
 
     @Nullable
     @Override
     public DockerInstance findInstanceByAgent(@Nonnull AgentDescription agent) {
+        UUID agentRuntimeUuidDescr = readAgentRuntimeUuid(agent);
+        if (agentRuntimeUuidDescr != null) {
+            // Fast path: agent already registered against its instance.
+            DockerInstance instance = instancesByAgentRuntimeUuid.get(agentRuntimeUuidDescr);
+            if (instance != null && isMatchingInstance(instance, agent)) {
+                return instance;
+            }
+        }
+
         DockerInstance instance = findMatchingInstance(agent);
         if (instance != null) {
-            UUID agentRuntimeUuidDescr = readAgentRuntimeUuid(agent);
             Optional<UUID> agentRuntimeUuid = instance.getAgentRuntimeUuid();
             if (agentRuntimeUuidDescr != null) {
                 if (!agentRuntimeUuid.isPresent() || agentRuntimeUuid.get().equals(agentRuntimeUuidDescr)) {
@@ -308,23 +463,44 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         UUID instanceId = DockerCloudUtils.getInstanceId(agent);
 
         if (instanceId != null) {
-            UUID imageId = DockerCloudUtils.getImageId(agent);
-            return lock.call(() -> {
-                DockerImage image = imageId != null ? images.get(imageId) : null;
-                if (image != null) {
-                    return image.findInstanceById(instanceId);
-                }
-                return null;
-            });
+            DockerInstance instance = instancesByUuid.get(instanceId);
+            if (instance != null && isMatchingInstance(instance, agent)) {
+                return instance;
+            }
         }
 
         return null;
     }
 
+    private boolean isMatchingInstance(DockerInstance instance, AgentDescription agent) {
+        return instance.getUuid().equals(DockerCloudUtils.getInstanceId(agent)) &&
+                instance.getImage().getUuid().equals(DockerCloudUtils.getImageId(agent));
+    }
+
+    /**
+     * Adds a newly registered instance to the client indexes.
+     *
+     * @param instance the registered instance
+     */
+    void instanceRegistered(@Nonnull DockerInstance instance) {
+        instancesByUuid.put(instance.getUuid(), instance);
+    }
+
+    /**
+     * Removes an unregistered instance from the client indexes.
+     *
+     * @param instance the unregistered instance
+     */
+    void instanceUnregistered(@Nonnull DockerInstance instance) {
+        instancesByUuid.remove(instance.getUuid(), instance);
+        instance.getAgentRuntimeUuid().ifPresent(agentRuntimeUuid ->
+                instancesByAgentRuntimeUuid.remove(agentRuntimeUuid, instance));
+    }
+
     @Nonnull
     @Override
     public Collection<DockerImage> getImages() throws CloudException {
-        return lock.call(() -> Collections.unmodifiableCollection(images.values()));
+        return images.values();
     }
 
     @Nullable
@@ -335,14 +511,12 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
     @Override
     public boolean canStartNewInstance(@Nonnull CloudImage image) {
-        return lock.call(() -> {
-            if (errorInfo != null) {
-                LOG.debug("Cloud client in error state, cannot start new instance.");
-                // The cloud client is currently in an error status. Wait for it to be cleared.
-                return false;
-            }
-            return clientFacade != null && state == State.READY && ((DockerImage) image).canStartNewInstance();
-        });
+        if (errorInfo != null) {
+            LOG.debug("Cloud client in error state, cannot start new instance.");
+            // The cloud client is currently in an error status. Wait for it to be cleared.
+            return false;
+        }
+        return clientFacade != null && state == State.READY && ((DockerImage) image).canStartNewInstance();
     }
 
     @Nullable
@@ -381,10 +555,16 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
                 throw new QuotaException("Cannot start new instance.");
             }
 
+            lastUserData.put(dockerImage.getUuid(), tag);
+
             for (DockerInstance existingInstance : dockerImage.getInstances()) {
                 if (existingInstance.getStatus() == InstanceStatus.STOPPED) {
                     instanceToStart = existingInstance;
-                    break;
+                    // Prefer instances with an existing agent holder (such as warm instances whose agent holder was
+                    // already created).
+                    if (existingInstance.getAgentHolderId().isPresent()) {
+                        break;
+                    }
                 }
             }
 
@@ -405,7 +585,8 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         tag.setAgentRemovePolicy(CloudConstants.AgentRemovePolicyValue.RemoveAgent);
 
         taskScheduler.scheduleInstanceTask(
-                new DockerInstanceTask("Start of container", instance, InstanceStatus.SCHEDULED_TO_START) {
+                new DockerInstanceTask("Start of container", instance, InstanceStatus.SCHEDULED_TO_START,
+                        DockerTaskPriority.START) {
                     @Override
                     protected void callInternal() throws Exception {
 
@@ -429,18 +610,34 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
                             prepareLabelsMap(createAgentParameters, instance);
                             prepareEnvMap(createAgentParameters, instance, serverAddress, tag);
 
-                            NewAgentHolderInfo agentHolder = clientFacade.createAgent(createAgentParameters);
+                            StartBatch batch = joinStartBatch(dockerImage);
+                            boolean started = false;
+                            try {
+                                PreparedAgentHolderSpec preparedSpec = batch.getPreparedSpec(createAgentParameters);
 
-                            instance.bindWithAgentHolder(agentHolder);
+                                NewAgentHolderInfo agentHolder = clientFacade.createAgent(preparedSpec,
+                                        createAgentParameters.getLabels(), createAgentParameters.getEnv());
 
-                            String agentHolderId = agentHolder.getId();
-                            String taskId = clientFacade.startAgent(agentHolderId);
-                            instance.setTaskId(taskId);
+                                instance.bindWithAgentHolder(agentHolder);
+
+                                String agentHolderId = agentHolder.getId();
+                                String taskId = clientFacade.startAgent(agentHolderId);
+                                instance.setTaskId(taskId);
+
+                                started = true;
 
-                            LOG.info("New container " + agentHolderId + " created.");
+                                LOG.info("New container " + agentHolderId + " created.");
+                            } finally {
+                                leaveStartBatch(batch, started);
+                            }
                         } else {
                             LOG.info("Reusing existing container: " + existingAgentHolderId);
-                            clientFacade.startAgent(existingAgentHolderId.get());
+                            String taskId = clientFacade.startAgent(existingAgentHolderId.get());
+                            instance.setTaskId(taskId);
+
+                            if (dockerImage.getConfig().getWarmPoolSize() > 0) {
+                                scheduleWarmPoolReplenishment();
+                            }
                         }
 
                         scheduleDockerSync();
@@ -453,13 +650,98 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         return instance;
     }
 
+    private void warmUpInstance(DockerInstance instance) {
+        final DockerImage dockerImage = instance.getImage();
+
+        // Warm-ups are performed with the lowest priority, and do not join the start batches: they must not delay the
+        // effective starts.
+        taskScheduler.scheduleInstanceTask(new DockerInstanceTask("Warm-up of container", instance, null,
+                DockerTaskPriority.WARM_UP) {
+            @Override
+            protected void callInternal() throws Exception {
+
+                DockerInstance instance = getInstance();
+
+                boolean warmUpRequired = lock.callInterruptibly(() -> {
+                    checkReady();
+                    return instance.getStatus() == InstanceStatus.STOPPED && !instance.getAgentHolderId().isPresent();
+                });
+
+                if (!warmUpRequired) {
+                    return;
+                }
+
+                CloudInstanceUserData userData = lock.call(() -> lastUserData.get(dockerImage.getUuid()));
+
+                String serverAddress = serverURL != null ? serverURL.toString() : buildServer.getRootUrl();
+
+                CreateAgentParameters createAgentParameters = CreateAgentParameters.
+                        fromImageConfig(dockerImage.getConfig(), resolver, true);
+
+                prepareLabelsMap(createAgentParameters, instance);
+                // The user data of the effective start request are not known in advance. Like for reused instances
+                // (see prepareEnvMap), we rely on the user data being bound to the cloud profile, and use the ones of
+                // the most recent start. Agent holders warmed before the first start of an image will be created
+                // without user data.
+                prepareEnvMap(createAgentParameters, instance, serverAddress, userData);
+
+                PreparedAgentHolderSpec preparedSpec = clientFacade.prepareAgentHolder(createAgentParameters);
+
+                NewAgentHolderInfo agentHolder = clientFacade.createAgent(preparedSpec,
+                        createAgentParameters.getLabels(), createAgentParameters.getEnv());
+
+                instance.bindWithAgentHolder(agentHolder);
+
+                LOG.info("Warm container " + agentHolder.getId() + " created for instance " + instance.getUuid() +
+                        ".");
+            }
+        });
+    }
+
+    private StartBatch joinStartBatch(DockerImage image) {
+        return lock.call(() -> {
+            StartBatch batch = startBatches.get(image.getUuid());
+            // Do not join a batch which failed to prepare the agent holder specification, a new attempt must be made
+            // instead. Long-running or large batches are also not joined, to avoid reusing a stale specification.
+            if (batch == null || batch.preparedSpec.isCompletedExceptionally() ||
+                    batch.joinedStarts >= START_BATCH_MAX_SIZE ||
+                    batch.stopwatch.getDuration().compareTo(START_BATCH_MAX_AGE) > 0) {
+                batch = new StartBatch(image);
+                startBatches.put(image.getUuid(), batch);
+            }
+            batch.pendingStarts++;
+            batch.joinedStarts++;
+            return batch;
+        });
+    }
+
+    private void leaveStartBatch(StartBatch batch, boolean started) {
+        lock.run(() -> {
+            assert batch.pendingStarts > 0;
+            batch.pendingStarts--;
+            if (started) {
+                batch.startedAgents++;
+            } else {
+                batch.failedAgents++;
+            }
+            if (batch.pendingStarts == 0) {
+                startBatches.remove(batch.image.getUuid(), batch);
+                Duration duration = batch.stopwatch.getDuration();
+                scaleOutTime.record(duration.toNanos());
+                LOG.info("Scale-out of " + batch.startedAgents + " agent(s) for image " + batch.image.getName() +
+                        " completed in " + duration.toMillis() + "ms (failed starts: " + batch.failedAgents + ").");
+            }
+        });
+    }
+
     @Override
     public void restartInstance(@Nonnull final CloudInstance instance) {
         // This operation seems to be never called from the TC server. It also unclear if it should be doing
         // anything more than a combined stop and start. We try to honor it by simply restarting the docker container.
         LOG.info("Restarting container:" + instance);
         final DockerInstance dockerInstance = (DockerInstance) instance;
-        taskScheduler.scheduleInstanceTask(new DockerInstanceTask("Restart of container", dockerInstance, null) {
+        taskScheduler.scheduleInstanceTask(new DockerInstanceTask("Restart of container", dockerInstance, null,
+                DockerTaskPriority.RESTART) {
             @Override
             protected void callInternal() throws Exception {
 
@@ -509,6 +791,18 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
         buildServer.unregisterExtension(AgentNameGenerator.class, agentNameGeneratorUuid.toString());
 
+        if (sharedSyncSubscriber != null) {
+            SharedAgentHolderPoller.unsubscribe(cloudSupport, dockerClientConfig, sharedSyncSubscriber);
+        }
+
+        if (eventListenerExecutor != null) {
+            eventListenerExecutor.shutdownNow();
+            AgentHolderEventStream eventStream = this.eventStream;
+            if (eventStream != null) {
+                eventStream.close();
+            }
+        }
+
         LOG.info("Starting disposal of client.");
         for (DockerImage image : getImages()) {
             for (DockerInstance instance : image.getInstances()) {
@@ -517,7 +811,16 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
                 terminateInstance(instance, true);
             }
         }
-        taskScheduler.shutdown();
+        // The client facade must only be released once the termination tasks have been executed.
+        taskScheduler.shutdown(this::releaseClientFacade);
+    }
+
+    private void releaseClientFacade() {
+        DockerClientFacade clientFacade = this.clientFacade;
+        if (clientFacade != null) {
+            clientFacade.close();
+            LOG.info("Docker client released.");
+        }
     }
 
     private void terminateInstance(@Nonnull final CloudInstance instance, final boolean clientDisposed) {
@@ -525,7 +828,8 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         LOG.info("Scheduling cloud instance termination: " + instance + " (client disposed: " + clientDisposed + ").");
         final DockerInstance dockerInstance = ((DockerInstance) instance);
         taskScheduler.scheduleInstanceTask(
-                new DockerInstanceTask("Disposal of container", dockerInstance, InstanceStatus.SCHEDULED_TO_STOP) {
+                new DockerInstanceTask("Disposal of container", dockerInstance, InstanceStatus.SCHEDULED_TO_STOP,
+                        DockerTaskPriority.TERMINATE) {
                     @Override
                     protected void callInternal() throws Exception {
                         lock.runInterruptibly(() -> dockerInstance.setStatus(InstanceStatus.STOPPING));
@@ -570,6 +874,16 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
     private void scheduleDockerSync() {
         lock.run(() -> {
+            // Something is going on, resume synchronizing at the regular rate.
+            if (adaptiveSyncDelay.compareTo(dockerSyncRate) > 0) {
+                adaptiveSyncDelay = dockerSyncRate;
+                if (periodicSyncTask != null) {
+                    // The periodic sync is waiting for the previous, longer, delay. Waking it up will let it
+                    // reschedule itself according to the regular rate.
+                    taskScheduler.rescheduleNow(periodicSyncTask);
+                }
+            }
+
             if (dockerSyncScheduled) {
                 return;
             }
@@ -579,6 +893,136 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         });
     }
 
+    private void scheduleWarmPoolReplenishment() {
+        lock.run(() -> {
+            if (warmPoolReplenishmentScheduled) {
+                return;
+            }
+
+            taskScheduler.scheduleClientTask(new ReplenishWarmPoolsTask());
+            warmPoolReplenishmentScheduled = true;
+        });
+    }
+
+    private void listenToEvents(Duration maxRetryDelay) {
+        Duration retryDelay = EVENT_LISTENER_MIN_RETRY_DELAY;
+
+        while (state == State.READY) {
+            DockerClientFacade clientFacade = this.clientFacade;
+            // The client facade will be available after the first sync.
+            if (clientFacade != null) {
+                try {
+                    if (!clientFacade.supportStreamingEvents()) {
+                        LOG.info("Streaming of daemon events not supported, relying on periodic synchronization " +
+                                "only.");
+                        return;
+                    }
+                } catch (Exception e) {
+                    LOG.warn("Failed to query daemon events support, will retry in " + retryDelay.getSeconds() +
+                            "s.", e);
+                    clientFacade = null;
+                }
+            }
+            if (clientFacade != null) {
+                try (AgentHolderEventStream events = clientFacade.streamAgentHolderEvents(
+                        DockerCloudUtils.CLIENT_ID_LABEL, uuid.toString())) {
+                    eventStream = events;
+                    if (state == State.DISPOSED) {
+                        break;
+                    }
+
+                    LOG.info("Tracking agent holders using daemon events.");
+
+                    // Some events may have been missed while the stream was not open.
+                    scheduleDockerSync();
+
+                    retryDelay = EVENT_LISTENER_MIN_RETRY_DELAY;
+
+                    AgentHolderEvent event;
+                    while ((event = events.next()) != null) {
+                        processEvent(event);
+                    }
+
+                    LOG.info("Daemon events stream closed.");
+                } catch (Exception e) {
+                    if (state == State.DISPOSED) {
+                        break;
+                    }
+                    LOG.warn("Failed to process daemon events, will retry in " + retryDelay.getSeconds() + "s.", e);
+                } finally {
+                    eventStream = null;
+                }
+            }
+
+            try {
+                Thread.sleep(retryDelay.toMillis());
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            retryDelay = retryDelay.multipliedBy(2);
+            if (retryDelay.compareTo(maxRetryDelay) > 0) {
+                retryDelay = maxRetryDelay;
+            }
+        }
+
+        LOG.debug("Daemon events listener terminated.");
+    }
+
+    private void processEvent(AgentHolderEvent event) {
+        UUID instanceUuid = DockerCloudUtils.tryParseAsUUID(event.getLabels().get(DockerCloudUtils.INSTANCE_ID_LABEL));
+        if (instanceUuid == null) {
+            return;
+        }
+
+        LOG.debug("Processing event: " + event);
+
+        String agentHolderId = event.getAgentHolderId();
+
+        DockerInstance terminatedInstance = lock.call(() -> {
+            DockerInstance instance = instancesByUuid.get(instanceUuid);
+
+            if (instance == null || !agentHolderId.equals(instance.getAgentHolderId().orElse(null))) {
+                // Unknown agent holders will be discarded on next sync.
+                return null;
+            }
+
+            InstanceStatus instanceStatus = instance.getStatus();
+
+            switch (event.getType()) {
+                case STARTED:
+                    if (instanceStatus == InstanceStatus.STOPPED) {
+                        LOG.warn("Agent holder " + agentHolderId + " for instance " + instanceUuid +
+                                " was started externally.");
+                    }
+                    return null;
+                case DIED:
+                    if (instanceStatus == InstanceStatus.RUNNING) {
+                        LOG.error("Agent holder " + agentHolderId + " exited prematurely.");
+                        instance.notifyFailure("Container or service exited prematurely.", null);
+                        return instance;
+                    }
+                    return null;
+                case DESTROYED:
+                    if (instanceStatus == InstanceStatus.RUNNING) {
+                        instance.notifyFailure("Container was destroyed.", null);
+                        instance.setAgentHolderInfo(null);
+                        return instance;
+                    }
+                    return null;
+                default:
+                    throw new AssertionError("Unexpected event type: " + event.getType());
+            }
+        });
+
+        if (terminatedInstance != null) {
+            cloudState.registerTerminatedInstance(terminatedInstance.getImageId(),
+                    terminatedInstance.getInstanceId());
+            // Sync right away to discard the instance in error state.
+            scheduleDockerSync();
+        }
+    }
+
     /**
      * Gets the timestamp at which the last Docker sync was performed. Will return -1, of no successful sync was
      * performed yet.
@@ -586,7 +1030,29 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
      * @return the timestamp of the last Docker sync or -1
      */
     public Optional<Instant> getLastDockerSyncTime() {
-        return Optional.ofNullable(lock.call(() -> lastDockerSyncTime));
+        return Optional.ofNullable(lastDockerSyncTime);
+    }
+
+    /**
+     * Gets the statistics of the tasks executed by this client (instances start and termination, synchronization with
+     * the daemon, ...).
+     *
+     * @return the task scheduler statistics
+     */
+    @Nonnull
+    public DockerTaskSchedulerStats getTaskSchedulerStats() {
+        return taskScheduler.getStats();
+    }
+
+    /**
+     * Gets the scale-out time histogram. A scale-out covers all the agent starts requested concurrently for a given
+     * image, and is measured from the first start request until the last agent holder is started.
+     *
+     * @return the scale-out time histogram
+     */
+    @Nonnull
+    public LatencyHistogram getScaleOutTime() {
+        return scaleOutTime;
     }
 
     private void prepareLabelsMap(CreateAgentParameters createAgentParameters, DockerInstance instance) {
@@ -597,23 +1063,25 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
     }
 
     private void prepareEnvMap(CreateAgentParameters createAgentParameters, DockerInstance instance,
-                                              String serverAddress, CloudInstanceUserData userData) {
+                                              String serverAddress, @Nullable CloudInstanceUserData userData) {
         createAgentParameters.
                 env(DockerCloudUtils.ENV_SERVER_URL, serverAddress).
                 // Publish the client, image and instance ID as environment variable. These will be accessible through the TC
                 // API in order to link a registered agent to a container.
                 env(DockerCloudUtils.ENV_CLIENT_ID, uuid.toString()).
                 env(DockerCloudUtils.ENV_IMAGE_ID, instance.getImage().getUuid().toString()).
-                env(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString()).
-                // CloudInstanceUserData are serialized as base64 strings (should be ok for an environment variable
+                env(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString());
+        if (userData != null) {
+            // CloudInstanceUserData are serialized as base64 strings (should be ok for an environment variable
                 // value). They will be sent to the client so it can publish them as configuration parameters.
                 // NOTE: we may have a problem here with reused instances (that are transiting from a STOPPED to
                 // a RUNNING state). The TC server may provides a completely different set of user data to start a new
                 // instance, but we cannot update the corresponding environment variables to reflect those changes.
                 // This does not seems highly critical at moment, because virtually all user data parameters are bound
                 // to the cloud profile and not a specific cloud instance, and because publishing these extra
-                // configuration parameters is apparently not an hard requirement anyway.
-                env(DockerCloudUtils.ENV_AGENT_PARAMS, userData.serialize());
+            // configuration parameters is apparently not an hard requirement anyway.
+            createAgentParameters.env(DockerCloudUtils.ENV_AGENT_PARAMS, userData.serialize());
+        }
     }
 
     @Override
@@ -627,6 +1095,133 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         });
     }
 
+    /**
+     * Batch of agent starts for a given image. All the starts submitted while a batch is being processed will share
+     * the same prepared agent holder specification, such that the image is only resolved, pulled and inspected once.
+     * The creation and start of the agent holders themselves are still performed by each start task, and are
+     * therefore bounded by the scheduler thread pool size.
+     */
+    private class StartBatch {
+
+        final DockerImage image;
+        final CompletableFuture<PreparedAgentHolderSpec> preparedSpec = new CompletableFuture<>();
+        final Stopwatch stopwatch = Stopwatch.start();
+
+        // Guarded by the client lock.
+        int pendingStarts = 0;
+        int joinedStarts = 0;
+        int startedAgents = 0;
+        int failedAgents = 0;
+        boolean preparing = false;
+
+        StartBatch(DockerImage image) {
+            this.image = image;
+        }
+
+        PreparedAgentHolderSpec getPreparedSpec(CreateAgentParameters createAgentParameters) throws Exception {
+            boolean preparingSpec = lock.call(() -> {
+                if (preparing) {
+                    return false;
+                }
+                preparing = true;
+                return true;
+            });
+
+            if (preparingSpec) {
+                try {
+                    PreparedAgentHolderSpec spec = clientFacade.prepareAgentHolder(createAgentParameters);
+                    preparedSpec.complete(spec);
+                    return spec;
+                } catch (Throwable e) {
+                    preparedSpec.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            try {
+                return preparedSpec.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Creates the cloud instances required to fill the warm pool of each image. Warm instances are registered in a
+     * {@link InstanceStatus#STOPPED} state, such that they can be picked up like any other stopped instance when a
+     * new instance is requested, and do not count against the image instances quota. The total number of
+     * instances for an image will never exceed its maximum instance count.
+     */
+    private class ReplenishWarmPoolsTask extends DockerClientTask {
+
+        ReplenishWarmPoolsTask() {
+            super("Replenishment of warm pools", DefaultDockerCloudClient.this);
+        }
+
+        ReplenishWarmPoolsTask(Duration rescheduleDelay) {
+            super("Replenishment of warm pools", DefaultDockerCloudClient.this, rescheduleDelay, rescheduleDelay);
+        }
+
+        @Override
+        protected void callInternal() throws Exception {
+            List<DockerInstance> warmInstances = lock.callInterruptibly(() -> {
+                warmPoolReplenishmentScheduled = false;
+
+                // The client facade is instantiated with the first successful sync.
+                if (state != State.READY || errorInfo != null || clientFacade == null) {
+                    return Collections.emptyList();
+                }
+
+                List<DockerInstance> newInstances = new ArrayList<>();
+                for (DockerImage image : images.values()) {
+                    DockerImageConfig config = image.getConfig();
+                    int warmPoolSize = config.getWarmPoolSize();
+                    if (warmPoolSize == 0) {
+                        continue;
+                    }
+
+                    int stoppedInstances = 0;
+                    int usedInstances = 0;
+                    boolean inError = false;
+                    for (DockerInstance instance : image.getInstances()) {
+                        InstanceStatus status = instance.getStatus();
+                        if (status == InstanceStatus.STOPPED) {
+                            stoppedInstances++;
+                        } else {
+                            inError |= status == InstanceStatus.ERROR || status == InstanceStatus.ERROR_CANNOT_STOP;
+                            usedInstances++;
+                        }
+                    }
+
+                    if (inError) {
+                        // Wait for the error to be cleared.
+                        continue;
+                    }
+
+                    int missingInstances = Math.min(warmPoolSize - stoppedInstances,
+                            config.getMaxInstanceCount() - usedInstances - stoppedInstances);
+
+                    for (int i = 0; i < missingInstances; i++) {
+                        // Warm instances must never be seen as used, even transiently.
+                        DockerInstance instance = image.createInstance(InstanceStatus.STOPPED);
+                        newInstances.add(instance);
+                    }
+                }
+                return newInstances;
+            });
+
+            if (!warmInstances.isEmpty()) {
+                LOG.info("Creating " + warmInstances.size() + " warm instance(s).");
+            }
+
+            warmInstances.forEach(DefaultDockerCloudClient.this::warmUpInstance);
+        }
+    }
+
     private class SyncWithDockerTask extends DockerClientTask {
 
         private Duration nextDelay;
@@ -645,9 +1240,29 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
             return nextDelay == null ? super.getRescheduleDelay() : nextDelay;
         }
 
+        @Nonnull
+        @Override
+        Duration getDeadline() {
+            // A sync should not wait longer than the regular sync period.
+            return dockerSyncRate;
+        }
+
+        private boolean isAdaptive() {
+            return maxDockerSyncRate != null && !super.getRescheduleDelay().isNegative() && eventStream == null;
+        }
+
         private boolean reschedule() {
             return lock.call(() -> {
                 Duration rescheduleDelay = super.getRescheduleDelay();
+                if (!rescheduleDelay.isNegative() && eventStream != null) {
+                    // Daemon events are being tracked, only perform a full synchronization from time to time.
+                    rescheduleDelay = reconciliationRate;
+                } else if (isAdaptive()) {
+                    if (isFleetBusy()) {
+                        adaptiveSyncDelay = dockerSyncRate;
+                    }
+                    rescheduleDelay = adaptiveSyncDelay;
+                }
                 nextDelay = rescheduleDelay;
                 if (lastDockerSyncTime == null) {
                     // No sync performed yet.
@@ -673,166 +1288,431 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
 
             LOG.debug("Syncing with Docker instance now.");
 
-            // Creates the Docker client upon first sync. We do this here to benefit from the retry mechanism if
-            // the API negotiation fails.
-            if (clientFacade == null) {
-                clientFacade = cloudSupport.createClientFacade(dockerClientConfig);
-                LOG.info("Docker client instantiated.");
+            boolean settled = false;
+            try {
+                initClientFacade();
+
+                Map<UUID, Long> stateVersions = snapshotInstanceStates();
+
+                // Step 1, query the whole list of containers associated with this cloud client.
+                List<AgentHolderInfo> agentHolders = clientFacade.listAgentHolders(DockerCloudUtils.CLIENT_ID_LABEL,
+                        uuid.toString());
+
+                settled = applySync(stateVersions, agentHolders, !getRescheduleDelay().isZero());
+            } finally {
+                if (isAdaptive()) {
+                    updateAdaptiveSyncDelay(settled);
+                }
             }
+        }
+
+        private void updateAdaptiveSyncDelay(boolean settled) {
+            lock.run(() -> {
+                if (settled && !isFleetBusy()) {
+                    // The fleet is steady, back off.
+                    Duration delay = adaptiveSyncDelay.multipliedBy(2);
+                    adaptiveSyncDelay = delay.compareTo(maxDockerSyncRate) > 0 ? maxDockerSyncRate : delay;
+                } else {
+                    adaptiveSyncDelay = dockerSyncRate;
+                }
+                nextDelay = adaptiveSyncDelay;
+            });
+        }
+    }
 
-            // Step 1, query the whole list of containers associated with this cloud client.
-            List<AgentHolderInfo> agentHolders = clientFacade.listAgentHolders(DockerCloudUtils.CLIENT_ID_LABEL, uuid
-                    .toString());
+    /**
+     * Result of a {@link SharedAgentHolderPoller} listing cycle.
+     */
+    private static class SharedSyncResult {
 
-            List<SBuildAgent> unregisteredAgents = agentMgr.getUnregisteredAgents();
-            List<String> orphanedAgentHolders = new ArrayList<>();
-            List<SBuildAgent> obsoleteAgents = new ArrayList<>();
+        final Map<UUID, Long> stateVersions;
+        final List<AgentHolderInfo> agentHolders;
+        final Exception failure;
 
-            lock.runInterruptibly(() -> {
-                try {
-                    assert state != State.CREATED : "Cloud client is not initialized yet.";
-
-                    // Step 1, gather all instances.
-                    Map<UUID, DockerInstance> instances = new HashMap<>();
-                    for (DockerImage image : images.values()) {
-                        for (DockerInstance instance : image.getInstances()) {
-                            boolean unique = instances.put(instance.getUuid(), instance) == null;
-                            assert unique : "Found instance " + instance.getUuid() + " across several images.";
-                        }
+        SharedSyncResult(Map<UUID, Long> stateVersions, List<AgentHolderInfo> agentHolders, Exception failure) {
+            this.stateVersions = stateVersions;
+            this.agentHolders = agentHolders;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Synchronization with the Docker daemon based on the latest agent holders listed by the
+     * {@link SharedAgentHolderPoller}.
+     */
+    private class SharedSyncTask extends DockerClientTask {
+
+        SharedSyncTask() {
+            super("Shared synchronization with Docker daemon", DefaultDockerCloudClient.this);
+        }
+
+        @Override
+        protected void callInternal() throws Exception {
+            SharedSyncResult result = lock.call(() -> {
+                SharedSyncResult pending = pendingSharedSync;
+                pendingSharedSync = null;
+                return pending;
+            });
+
+            if (result == null) {
+                return;
+            }
+
+            if (result.failure != null) {
+                throw result.failure;
+            }
+
+            initClientFacade();
+
+            applySync(result.stateVersions, result.agentHolders, false);
+        }
+    }
+
+    /**
+     * Subscription of this client to the {@link SharedAgentHolderPoller}.
+     */
+    private class SharedSyncSubscriber implements SharedAgentHolderPoller.Subscriber {
+
+        @Nonnull
+        @Override
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        @Nonnull
+        @Override
+        public Duration getSyncRate() {
+            // Daemon events are being tracked, only perform a full synchronization from time to time.
+            return eventStream != null ? reconciliationRate : dockerSyncRate;
+        }
+
+        @Nonnull
+        @Override
+        public SharedAgentHolderPoller.PendingSync prepareSync() {
+            Map<UUID, Long> stateVersions = snapshotInstanceStates();
+            return new SharedAgentHolderPoller.PendingSync() {
+                @Override
+                public void complete(@Nonnull List<AgentHolderInfo> agentHolders) {
+                    scheduleSharedSync(new SharedSyncResult(stateVersions, agentHolders, null));
+                }
+
+                @Override
+                public void fail(@Nonnull Exception failure) {
+                    scheduleSharedSync(new SharedSyncResult(stateVersions, null, failure));
+                }
+            };
+        }
+
+        private void scheduleSharedSync(SharedSyncResult result) {
+            lock.run(() -> {
+                if (state != State.READY) {
+                    return;
+                }
+
+                // A sync is already queued: it will apply this newer result instead.
+                boolean queued = pendingSharedSync != null;
+                pendingSharedSync = result;
+                if (!queued) {
+                    taskScheduler.scheduleClientTask(new SharedSyncTask());
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "cloud client " + uuid;
+        }
+    }
+
+    private void initClientFacade() {
+        // Creates the Docker client upon first sync. We do this here to benefit from the retry mechanism if
+        // the API negotiation fails.
+        if (clientFacade == null) {
+            clientFacade = cloudSupport.createClientFacade(dockerClientConfig);
+            LOG.info("Docker client instantiated.");
+        }
+    }
+
+    private Map<UUID, Long> snapshotInstanceStates() {
+        // Snapshot the instances state before querying the daemon. Instance tasks may be executed concurrently,
+        // instances whose state changes while the agent holders are being listed will not be synced this time.
+        Map<UUID, Long> stateVersions = new HashMap<>();
+        for (DockerImage image : images.values()) {
+            for (DockerInstance instance : image.getInstances()) {
+                stateVersions.put(instance.getUuid(), instance.getStateVersion());
+            }
+        }
+        return stateVersions;
+    }
+
+    private boolean applySync(Map<UUID, Long> stateVersions, List<AgentHolderInfo> listedAgentHolders,
+                              boolean clearSyncScheduled) throws InterruptedException {
+
+        List<SBuildAgent> unregisteredAgents = agentMgr.getUnregisteredAgents();
+        List<String> orphanedAgentHolders = new ArrayList<>();
+        List<SBuildAgent> obsoleteAgents = new ArrayList<>();
+
+        // Reuse the info sets of the agent holders whose state did not change since the previous sync.
+        SyncGeneration previousGeneration = syncGeneration;
+        boolean agentHoldersChanged = previousGeneration == null ||
+                previousGeneration.agentHolders.size() != listedAgentHolders.size();
+        List<AgentHolderInfo> agentHolders = new ArrayList<>(listedAgentHolders.size());
+        for (AgentHolderInfo agentHolder : listedAgentHolders) {
+            AgentHolderInfo knownAgentHolder = previousGeneration != null ?
+                    previousGeneration.agentHolders.get(agentHolder.getTaskId()) : null;
+            if (knownAgentHolder != null && knownAgentHolder.hasSameState(agentHolder)) {
+                agentHolders.add(knownAgentHolder);
+            } else {
+                agentHolders.add(agentHolder);
+                agentHoldersChanged = true;
+            }
+        }
+
+        // Nothing to reconcile if neither the agent holders nor the instances changed since a sync that did not
+        // modify anything.
+        if (!agentHoldersChanged && stateVersions.equals(previousGeneration.settledStateVersions) &&
+                errorInfo == null && !hasUnregisteredAgentsToDiscard(unregisteredAgents)) {
+            LOG.debug("No change detected since last sync.");
+            lastDockerSyncTime = Instant.now();
+            if (clearSyncScheduled) {
+                lock.run(() -> dockerSyncScheduled = false);
+            }
+            return true;
+        }
+
+        boolean settled = lock.callInterruptibly(() -> {
+            boolean settledSync = true;
+            try {
+                assert state != State.CREATED : "Cloud client is not initialized yet.";
+
+                // Step 1, gather all instances.
+                Map<UUID, DockerInstance> instances = new HashMap<>();
+                for (DockerImage image : images.values()) {
+                    for (DockerInstance instance : image.getInstances()) {
+                        boolean unique = instances.put(instance.getUuid(), instance) == null;
+                        assert unique : "Found instance " + instance.getUuid() + " across several images.";
                     }
+                }
 
-                    // Step 2: pro-actively discard unregistered agent that are no longer referenced, they are lost
-                    // to us.
-                    for (SBuildAgent agent : unregisteredAgents) {
-                        if (uuid.equals(DockerCloudUtils.getClientId(agent))) {
-                            UUID instanceId = DockerCloudUtils.getInstanceId(agent);
-                            boolean discardAgent = false;
-                            if (instanceId == null) {
-                                LOG.warn("No instance UUID associated with cloud agent " + agent + ".");
-                                discardAgent = true;
-                            } else if (!instances.containsKey(instanceId)) {
-                                LOG.info("Discarding orphan agent: " + agent);
-                                discardAgent = true;
-                            }
-                            if (discardAgent) {
-                                obsoleteAgents.add(agent);
-                            }
+                // Step 2: pro-actively discard unregistered agent that are no longer referenced, they are lost
+                // to us.
+                for (SBuildAgent agent : unregisteredAgents) {
+                    if (uuid.equals(DockerCloudUtils.getClientId(agent))) {
+                        UUID instanceId = DockerCloudUtils.getInstanceId(agent);
+                        boolean discardAgent = false;
+                        if (instanceId == null) {
+                            LOG.warn("No instance UUID associated with cloud agent " + agent + ".");
+                            discardAgent = true;
+                        } else if (!instances.containsKey(instanceId)) {
+                            LOG.info("Discarding orphan agent: " + agent);
+                            discardAgent = true;
+                        }
+                        if (discardAgent) {
+                            obsoleteAgents.add(agent);
                         }
                     }
+                }
 
-                    LOG.debug("Found " + agentHolders.size() + " containers to be synced: " + agentHolders);
+                LOG.debug("Found " + agentHolders.size() + " containers to be synced: " + agentHolders);
 
-                    // Step 3: remove all instance in an error status.
-                    Iterator<DockerInstance> itr = instances.values().iterator();
-                    while (itr.hasNext()) {
-                        DockerInstance instance = itr.next();
-                        InstanceStatus status = instance.getStatus();
-                        if (status == InstanceStatus.ERROR || status == InstanceStatus.ERROR_CANNOT_STOP) {
-                            Optional<String> agentHolderId = instance.getAgentHolderId();
-                            instance.getImage().clearInstanceId(instance.getUuid());
-                            agentHolderId.ifPresent(orphanedAgentHolders::add);
-                            itr.remove();
-
-                        } else if (status == InstanceStatus.UNKNOWN || status == InstanceStatus.SCHEDULED_TO_START
-                                || status == InstanceStatus.STARTING) {
-                            // Instance is currently starting, container may not be available yet, skip sync.
-                            itr.remove();
-                        }
+                // Leave out the instances that were modified since the snapshot.
+                Set<UUID> modifiedInstances = new HashSet<>();
+                for (DockerInstance instance : instances.values()) {
+                    Long stateVersion = stateVersions.get(instance.getUuid());
+                    if (stateVersion == null || stateVersion != instance.getStateVersion()) {
+                        modifiedInstances.add(instance.getUuid());
                     }
+                }
+                if (!modifiedInstances.isEmpty()) {
+                    LOG.debug("Skipping sync of concurrently modified instances: " + modifiedInstances);
+                    instances.keySet().removeAll(modifiedInstances);
+                }
 
-                    Set<UUID> spottedInstances = new HashSet<>(instances.size());
+                // Step 3: remove all instance in an error status.
+                Iterator<DockerInstance> itr = instances.values().iterator();
+                while (itr.hasNext()) {
+                    DockerInstance instance = itr.next();
+                    InstanceStatus status = instance.getStatus();
+                    if (status == InstanceStatus.ERROR || status == InstanceStatus.ERROR_CANNOT_STOP) {
+                        Optional<String> agentHolderId = instance.getAgentHolderId();
+                        instance.getImage().clearInstanceId(instance.getUuid());
+                        agentHolderId.ifPresent(orphanedAgentHolders::add);
+                        itr.remove();
+                        settledSync = false;
+
+                    } else if (status == InstanceStatus.UNKNOWN || status == InstanceStatus.SCHEDULED_TO_START
+                            || status == InstanceStatus.STARTING) {
+                        // Instance is currently starting, container may not be available yet, skip sync.
+                        itr.remove();
+                    }
+                }
 
-                    // Step 4, gather orphaned agent holder
-                    for (AgentHolderInfo agentHolder : agentHolders) {
-                        UUID instanceUuid = DockerCloudUtils.tryParseAsUUID(agentHolder.getLabels().
-                                get(DockerCloudUtils.INSTANCE_ID_LABEL));
-                        if (instanceUuid == null) {
-                            continue;
-                        }
+                Set<UUID> spottedInstances = new HashSet<>(instances.size());
 
-                        String agentHolderId = agentHolder.getId();
+                // Step 4, gather orphaned agent holder
+                for (AgentHolderInfo agentHolder : agentHolders) {
+                    UUID instanceUuid = DockerCloudUtils.tryParseAsUUID(agentHolder.getLabels().
+                            get(DockerCloudUtils.INSTANCE_ID_LABEL));
+                    if (instanceUuid == null) {
+                        continue;
+                    }
 
-                        DockerInstance instance = instances.get(instanceUuid);
-                        if (instance == null) {
-                            LOG.warn("Schedule removal of agent holder " + agentHolderId + " with unknown instance id " +
-                                            instanceUuid + ".");
-                            orphanedAgentHolders.add(agentHolderId);
-                            continue;
-                        }
+                    String agentHolderId = agentHolder.getId();
 
-                        if (!agentHolderId.equals(instance.getAgentHolderId().orElse(null)) || !agentHolder
-                                .getTaskId().equals(instance.getTaskId().orElse(null))) {
-                            continue;
-                        }
+                    if (modifiedInstances.contains(instanceUuid)) {
+                        continue;
+                    }
+
+                    DockerInstance instance = instances.get(instanceUuid);
+                    if (instance == null) {
+                        LOG.warn("Schedule removal of agent holder " + agentHolderId + " with unknown instance id " +
+                                        instanceUuid + ".");
+                        orphanedAgentHolders.add(agentHolderId);
+                        continue;
+                    }
+
+                    if (!agentHolderId.equals(instance.getAgentHolderId().orElse(null)) || !agentHolder
+                            .getTaskId().equals(instance.getTaskId().orElse(null))) {
+                        continue;
+                    }
 
+                    // Info sets of unchanged agent holders are reused across syncs.
+                    if (instance.getAgentHolderInfo().orElse(null) != agentHolder) {
                         instance.setAgentHolderInfo(agentHolder);
+                        settledSync = false;
+                    }
 
-                        spottedInstances.add(instanceUuid);
+                    spottedInstances.add(instanceUuid);
 
-                        InstanceStatus instanceStatus = instance.getStatus();
+                    InstanceStatus instanceStatus = instance.getStatus();
 
-                        if (agentHolder.isRunning() && instanceStatus == InstanceStatus.STOPPED) {
-                            LOG.warn("Agent holder " + agentHolder.getId() + " for instance " + instanceUuid +
-                                    " was started externally.");
-                            continue;
-                        }
+                    if (agentHolder.isRunning() && instanceStatus == InstanceStatus.STOPPED) {
+                        LOG.warn("Agent holder " + agentHolder.getId() + " for instance " + instanceUuid +
+                                " was started externally.");
+                        continue;
+                    }
 
-                        if (!agentHolder.isRunning() && instanceStatus == InstanceStatus.RUNNING) {
-                            LOG.error("Agent holder " + agentHolderId + " exited prematurely.");
-                            cloudState.registerTerminatedInstance(instance.getImageId(), instance.getInstanceId());
-                            instance.notifyFailure("Container or service exited prematurely.", null);
-                        }
+                    if (!agentHolder.isRunning() && instanceStatus == InstanceStatus.RUNNING) {
+                        LOG.error("Agent holder " + agentHolderId + " exited prematurely.");
+                        cloudState.registerTerminatedInstance(instance.getImageId(), instance.getInstanceId());
+                        instance.notifyFailure("Container or service exited prematurely.", null);
+                        settledSync = false;
                     }
+                }
 
-                    instances.keySet().removeAll(spottedInstances);
+                instances.keySet().removeAll(spottedInstances);
 
-                    // Step 5, process orphaned instances.
-                    if (!instances.isEmpty()) {
-                        for (DockerInstance instance : instances.values()) {
-                            if (instance.getStatus() == InstanceStatus.RUNNING) {
-                                cloudState.registerTerminatedInstance(instance.getImageId(), instance.getInstanceId());
-                                instance.notifyFailure("Container was destroyed.", null);
-                                instance.setAgentHolderInfo(null);
-                            }
+                // Step 5, process orphaned instances.
+                if (!instances.isEmpty()) {
+                    for (DockerInstance instance : instances.values()) {
+                        if (instance.getStatus() == InstanceStatus.RUNNING) {
+                            cloudState.registerTerminatedInstance(instance.getImageId(), instance.getInstanceId());
+                            instance.notifyFailure("Container was destroyed.", null);
+                            instance.setAgentHolderInfo(null);
+                            settledSync = false;
                         }
                     }
+                }
 
-                    // Sync is successful.
+                // Sync is successful.
 
-                    if (errorInfo != null) {
-                        LOG.info("Sync successful, clearing error: " + errorInfo);
-                        errorInfo = null;
-                    }
-
-                    lastDockerSyncTime = Instant.now();
-                } finally {
-                    // If this task was explicitly scheduled (not automatically fired) then clear the corresponding
-                    // flag.
-                    if (!getRescheduleDelay().isZero()) {
-                        dockerSyncScheduled = false;
-                    }
+                if (errorInfo != null) {
+                    LOG.info("Sync successful, clearing error: " + errorInfo);
+                    errorInfo = null;
                 }
-            });
 
-            obsoleteAgents.forEach(agent -> {
-                try {
-                    agentMgr.removeAgent(agent, null);
-                } catch (AgentCannotBeRemovedException e) {
-                    LOG.warn("Failed to remove unregistered agent.", e);
+                settledSync &= obsoleteAgents.isEmpty() && orphanedAgentHolders.isEmpty() &&
+                        modifiedInstances.isEmpty();
+
+                syncGeneration = new SyncGeneration(agentHolders, settledSync ? stateVersions : null);
+
+                lastDockerSyncTime = Instant.now();
+            } finally {
+                // If this task was explicitly scheduled (not automatically fired) then clear the corresponding
+                // flag.
+                if (clearSyncScheduled) {
+                    dockerSyncScheduled = false;
                 }
-            });
+            }
+            return settledSync;
+        });
 
-            if (!orphanedAgentHolders.isEmpty()) {
-                LOG.info("The following orphaned containers will be removed: " + orphanedAgentHolders);
+        obsoleteAgents.forEach(agent -> {
+            try {
+                agentMgr.removeAgent(agent, null);
+            } catch (AgentCannotBeRemovedException e) {
+                LOG.warn("Failed to remove unregistered agent.", e);
             }
-            for (String orphanedContainer : orphanedAgentHolders) {
-                try {
-                    terminateContainer(orphanedContainer, false, true);
-                } catch (Exception e) {
-                    LOG.error("Failed to remove container.", e);
+        });
+
+        if (!orphanedAgentHolders.isEmpty()) {
+            LOG.info("The following orphaned containers will be removed: " + orphanedAgentHolders);
+        }
+        for (String orphanedContainer : orphanedAgentHolders) {
+            try {
+                terminateContainer(orphanedContainer, false, true);
+            } catch (Exception e) {
+                LOG.error("Failed to remove container.", e);
+            }
+        }
+
+        return settled;
+    }
+
+    private boolean hasUnregisteredAgentsToDiscard(List<SBuildAgent> unregisteredAgents) {
+        for (SBuildAgent agent : unregisteredAgents) {
+            if (uuid.equals(DockerCloudUtils.getClientId(agent))) {
+                UUID instanceId = DockerCloudUtils.getInstanceId(agent);
+                if (instanceId == null || !instancesByUuid.containsKey(instanceId)) {
+                    return true;
                 }
             }
         }
+        return false;
+    }
+
+    private boolean isFleetBusy() {
+        if (errorInfo != null) {
+            return true;
+        }
+        for (DockerInstance instance : instancesByUuid.values()) {
+            switch (instance.getStatus()) {
+                case UNKNOWN:
+                case SCHEDULED_TO_START:
+                case STARTING:
+                case SCHEDULED_TO_STOP:
+                case STOPPING:
+                case ERROR:
+                case ERROR_CANNOT_STOP:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Outcome of a synchronization with the daemon.
+     */
+    private static class SyncGeneration {
+
+        /**
+         * The synced agent holders info sets, indexed with their task ID.
+         */
+        final Map<String, AgentHolderInfo> agentHolders;
+
+        /**
+         * The instances state versions the synchronization was based on, if it did not modify any instance.
+         * {@code null} otherwise.
+         */
+        final Map<UUID, Long> settledStateVersions;
+
+        SyncGeneration(List<AgentHolderInfo> agentHolders, Map<UUID, Long> settledStateVersions) {
+            this.agentHolders = new HashMap<>(agentHolders.size());
+            for (AgentHolderInfo agentHolder : agentHolders) {
+                this.agentHolders.put(agentHolder.getTaskId(), agentHolder);
+            }
+            this.settledStateVersions = settledStateVersions;
+        }
     }
 
     private void checkReady() {
@@ -842,6 +1722,13 @@ public class DefaultDockerCloudClient extends BuildServerAdapter implements Dock
         }
     }
 
+    /**
+     * For testing purpose. Schedules a synchronization with the Docker daemon, unless one is already scheduled.
+     */
+    void requestDockerSync() {
+        scheduleDockerSync();
+    }
+
     /**
      * For testing purpose. Check if a lock on the internal state of this class is held by the current thread.
      *
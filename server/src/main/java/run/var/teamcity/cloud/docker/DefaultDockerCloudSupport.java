@@ -2,7 +2,7 @@ package run.var.teamcity.cloud.docker;
 
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientConfig;
-import run.var.teamcity.cloud.docker.client.DockerClientFactory;
+import run.var.teamcity.cloud.docker.client.SharedDockerClientRegistry;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.Resources;
 
@@ -25,6 +25,13 @@ public enum DefaultDockerCloudSupport implements DockerCloudSupport {
             return new DefaultDockerClientFacade(createClient(dockerClientConfig));
         }
 
+        @Nonnull
+        @Override
+        public DockerClientFacade createBorrowingClientFacade(@Nonnull DockerClientConfig dockerClientConfig) {
+            DockerCloudUtils.requireNonNull(dockerClientConfig, "Docker client configuration cannot be null.");
+            return new DefaultDockerClientFacade(borrowClient(dockerClientConfig));
+        }
+
         @Nonnull
         @Override
         public DockerImageConfigParser createImageConfigParser() {
@@ -49,6 +56,13 @@ public enum DefaultDockerCloudSupport implements DockerCloudSupport {
             return new SwarmDockerClientFacade(createClient(dockerClientConfig));
         }
 
+        @Nonnull
+        @Override
+        public DockerClientFacade createBorrowingClientFacade(@Nonnull DockerClientConfig dockerClientConfig) {
+            DockerCloudUtils.requireNonNull(dockerClientConfig, "Docker client configuration cannot be null.");
+            return new SwarmDockerClientFacade(borrowClient(dockerClientConfig));
+        }
+
         @Nonnull
         @Override
         public DockerImageConfigParser createImageConfigParser() {
@@ -91,7 +105,11 @@ public enum DefaultDockerCloudSupport implements DockerCloudSupport {
     }
 
     private static DockerClient createClient(DockerClientConfig clientConfig) {
-        return DockerClientFactory.getDefault().createClientWithAPINegotiation(clientConfig);
+        return SharedDockerClientRegistry.getDefault().acquireClient(clientConfig);
+    }
+
+    private static DockerClient borrowClient(DockerClientConfig clientConfig) {
+        return SharedDockerClientRegistry.getDefault().borrowClient(clientConfig);
     }
 
     private static DockerImageConfigParser createParser(URL migrationScriptName) {
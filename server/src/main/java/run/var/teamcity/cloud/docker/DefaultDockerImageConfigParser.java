@@ -54,7 +54,8 @@ public class DefaultDockerImageConfigParser implements DockerImageConfigParser {
             DockerRegistryCredentials dockerRegistryCredentials =  registryAuthentication(admin);
 
             return new DockerImageConfig(profileName, agentHolderSpec, pullOnCreate, deleteOnExit,
-                    useOfficialTCAgentImage, dockerRegistryCredentials, admin.getAsInt("MaxInstanceCount", -1), agentPoolId);
+                    useOfficialTCAgentImage, dockerRegistryCredentials, admin.getAsInt("MaxInstanceCount", -1), agentPoolId,
+                    admin.getAsInt("WarmPoolSize", 0));
         } catch (Exception e) {
             throw new IllegalArgumentException("Failed to parse image JSON definition:\n" + node, e);
         }
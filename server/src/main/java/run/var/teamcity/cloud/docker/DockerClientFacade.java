@@ -2,10 +2,13 @@ package run.var.teamcity.cloud.docker;
 
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientException;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -42,6 +45,46 @@ public interface DockerClientFacade extends AutoCloseable {
     @Nonnull
     NewAgentHolderInfo createAgent(@Nonnull CreateAgentParameters createParameters);
 
+    /**
+     * Prepares the specification for the creation of new agents. This covers all the creation steps that do not
+     * depend on a specific agent (such as pulling and inspecting the source image). The labels and environment
+     * variables from the creation parameters will be ignored.
+     *
+     * @param createParameters parameters for creating the agents
+     *
+     * @return the prepared agent holder specification
+     *
+     * @throws NullPointerException if {@code createParameters} is {@code null}
+     * @throws IllegalArgumentException if the some of the creation parameters are not valid for this facade
+     * implementation
+     * @throws DockerClientException if an error occurred while interacting with the Docker daemon
+     * @throws DockerClientFacadeException if an error occurred while processing the creation parameters or the daemon
+     * response
+     *
+     * @see #createAgent(PreparedAgentHolderSpec, Map, Map)
+     */
+    @Nonnull
+    PreparedAgentHolderSpec prepareAgentHolder(@Nonnull CreateAgentParameters createParameters);
+
+    /**
+     * Creates a new, unstarted, agent from a prepared specification.
+     *
+     * @param preparedSpec the prepared agent holder specification
+     * @param labels the labels to be set on the agent holder
+     * @param env the environment variables to be set on the agent holder
+     *
+     * @return the information related to the created agent holder
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws DockerClientException if an error occurred while interacting with the Docker daemon
+     * @throws DockerClientFacadeException if an error occurred while processing the daemon response
+     *
+     * @see #prepareAgentHolder(CreateAgentParameters)
+     */
+    @Nonnull
+    NewAgentHolderInfo createAgent(@Nonnull PreparedAgentHolderSpec preparedSpec, @Nonnull Map<String, String> labels,
+                                   @Nonnull Map<String, String> env);
+
     /**
      * Starts the agent owned by the given agent holder id.
      *
@@ -70,17 +113,42 @@ public interface DockerClientFacade extends AutoCloseable {
      * Lists the agent filtered with the given label key and value.
      *
      * @param labelFilter the label key
-     * @param valueFilter the label value
+     * @param valueFilter the label value, or {@code null} to list the agent holders having the label set with any
+     * value
      *
      * @return the list of agent holders with the given label set
      *
-     * @throws NullPointerException if any argument is {@code null}
+     * @throws NullPointerException if {@code labelFilter} is {@code null}
      * @throws DockerClientException if an error occurred while interacting with the Docker daemon
      * @throws DockerClientFacadeException if an error occurred while processing the creation parameters or the daemon
      * response
      */
     @Nonnull
-    List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nonnull String valueFilter);
+    List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nullable String valueFilter);
+
+    /**
+     * Streams the lifecycle events of the agent holders filtered with the given label key and value.
+     *
+     * @param labelFilter the label key
+     * @param valueFilter the label value
+     *
+     * @return the stream of events
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws UnsupportedOperationException if streaming events is not supported by this facade
+     * @throws DockerClientException if an error occurred while interacting with the Docker daemon
+     *
+     * @see #supportStreamingEvents()
+     */
+    @Nonnull
+    AgentHolderEventStream streamAgentHolderEvents(@Nonnull String labelFilter, @Nonnull String valueFilter);
+
+    /**
+     * Checks if this facade supports streaming the agent holders lifecycle events.
+     *
+     * @return {@code true} if streaming events is supported
+     */
+    boolean supportStreamingEvents();
 
     /**
      * Terminates the agent holder with the given id.
@@ -113,6 +181,25 @@ public interface DockerClientFacade extends AutoCloseable {
     @Nonnull
     CharSequence getLogs(@Nonnull String agentHolderId);
 
+    /**
+     * Fetches the agent holder logs incrementally. Only the logs that were not retrieved yet using the given cursor
+     * will be fetched from the daemon, and the cursor will be moved past them. The VT100 control sequences are then
+     * stripped from these new logs using the given filter.
+     *
+     * @param agentHolderId the agent container id
+     * @param cursor the logs cursor
+     * @param filter the VT100 control sequences filter
+     *
+     * @return the agent holder logs not retrieved yet
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws DockerClientException if an error occurred while interacting with the Docker daemon
+     * @throws DockerClientFacadeException if an error occurred while processing the daemon response
+     */
+    @Nonnull
+    CharSequence getLogs(@Nonnull String agentHolderId, @Nonnull LogsCursor cursor,
+            @Nonnull VT100EscapeFilter filter);
+
     /**
      * Stream the logs for the given agent holder.
      *
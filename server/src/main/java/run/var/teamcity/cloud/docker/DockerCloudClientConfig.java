@@ -21,11 +21,14 @@ import java.util.UUID;
 /**
  * Configuration of a {@link DockerCloudClient}. Could be instantiated directly, or from a cloud parameter map.
  * The wrapped Docker client config will use the currently supported API version.
+ *
+ * <p>Instances of this class are not thread-safe.</p>
  */
 public class DockerCloudClientConfig {
 
     static final Duration DEFAULT_DOCKER_SYNC_RATE = Duration.ofSeconds(30);
     static final Duration DEFAULT_TASK_TIMEOUT_MILLIS = Duration.ofMinutes(10);
+    static final Duration DEFAULT_RECONCILIATION_RATE = Duration.ofMinutes(5);
 
     private final DockerCloudSupport cloudType;
     private final UUID uuid;
@@ -34,6 +37,11 @@ public class DockerCloudClientConfig {
     private final Duration dockerSyncRate;
     private final Duration taskTimeout;
     private final URL serverURL;
+    private boolean usingEventDrivenSync = false;
+    private boolean usingConcurrentSync = false;
+    private boolean usingSharedSync = false;
+    private Duration maxDockerSyncRate = null;
+    private Duration reconciliationRate = DEFAULT_RECONCILIATION_RATE;
 
     /**
      * Creates a new configuration instance.
@@ -86,6 +94,88 @@ public class DockerCloudClientConfig {
         this.serverURL = serverURL;
     }
 
+    /**
+     * Enable/disable the event-driven synchronization. When enabled, the cloud client will track its agent holders
+     * using the daemon events stream, and fall back to a full synchronization at the {@link
+     * #reconciliationRate(Duration) reconciliation rate} only. Default is {@code false}.
+     *
+     * @param usingEventDrivenSync {@code true} to enable the event-driven synchronization
+     *
+     * @return this configuration instance for chained invocation
+     */
+    public DockerCloudClientConfig usingEventDrivenSync(boolean usingEventDrivenSync) {
+        this.usingEventDrivenSync = usingEventDrivenSync;
+        return this;
+    }
+
+    /**
+     * Enable/disable the concurrent synchronization. When enabled, the synchronization with the daemon will be
+     * performed concurrently with the operations on the cloud instances (such as starting or stopping an agent),
+     * instead of holding them back. Default is {@code false}.
+     *
+     * @param usingConcurrentSync {@code true} to enable the concurrent synchronization
+     *
+     * @return this configuration instance for chained invocation
+     */
+    public DockerCloudClientConfig usingConcurrentSync(boolean usingConcurrentSync) {
+        this.usingConcurrentSync = usingConcurrentSync;
+        return this;
+    }
+
+    /**
+     * Enable/disable the shared synchronization. When enabled, the agent holders will be listed by a poller shared
+     * with all the other cloud clients connected to the same daemon, instead of being listed by each client
+     * independently. Default is {@code false}.
+     *
+     * @param usingSharedSync {@code true} to enable the shared synchronization
+     *
+     * @return this configuration instance for chained invocation
+     */
+    public DockerCloudClientConfig usingSharedSync(boolean usingSharedSync) {
+        this.usingSharedSync = usingSharedSync;
+        return this;
+    }
+
+    /**
+     * Enable the adaptive synchronization rate. When enabled, the synchronization with the daemon will be performed
+     * at the {@link #getDockerSyncRate() regular rate} while the cloud instances are being started or stopped, or
+     * after a failure. The delay between two synchronizations will otherwise be doubled after each synchronization,
+     * up to the given maximal rate. Default is {@code null}, the synchronization being performed at a fixed rate.
+     *
+     * @param maxDockerSyncRate the maximal synchronization rate, or {@code null} to use a fixed rate
+     *
+     * @return this configuration instance for chained invocation
+     *
+     * @throws IllegalArgumentException if the maximal rate is shorter than the regular synchronization rate
+     */
+    public DockerCloudClientConfig maxDockerSyncRate(@Nullable Duration maxDockerSyncRate) {
+        if (maxDockerSyncRate != null && maxDockerSyncRate.compareTo(dockerSyncRate) < 0) {
+            throw new IllegalArgumentException("Maximal Docker sync rate cannot be shorter than the sync rate.");
+        }
+        this.maxDockerSyncRate = maxDockerSyncRate;
+        return this;
+    }
+
+    /**
+     * Rate at which a full synchronization with the daemon is performed when the event-driven synchronization is
+     * active. Default to 5 minutes.
+     *
+     * @param reconciliationRate the reconciliation rate
+     *
+     * @return this configuration instance for chained invocation
+     *
+     * @throws NullPointerException if {@code reconciliationRate} is {@code null}
+     * @throws IllegalArgumentException if the reconciliation rate is below 2 seconds
+     */
+    public DockerCloudClientConfig reconciliationRate(@Nonnull Duration reconciliationRate) {
+        DockerCloudUtils.requireNonNull(reconciliationRate, "Reconciliation rate cannot be null.");
+        if (reconciliationRate.getSeconds() < 2) {
+            throw new IllegalArgumentException("Reconciliation rate must be of at least 2 seconds.");
+        }
+        this.reconciliationRate = reconciliationRate;
+        return this;
+    }
+
     /**
      * Gets the client profile type.
      *
@@ -134,6 +224,17 @@ public class DockerCloudClientConfig {
         return dockerSyncRate;
     }
 
+    /**
+     * Maximal delay between two synchronizations with the Docker daemon when using the adaptive synchronization rate.
+     * Will be {@code null} if the synchronization is performed at a fixed rate.
+     *
+     * @return the maximal synchronization rate or {@code null}
+     */
+    @Nullable
+    public Duration getMaxDockerSyncRate() {
+        return maxDockerSyncRate;
+    }
+
     /**
      * The maximal duration of a cloud related operations.
      *
@@ -144,6 +245,46 @@ public class DockerCloudClientConfig {
         return taskTimeout;
     }
 
+    /**
+     * Checks if the cloud client must track its agent holders using the daemon events stream.
+     *
+     * @return {@code true} if the event-driven synchronization is enabled
+     */
+    public boolean isUsingEventDrivenSync() {
+        return usingEventDrivenSync;
+    }
+
+    /**
+     * Checks if the synchronization with the daemon must be performed concurrently with the cloud instances
+     * operations.
+     *
+     * @return {@code true} if the concurrent synchronization is enabled
+     */
+    public boolean isUsingConcurrentSync() {
+        return usingConcurrentSync;
+    }
+
+    /**
+     * Checks if the agent holders must be listed by a poller shared with the other cloud clients connected to the
+     * same daemon.
+     *
+     * @return {@code true} if the shared synchronization is enabled
+     */
+    public boolean isUsingSharedSync() {
+        return usingSharedSync;
+    }
+
+    /**
+     * Rate at which a full synchronization with the daemon is performed when the event-driven synchronization is
+     * active.
+     *
+     * @return the reconciliation rate
+     */
+    @Nonnull
+    public Duration getReconciliationRate() {
+        return reconciliationRate;
+    }
+
     /**
      * Gets the server URL for the agents to connect. May be null to use the default server URL.
      *
@@ -196,6 +337,9 @@ public class DockerCloudClientConfig {
         }
 
         boolean usingTls = optionalFlag(DockerCloudUtils.USE_TLS, properties);
+        boolean usingEventDrivenSync = optionalFlag(DockerCloudUtils.USE_EVENT_DRIVEN_SYNC_PARAM, properties);
+        boolean usingConcurrentSync = optionalFlag(DockerCloudUtils.USE_CONCURRENT_SYNC_PARAM, properties);
+        boolean usingSharedSync = optionalFlag(DockerCloudUtils.USE_SHARED_SYNC_PARAM, properties);
 
         URI instanceURI = null;
         if (DockerCloudUtils.isWindowsHost()) {
@@ -217,7 +361,7 @@ public class DockerCloudClientConfig {
                             DockerCloudUtils.DOCKER_API_TARGET_VERSION).usingTls(usingTls);
                     if (cloudSupport != null) {
                         try {
-                            cloudSupport.createClientFacade(dockerConfig);
+                            cloudSupport.createClientFacade(dockerConfig).close();
                         } catch (IllegalArgumentException e) {
                             invalidProperties.add(new InvalidProperty(DockerCloudUtils.INSTANCE_URI, e.getMessage()));
                         }
@@ -240,6 +384,23 @@ public class DockerCloudClientConfig {
             }
         }
 
+        Duration maxDockerSyncRate = null;
+
+        String maxDockerSyncRateStr = properties.get(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM);
+
+        if (!StringUtil.isEmpty(maxDockerSyncRateStr)) {
+            try {
+                maxDockerSyncRate = Duration.ofSeconds(Long.parseLong(maxDockerSyncRateStr.trim()));
+                if (maxDockerSyncRate.compareTo(DEFAULT_DOCKER_SYNC_RATE) < 0) {
+                    invalidProperties.add(new InvalidProperty(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM,
+                            "Must be of at least " + DEFAULT_DOCKER_SYNC_RATE.getSeconds() + " seconds"));
+                }
+            } catch (NumberFormatException e) {
+                invalidProperties.add(new InvalidProperty(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM,
+                        "Not a valid number of seconds"));
+            }
+        }
+
         if (!invalidProperties.isEmpty()) {
             throw new DockerCloudClientConfigException(invalidProperties);
         }
@@ -249,7 +410,11 @@ public class DockerCloudClientConfig {
         DockerClientConfig dockerClientConfig =
                 new DockerClientConfig(instanceURI, DockerCloudUtils.DOCKER_API_TARGET_VERSION).usingTls(usingTls);
 
-        return new DockerCloudClientConfig(cloudSupport, clientUuid, dockerClientConfig, true, serverURL);
+        return new DockerCloudClientConfig(cloudSupport, clientUuid, dockerClientConfig, true, serverURL).
+                usingEventDrivenSync(usingEventDrivenSync).
+                usingConcurrentSync(usingConcurrentSync).
+                usingSharedSync(usingSharedSync).
+                maxDockerSyncRate(maxDockerSyncRate);
     }
 
     private static boolean optionalFlag(String key, Map<String, String> properties) {
@@ -47,6 +47,19 @@ public interface DockerCloudSupport extends Serializable {
     @Nonnull
     DockerClientFacade createClientFacade(@Nonnull DockerClientConfig dockerClientConfig);
 
+    /**
+     * Creates a new Docker client facade for this support instance, borrowing the connections of the other clients
+     * connected to the same daemon endpoint instead of opening its own.
+     *
+     * @param dockerClientConfig the Docker client configuration
+     *
+     * @return the created Docker client facade
+     *
+     * @throws NullPointerException if {@code dockerClientConfig} is {@code null}
+     */
+    @Nonnull
+    DockerClientFacade createBorrowingClientFacade(@Nonnull DockerClientConfig dockerClientConfig);
+
     /**
      * Creates new image configuration parser for this support instance.
      *
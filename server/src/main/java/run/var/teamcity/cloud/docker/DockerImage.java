@@ -11,9 +11,10 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A Docker {@link CloudImage}.
@@ -26,10 +27,29 @@ public class DockerImage implements CloudImage {
     private final UUID uuid = UUID.randomUUID();
     private final DockerImageConfig config;
 
-    // This lock ensure a thread-safe usage of all the variables below.
+    // This lock serializes the modifications of the variables below. Readers must not acquire it.
     private final LockHandler lock = LockHandler.newReentrantLock();
 
-    private final Map<UUID, DockerInstance> instances = new ConcurrentHashMap<>();
+    /**
+     * Immutable snapshot of the registered instances, indexed with their UUID. The snapshot is replaced (copy on write)
+     * each time an instance is registered or unregistered, so it can be read without locking.
+     */
+    private volatile Map<UUID, DockerInstance> instances = Collections.emptyMap();
+
+    /**
+     * Last status accounted in the counters below for each registered instance.
+     */
+    private final Map<UUID, InstanceStatus> countedStatuses = new HashMap<>();
+
+    /**
+     * Number of registered instances which are not stopped.
+     */
+    private volatile int usedInstanceCount = 0;
+
+    /**
+     * Number of registered instances in error state.
+     */
+    private volatile int errorInstanceCount = 0;
 
     DockerImage(DefaultDockerCloudClient cloudClient, DockerImageConfig config) {
         this.cloudClient = cloudClient;
@@ -59,7 +79,7 @@ public class DockerImage implements CloudImage {
     @Nonnull
     @Override
     public String getName() {
-        return lock.call(config::getProfileName);
+        return config.getProfileName();
     }
 
     /**
@@ -75,7 +95,7 @@ public class DockerImage implements CloudImage {
     @Nonnull
     @Override
     public Collection<DockerInstance> getInstances() {
-        return lock.call(() -> Collections.unmodifiableCollection(instances.values()));
+        return instances.values();
     }
 
     @Nullable
@@ -102,7 +122,7 @@ public class DockerImage implements CloudImage {
     @Nullable
     DockerInstance findInstanceById(@Nonnull UUID id) {
         DockerCloudUtils.requireNonNull(id, "UUID cannot be null.");
-        return lock.call(() -> instances.get(id));
+        return instances.get(id);
     }
 
     @Nullable
@@ -124,9 +144,35 @@ public class DockerImage implements CloudImage {
      */
     @Nonnull
     DockerInstance createInstance() {
-        DockerInstance instance = new DockerInstance(this);
+        return createInstance(InstanceStatus.UNKNOWN);
+    }
 
-        lock.run(() -> instances.put(instance.getUuid(), instance));
+    /**
+     * Creates and register a new cloud instance with the given initial status. The instance is only published once
+     * its status is set, so concurrent readers never observe it with a different status.
+     *
+     * @param initialStatus the instance initial status
+     *
+     * @return the created cloud instance
+     *
+     * @throws NullPointerException if {@code initialStatus} is {@code null}
+     */
+    @Nonnull
+    DockerInstance createInstance(@Nonnull InstanceStatus initialStatus) {
+        DockerInstance instance = new DockerInstance(this, initialStatus);
+
+        lock.run(() -> {
+            Map<UUID, DockerInstance> newInstances = new LinkedHashMap<>(instances);
+            newInstances.put(instance.getUuid(), instance);
+            instances = Collections.unmodifiableMap(newInstances);
+            InstanceStatus status = instance.getStatus();
+            countedStatuses.put(instance.getUuid(), status);
+            count(status, 1);
+        });
+
+        if (cloudClient != null) {
+            cloudClient.instanceRegistered(instance);
+        }
 
         return instance;
     }
@@ -137,25 +183,45 @@ public class DockerImage implements CloudImage {
      * @return {@code true} if new instances can be created for this image, {@code false} otherwise.
      */
     public boolean canStartNewInstance() {
-        return lock.call(() -> {
-            int maxInstanceCount = config.getMaxInstanceCount();
-            int usedInstance = 0;
-            for (DockerInstance instance : instances.values()) {
-                InstanceStatus status = instance.getStatus();
-                if (status == InstanceStatus.ERROR) {
-                    // At least one instance is in an error state. Wait until the error state is cleared or the
-                    // instance disposed.
-                    LOG.debug(this + ": at least one instance in error state, cannot start new instance.");
-                    return false;
-                } else if (status != InstanceStatus.STOPPED) {
-                    usedInstance++;
-                }
-            }
+        if (errorInstanceCount > 0) {
+            // At least one instance is in an error state. Wait until the error state is cleared or the
+            // instance disposed.
+            LOG.debug(this + ": at least one instance in error state, cannot start new instance.");
+            return false;
+        }
 
-            return maxInstanceCount == -1 || usedInstance < maxInstanceCount;
+        int maxInstanceCount = config.getMaxInstanceCount();
+        return maxInstanceCount == -1 || usedInstanceCount < maxInstanceCount;
+    }
+
+    /**
+     * Updates the instance counters following a status change. Instances not registered with this image are ignored.
+     *
+     * @param instance the instance whose status changed
+     * @param status the new instance status
+     */
+    void instanceStatusChanged(@Nonnull DockerInstance instance, @Nonnull InstanceStatus status) {
+        lock.run(() -> {
+            InstanceStatus previousStatus = countedStatuses.get(instance.getUuid());
+            if (previousStatus == null || previousStatus == status) {
+                return;
+            }
+            count(previousStatus, -1);
+            count(status, 1);
+            countedStatuses.put(instance.getUuid(), status);
         });
     }
 
+    private void count(InstanceStatus status, int delta) {
+        assert lock.isHeldByCurrentThread();
+        if (status != InstanceStatus.STOPPED) {
+            usedInstanceCount += delta;
+        }
+        if (status == InstanceStatus.ERROR) {
+            errorInstanceCount += delta;
+        }
+    }
+
     @Override
     public String toString() {
         return getName() + " / " + uuid;
@@ -172,6 +238,19 @@ public class DockerImage implements CloudImage {
     void clearInstanceId(@Nonnull UUID id) {
         DockerCloudUtils.requireNonNull(id, "UUID cannot be null.");
 
-        lock.run(() -> instances.remove(id));
+        DockerInstance instance = lock.call(() -> {
+            if (!instances.containsKey(id)) {
+                return null;
+            }
+            Map<UUID, DockerInstance> newInstances = new LinkedHashMap<>(instances);
+            DockerInstance removed = newInstances.remove(id);
+            instances = Collections.unmodifiableMap(newInstances);
+            count(countedStatuses.remove(id), -1);
+            return removed;
+        });
+
+        if (instance != null && cloudClient != null) {
+            cloudClient.instanceUnregistered(instance);
+        }
     }
 }
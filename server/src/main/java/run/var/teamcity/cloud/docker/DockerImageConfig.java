@@ -32,6 +32,7 @@ public class DockerImageConfig {
     private final boolean rmOnExit;
     private final boolean useOfficialTCAgentImage;
     private final int maxInstanceCount;
+    private final int warmPoolSize;
     private final Integer agentPoolId;
     private final DockerRegistryCredentials registryCredentials;
 
@@ -39,18 +40,33 @@ public class DockerImageConfig {
                              boolean rmOnExit, boolean useOfficialTCAgentImage,
                              @Nonnull DockerRegistryCredentials registryCredentials, int maxInstanceCount,
                              @Nullable Integer agentPoolId) {
+        this(profileName, agentHolderSpec, pullOnCreate, rmOnExit, useOfficialTCAgentImage, registryCredentials,
+                maxInstanceCount, agentPoolId, 0);
+    }
+
+    public DockerImageConfig(@Nonnull String profileName, @Nonnull Node agentHolderSpec, boolean pullOnCreate,
+                             boolean rmOnExit, boolean useOfficialTCAgentImage,
+                             @Nonnull DockerRegistryCredentials registryCredentials, int maxInstanceCount,
+                             @Nullable Integer agentPoolId, int warmPoolSize) {
         DockerCloudUtils.requireNonNull(profileName, "Profile name cannot be null.");
         DockerCloudUtils.requireNonNull(registryCredentials, "Registry credentials cannot be null.");
         DockerCloudUtils.requireNonNull(agentHolderSpec, "Agent holder specification cannot be null.");
         if (maxInstanceCount < 1) {
             throw new IllegalArgumentException("At least 1 instance must be allowed.");
         }
+        if (warmPoolSize < 0) {
+            throw new IllegalArgumentException("Warm pool size cannot be negative.");
+        }
+        if (warmPoolSize > maxInstanceCount) {
+            throw new IllegalArgumentException("Warm pool size cannot exceed the maximum instance count.");
+        }
         this.profileName = profileName;
         this.agentHolderSpec = agentHolderSpec;
         this.pullOnCreate = pullOnCreate;
         this.rmOnExit = rmOnExit;
         this.useOfficialTCAgentImage = useOfficialTCAgentImage;
         this.maxInstanceCount = maxInstanceCount;
+        this.warmPoolSize = warmPoolSize;
         this.agentPoolId = agentPoolId;
         this.registryCredentials = registryCredentials;
     }
@@ -111,6 +127,16 @@ public class DockerImageConfig {
         return maxInstanceCount;
     }
 
+    /**
+     * Gets the number of created, but not started, agent holders to be kept ready for this image. These agent
+     * holders are bound to stopped cloud instances, and can be started without having to be created first.
+     *
+     * @return the warm pool size ({@code 0} if disabled)
+     */
+    public int getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
     /**
      * Gets the agent pool ID associated with this cloud image (if any).
      *
@@ -22,20 +22,21 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
     private final UUID uuid = UUID.randomUUID();
     private final DockerImage img;
 
-    private Instant startedTime;
-
-    // This lock ensure a thread-safe usage of all the variables below.
+    // This lock serializes the modifications of the variables below. They are all volatile so they can be read
+    // without locking.
     private final LockHandler lock = LockHandler.newReentrantLock();
 
-    private String agentHolderName = null;
-    private String resolvedImageName = null;
-    private String agentHolderId;
-    private String taskId;
-    private AgentHolderInfo agentHolderInfo;
-    private InstanceStatus status = InstanceStatus.UNKNOWN;
-    private CloudErrorInfo errorInfo;
-    private Integer agentId;
-    private UUID agentRuntimeUuid;
+    private volatile Instant startedTime;
+    private volatile String agentHolderName = null;
+    private volatile String resolvedImageName = null;
+    private volatile String agentHolderId;
+    private volatile String taskId;
+    private volatile AgentHolderInfo agentHolderInfo;
+    private volatile InstanceStatus status;
+    private volatile CloudErrorInfo errorInfo;
+    private volatile Integer agentId;
+    private volatile UUID agentRuntimeUuid;
+    private volatile long stateVersion = 0;
 
     /**
      * Creates a new Docker cloud instance.
@@ -45,7 +46,20 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      * @throws NullPointerException if {@code img} is {@code null}
      */
     DockerInstance(@Nonnull DockerImage img) {
+        this(img, InstanceStatus.UNKNOWN);
+    }
+
+    /**
+     * Creates a new Docker cloud instance with the given initial status.
+     *
+     * @param img the source image
+     * @param initialStatus the instance initial status
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    DockerInstance(@Nonnull DockerImage img, @Nonnull InstanceStatus initialStatus) {
         this.img = DockerCloudUtils.requireNonNull(img, "Docker image cannot be null.");
+        this.status = DockerCloudUtils.requireNonNull(initialStatus, "Instance status cannot be null.");
 
         // The instance is expected to be started immediately (we must do this to ensure that getStartedTime() always
         // return some meaningful value).
@@ -76,7 +90,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      */
     @Nonnull
     Optional<String> getAgentHolderId() {
-        return Optional.ofNullable(lock.call(() -> this.agentHolderId));
+        return Optional.ofNullable(agentHolderId);
     }
 
     /**
@@ -92,13 +106,17 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
     void setTaskId(@Nonnull String taskId) {
         DockerCloudUtils.requireNonNull(taskId, "Task id cannot be null.");
 
-        lock.run(() -> this.taskId = taskId);
+        lock.run(() -> {
+            this.taskId = taskId;
+            stateVersion++;
+        });
     }
 
     @Nonnull
     @Override
     public String getName() {
-        return lock.call(() -> agentHolderName == null ? "<Unknown>" : agentHolderName);
+        String agentHolderName = this.agentHolderName;
+        return agentHolderName == null ? "<Unknown>" : agentHolderName;
     }
 
     /**
@@ -111,7 +129,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      */
     @Nonnull
     public Optional<String> getAgentHolderName() {
-        return Optional.ofNullable(lock.call(() -> agentHolderName));
+        return Optional.ofNullable(agentHolderName);
     }
 
     /**
@@ -124,7 +142,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      */
     @Nonnull
     public Optional<String> getResolvedImageName() {
-        return Optional.ofNullable(lock.call(() -> resolvedImageName));
+        return Optional.ofNullable(resolvedImageName);
     }
 
     /**
@@ -146,6 +164,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
             this.agentHolderId = agentHolderInfo.getId();
             this.agentHolderName = agentHolderInfo.getName();
             this.resolvedImageName = agentHolderInfo.getResolvedImage();
+            stateVersion++;
         });
     }
 
@@ -192,8 +211,22 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
     void setStatus(@Nonnull InstanceStatus status) {
         DockerCloudUtils.requireNonNull(status, "Instance status cannot be null.");
 
-        lock.run(() -> this.status = status);
+        lock.run(() -> {
+            this.status = status;
+            stateVersion++;
+            img.instanceStatusChanged(this, status);
+        });
+    }
 
+    /**
+     * Gets this instance state version. The state version is incremented each time the instance status, or its
+     * binding with an agent holder, is modified. It can be used to detect concurrent modifications of the instance
+     * state.
+     *
+     * @return the instance state version
+     */
+    long getStateVersion() {
+        return stateVersion;
     }
 
     final void updateStartedTime() {
@@ -213,7 +246,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      */
     @Nonnull
     public Optional<AgentHolderInfo> getAgentHolderInfo() {
-        return Optional.ofNullable(lock.call(() -> agentHolderInfo));
+        return Optional.ofNullable(agentHolderInfo);
     }
 
     /**
@@ -241,7 +274,7 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      */
     @Nonnull
     public Optional<UUID> getAgentRuntimeUuid() {
-        return Optional.ofNullable(lock.call(() -> agentRuntimeUuid));
+        return Optional.ofNullable(agentRuntimeUuid);
     }
 
     /**
@@ -287,7 +320,10 @@ public class DockerInstance implements CloudInstance, DockerCloudErrorHandler {
      * @param agentHolderInfo the container meta-data or {@code null} if not available
      */
     void setAgentHolderInfo(@Nullable AgentHolderInfo agentHolderInfo) {
-        lock.run(() -> this.agentHolderInfo = agentHolderInfo);
+        lock.run(() -> {
+            this.agentHolderInfo = agentHolderInfo;
+            stateVersion++;
+        });
     }
 
     @Override
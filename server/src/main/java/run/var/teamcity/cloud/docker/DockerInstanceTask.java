@@ -1,6 +1,7 @@
 package run.var.teamcity.cloud.docker;
 
 import jetbrains.buildServer.clouds.InstanceStatus;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -12,9 +13,10 @@ abstract class DockerInstanceTask extends DockerTask {
 
     private final DockerInstance instance;
     private final InstanceStatus scheduledStatus;
+    private final DockerTaskPriority priority;
 
     /**
-     * Creates a one-shot task.
+     * Creates a one-shot task with the {@link DockerTaskPriority#SYNC default} priority.
      *
      * @param operationName   the operation name
      * @param instance        the cloud instance
@@ -25,9 +27,26 @@ abstract class DockerInstanceTask extends DockerTask {
      */
     DockerInstanceTask(@Nonnull String operationName, @Nonnull DockerInstance instance, @Nullable InstanceStatus
             scheduledStatus) {
+        this(operationName, instance, scheduledStatus, DockerTaskPriority.SYNC);
+    }
+
+    /**
+     * Creates a one-shot task.
+     *
+     * @param operationName   the operation name
+     * @param instance        the cloud instance
+     * @param scheduledStatus the instance status to be set when the task is scheduled for execution or {@code null} if
+     *                        none
+     * @param priority        the task priority class
+     *
+     * @throws NullPointerException if {@code operationName}, {@code instance}, or {@code priority} is {@code null}
+     */
+    DockerInstanceTask(@Nonnull String operationName, @Nonnull DockerInstance instance, @Nullable InstanceStatus
+            scheduledStatus, @Nonnull DockerTaskPriority priority) {
         super(operationName, instance);
         this.instance = instance;
         this.scheduledStatus = scheduledStatus;
+        this.priority = DockerCloudUtils.requireNonNull(priority, "Priority cannot be null.");
     }
 
     /**
@@ -50,6 +69,12 @@ abstract class DockerInstanceTask extends DockerTask {
         return scheduledStatus;
     }
 
+    @Nonnull
+    @Override
+    DockerTaskPriority getPriority() {
+        return priority;
+    }
+
     @Override
     public String toString() {
         return "DockerInstanceTask[operationName: " + getOperationName() + ", instance: " + instance.getUuid() + "]";
@@ -18,6 +18,9 @@ import java.util.concurrent.Callable;
  * <p>Each task has an associated operation name. The operation name is used to provide meaningful error messages to
  * be reported to the corresponding {@link DockerCloudErrorHandler error handler}. It will be used at the start of the
  * error message, its first letter should therefore be capitalized.</p>
+ *
+ * <p>Each task also has a {@link DockerTaskPriority priority class} and an optional deadline, which are used by the
+ * scheduler to order the waiting tasks.</p>
  */
 abstract class DockerTask implements Callable<Void> {
 
@@ -83,6 +86,28 @@ abstract class DockerTask implements Callable<Void> {
         return delay;
     }
 
+    /**
+     * Gets the priority class of this task. Default to {@link DockerTaskPriority#SYNC}.
+     *
+     * @return the priority class
+     */
+    @Nonnull
+    DockerTaskPriority getPriority() {
+        return DockerTaskPriority.SYNC;
+    }
+
+    /**
+     * Gets the maximal duration this task should wait to be submitted for execution. Once expired, the task will take
+     * precedence over all other waiting tasks. Will return a negative duration if this task has no deadline (the
+     * default).
+     *
+     * @return the task deadline if available
+     */
+    @Nonnull
+    Duration getDeadline() {
+        return Duration.ofMillis(-1);
+    }
+
     /**
      * Gets the operation name.
      *
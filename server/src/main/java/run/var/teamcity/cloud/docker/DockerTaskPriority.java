@@ -0,0 +1,28 @@
+package run.var.teamcity.cloud.docker;
+
+/**
+ * Priority class of a {@link DockerTask}. Waiting tasks are submitted for execution by the
+ * {@link DockerTaskScheduler} in the declaration order of their priority class.
+ */
+public enum DockerTaskPriority {
+    /**
+     * Termination of a cloud instance, which is freeing capacity.
+     */
+    TERMINATE,
+    /**
+     * Start of a cloud instance.
+     */
+    START,
+    /**
+     * Restart of a cloud instance.
+     */
+    RESTART,
+    /**
+     * Synchronization with the daemon and other maintenance tasks.
+     */
+    SYNC,
+    /**
+     * Creation of agent holders in advance, for the warm pools.
+     */
+    WARM_UP
+}
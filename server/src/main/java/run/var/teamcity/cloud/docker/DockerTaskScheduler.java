@@ -10,21 +10,29 @@ import run.var.teamcity.cloud.docker.util.WrappedRunnableFuture;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableFuture;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Task scheduler for a {@link DefaultDockerCloudClient}. The scheduler ensure the sequential execution of tasks that may
@@ -37,12 +45,24 @@ import java.util.concurrent.TimeUnit;
  * {@link ThreadPoolExecutor}) where tasks are considered <i>scheduled</i> but not yet <i>submitted</i>. Submission
  * is only performed when all the required conditions are met:
  * <ul>
- * <li>Client tasks: require that no other task to be to be submitted for execution. They will always be
- * processed before instance tasks independently of their submission order.</li>
+ * <li>Client tasks: require that no other task to be to be submitted for execution. They will be processed
+ * before instance tasks of lower priority independently of their submission order.</li>
  * <li>Instance tasks: require that no client task, or task for the same cloud instance, to be submitted for
  * execution.</li>
  * </ul>
  * </p>
+ * <p>The scheduler may alternatively be configured to execute client tasks concurrently with instance tasks. In this
+ * mode, client tasks are still executed sequentially between themselves, but instance tasks are no longer held back
+ * while a client task is waiting or being processed. Tasks for a given cloud instance are still executed
+ * sequentially. Client tasks are then responsible for handling concurrent modifications of the instances state.
+ * </p>
+ * <p>Waiting tasks are ordered according to their {@link DockerTaskPriority priority class}, and then in their
+ * submission order. The priority of a waiting task is raised by one class for each {@link #AGING_STEP} spent in the
+ * queue so low priority tasks cannot be starved, and a task whose {@link DockerTask#getDeadline() deadline} has expired
+ * takes precedence over all other tasks. Instance tasks with a higher priority than the next waiting client task are
+ * not held back by it. Tasks are only submitted when a thread is available to process them, so that they remain
+ * ordered until their execution begins.
+ * </p>
  * <p>The size of the thread pool used to process tasks is configurable as constructor parameter. In addition a
  * dedicated thread will also be used to manage the scheduler internal state.
  * </p>
@@ -53,14 +73,28 @@ class DockerTaskScheduler {
 
     private final static Logger LOG = DockerCloudUtils.getLogger(DockerTaskScheduler.class);
 
+    /**
+     * Waiting time after which the priority of a task is raised by one class.
+     */
+    final static Duration AGING_STEP = Duration.ofSeconds(30);
+
     // This lock ensure a thread-safe usage of all the variables below.
     private final LockHandler lock = LockHandler.newReentrantLock();
 
     private final Set<UUID> submittedInstancesUUID = new HashSet<>();
-    private final LinkedList<DockerClientTask> clientTasks = new LinkedList<>();
-    private final LinkedList<DockerInstanceTask> instancesTask = new LinkedList<>();
+    private final List<QueuedTask<DockerClientTask>> clientTasks = new ArrayList<>();
+    private final List<QueuedTask<DockerInstanceTask>> instancesTask = new ArrayList<>();
+    private long queuedTasksCount = 0;
     private boolean clientTaskSubmitted = false;
     private boolean shutdownRequested = false;
+    private Runnable terminationHook = null;
+
+    private final boolean concurrentClientTasks;
+    /**
+     * Maximal number of tasks submitted for execution at a time. Matches the thread pool size, unless virtual threads
+     * are used, in which case the thread pool is unbounded.
+     */
+    private final int maxConcurrentTasks;
 
     /**
      * Executor service for externally submitted tasks.
@@ -69,7 +103,24 @@ class DockerTaskScheduler {
     /**
      * Executor service for maintenance tasks.
      */
-    private final ScheduledExecutorService mngExecutor;
+    private final ScheduledThreadPoolExecutor mngExecutor;
+    /**
+     * Timeout handling tasks of the tasks being currently executed. They are cancelled as soon as the execution
+     * completes so they do not linger in the maintenance executor queue until the timeout expires.
+     */
+    private final Map<Future<?>, ScheduledFuture<?>> pendingTimeouts = new ConcurrentHashMap<>();
+    /**
+     * Pending (re)scheduling of the repeatable tasks waiting for their delay to expire.
+     */
+    private final Map<DockerTask, ScheduledFuture<?>> pendingRepetitions = new ConcurrentHashMap<>();
+    /**
+     * Submission time of the tasks waiting for a thread, or start time of the running tasks.
+     */
+    private final Map<DockerTask, Long> taskTimestamps = new ConcurrentHashMap<>();
+    /**
+     * Statistics per task type, indexed with the task operation name.
+     */
+    private final Map<String, DockerTaskStats> taskStats = new ConcurrentHashMap<>();
 
     /**
      * Creates a new scheduler instance.
@@ -82,6 +133,43 @@ class DockerTaskScheduler {
      * negative
      */
     DockerTaskScheduler(int threadPoolSize, boolean usingDaemonThread, Duration taskTimeout) {
+        this(threadPoolSize, usingDaemonThread, taskTimeout, false);
+    }
+
+    /**
+     * Creates a new scheduler instance.
+     *
+     * @param threadPoolSize    the size of the thread pool for processing task
+     * @param usingDaemonThread {@code true} to use daemon threads
+     * @param taskTimeout timeout duration after which a running task will be cancelled
+     * @param concurrentClientTasks {@code true} to execute client tasks concurrently with instance tasks
+     *
+     * @throws IllegalArgumentException if {@code connectionPoolSize} is smaller than 1 or if {@code taskTimeout} is
+     * negative
+     */
+    DockerTaskScheduler(int threadPoolSize, boolean usingDaemonThread, Duration taskTimeout,
+                        boolean concurrentClientTasks) {
+        this(threadPoolSize, usingDaemonThread, taskTimeout, concurrentClientTasks, false);
+    }
+
+    /**
+     * Creates a new scheduler instance.
+     *
+     * <p>When using virtual threads, tasks are executed each on a new virtual thread, the thread pool size being
+     * only used to limit the number of tasks executed concurrently. The scheduler will fallback to platform threads if
+     * virtual threads are not supported by the JVM.</p>
+     *
+     * @param threadPoolSize    the size of the thread pool for processing task
+     * @param usingDaemonThread {@code true} to use daemon threads
+     * @param taskTimeout timeout duration after which a running task will be cancelled
+     * @param concurrentClientTasks {@code true} to execute client tasks concurrently with instance tasks
+     * @param usingVirtualThreads {@code true} to execute tasks on virtual threads
+     *
+     * @throws IllegalArgumentException if {@code connectionPoolSize} is smaller than 1 or if {@code taskTimeout} is
+     * negative
+     */
+    DockerTaskScheduler(int threadPoolSize, boolean usingDaemonThread, Duration taskTimeout,
+                        boolean concurrentClientTasks, boolean usingVirtualThreads) {
         if (threadPoolSize < 1) {
             throw new IllegalArgumentException("Thread pool size must be strictly greater than 1.");
         }
@@ -89,12 +177,26 @@ class DockerTaskScheduler {
             throw new IllegalArgumentException("Task timeout must be a positive integer.");
         }
 
-        // Creates the single-thread scheduled executor use for managing the scheduler internal state.
-        mngExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("DockerTaskSchedulerMngt"));
+        this.concurrentClientTasks = concurrentClientTasks;
+        this.maxConcurrentTasks = threadPoolSize;
 
-        // Creates the main task executor (same default settings as Executors.newFixedThreadPool()).
-        executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(), new NamedThreadFactory("DockerTaskScheduler", usingDaemonThread)) {
+        // Creates the single-thread scheduled executor use for managing the scheduler internal state.
+        mngExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("DockerTaskSchedulerMngt"));
+        // Cancelled timeouts must be evicted immediately from the work queue.
+        mngExecutor.setRemoveOnCancelPolicy(true);
+
+        NamedThreadFactory threadFactory = new NamedThreadFactory("DockerTaskScheduler", usingDaemonThread,
+                usingVirtualThreads);
+
+        // Creates the main task executor. With platform threads, same default settings as
+        // Executors.newFixedThreadPool(). Virtual threads are not pooled: the number of concurrently executed tasks is
+        // then bounded by the scheduler itself.
+        int corePoolSize = threadFactory.isUsingVirtualThreads() ? 0 : threadPoolSize;
+        int maxPoolSize = threadFactory.isUsingVirtualThreads() ? Integer.MAX_VALUE : threadPoolSize;
+        BlockingQueue<Runnable> workQueue = threadFactory.isUsingVirtualThreads() ? new SynchronousQueue<>() :
+                new LinkedBlockingQueue<>();
+        executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 0, TimeUnit.MILLISECONDS, workQueue,
+                threadFactory) {
 
             @Override
             protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
@@ -107,9 +209,17 @@ class DockerTaskScheduler {
             protected void beforeExecute(Thread thread, Runnable runnable) {
                 assert runnable instanceof WrappedRunnableFuture;
 
+                DockerTask task = (DockerTask) ((WrappedRunnableFuture<?, ?>) runnable).getTask();
+                long now = System.nanoTime();
+                Long submissionTime = taskTimestamps.put(task, now);
+                if (submissionTime != null) {
+                    getTaskStats(task).started(now - submissionTime);
+                }
+
                 // Schedule a task to check for timeout.
-                mngExecutor.schedule(new TimeoutHandlingTask((Future<?>) runnable), taskTimeout.toNanos(),
-                        TimeUnit.NANOSECONDS);
+                Future<?> future = (Future<?>) runnable;
+                pendingTimeouts.put(future, mngExecutor.schedule(new TimeoutHandlingTask(future),
+                        taskTimeout.toNanos(), TimeUnit.NANOSECONDS));
 
                 super.beforeExecute(thread, runnable);
             }
@@ -121,6 +231,11 @@ class DockerTaskScheduler {
 
                 assert runnable instanceof WrappedRunnableFuture;
 
+                ScheduledFuture<?> timeout = pendingTimeouts.remove(runnable);
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+
                 WrappedRunnableFuture<?,?> wrappedRunnableFuture = (WrappedRunnableFuture<?, ?>) runnable;
 
                 if (throwable == null) {
@@ -137,6 +252,9 @@ class DockerTaskScheduler {
 
                 assert task instanceof DockerTask;
 
+                Long startTime = taskTimestamps.remove(task);
+                long runNanos = startTime != null ? System.nanoTime() - startTime : 0;
+
                 lock.run(() -> {
                     DockerTask dockerTask = (DockerTask) task;
 
@@ -154,7 +272,8 @@ class DockerTaskScheduler {
                     }
 
                     Throwable throwableToReport;
-                    if (wrappedRunnableFuture.isCancelled() && !shutdownRequested) {
+                    boolean timedOut = wrappedRunnableFuture.isCancelled() && !shutdownRequested;
+                    if (timedOut) {
                         // The task has been cancelled but no shutdown of the scheduler is planned. It must then have
                         // been caused by a task timeout. The corresponding error provider will need to be notified
                         // with a corresponding exception.
@@ -164,6 +283,8 @@ class DockerTaskScheduler {
                         throwableToReport = effectiveThrowable;
                     }
 
+                    getTaskStats(dockerTask).completed(runNanos, throwableToReport != null, timedOut);
+
                     if (throwableToReport == null) {
                         LOG.debug("Task " + dockerTask + " completed without error.");
                     } else {
@@ -178,8 +299,7 @@ class DockerTaskScheduler {
                         // Repeatable tasks are always rescheduled, even if their last execution failed. This permits
                         // the client to recover from an error status.
                         LOG.debug("Rescheduling task: " + dockerTask);
-                        mngExecutor.schedule(new ScheduleRepetableTask(dockerTask), rescheduleDelay.toNanos(),
-                                TimeUnit.NANOSECONDS);
+                        scheduleRepetition(dockerTask, rescheduleDelay);
                     }
 
                     scheduleNextTasks();
@@ -190,6 +310,15 @@ class DockerTaskScheduler {
             @Override
             protected void terminated() {
                 mngExecutor.shutdown();
+
+                Runnable terminationHook = lock.call(() -> DockerTaskScheduler.this.terminationHook);
+                if (terminationHook != null) {
+                    try {
+                        terminationHook.run();
+                    } catch (Exception e) {
+                        LOG.error("Termination hook failed.", e);
+                    }
+                }
             }
         };
     }
@@ -226,12 +355,46 @@ class DockerTaskScheduler {
         Duration initialDelay = task.getInitialDelay();
 
         if (!initialDelay.isNegative() && !initialDelay.isZero()) {
-            mngExecutor.schedule(new ScheduleRepetableTask(task), initialDelay.toNanos(), TimeUnit.NANOSECONDS);
+            scheduleRepetition(task, initialDelay);
         } else {
             submitTask(task);
         }
     }
 
+    private void scheduleRepetition(DockerTask task, Duration delay) {
+        assert task != null && delay != null;
+
+        pendingRepetitions.put(task, mngExecutor.schedule(new ScheduleRepetableTask(task), delay.toNanos(),
+                TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Submits a repeatable task right away if it is currently waiting for its delay to expire. Has no effect if the
+     * task is already queued or running, or if the scheduler is shutting down.
+     *
+     * @param task the repeatable task
+     *
+     * @return {@code true} if the task was waiting and has been submitted
+     *
+     * @throws NullPointerException if {@code task} is {@code null}
+     */
+    boolean rescheduleNow(@Nonnull DockerTask task) {
+        DockerCloudUtils.requireNonNull(task, "Task cannot be null.");
+        return lock.call(() -> {
+            if (shutdownRequested) {
+                return false;
+            }
+            ScheduledFuture<?> pendingRepetition = pendingRepetitions.remove(task);
+            // The repetition may have fired concurrently, it will then submit the task by itself.
+            if (pendingRepetition == null || !pendingRepetition.cancel(false)) {
+                return false;
+            }
+            LOG.debug("Rescheduling task now: " + task);
+            submitTask(task);
+            return true;
+        });
+    }
+
     private void submitTask(DockerTask task) {
         assert task != null;
         lock.run(() -> {
@@ -240,10 +403,10 @@ class DockerTaskScheduler {
             }
 
             if (task instanceof DockerClientTask) {
-                clientTasks.add((DockerClientTask) task);
+                clientTasks.add(new QueuedTask<>((DockerClientTask) task, queuedTasksCount++));
             } else {
                 assert task instanceof DockerInstanceTask;
-                instancesTask.add((DockerInstanceTask) task);
+                instancesTask.add(new QueuedTask<>((DockerInstanceTask) task, queuedTasksCount++));
             }
             scheduleNextTasks();
         });
@@ -252,45 +415,39 @@ class DockerTaskScheduler {
     private void scheduleNextTasks() {
         assert lock.isHeldByCurrentThread();
 
-        LOG.debug("Scheduling status: submitted instance tasks: " + submittedInstancesUUID.size() + ", client task " +
-                "submitted: " + clientTaskSubmitted + ", instances tasks scheduled: " + instancesTask.size() + ", " +
-                " client tasks scheduled: " + clientTasks.size());
+        long now = System.nanoTime();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Scheduling status: submitted instance tasks: " + submittedInstancesUUID.size() + ", client " +
+                    "task submitted: " + clientTaskSubmitted + ", instances tasks scheduled: " + instancesTask.size() +
+                    ", client tasks scheduled: " + clientTasks.size() + ", queue: " + queuedTasks(now)
+                    .map(DockerTask::getOperationName).collect(Collectors.toList()));
+        }
 
-        if (!clientTaskSubmitted) {
-            if (!clientTasks.isEmpty()) {
-                // Some client tasks are waiting, we will submit them as soon as possible, but not before all instances
-                // tasks are processed.
+        QueuedTask<DockerClientTask> nextClientTask = clientTasks.stream().min(queueOrder(now)).orElse(null);
+
+        if (concurrentClientTasks) {
+            // Client tasks are only executed sequentially between themselves, instance tasks are never held back by
+            // them.
+            if (!clientTaskSubmitted && nextClientTask != null) {
+                submitInstanceTasks(now, nextClientTask);
+                if (hasAvailableThread()) {
+                    submitClientTask(nextClientTask);
+                }
+            }
+            submitInstanceTasks(now, null);
+        } else if (!clientTaskSubmitted) {
+            if (nextClientTask != null) {
+                // A client task is waiting. Instance tasks having precedence over it may still be submitted, the
+                // others will wait until it has been processed. The client task itself will be submitted as soon as
+                // all instance tasks are processed.
+                submitInstanceTasks(now, nextClientTask);
                 if (submittedInstancesUUID.isEmpty()) {
-                    DockerClientTask clientTask = clientTasks.pollFirst();
-                    LOG.debug("Submitting client task " + clientTask + " for execution.");
-                    executor.submit(clientTask);
-                    // Mark the client task as being submitted.
-                    clientTaskSubmitted = true;
+                    submitClientTask(nextClientTask);
                 }
             } else {
                 // No client tasks are waiting or is being processed, we may execute instance tasks.
-                Iterator<DockerInstanceTask> itr = instancesTask.iterator();
-                while (itr.hasNext()) {
-                    DockerInstanceTask instanceTask = itr.next();
-                    DockerInstance instance = instanceTask.getInstance();
-                    UUID instanceUuid = instance.getUuid();
-                    // Only submit one task for a given instance at a time.
-                    if (!submittedInstancesUUID.contains(instanceUuid)) {
-                        LOG.debug("Submitting instance task " + instanceTask + " for execution.");
-                        InstanceStatus scheduledStatus = instanceTask.getScheduledStatus();
-                        if (scheduledStatus != null) {
-                            instance.setStatus(scheduledStatus);
-                        }
-
-                        // Mark the instance tasks as being submitted.
-                        submittedInstancesUUID.add(instanceUuid);
-                        itr.remove();
-                        executor.submit(instanceTask);
-                    } else {
-                        LOG.debug("Tasks for instance " + instance.getUuid() + " already submitted, delaying scheduled"
-                                + " task");
-                    }
-                }
+                submitInstanceTasks(now, null);
             }
         } else {
             LOG.debug("Client task submitted for execution, skipping submitting other tasks.");
@@ -299,6 +456,142 @@ class DockerTaskScheduler {
         shutdownCheck();
     }
 
+    private void submitClientTask(QueuedTask<DockerClientTask> clientTask) {
+        assert lock.isHeldByCurrentThread();
+        assert !clientTaskSubmitted;
+
+        LOG.debug("Submitting client task " + clientTask.task + " for execution.");
+        clientTasks.remove(clientTask);
+        markSubmitted(clientTask);
+        executor.submit(clientTask.task);
+        // Mark the client task as being submitted.
+        clientTaskSubmitted = true;
+    }
+
+    private void submitInstanceTasks(long now, QueuedTask<DockerClientTask> barrier) {
+        assert lock.isHeldByCurrentThread();
+
+        Comparator<QueuedTask<?>> queueOrder = queueOrder(now);
+        List<QueuedTask<DockerInstanceTask>> sortedTasks = new ArrayList<>(instancesTask);
+        sortedTasks.sort(queueOrder);
+
+        for (QueuedTask<DockerInstanceTask> queuedTask : sortedTasks) {
+            if (!hasAvailableThread()) {
+                LOG.debug("No thread available, delaying scheduled tasks.");
+                break;
+            }
+            if (barrier != null && queueOrder.compare(queuedTask, barrier) > 0) {
+                LOG.debug("Client task " + barrier.task + " waiting, delaying lower priority instance tasks.");
+                break;
+            }
+            DockerInstanceTask instanceTask = queuedTask.task;
+            DockerInstance instance = instanceTask.getInstance();
+            UUID instanceUuid = instance.getUuid();
+            // Only submit one task for a given instance at a time.
+            if (!submittedInstancesUUID.contains(instanceUuid)) {
+                LOG.debug("Submitting instance task " + instanceTask + " for execution.");
+                InstanceStatus scheduledStatus = instanceTask.getScheduledStatus();
+                if (scheduledStatus != null) {
+                    instance.setStatus(scheduledStatus);
+                }
+
+                // Mark the instance tasks as being submitted.
+                submittedInstancesUUID.add(instanceUuid);
+                instancesTask.remove(queuedTask);
+                markSubmitted(queuedTask);
+                executor.submit(instanceTask);
+            } else {
+                LOG.debug("Tasks for instance " + instance.getUuid() + " already submitted, delaying scheduled"
+                        + " task");
+            }
+        }
+    }
+
+    private DockerTaskStats getTaskStats(DockerTask task) {
+        return taskStats.computeIfAbsent(task.getOperationName(), operationName -> new DockerTaskStats());
+    }
+
+    private void markSubmitted(QueuedTask<?> queuedTask) {
+        long now = System.nanoTime();
+        getTaskStats(queuedTask.task).submitted(now - queuedTask.queuedNanos);
+        taskTimestamps.put(queuedTask.task, now);
+    }
+
+    private boolean hasAvailableThread() {
+        assert lock.isHeldByCurrentThread();
+        return submittedInstancesUUID.size() + (clientTaskSubmitted ? 1 : 0) < maxConcurrentTasks;
+    }
+
+    /**
+     * Gets the tasks waiting to be submitted for execution, ordered according to their current priority.
+     *
+     * @return the list of waiting tasks
+     */
+    @Nonnull
+    List<DockerTask> getQueuedTasks() {
+        return lock.call(() -> queuedTasks(System.nanoTime()).collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the scheduler statistics. Task statistics are identified by the task operation name, while queue depths
+     * are given per priority class.
+     *
+     * @return the scheduler statistics
+     */
+    @Nonnull
+    DockerTaskSchedulerStats getStats() {
+        return lock.call(() -> {
+            Map<DockerTaskPriority, Integer> queueDepths = new EnumMap<>(DockerTaskPriority.class);
+            Stream.concat(clientTasks.stream(), instancesTask.stream()).forEach(queuedTask ->
+                    queueDepths.merge(queuedTask.task.getPriority(), 1, Integer::sum));
+            int executingTaskCount = submittedInstancesUUID.size() + (clientTaskSubmitted ? 1 : 0);
+            List<String> queuedOperations = queuedTasks(System.nanoTime()).
+                    map(DockerTask::getOperationName).
+                    collect(Collectors.toList());
+            return new DockerTaskSchedulerStats(taskStats, queueDepths, executingTaskCount, queuedOperations);
+        });
+    }
+
+    private Stream<DockerTask> queuedTasks(long now) {
+        assert lock.isHeldByCurrentThread();
+
+        return Stream.concat(clientTasks.stream(), instancesTask.stream()).
+                sorted(queueOrder(now)).
+                map(queuedTask -> queuedTask.task);
+    }
+
+    private static Comparator<QueuedTask<?>> queueOrder(long now) {
+        return Comparator.<QueuedTask<?>>comparingInt(queuedTask -> queuedTask.getEffectivePriority(now)).
+                thenComparingLong(queuedTask -> queuedTask.sequence);
+    }
+
+    /**
+     * A task waiting to be submitted for execution.
+     */
+    private static class QueuedTask<T extends DockerTask> {
+        final T task;
+        final long sequence;
+        final long queuedNanos = System.nanoTime();
+
+        QueuedTask(T task, long sequence) {
+            assert task != null;
+            this.task = task;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Effective priority of the task, the lower the value the sooner the task should be executed.
+         */
+        int getEffectivePriority(long now) {
+            long waitingNanos = now - queuedNanos;
+            Duration deadline = task.getDeadline();
+            if (!deadline.isNegative() && waitingNanos >= deadline.toNanos()) {
+                return -1;
+            }
+            return (int) Math.max(0, task.getPriority().ordinal() - waitingNanos / AGING_STEP.toNanos());
+        }
+    }
+
     private class ScheduleRepetableTask implements Callable<Void> {
         final DockerTask task;
 
@@ -309,6 +602,7 @@ class DockerTaskScheduler {
 
         @Override
         public Void call() throws Exception {
+            pendingRepetitions.remove(task);
             submitTask(task);
             return null;
         }
@@ -337,6 +631,15 @@ class DockerTaskScheduler {
         }
     }
 
+    /**
+     * Gets the number of maintenance tasks (timeouts and delayed tasks) currently waiting for execution.
+     *
+     * @return the number of pending maintenance tasks
+     */
+    int getPendingMaintenanceTaskCount() {
+        return mngExecutor.getQueue().size();
+    }
+
     /**
      * Shutdown the scheduler. All already scheduled tasks will eventually submitted for execution, but no new
      * scheduling will be accepted.
@@ -348,6 +651,23 @@ class DockerTaskScheduler {
         });
     }
 
+    /**
+     * Shutdown the scheduler, and invokes the given hook once all the already scheduled tasks have been executed.
+     *
+     * @param terminationHook the hook to be invoked upon termination
+     *
+     * @throws NullPointerException if {@code terminationHook} is {@code null}
+     *
+     * @see #shutdown()
+     */
+    void shutdown(@Nonnull Runnable terminationHook) {
+        DockerCloudUtils.requireNonNull(terminationHook, "Termination hook cannot be null.");
+        lock.run(() -> {
+            this.terminationHook = terminationHook;
+            shutdown();
+        });
+    }
+
     private void shutdownCheck() {
         assert lock.isHeldByCurrentThread();
 
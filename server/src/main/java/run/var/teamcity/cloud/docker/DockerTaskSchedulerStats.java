@@ -0,0 +1,103 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Statistics of a {@link DockerTaskScheduler}. Task types are identified by their operation name, such that tasks
+ * sharing a {@link DockerTaskPriority priority class} (for example starts and warm-ups) are accounted separately.
+ * Queue depths are given per priority class.
+ *
+ * <p>The {@link #getTaskStats(String) per-type statistics} are live views, while the set of task types, the queue
+ * depths and the number of executing tasks are captured when the instance is created.</p>
+ *
+ * <p>Instances of this class are thread safe.</p>
+ */
+public class DockerTaskSchedulerStats {
+
+    private final Map<String, DockerTaskStats> taskStats;
+    private final Map<DockerTaskPriority, Integer> queueDepths;
+    private final int executingTaskCount;
+    private final List<String> queuedOperations;
+
+    DockerTaskSchedulerStats(Map<String, DockerTaskStats> taskStats,
+                             Map<DockerTaskPriority, Integer> queueDepths, int executingTaskCount,
+                             List<String> queuedOperations) {
+        assert taskStats != null && queueDepths != null && queuedOperations != null;
+        this.taskStats = Collections.unmodifiableMap(new TreeMap<>(taskStats));
+        this.queueDepths = new EnumMap<>(queueDepths);
+        this.executingTaskCount = executingTaskCount;
+        this.queuedOperations = Collections.unmodifiableList(queuedOperations);
+    }
+
+    /**
+     * Gets the statistics of all the task types scheduled so far, indexed with their operation name.
+     *
+     * @return the task statistics
+     */
+    @Nonnull
+    public Map<String, DockerTaskStats> getTaskStats() {
+        return taskStats;
+    }
+
+    /**
+     * Gets the statistics for the given task type.
+     *
+     * @param operationName the operation name of the task type
+     *
+     * @return the task statistics, or an empty optional if no task of this type was scheduled
+     *
+     * @throws NullPointerException if {@code operationName} is {@code null}
+     */
+    @Nonnull
+    public Optional<DockerTaskStats> getTaskStats(@Nonnull String operationName) {
+        DockerCloudUtils.requireNonNull(operationName, "Operation name cannot be null.");
+        return Optional.ofNullable(taskStats.get(operationName));
+    }
+
+    /**
+     * Gets the number of tasks of the given type waiting to be submitted for execution.
+     *
+     * @param type the task type
+     *
+     * @return the number of waiting tasks
+     *
+     * @throws NullPointerException if {@code type} is {@code null}
+     */
+    public int getQueueDepth(@Nonnull DockerTaskPriority type) {
+        DockerCloudUtils.requireNonNull(type, "Task type cannot be null.");
+        return queueDepths.getOrDefault(type, 0);
+    }
+
+    /**
+     * Gets the number of tasks submitted for execution, either running or waiting for a thread.
+     *
+     * @return the number of executing tasks
+     */
+    public int getExecutingTaskCount() {
+        return executingTaskCount;
+    }
+
+    /**
+     * Gets the operation names of the waiting tasks, in their effective priority order.
+     *
+     * @return the list of waiting operations
+     */
+    @Nonnull
+    public List<String> getQueuedOperations() {
+        return queuedOperations;
+    }
+
+    @Override
+    public String toString() {
+        return "DockerTaskSchedulerStats[executing: " + executingTaskCount + ", queue depths: " + queueDepths +
+                ", task stats: " + taskStats + "]";
+    }
+}
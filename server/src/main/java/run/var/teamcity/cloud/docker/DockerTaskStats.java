@@ -0,0 +1,125 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of the {@link DockerTaskScheduler} for a given type of task.
+ *
+ * <p>The time spent by a task in the scheduler is split in three phases:
+ * <ul>
+ *     <li>gate wait: from the scheduling of the task until its submission for execution, when it may be held back
+ *     by other tasks for the same instance, a client task, or higher priority tasks,</li>
+ *     <li>thread wait: from the submission of the task until a thread begins its execution,</li>
+ *     <li>run: the task execution itself.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Instances of this class are thread safe. Statistics are updated without locking.</p>
+ */
+public class DockerTaskStats {
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LatencyHistogram gateWait = new LatencyHistogram();
+    private final LatencyHistogram threadWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    void submitted(long gateWaitNanos) {
+        submitted.increment();
+        gateWait.record(gateWaitNanos);
+    }
+
+    void started(long threadWaitNanos) {
+        threadWait.record(threadWaitNanos);
+    }
+
+    void completed(long runNanos, boolean failure, boolean timeout) {
+        completed.increment();
+        runTime.record(runNanos);
+        if (failure) {
+            failed.increment();
+        }
+        if (timeout) {
+            timedOut.increment();
+        }
+    }
+
+    /**
+     * Gets the number of tasks submitted for execution.
+     *
+     * @return the number of submitted tasks
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * Gets the number of tasks whose execution completed, successfully or not.
+     *
+     * @return the number of completed tasks
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * Gets the number of tasks whose execution failed, including timeouts.
+     *
+     * @return the number of failed tasks
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the number of tasks cancelled after reaching the task timeout.
+     *
+     * @return the number of timed out tasks
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Gets the distribution of the durations tasks waited until being submitted for execution.
+     *
+     * @return the gate wait histogram
+     */
+    @Nonnull
+    public LatencyHistogram getGateWait() {
+        return gateWait;
+    }
+
+    /**
+     * Gets the distribution of the durations tasks waited for a thread once submitted for execution.
+     *
+     * @return the thread wait histogram
+     */
+    @Nonnull
+    public LatencyHistogram getThreadWait() {
+        return threadWait;
+    }
+
+    /**
+     * Gets the distribution of the task execution durations.
+     *
+     * @return the run time histogram
+     */
+    @Nonnull
+    public LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DockerTaskStats[submitted: " + getSubmittedCount() + ", completed: " + getCompletedCount() +
+                ", failed: " + getFailedCount() + ", timed out: " + getTimedOutCount() + ", gate wait p95: " +
+                gateWait.getPercentile(95) + ", thread wait p95: " + threadWait.getPercentile(95) +
+                ", run time p95: " + runTime.getPercentile(95) + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.Node;
+import run.var.teamcity.cloud.docker.util.NodeProcessingException;
+import run.var.teamcity.cloud.docker.util.Stopwatch;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-bounded cache of image inspections, indexed by image reference.
+ * <p>
+ *     Each cached inspection keeps track of the repository digests of the inspected image. A pull of the same image
+ *     reference will only evict the cached inspection if it reports a newer image, or a digest unknown to the cached
+ *     inspection.
+ * </p>
+ * <p>
+ *     Instances of this class are thread-safe.
+ * </p>
+ */
+class ImageInspectionCache {
+
+    private final Duration ttl;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new cache instance.
+     *
+     * @param ttl the time-to-live of the cached inspections
+     *
+     * @throws NullPointerException if {@code ttl} is {@code null}
+     * @throws IllegalArgumentException if {@code ttl} is negative
+     */
+    ImageInspectionCache(@Nonnull Duration ttl) {
+        DockerCloudUtils.requireNonNull(ttl, "Time-to-live cannot be null.");
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("Time-to-live cannot be negative: " + ttl);
+        }
+        this.ttl = ttl;
+    }
+
+    /**
+     * Gets the cached inspection for the given image reference.
+     *
+     * @param image the image reference
+     *
+     * @return the cached inspection if available and not expired
+     *
+     * @throws NullPointerException if {@code image} is {@code null}
+     */
+    @Nonnull
+    Optional<Node> getInspection(@Nonnull String image) {
+        return getEntry(image).map(entry -> entry.inspection);
+    }
+
+    /**
+     * Checks if the cached inspection for the given image reference has been validated by a pull.
+     *
+     * @param image the image reference
+     *
+     * @return {@code true} if a cached inspection is available, not expired, and validated by a pull
+     *
+     * @throws NullPointerException if {@code image} is {@code null}
+     */
+    boolean isPullValidated(@Nonnull String image) {
+        return getEntry(image).map(entry -> entry.pullValidated).orElse(false);
+    }
+
+    /**
+     * Caches an image inspection.
+     *
+     * @param image the image reference
+     * @param inspection the image inspection
+     * @param pullValidated {@code true} if the image was pulled right before being inspected
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    void put(@Nonnull String image, @Nonnull Node inspection, boolean pullValidated) {
+        DockerCloudUtils.requireNonNull(image, "Image reference cannot be null.");
+        DockerCloudUtils.requireNonNull(inspection, "Image inspection cannot be null.");
+        entries.put(image, new Entry(inspection, Stopwatch.start(), pullValidated));
+    }
+
+    /**
+     * Notifies the cache that the given image reference has been pulled. The cached inspection will be evicted if
+     * the pull retrieved a newer image, or an unknown digest. It will be otherwise marked as validated by a pull.
+     *
+     * @param image the image reference
+     * @param digest the pulled image digest if known
+     * @param newerImage {@code true} if the daemon reported that a newer image was downloaded
+     *
+     * @throws NullPointerException if {@code image} is {@code null}
+     */
+    void pullCompleted(@Nonnull String image, @Nullable String digest, boolean newerImage) {
+        DockerCloudUtils.requireNonNull(image, "Image reference cannot be null.");
+        entries.computeIfPresent(image, (key, entry) -> {
+            if (newerImage || (digest != null && !entry.hasDigest(digest))) {
+                return null;
+            }
+            return new Entry(entry.inspection, entry.stopwatch, true);
+        });
+    }
+
+    /**
+     * Evicts the cached inspection for the given image reference, if any.
+     *
+     * @param image the image reference
+     *
+     * @throws NullPointerException if {@code image} is {@code null}
+     */
+    void invalidate(@Nonnull String image) {
+        DockerCloudUtils.requireNonNull(image, "Image reference cannot be null.");
+        entries.remove(image);
+    }
+
+    private Optional<Entry> getEntry(String image) {
+        DockerCloudUtils.requireNonNull(image, "Image reference cannot be null.");
+        Entry entry = entries.get(image);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.stopwatch.getDuration().compareTo(ttl) >= 0) {
+            entries.remove(image, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    private static class Entry {
+        final Node inspection;
+        final Stopwatch stopwatch;
+        final boolean pullValidated;
+
+        Entry(Node inspection, Stopwatch stopwatch, boolean pullValidated) {
+            this.inspection = inspection;
+            this.stopwatch = stopwatch;
+            this.pullValidated = pullValidated;
+        }
+
+        boolean hasDigest(String digest) {
+            try {
+                // Repository digests are formatted as "<repository>@<digest>".
+                return inspection.getArray("RepoDigests", Node.EMPTY_ARRAY).getArrayValues().stream().
+                        map(Node::getAsString).
+                        anyMatch(repoDigest -> repoDigest.endsWith("@" + digest));
+            } catch (NodeProcessingException e) {
+                return false;
+            }
+        }
+    }
+}
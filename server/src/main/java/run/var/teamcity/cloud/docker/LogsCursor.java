@@ -0,0 +1,104 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Cursor for incremental logs retrieval.
+ * <p>
+ * The cursor tracks the timestamp of the last log line retrieved. Logs can then be queried from this timestamp
+ * onwards and {@link #process(CharSequence) processed} through the cursor to discard the lines already retrieved.
+ * Because the timestamp lower bound of a query is inclusive, the cursor also counts the number of lines retrieved for
+ * this last timestamp.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public class LogsCursor {
+
+    private Instant lastTimestamp = null;
+    private int lastTimestampLines = 0;
+
+    /**
+     * Gets the timestamp from which the logs must be queried.
+     *
+     * @return the timestamp of the last log line retrieved, or an empty optional if no logs were retrieved yet
+     */
+    @Nonnull
+    public Optional<Instant> getSince() {
+        return Optional.ofNullable(lastTimestamp);
+    }
+
+    /**
+     * Processes timestamped logs. Each line is expected to be prefixed with its timestamp, as formatted by the Docker
+     * daemon. Lines already retrieved are discarded, the timestamp of the remaining lines are removed, and the cursor
+     * moves past them. Lines without valid timestamps are kept as is.
+     *
+     * @param timestampedLogs the timestamped logs
+     *
+     * @return the logs not retrieved yet, without timestamps
+     *
+     * @throws NullPointerException if {@code timestampedLogs} is {@code null}
+     */
+    @Nonnull
+    public CharSequence process(@Nonnull CharSequence timestampedLogs) {
+        DockerCloudUtils.requireNonNull(timestampedLogs, "Logs cannot be null.");
+
+        Instant since = lastTimestamp;
+        int duplicatesToSkip = lastTimestampLines;
+
+        StringBuilder sb = new StringBuilder(timestampedLogs.length());
+        int lineStart = 0;
+        int length = timestampedLogs.length();
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && timestampedLogs.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            // Include the line separator, if any.
+            int next = Math.min(lineEnd + 1, length);
+
+            int separator = indexOf(timestampedLogs, ' ', lineStart, lineEnd);
+            Instant timestamp = separator != -1 ? parseTimestamp(timestampedLogs, lineStart, separator) : null;
+
+            if (timestamp == null) {
+                sb.append(timestampedLogs, lineStart, next);
+            } else if (since == null || timestamp.isAfter(since) ||
+                    (timestamp.equals(since) && duplicatesToSkip-- <= 0)) {
+                sb.append(timestampedLogs, separator + 1, next);
+                if (timestamp.equals(lastTimestamp)) {
+                    lastTimestampLines++;
+                } else if (lastTimestamp == null || timestamp.isAfter(lastTimestamp)) {
+                    lastTimestamp = timestamp;
+                    lastTimestampLines = 1;
+                }
+            }
+
+            lineStart = next;
+        }
+
+        return sb;
+    }
+
+    private static int indexOf(CharSequence txt, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (txt.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Instant parseTimestamp(CharSequence txt, int from, int to) {
+        try {
+            return Instant.parse(txt.subSequence(from, to));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package run.var.teamcity.cloud.docker;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * An agent holder specification, prepared by a {@link DockerClientFacade} for the creation of new agent holders.
+ * <p>
+ *     Preparing a specification involves all the steps that do not depend on a specific agent holder (such as pulling
+ *     and inspecting the source image). A prepared specification can therefore be shared to create several agent
+ *     holders.
+ * </p>
+ * <p>
+ *     Instances of this class are immutable.
+ * </p>
+ *
+ * @see DockerClientFacade#prepareAgentHolder(CreateAgentParameters)
+ */
+public class PreparedAgentHolderSpec {
+
+    private final Node agentHolderSpec;
+    private final String resolvedImage;
+
+    /**
+     * Creates a new prepared specification.
+     *
+     * @param agentHolderSpec the prepared agent holder specification
+     * @param resolvedImage the resolved image name (may be {@code null} if only resolved upon creation)
+     *
+     * @throws NullPointerException if {@code agentHolderSpec} is {@code null}
+     */
+    public PreparedAgentHolderSpec(@Nonnull Node agentHolderSpec, @Nullable String resolvedImage) {
+        this.agentHolderSpec = DockerCloudUtils.requireNonNull(agentHolderSpec,
+                "Agent holder specification cannot be null.");
+        this.resolvedImage = resolvedImage;
+    }
+
+    /**
+     * Gets the prepared agent holder specification.
+     *
+     * @return the prepared agent holder specification
+     */
+    @Nonnull
+    public Node getAgentHolderSpec() {
+        return agentHolderSpec;
+    }
+
+    /**
+     * Gets the resolved image name, if already known.
+     *
+     * @return the resolved image name if any
+     */
+    @Nonnull
+    public Optional<String> getResolvedImage() {
+        return Optional.ofNullable(resolvedImage);
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedAgentHolderSpec{" +
+                "resolvedImage='" + resolvedImage + '\'' +
+                '}';
+    }
+}
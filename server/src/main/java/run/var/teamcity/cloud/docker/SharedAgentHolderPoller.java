@@ -0,0 +1,348 @@
+package run.var.teamcity.cloud.docker;
+
+import com.intellij.openapi.diagnostic.Logger;
+import run.var.teamcity.cloud.docker.client.DockerClientConfig;
+import run.var.teamcity.cloud.docker.client.DockerDaemonEndpoint;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.LockHandler;
+import run.var.teamcity.cloud.docker.util.NamedThreadFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic listing of agent holders shared between all the cloud clients connected to a same daemon endpoint.
+ * <p>
+ *     Instead of having each cloud client listing its own agent holders, a single poller per daemon endpoint lists
+ *     all the agent holders carrying the {@link DockerCloudUtils#CLIENT_ID_LABEL client id label} once per cycle, and
+ *     dispatches them to the subscribed clients according to the label value. The number of listing requests
+ *     performed against a daemon is therefore independent of the number of cloud profiles using it.
+ * </p>
+ * <p>
+ *     Each cycle first invokes {@link Subscriber#prepareSync()} on all the subscribers, and only then lists the agent
+ *     holders. The subscribers can therefore snapshot their state before the listing is performed, as they would do
+ *     when listing their agent holders by themselves. The cycles are repeated at the shortest sync rate of the
+ *     current subscribers.
+ * </p>
+ * <p>
+ *     Instances of this class are thread-safe.
+ * </p>
+ */
+class SharedAgentHolderPoller {
+
+    private final static Logger LOG = DockerCloudUtils.getLogger(SharedAgentHolderPoller.class);
+
+    private final static LockHandler pollersLock = LockHandler.newReentrantLock();
+    private final static Map<PollerKey, SharedAgentHolderPoller> pollers = new HashMap<>();
+
+    private final PollerKey key;
+    private final DockerClientConfig clientConfig;
+    private final ScheduledExecutorService executorService;
+
+    private final LockHandler lock = LockHandler.newReentrantLock();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private ScheduledFuture<?> nextPoll = null;
+    private Instant nextPollTime = null;
+
+    /**
+     * The client facade used to list the agent holders. Only accessed from the polling thread.
+     */
+    private DockerClientFacade clientFacade = null;
+
+    private SharedAgentHolderPoller(PollerKey key, DockerClientConfig clientConfig) {
+        this.key = key;
+        this.clientConfig = clientConfig;
+        executorService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DockerSharedSync",
+                true));
+    }
+
+    /**
+     * Subscribes to the shared poller for the given daemon endpoint. A poller will be created if none is running for
+     * this endpoint yet. The subscriber will be included in the next cycle, which will be triggered right away if
+     * the poller is idle.
+     *
+     * @param cloudSupport the cloud support, determining the kind of agent holders to be listed
+     * @param clientConfig the configuration of the client to connect to the daemon
+     * @param subscriber the subscriber
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if the subscriber is already registered
+     */
+    static void subscribe(@Nonnull DockerCloudSupport cloudSupport, @Nonnull DockerClientConfig clientConfig,
+                          @Nonnull Subscriber subscriber) {
+        DockerCloudUtils.requireNonNull(cloudSupport, "Cloud support cannot be null.");
+        DockerCloudUtils.requireNonNull(clientConfig, "Client configuration cannot be null.");
+        DockerCloudUtils.requireNonNull(subscriber, "Subscriber cannot be null.");
+
+        PollerKey key = new PollerKey(cloudSupport, clientConfig);
+
+        pollersLock.run(() -> {
+            SharedAgentHolderPoller poller = pollers.computeIfAbsent(key,
+                    k -> new SharedAgentHolderPoller(k, clientConfig));
+            poller.lock.run(() -> {
+                if (poller.subscribers.contains(subscriber)) {
+                    throw new IllegalArgumentException("Subscriber already registered: " + subscriber);
+                }
+                poller.subscribers.add(subscriber);
+                poller.schedulePoll(Duration.ZERO);
+            });
+        });
+    }
+
+    /**
+     * Unsubscribes from the shared poller for the given daemon endpoint. The poller will be stopped if this was its
+     * last subscriber. Unknown subscribers will be ignored.
+     *
+     * @param cloudSupport the cloud support
+     * @param clientConfig the configuration of the client to connect to the daemon
+     * @param subscriber the subscriber
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    static void unsubscribe(@Nonnull DockerCloudSupport cloudSupport, @Nonnull DockerClientConfig clientConfig,
+                            @Nonnull Subscriber subscriber) {
+        DockerCloudUtils.requireNonNull(cloudSupport, "Cloud support cannot be null.");
+        DockerCloudUtils.requireNonNull(clientConfig, "Client configuration cannot be null.");
+        DockerCloudUtils.requireNonNull(subscriber, "Subscriber cannot be null.");
+
+        PollerKey key = new PollerKey(cloudSupport, clientConfig);
+
+        pollersLock.run(() -> {
+            SharedAgentHolderPoller poller = pollers.get(key);
+            if (poller == null) {
+                return;
+            }
+            poller.lock.run(() -> {
+                poller.subscribers.remove(subscriber);
+                if (poller.subscribers.isEmpty()) {
+                    pollers.remove(key);
+                    poller.stop();
+                }
+            });
+        });
+    }
+
+    /**
+     * For testing purpose. Checks if a poller is running for the given daemon endpoint.
+     *
+     * @param cloudSupport the cloud support
+     * @param clientConfig the configuration of the client to connect to the daemon
+     *
+     * @return {@code true} if a poller is running
+     */
+    static boolean isPolling(@Nonnull DockerCloudSupport cloudSupport, @Nonnull DockerClientConfig clientConfig) {
+        PollerKey key = new PollerKey(cloudSupport, clientConfig);
+        return pollersLock.call(() -> pollers.containsKey(key));
+    }
+
+    private void schedulePoll(Duration delay) {
+        assert lock.isHeldByCurrentThread();
+
+        Instant pollTime = Instant.now().plus(delay);
+        if (nextPoll != null) {
+            if (!nextPollTime.isAfter(pollTime)) {
+                // A poll is already scheduled early enough.
+                return;
+            }
+            nextPoll.cancel(false);
+        }
+        nextPollTime = pollTime;
+        nextPoll = executorService.schedule(this::poll, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void stop() {
+        assert lock.isHeldByCurrentThread();
+
+        LOG.info("Stopping shared agent holders poller for " + key + ".");
+
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+            nextPoll = null;
+        }
+
+        // Let the polling thread close the client facade once the current cycle, if any, is completed.
+        executorService.execute(() -> {
+            if (clientFacade != null) {
+                clientFacade.close();
+                clientFacade = null;
+            }
+        });
+        executorService.shutdown();
+    }
+
+    private void poll() {
+        List<Subscriber> subscribers = lock.call(() -> {
+            nextPoll = null;
+            nextPollTime = null;
+            return new ArrayList<>(this.subscribers);
+        });
+
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<PendingSync> pendingSyncs = new ArrayList<>(subscribers.size());
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    pendingSyncs.add(subscriber.prepareSync());
+                } catch (Exception e) {
+                    LOG.error("Failed to prepare sync for subscriber " + subscriber + ".", e);
+                    pendingSyncs.add(null);
+                }
+            }
+
+            Map<String, List<AgentHolderInfo>> agentHoldersByClient = new HashMap<>();
+            Exception failure = null;
+            try {
+                if (clientFacade == null) {
+                    // The listing requests are performed on behalf of the subscribers, using their connections.
+                    clientFacade = key.cloudSupport.createBorrowingClientFacade(clientConfig);
+                    LOG.info("Docker client instantiated for shared agent holders poller on " + key + ".");
+                }
+
+                List<AgentHolderInfo> agentHolders = clientFacade.listAgentHolders(DockerCloudUtils.CLIENT_ID_LABEL,
+                        null);
+
+                LOG.debug("Listed " + agentHolders.size() + " agent holders on " + key + ".");
+
+                for (AgentHolderInfo agentHolder : agentHolders) {
+                    String clientId = agentHolder.getLabels().get(DockerCloudUtils.CLIENT_ID_LABEL);
+                    agentHoldersByClient.computeIfAbsent(clientId, id -> new ArrayList<>()).add(agentHolder);
+                }
+            } catch (Exception e) {
+                LOG.warn("Failed to list agent holders on " + key + ".", e);
+                failure = e;
+            }
+
+            for (int i = 0; i < subscribers.size(); i++) {
+                PendingSync pendingSync = pendingSyncs.get(i);
+                if (pendingSync == null) {
+                    continue;
+                }
+                try {
+                    if (failure == null) {
+                        String clientId = subscribers.get(i).getUuid().toString();
+                        pendingSync.complete(agentHoldersByClient.getOrDefault(clientId, Collections.emptyList()));
+                    } else {
+                        pendingSync.fail(failure);
+                    }
+                } catch (Exception e) {
+                    LOG.error("Failed to dispatch agent holders to subscriber " + subscribers.get(i) + ".", e);
+                }
+            }
+        } finally {
+            lock.run(() -> {
+                if (!this.subscribers.isEmpty()) {
+                    Duration rate = null;
+                    for (Subscriber subscriber : this.subscribers) {
+                        Duration subscriberRate = subscriber.getSyncRate();
+                        if (rate == null || subscriberRate.compareTo(rate) < 0) {
+                            rate = subscriberRate;
+                        }
+                    }
+                    schedulePoll(rate);
+                }
+            });
+        }
+    }
+
+    /**
+     * A subscriber to the shared poller.
+     */
+    interface Subscriber {
+
+        /**
+         * Gets the UUID of the subscriber, to be matched with the value of the client id label.
+         *
+         * @return the subscriber UUID
+         */
+        @Nonnull
+        UUID getUuid();
+
+        /**
+         * Gets the rate at which the subscriber must be synchronized.
+         *
+         * @return the sync rate
+         */
+        @Nonnull
+        Duration getSyncRate();
+
+        /**
+         * Invoked at the beginning of each cycle, before the agent holders are listed. This method must not block.
+         *
+         * @return the handler to be notified with the result of the listing
+         */
+        @Nonnull
+        PendingSync prepareSync();
+    }
+
+    /**
+     * Handler for the result of a listing cycle. Exactly one of its method will be invoked, from the polling thread.
+     * Implementations must not block.
+     */
+    interface PendingSync {
+
+        /**
+         * Notifies the agent holders listed for the subscriber.
+         *
+         * @param agentHolders the agent holders labeled with the subscriber UUID
+         */
+        void complete(@Nonnull List<AgentHolderInfo> agentHolders);
+
+        /**
+         * Notifies that the agent holders could not be listed.
+         *
+         * @param failure the listing failure
+         */
+        void fail(@Nonnull Exception failure);
+    }
+
+    /**
+     * Key identifying a poller: the kind of agent holders to be listed, and the daemon endpoint.
+     */
+    private static class PollerKey {
+
+        final DockerCloudSupport cloudSupport;
+        final DockerDaemonEndpoint endpoint;
+
+        PollerKey(DockerCloudSupport cloudSupport, DockerClientConfig config) {
+            this.cloudSupport = cloudSupport;
+            endpoint = new DockerDaemonEndpoint(config);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PollerKey)) {
+                return false;
+            }
+            PollerKey key = (PollerKey) obj;
+            return cloudSupport.equals(key.cloudSupport) && endpoint.equals(key.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cloudSupport, endpoint);
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + " [" + cloudSupport.code() + "]";
+        }
+    }
+}
@@ -8,8 +8,10 @@ import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.EditableNode;
 import run.var.teamcity.cloud.docker.util.Node;
 import run.var.teamcity.cloud.docker.util.NodeProcessingException;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.time.Duration;
 import java.time.Instant;
@@ -89,7 +91,7 @@ public class SwarmDockerClientFacade extends BaseDockerClientFacade {
 
     @Nonnull
     @Override
-    public NewAgentHolderInfo createAgent(@Nonnull CreateAgentParameters createAgentParameters) {
+    public PreparedAgentHolderSpec prepareAgentHolder(@Nonnull CreateAgentParameters createAgentParameters) {
         DockerCloudUtils.requireNonNull(createAgentParameters, "Agent creation parameters cannot be null.");
 
         if (createAgentParameters.getPullStrategy() != PullStrategy.NO_PULL) {
@@ -112,9 +114,27 @@ public class SwarmDockerClientFacade extends BaseDockerClientFacade {
 
         imageName.ifPresent(image -> editableContainerSpec.put("Image", image));
 
-        applyEnv(editableContainerSpec, createAgentParameters.getEnv());
+        // The image name will be resolved by the node manager upon creation.
+        return new PreparedAgentHolderSpec(editableServiceSpec.saveNode(), null);
+    }
+
+    @Nonnull
+    @Override
+    public NewAgentHolderInfo createAgent(@Nonnull PreparedAgentHolderSpec preparedSpec,
+                                          @Nonnull Map<String, String> labels, @Nonnull Map<String, String> env) {
+        DockerCloudUtils.requireNonNull(preparedSpec, "Prepared specification cannot be null.");
+        DockerCloudUtils.requireNonNull(labels, "Labels map cannot be null.");
+        DockerCloudUtils.requireNonNull(env, "Environment map cannot be null.");
 
-        applyLabels(editableServiceSpec, createAgentParameters.getLabels());
+        EditableNode editableServiceSpec = preparedSpec.getAgentHolderSpec().editNode();
+
+        EditableNode editableContainerSpec = editableServiceSpec.
+                getOrCreateObject("TaskTemplate").
+                getOrCreateObject("ContainerSpec");
+
+        applyEnv(editableContainerSpec, env);
+
+        applyLabels(editableServiceSpec, labels);
 
         Node serviceNode =  client.createService(editableServiceSpec.saveNode());
 
@@ -228,7 +248,8 @@ public class SwarmDockerClientFacade extends BaseDockerClientFacade {
 
     @Nonnull
     @Override
-    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nonnull String valueFilter) {
+    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nullable String valueFilter) {
+        DockerCloudUtils.requireNonNull(labelFilter, "Label filter key cannot be null.");
 
         try {
             List<Node> services = client.listServicesWithLabel(Collections.singletonMap(labelFilter, valueFilter)).
@@ -286,6 +307,18 @@ public class SwarmDockerClientFacade extends BaseDockerClientFacade {
         }
     }
 
+    @Nonnull
+    @Override
+    public AgentHolderEventStream streamAgentHolderEvents(@Nonnull String labelFilter, @Nonnull String valueFilter) {
+        // Service events are only available starting with API v1.30.
+        throw new UnsupportedOperationException("Streaming events is not supported in swarm mode.");
+    }
+
+    @Override
+    public boolean supportStreamingEvents() {
+        return false;
+    }
+
     @Override
     public boolean terminateAgentContainer(@Nonnull String containerId, Duration timeout, boolean removeContainer) {
         client.removeService(containerId);
@@ -300,6 +333,19 @@ public class SwarmDockerClientFacade extends BaseDockerClientFacade {
         return demuxLogs(handler);
     }
 
+    @Nonnull
+    @Override
+    public CharSequence getLogs(@Nonnull String serviceId, @Nonnull LogsCursor cursor,
+            @Nonnull VT100EscapeFilter filter) {
+        DockerCloudUtils.requireNonNull(cursor, "Logs cursor cannot be null.");
+        DockerCloudUtils.requireNonNull(filter, "Logs filter cannot be null.");
+        Instant since = cursor.getSince().orElse(null);
+        StreamHandler handler = client.streamServiceLogs(serviceId, since == null ? 10000 : -1, StdioType.all(),
+                since, true, false, !hasTty(serviceId));
+
+        return demuxLogs(handler, cursor, filter);
+    }
+
     @Nonnull
     @Override
     public StreamHandler streamLogs(@Nonnull String serviceId) {
@@ -0,0 +1,189 @@
+package run.var.teamcity.cloud.docker.client;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.NodeProcessingException;
+import run.var.teamcity.cloud.docker.util.StreamingNodeReader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact summary of a container, as returned when listing containers. Only the fields relevant to the management of
+ * agent holders are retained.
+ * <p>
+ *     Instances of this class are immutable.
+ * </p>
+ */
+public class ContainerSummary {
+
+    private final String id;
+    private final String name;
+    private final Map<String, String> labels;
+    private final String state;
+    private final String imageId;
+    private final Instant creationTimestamp;
+
+    /**
+     * Creates a new container summary.
+     *
+     * @param id the container id
+     * @param name the container name (may be {@code null})
+     * @param labels the container labels
+     * @param state the container state
+     * @param imageId the source image id (may be {@code null})
+     * @param creationTimestamp the container creation timestamp
+     *
+     * @throws NullPointerException if any non-nullable argument is {@code null}
+     */
+    public ContainerSummary(@Nonnull String id, @Nullable String name, @Nonnull Map<String, String> labels,
+                            @Nonnull String state, @Nullable String imageId, @Nonnull Instant creationTimestamp) {
+        this.id = DockerCloudUtils.requireNonNull(id, "Container id cannot be null.");
+        this.name = name;
+        this.labels = Collections.unmodifiableMap(DockerCloudUtils.requireNonNull(labels,
+                "Labels map cannot be null."));
+        this.state = DockerCloudUtils.requireNonNull(state, "Container state cannot be null.");
+        this.imageId = imageId;
+        this.creationTimestamp = DockerCloudUtils.requireNonNull(creationTimestamp,
+                "Creation timestamp cannot be null.");
+    }
+
+    /**
+     * Reads a list of container summaries from the given reader, skipping all the irrelevant fields.
+     *
+     * @param reader the reader positioned on the containers array
+     *
+     * @return the list of container summaries
+     *
+     * @throws NullPointerException if {@code reader} is {@code null}
+     * @throws NodeProcessingException if the containers array is malformed
+     * @throws IOException if an error occurred while processing the stream
+     */
+    @Nonnull
+    public static List<ContainerSummary> readList(@Nonnull StreamingNodeReader reader) throws IOException {
+        DockerCloudUtils.requireNonNull(reader, "Reader cannot be null.");
+        return reader.readArray(ContainerSummary::read);
+    }
+
+    private static ContainerSummary read(StreamingNodeReader reader) throws IOException {
+        Builder builder = new Builder();
+        reader.readObject((fieldName, fieldReader) -> {
+            switch (fieldName) {
+                case "Id":
+                    builder.id = fieldReader.readString();
+                    return true;
+                case "Names":
+                    List<String> names = fieldReader.readStringList();
+                    builder.name = names.isEmpty() ? null : names.get(0);
+                    return true;
+                case "Labels":
+                    builder.labels = fieldReader.readStringMap();
+                    return true;
+                case "State":
+                    builder.state = fieldReader.readString();
+                    return true;
+                case "ImageID":
+                    builder.imageId = fieldReader.readString();
+                    return true;
+                case "Created":
+                    builder.created = fieldReader.readLong();
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Gets the container id.
+     *
+     * @return the container id
+     */
+    @Nonnull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the container name.
+     *
+     * @return the container name if any
+     */
+    @Nonnull
+    public Optional<String> getName() {
+        return Optional.ofNullable(name);
+    }
+
+    /**
+     * Gets the container labels.
+     *
+     * @return the container labels
+     */
+    @Nonnull
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Gets the container state.
+     *
+     * @return the container state
+     */
+    @Nonnull
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Gets the source image id.
+     *
+     * @return the source image id if known
+     */
+    @Nonnull
+    public Optional<String> getImageId() {
+        return Optional.ofNullable(imageId);
+    }
+
+    /**
+     * Gets the container creation timestamp.
+     *
+     * @return the creation timestamp
+     */
+    @Nonnull
+    public Instant getCreationTimestamp() {
+        return creationTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ContainerSummary{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", state='" + state + '\'' +
+                ", imageId='" + imageId + '\'' +
+                '}';
+    }
+
+    private static class Builder {
+        String id;
+        String name;
+        Map<String, String> labels = Collections.emptyMap();
+        String state;
+        String imageId;
+        Long created;
+
+        ContainerSummary build() {
+            if (id == null || state == null || created == null) {
+                throw new NodeProcessingException("Incomplete container summary: missing id, state, or creation " +
+                        "timestamp.");
+            }
+            return new ContainerSummary(id, name, labels, state, imageId, Instant.ofEpochSecond(created));
+        }
+    }
+}
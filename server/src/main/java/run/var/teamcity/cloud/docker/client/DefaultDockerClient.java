@@ -52,6 +52,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
@@ -81,6 +82,8 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
     private final static Logger LOG = DockerCloudUtils.getLogger(DefaultDockerClient.class);
 
     private final DockerHttpConnectionFactory connectionFactory;
+    private final PoolingHttpClientConnectionManager connManager;
+    private final Client jerseyClient;
     private final WebTarget baseTarget;
 
     private volatile DockerAPIVersion apiVersion;
@@ -110,11 +113,20 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         }
     }
 
-    private DefaultDockerClient(DockerHttpConnectionFactory connectionFactory, Client jerseyClient, URI targetUri,
+    private DefaultDockerClient(DockerHttpConnectionFactory connectionFactory,
+                                PoolingHttpClientConnectionManager connManager, Client jerseyClient, URI targetUri,
                                 DockerAPIVersion apiVersion) {
+        this(connectionFactory, connManager, jerseyClient, jerseyClient.target(targetUri), apiVersion);
+    }
+
+    private DefaultDockerClient(DockerHttpConnectionFactory connectionFactory,
+                                PoolingHttpClientConnectionManager connManager, Client jerseyClient,
+                                WebTarget baseTarget, DockerAPIVersion apiVersion) {
         super(jerseyClient);
         this.connectionFactory = connectionFactory;
-        this.baseTarget = jerseyClient.target(targetUri);
+        this.connManager = connManager;
+        this.jerseyClient = jerseyClient;
+        this.baseTarget = baseTarget;
         this.apiVersion = apiVersion;
     }
 
@@ -134,6 +146,50 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         this.apiVersion = apiVersion;
     }
 
+    /**
+     * Resizes the connection pool of this client.
+     *
+     * @param connectionPoolSize the new size of the connection pool
+     *
+     * @throws IllegalArgumentException if {@code connectionPoolSize} is smaller than 1
+     */
+    void setConnectionPoolSize(int connectionPoolSize) {
+        if (connectionPoolSize < 1) {
+            throw new IllegalArgumentException("Invalid connection pool size: " + connectionPoolSize);
+        }
+        connManager.setDefaultMaxPerRoute(connectionPoolSize);
+        connManager.setMaxTotal(connectionPoolSize);
+    }
+
+    /**
+     * Creates a view of this client applying its own timeouts to each request. The view shares the connection pool
+     * of this client, and uses its current API version. It must not be closed: closing this client will close the
+     * view as well.
+     *
+     * @param connectTimeout the connection timeout
+     * @param transferTimeout the transfer timeout
+     *
+     * @return the client view
+     */
+    DefaultDockerClient withTimeouts(Duration connectTimeout, Duration transferTimeout) {
+        assert connectTimeout != null && transferTimeout != null;
+
+        // NB: caution with those, they must strictly be set as integers (not long).
+        WebTarget target = jerseyClient.target(baseTarget.getUri()).
+                property(ClientProperties.CONNECT_TIMEOUT, (int) connectTimeout.toMillis()).
+                property(ClientProperties.READ_TIMEOUT, (int) transferTimeout.toMillis());
+        return new DefaultDockerClient(connectionFactory, connManager, jerseyClient, target, apiVersion);
+    }
+
+    /**
+     * Gets the current size of the connection pool of this client.
+     *
+     * @return the size of the connection pool
+     */
+    int getConnectionPoolSize() {
+        return connManager.getMaxTotal();
+    }
+
     @Nonnull
     public Node getVersion() {
         return invoke(target().path("/version"), HttpMethod.GET, null, prepareHeaders(DockerRegistryCredentials.ANONYMOUS), null);
@@ -238,21 +294,36 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
     @Override
     public StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
                                     boolean follow, boolean demuxStdio) {
+        return streamLogs(containerId, lineCount, stdioTypes, null, false, follow, demuxStdio);
+    }
+
+    @Nonnull
+    @Override
+    public StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                                    @Nullable Instant since, boolean timestamps, boolean follow,
+                                    boolean demuxStdio) {
 
         return invokeStream(prepareLogsTarget(target(), "/containers/{id}/logs", containerId, lineCount, stdioTypes,
-                follow), HttpMethod.GET, null, demuxStdio);
+                since, timestamps, follow), HttpMethod.GET, null, demuxStdio);
     }
 
     @Nonnull
     @Override
     public StreamHandler streamServiceLogs(@Nonnull String serviceId, int lineCount, @Nonnull Set<StdioType>
             stdioTypes, boolean follow, boolean demuxStream) {
+        return streamServiceLogs(serviceId, lineCount, stdioTypes, null, false, follow, demuxStream);
+    }
+
+    @Nonnull
+    @Override
+    public StreamHandler streamServiceLogs(@Nonnull String serviceId, int lineCount, @Nonnull Set<StdioType>
+            stdioTypes, @Nullable Instant since, boolean timestamps, boolean follow, boolean demuxStream) {
         return invokeStream(prepareLogsTarget(target(), "/services/{id}/logs", serviceId, lineCount,
-                stdioTypes, follow), HttpMethod.GET, null, demuxStream);
+                stdioTypes, since, timestamps, follow), HttpMethod.GET, null, demuxStream);
     }
 
     private WebTarget prepareLogsTarget(WebTarget target, String path, String container, int lineCount, Set<StdioType>
-            stdioTypes, boolean follow) {
+            stdioTypes, Instant since, boolean timestamps, boolean follow) {
 
         DockerCloudUtils.requireNonNull(container, "Container name or id cannot be null.");
         DockerCloudUtils.requireNonNull(stdioTypes, "Set of stdio types cannot be null.");
@@ -268,10 +339,21 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
             throw new IllegalArgumentException("Set of stdio types cannot be empty.");
         }
 
-        return applyStdioTypes(target, stdioTypes).path(path).
+        target = applyStdioTypes(target, stdioTypes).path(path).
                 resolveTemplate("id", container).
                 queryParam("tail", tail).
                 queryParam("follow", follow ? 1 : 0);
+
+        if (since != null) {
+            // Unix timestamp with nanoseconds precision.
+            target = target.queryParam("since", since.getEpochSecond() + "." +
+                    String.format("%09d", since.getNano()));
+        }
+        if (timestamps) {
+            target = target.queryParam("timestamps", 1);
+        }
+
+        return target;
     }
 
     @Override
@@ -323,6 +405,19 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         return invoke(target, HttpMethod.GET, null, prepareHeaders(DockerRegistryCredentials.ANONYMOUS), null);
     }
 
+    @Nonnull
+    @Override
+    public List<ContainerSummary> listContainerSummariesWithLabel(@Nonnull Map<String, String> labelFilters) {
+        DockerCloudUtils.requireNonNull(labelFilters, "Label filters map cannot be null.");
+
+        WebTarget target = target().path("/containers/json").queryParam("all", true);
+
+        target = addLabelsFiltersToQuery(target, labelFilters);
+
+        return invokeStreaming(target, HttpMethod.GET, null, prepareHeaders(DockerRegistryCredentials.ANONYMOUS), null,
+                ContainerSummary::readList);
+    }
+
     @Nonnull
     @Override
     public Node listServicesWithLabel(@Nonnull Map<String, String> labelFilters) {
@@ -335,6 +430,21 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         return invoke(target, HttpMethod.GET, null, prepareHeaders(DockerRegistryCredentials.ANONYMOUS), null);
     }
 
+    @Nonnull
+    @Override
+    public NodeStream streamEvents(@Nonnull Map<String, String> labelFilters) {
+        DockerCloudUtils.requireNonNull(labelFilters, "Label filters map cannot be null.");
+
+        // The events stream may stay idle for long periods: do not apply the transfer timeout, the stream will be
+        // closed explicitly when no longer required.
+        WebTarget target = target().path("/events").property(ClientProperties.READ_TIMEOUT, 0);
+
+        target = addLabelsFiltersToQuery(target, labelFilters);
+
+        return invokeNodeStream(target, HttpMethod.GET, null, prepareHeaders(DockerRegistryCredentials.ANONYMOUS),
+                null);
+    }
+
     @Nonnull
     @Override
     public Node listTasks(@Nonnull String serviceId) {
@@ -350,7 +460,7 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         assert target != null && labelFilters != null;
 
         List<String> labels = labelFilters.entrySet().stream().
-                map(entry -> entry.getKey() + "=" + entry.getValue()).
+                map(entry -> entry.getValue() != null ? entry.getKey() + "=" + entry.getValue() : entry.getKey()).
                 collect(Collectors.toList());
 
         return addFilterToQuery(target, "label", labels);
@@ -387,20 +497,30 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
 
         checkNotClosed();
 
-        Response response = target.request(MediaType.APPLICATION_JSON).acceptEncoding(SUPPORTED_CHARSET.name()).
-                header("Upgrade", "tcp").method(method);
+        long startTime = System.nanoTime();
+        Exception failure = null;
+        Response response;
+        try {
+            response = target.request(MediaType.APPLICATION_JSON).acceptEncoding(SUPPORTED_CHARSET.name()).
+                    header("Upgrade", "tcp").method(method);
+
+            // While the API states that the "logs" operation can be upgraded to TCP streaming, this does not seem to
+            // be honored in practice. Actually, connection upgrade is here not really required since we do not have
+            // any payload to transmit to the server.
+            if (response.getStatusInfo().getStatusCode() == HttpStatus.SC_SWITCHING_PROTOCOLS) {
+                LOG.debug("Connection upgraded.");
+            } else {
+                LOG.debug("No connection upgrade performed.");
+            }
 
-        // While the API states that the "logs" operation can be upgraded to TCP streaming, this does not seem to be
-        // honored in practice. Actually, connection upgrade is here not really required since we do not have any
-        // payload to transmit to the server.
-        if (response.getStatusInfo().getStatusCode() == HttpStatus.SC_SWITCHING_PROTOCOLS) {
-            LOG.debug("Connection upgraded.");
-        } else {
-            LOG.debug("No connection upgrade performed.");
+            validate(getRequestSpec(target, method), response, errorCodeMapper);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            requestCompleted(target, method, startTime, failure);
         }
 
-        validate(getRequestSpec(target, method), response, errorCodeMapper);
-
         DockerHttpConnection connection = connectionFactory.getThreadLocalHttpConnection();
 
         Closeable closeHandle = new JaxWsResponseCloseableAdapter(response);
@@ -520,7 +640,7 @@ public class DefaultDockerClient extends DockerAbstractClient implements DockerC
         config.property(ClientProperties.READ_TIMEOUT, (int) clientConfig.getTransferTimeout().toMillis());
         config.property(ApacheConnectorProvider.CONNECTION_REUSE_STRATEGY_PROP, connectionReuseStrategy);
 
-        return new DefaultDockerClient(connectionFactory, ClientBuilder.newClient(config), effectiveURI,
+        return new DefaultDockerClient(connectionFactory, connManager, ClientBuilder.newClient(config), effectiveURI,
                 clientConfig.getApiVersion());
     }
 
@@ -97,4 +97,15 @@ public class DefaultDockerRegistryClient extends DockerAbstractClient implements
     public void close() {
         jerseyClient.close();
     }
+
+    @Nonnull
+    @Override
+    protected String getNormalizedRequestSpec(WebTarget target, String method) {
+        String path = target.getUri().getPath();
+        if (path.startsWith("/v2/") && path.endsWith("/tags/list")) {
+            // Repository names may contain an arbitrary number of path components.
+            return method + " /v2/{name}/tags/list";
+        }
+        return super.getNormalizedRequestSpec(target, method);
+    }
 }
@@ -0,0 +1,133 @@
+package run.var.teamcity.cloud.docker.client;
+
+import com.intellij.openapi.diagnostic.Logger;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link RequestInstrumentation}. Keeps a latency histogram and error counts for each normalized request
+ * specification, and logs requests taking longer than a given threshold.
+ *
+ * <p>Instances of this class are thread safe. Measures are recorded without locking.</p>
+ */
+public class DefaultRequestInstrumentation implements RequestInstrumentation {
+
+    private final static Logger LOG = DockerCloudUtils.getLogger(DefaultRequestInstrumentation.class);
+
+    /**
+     * Default threshold above which a request is considered slow.
+     */
+    public final static Duration DEFAULT_SLOW_REQUEST_THRESHOLD = Duration.ofSeconds(5);
+
+    private final static DefaultRequestInstrumentation SHARED =
+            new DefaultRequestInstrumentation(DEFAULT_SLOW_REQUEST_THRESHOLD);
+
+    private final Map<String, RequestStats> stats = new ConcurrentHashMap<>();
+    private final long slowRequestThresholdNanos;
+
+    /**
+     * Creates a new instrumentation instance.
+     *
+     * @param slowRequestThreshold the duration above which a request is logged as slow
+     *
+     * @throws NullPointerException if {@code slowRequestThreshold} is {@code null}
+     * @throws IllegalArgumentException if {@code slowRequestThreshold} is negative
+     */
+    public DefaultRequestInstrumentation(@Nonnull Duration slowRequestThreshold) {
+        DockerCloudUtils.requireNonNull(slowRequestThreshold, "Slow request threshold cannot be null.");
+        if (slowRequestThreshold.isNegative()) {
+            throw new IllegalArgumentException("Slow request threshold cannot be negative: " + slowRequestThreshold);
+        }
+        this.slowRequestThresholdNanos = slowRequestThreshold.toNanos();
+    }
+
+    /**
+     * Gets the instrumentation instance shared by default between all clients.
+     *
+     * @return the shared instance
+     */
+    @Nonnull
+    public static DefaultRequestInstrumentation getShared() {
+        return SHARED;
+    }
+
+    @Override
+    public void requestCompleted(@Nonnull String requestSpec, long durationNanos, @Nullable Exception failure) {
+        stats.computeIfAbsent(requestSpec, spec -> new RequestStats()).record(durationNanos, failure != null);
+
+        if (durationNanos > slowRequestThresholdNanos) {
+            LOG.warn("Slow request: " + requestSpec + " took " + TimeUnit.NANOSECONDS.toMillis(durationNanos) +
+                    "ms" + (failure != null ? " and failed: " + failure.getMessage() : "."));
+        }
+    }
+
+    /**
+     * Gets the statistics of all requests recorded so far, keyed by their normalized specification. The returned map
+     * is a live view.
+     *
+     * @return the requests statistics
+     */
+    @Nonnull
+    public Map<String, RequestStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Statistics for a given request specification.
+     */
+    public static class RequestStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long durationNanos, boolean failed) {
+            latency.record(durationNanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        /**
+         * Gets the latency distribution of the requests, whether they failed or not.
+         *
+         * @return the latency histogram
+         */
+        @Nonnull
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * Gets the number of requests performed.
+         *
+         * @return the number of requests
+         */
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * Gets the number of failed requests.
+         *
+         * @return the number of failed requests
+         */
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "RequestStats[count: " + getCount() + ", errors: " + getErrorCount() + ", mean: " +
+                    latency.getMean() + ", p95: " + latency.getPercentile(95) + ", max: " + latency.getMax() + "]";
+        }
+    }
+}
@@ -3,7 +3,9 @@ package run.var.teamcity.cloud.docker.client;
 import com.intellij.openapi.diagnostic.Logger;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.Node;
+import run.var.teamcity.cloud.docker.util.NodeProcessingException;
 import run.var.teamcity.cloud.docker.util.NodeStream;
+import run.var.teamcity.cloud.docker.util.StreamingNodeReader;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -21,6 +23,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Base class to access Docker services using JAX-WS.
@@ -58,9 +66,15 @@ public abstract class DockerAbstractClient implements Closeable {
         }
     };
 
+    private final static Set<String> COLLECTION_OPERATIONS = new HashSet<>(Arrays.asList("json", "create", "prune",
+            "search", "load"));
+
+    private final static Pattern API_VERSION_PTN = Pattern.compile("v\\d+(\\.\\d+)*");
+
     private final Client jerseyClient;
 
     private volatile boolean closed = false;
+    private volatile RequestInstrumentation instrumentation = DefaultRequestInstrumentation.getShared();
 
     /**
      * Creates a new client instance wrapping the given Jersey client.
@@ -88,6 +102,48 @@ public abstract class DockerAbstractClient implements Closeable {
     protected Node invoke(WebTarget target, String method, Node entity, MultivaluedMap<String, Object> headers,
                           ErrorCodeMapper errorCodeMapper) {
 
+        return invoke(target, method, entity, headers, errorCodeMapper, Node::parse);
+    }
+
+    /**
+     * Invokes an operation on the service returning a JSON structure, and reads it using a {@link StreamingNodeReader}.
+     * Only the values picked by the given reader will be extracted from the response.
+     *
+     * @param target          the targeted resource
+     * @param method          the operation method
+     * @param entity          the entity to be submitted, may be {@code null}
+     * @param headers         the request headers
+     * @param errorCodeMapper the additional error code mapper to be used, may be {@code null}
+     * @param valueReader     the reader of the response value
+     * @param <T>             the extracted value type
+     *
+     * @return the extracted value
+     *
+     * @throws DockerClientException if invoking the operation failed
+     */
+    @Nonnull
+    protected <T> T invokeStreaming(WebTarget target, String method, Node entity,
+                                    MultivaluedMap<String, Object> headers, ErrorCodeMapper errorCodeMapper,
+                                    StreamingNodeReader.ValueReader<T> valueReader) {
+
+        assert valueReader != null;
+
+        return invoke(target, method, entity, headers, errorCodeMapper, jsonStream -> {
+            try (StreamingNodeReader reader = StreamingNodeReader.create(jsonStream)) {
+                T value = valueReader.read(reader);
+                if (value == null) {
+                    throw new DockerClientProcessingException("No value extracted from server response.");
+                }
+                return value;
+            } catch (NodeProcessingException e) {
+                throw new DockerClientProcessingException("Failed to parse response from server.", e);
+            }
+        });
+    }
+
+    private <T> T invoke(WebTarget target, String method, Node entity, MultivaluedMap<String, Object> headers,
+                         ErrorCodeMapper errorCodeMapper, ResponseParser<T> responseParser) {
+
         assert target != null && method != null && headers != null;
 
         Response response = execRequest(target,
@@ -96,7 +152,7 @@ public abstract class DockerAbstractClient implements Closeable {
                         acceptEncoding(SUPPORTED_CHARSET.name()), method, entity != null ? Entity.json(entity.toString()) : null, headers, errorCodeMapper);
 
         try {
-            return Node.parse((InputStream) response.getEntity());
+            return responseParser.parse((InputStream) response.getEntity());
         } catch (IOException e) {
             throw new DockerClientProcessingException("Failed to parse response from server.", e);
         } finally {
@@ -188,17 +244,96 @@ public abstract class DockerAbstractClient implements Closeable {
 
         assert invocationBuilder != null && method != null && headers != null;
 
-        Response response;
+        long startTime = System.nanoTime();
+        Exception failure = null;
         try {
-            response = invocationBuilder.headers(headers).method(method, entity);
-        } catch (ProcessingException e) {
-            String msg = e.getMessage();
-            throw new DockerClientProcessingException(msg != null ? msg : "Method invocation failed.", e);
+            Response response;
+            try {
+                response = invocationBuilder.headers(headers).method(method, entity);
+            } catch (ProcessingException e) {
+                String msg = e.getMessage();
+                throw new DockerClientProcessingException(msg != null ? msg : "Method invocation failed.", e);
+            }
+
+            validate(getRequestSpec(target, method), response, errorCodeMapper);
+
+            return response;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            requestCompleted(target, method, startTime, failure);
+        }
+    }
+
+    /**
+     * Notifies the instrumentation hook of a request completion. Subclasses performing requests without using
+     * {@link #execRequest(WebTarget, Invocation.Builder, String, Entity, MultivaluedMap, ErrorCodeMapper)} must invoke
+     * this method themselves.
+     *
+     * @param target    the targeted resource
+     * @param method    the HTTP method used
+     * @param startTime the request start time, as given by {@link System#nanoTime()}
+     * @param failure   the request failure if any
+     */
+    protected void requestCompleted(WebTarget target, String method, long startTime, @Nullable Exception failure) {
+        long duration = System.nanoTime() - startTime;
+        try {
+            instrumentation.requestCompleted(getNormalizedRequestSpec(target, method), duration, failure);
+        } catch (RuntimeException e) {
+            LOG.warn("Request instrumentation failed.", e);
+        }
+    }
+
+    /**
+     * Sets the instrumentation hook to be notified of each request. Default to the
+     * {@link DefaultRequestInstrumentation#getShared() shared default instrumentation}.
+     *
+     * @param instrumentation the instrumentation hook
+     *
+     * @throws NullPointerException if {@code instrumentation} is {@code null}
+     */
+    public void setInstrumentation(@Nonnull RequestInstrumentation instrumentation) {
+        this.instrumentation = DockerCloudUtils.requireNonNull(instrumentation, "Instrumentation cannot be null.");
+    }
+
+    /**
+     * Build a normalized request specification from a target resource and an HTTP method, with the API version
+     * prefix removed and the resource identifiers replaced by a placeholder (eg. {@code POST /containers/{id}/start}).
+     * Used to aggregate request measures.
+     *
+     * @param target the targeted resource
+     * @param method the HTTP method to be used
+     *
+     * @return the normalized request specification
+     */
+    @Nonnull
+    protected String getNormalizedRequestSpec(WebTarget target, String method) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : target.getUri().getPath().split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        if (segments.size() > 1 && API_VERSION_PTN.matcher(segments.get(0)).matches()) {
+            segments.remove(0);
         }
 
-        validate(getRequestSpec(target, method), response, errorCodeMapper);
+        StringBuilder sb = new StringBuilder(method).append(" /");
+        if (!segments.isEmpty()) {
+            // Resource collection.
+            sb.append(segments.get(0));
+        }
+        if (segments.size() == 2) {
+            // Either an operation on the collection, or a single resource.
+            String segment = segments.get(1);
+            sb.append('/').append(COLLECTION_OPERATIONS.contains(segment) ? segment : "{id}");
+        } else if (segments.size() > 2) {
+            // An operation on a single resource, whose identifier may contain slashes (eg. repository names).
+            sb.append("/{id}/").append(segments.get(segments.size() - 1));
+        }
 
-        return response;
+        return sb.toString();
     }
 
     /**
@@ -311,4 +446,9 @@ public abstract class DockerAbstractClient implements Closeable {
         closed = true;
         jerseyClient.close();
     }
+
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+        T parse(InputStream jsonStream) throws IOException;
+    }
 }
@@ -9,6 +9,8 @@ import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.math.BigInteger;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,6 +42,8 @@ public interface DockerClient extends Closeable {
      * @param apiVersion the target API version
      *
      * @throws NullPointerException if {@code apiVersion} is {@code null}
+     * @throws UnsupportedOperationException if the API version of this client cannot be changed, such as for clients
+     * acquired from the {@link SharedDockerClientRegistry}
      */
     void setApiVersion(@Nonnull DockerAPIVersion apiVersion);
 
@@ -189,6 +193,26 @@ public interface DockerClient extends Closeable {
     StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
                              boolean follow, boolean demuxStdio);
 
+    /**
+     * Streams the container logs, starting from the given timestamp.
+     *
+     * @param containerId the container id
+     * @param lineCount the number of line of context
+     * @param stdioTypes the types of stream to be fetched
+     * @param since the timestamp (inclusive) of the first log line to be fetched, {@code null} for no lower bound
+     * @param timestamps {@code true} if each log line must be prefixed with its timestamp
+     * @param follow if the logs must be fetched continuously
+     * @param demuxStdio {@code true} if the logs content must be demultiplexed using Stdio frames
+     *
+     * @return a stream handler to consume the logs
+     *
+     * @throws NullPointerException if {@code containerId} or {@code stdioTypes} is {@code null}
+     * @throws DockerClientException if an error occurred while communicating with the daemon
+     */
+    @Nonnull
+    StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                             @Nullable Instant since, boolean timestamps, boolean follow, boolean demuxStdio);
+
     /**
      * Streams the service logs.
      *
@@ -206,6 +230,26 @@ public interface DockerClient extends Closeable {
     StreamHandler streamServiceLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
                                   boolean follow, boolean demuxStream);
 
+    /**
+     * Streams the service logs, starting from the given timestamp.
+     *
+     * @param containerId the container id
+     * @param lineCount the number of line context
+     * @param stdioTypes the types of stream to be fetched
+     * @param since the timestamp (inclusive) of the first log line to be fetched, {@code null} for no lower bound
+     * @param timestamps {@code true} if each log line must be prefixed with its timestamp
+     * @param follow {@code true} if the logs must be streamed continuously
+     *
+     * @return a stream handler to consume the logs
+     *
+     * @throws NullPointerException if {@code containerId} or {@code stdioTypes} is {@code null}
+     * @throws DockerClientException if an error occurred while communicating with the daemon
+     */
+    @Nonnull
+    StreamHandler streamServiceLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                                    @Nullable Instant since, boolean timestamps, boolean follow,
+                                    boolean demuxStream);
+
     /**
      * Stops the container with the given name or id and stop timeout. Use {@link #DEFAULT_TIMEOUT} as timeout value
      * to let the daemon use the default timeout.
@@ -242,32 +286,67 @@ public interface DockerClient extends Closeable {
 
     /**
      * Lists the containers filtered using the given sets of labels. For a container to be included in the list, all of
-     * the labels from the filter map will need to be set with the corresponding value.
+     * the labels from the filter map will need to be set with the corresponding value. A {@code null} value in the
+     * filter map matches any value of the label.
      *
      * @param labelFilters the label filter map
      *
      * @return the list of containers
      *
-     * @throws NullPointerException if {@code labelFilters}, or any of its keys or values, are {@code null}
+     * @throws NullPointerException if {@code labelFilters}, or any of its keys, are {@code null}
      * @throws DockerClientException if an error occurred while communicating with the daemon
      */
     @Nonnull
     Node listContainersWithLabel(@Nonnull Map<String, String> labelFilters);
 
+    /**
+     * Lists the summaries of the containers filtered using the given sets of labels. This method has the same
+     * semantic than {@link #listContainersWithLabel(Map)}, but only extracts the fields exposed by
+     * {@link ContainerSummary} from the daemon response, without materializing the full containers description.
+     *
+     * @param labelFilters the label filter map
+     *
+     * @return the list of container summaries
+     *
+     * @throws NullPointerException if {@code labelFilters}, or any of its keys, are {@code null}
+     * @throws DockerClientException if an error occurred while communicating with the daemon
+     */
+    @Nonnull
+    List<ContainerSummary> listContainerSummariesWithLabel(@Nonnull Map<String, String> labelFilters);
+
     /**
      * Lists the services filtered using the given sets of labels. For a service to be included in the list, all of
-     * the labels from the filter map will need to be set with the corresponding value.
+     * the labels from the filter map will need to be set with the corresponding value. A {@code null} value in the
+     * filter map matches any value of the label.
      *
      * @param labelFilters the label filter map
      *
      * @return the list of services
      *
-     * @throws NullPointerException if {@code labelFilters}, or any of its keys or values, are {@code null}
+     * @throws NullPointerException if {@code labelFilters}, or any of its keys, are {@code null}
      * @throws DockerClientException if an error occurred while communicating with the daemon
      */
     @Nonnull
     Node listServicesWithLabel(@Nonnull Map<String, String> labelFilters);
 
+    /**
+     * Streams the daemon events filtered using the given sets of labels. For an event to be included in the stream,
+     * the object it relates to must have all of the labels from the filter map set with the corresponding value.
+     * <p>
+     *     The stream will block until new events are available, and will only end when closed or when the
+     *     connection with the daemon is lost.
+     * </p>
+     *
+     * @param labelFilters the label filter map
+     *
+     * @return the stream of events
+     *
+     * @throws NullPointerException if {@code labelFilters}, or any of its keys or values, are {@code null}
+     * @throws DockerClientException if an error occurred while communicating with the daemon
+     */
+    @Nonnull
+    NodeStream streamEvents(@Nonnull Map<String, String> labelFilters);
+
     /**
      * Closes this client. Has no effect if the client is already closed.
      */
@@ -0,0 +1,61 @@
+package run.var.teamcity.cloud.docker.client;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Key identifying a daemon endpoint: the daemon URI, the TLS settings, and the target API version of a client
+ * configuration. Clients configured for the same endpoint may share their connections, regardless of their connection
+ * pool size or timeouts.
+ * <p>
+ *     Instances of this class are immutable.
+ * </p>
+ */
+public class DockerDaemonEndpoint {
+
+    private final URI instanceURI;
+    private final boolean usingTLS;
+    private final boolean verifyingHostname;
+    private final DockerAPIVersion apiVersion;
+
+    /**
+     * Creates the endpoint key for the given client configuration.
+     *
+     * @param config the client configuration
+     *
+     * @throws NullPointerException if {@code config} is {@code null}
+     */
+    public DockerDaemonEndpoint(@Nonnull DockerClientConfig config) {
+        DockerCloudUtils.requireNonNull(config, "Client configuration cannot be null.");
+        instanceURI = config.getInstanceURI();
+        usingTLS = config.isUsingTLS();
+        verifyingHostname = config.isVerifyingHostname();
+        apiVersion = config.getApiVersion();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DockerDaemonEndpoint)) {
+            return false;
+        }
+        DockerDaemonEndpoint endpoint = (DockerDaemonEndpoint) obj;
+        return usingTLS == endpoint.usingTLS && verifyingHostname == endpoint.verifyingHostname &&
+                instanceURI.equals(endpoint.instanceURI) && apiVersion.equals(endpoint.apiVersion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instanceURI, usingTLS, verifyingHostname, apiVersion);
+    }
+
+    @Override
+    public String toString() {
+        return instanceURI + " (TLS: " + usingTLS + ", API: " + apiVersion + ")";
+    }
+}
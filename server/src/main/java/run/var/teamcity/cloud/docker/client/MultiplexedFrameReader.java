@@ -0,0 +1,231 @@
+package run.var.teamcity.cloud.docker.client;
+
+import com.intellij.openapi.diagnostic.Logger;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Frame-level reader for Docker multiplexed streams.
+ * <p>
+ * Each frame of a multiplexed stream is made of an 8 bytes header (stream type and payload length) followed by the
+ * payload. This reader decodes the headers in place and hands out the payloads as slices of a single reusable
+ * buffer. Payloads larger than the available buffer space are delivered as several consecutive slices of the same
+ * frame. No allocation is performed once the reader is created.
+ * </p>
+ * <p>
+ * A slice is only valid until the next invocation of {@link #next()}. Empty frames are skipped.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public class MultiplexedFrameReader {
+
+    private static final Logger LOG = DockerCloudUtils.getLogger(MultiplexedFrameReader.class);
+
+    /**
+     * Default size of the read buffer.
+     */
+    public final static int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final static int HEADER_SIZE = 8;
+
+    private final InputStream inputStream;
+    private final byte[] buffer;
+
+    // Buffer content to be processed: from position (inclusive) to limit (exclusive).
+    private int position = 0;
+    private int limit = 0;
+
+    private long frameRemaining = 0;
+    private StdioType type;
+    private int sliceOffset;
+    private int sliceLength;
+    private boolean eof = false;
+
+    /**
+     * Creates a new reader using a buffer of {@link #DEFAULT_BUFFER_SIZE default size}.
+     *
+     * @param inputStream the multiplexed stream
+     *
+     * @throws NullPointerException if {@code inputStream} is {@code null}
+     */
+    public MultiplexedFrameReader(@Nonnull InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param inputStream the multiplexed stream
+     * @param bufferSize  the size of the read buffer
+     *
+     * @throws NullPointerException if {@code inputStream} is {@code null}
+     * @throws IllegalArgumentException if {@code bufferSize} is smaller than the frame header size (8 bytes)
+     */
+    public MultiplexedFrameReader(@Nonnull InputStream inputStream, int bufferSize) {
+        this.inputStream = DockerCloudUtils.requireNonNull(inputStream, "Input stream cannot be null.");
+        if (bufferSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + HEADER_SIZE + " bytes: " +
+                    bufferSize);
+        }
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the next payload slice. The read will block until some payload is available, but will not wait for the
+     * whole frame to be received.
+     *
+     * @return {@code true} if a slice is available, {@code false} if the end of the stream has been reached
+     *
+     * @throws IOException if reading the stream failed or if the stream content is invalid
+     */
+    public boolean next() throws IOException {
+        while (frameRemaining == 0) {
+            if (!fill(HEADER_SIZE)) {
+                if (limit != position) {
+                    LOG.warn("Underflow while reading stream header.");
+                }
+                return false;
+            }
+            decodeHeader();
+        }
+
+        if (!fill(1)) {
+            LOG.warn("Underflow while reading stream payload.");
+            frameRemaining = 0;
+            return false;
+        }
+
+        sliceOffset = position;
+        sliceLength = (int) Math.min(limit - position, frameRemaining);
+        position += sliceLength;
+        frameRemaining -= sliceLength;
+
+        return true;
+    }
+
+    /**
+     * Gets the type of the stream to which the current slice belongs.
+     *
+     * @return the stream type
+     *
+     * @throws IllegalStateException if no slice is available
+     */
+    @Nonnull
+    public StdioType getType() {
+        if (type == null) {
+            throw new IllegalStateException("No slice available.");
+        }
+        return type;
+    }
+
+    /**
+     * Gets the buffer holding the current slice. This buffer must not be modified.
+     *
+     * @return the buffer
+     */
+    @Nonnull
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets the offset of the current slice in the {@link #getBuffer() buffer}.
+     *
+     * @return the slice offset
+     */
+    public int getOffset() {
+        return sliceOffset;
+    }
+
+    /**
+     * Gets the length of the current slice.
+     *
+     * @return the slice length
+     */
+    public int getLength() {
+        return sliceLength;
+    }
+
+    /**
+     * Checks if the current slice is the last one of its frame.
+     *
+     * @return {@code true} if the frame payload has been fully delivered
+     */
+    public boolean isFrameComplete() {
+        return frameRemaining == 0;
+    }
+
+    /**
+     * Skips the remaining payload of the current frame, if any.
+     *
+     * @throws IOException if reading the stream failed
+     */
+    public void skipFrame() throws IOException {
+        while (frameRemaining > 0) {
+            if (!fill(1)) {
+                frameRemaining = 0;
+                return;
+            }
+            int n = (int) Math.min(limit - position, frameRemaining);
+            position += n;
+            frameRemaining -= n;
+        }
+    }
+
+    private void decodeHeader() throws IOException {
+        assert limit - position >= HEADER_SIZE;
+
+        // Stream type: little endian unsigned int.
+        long streamType = (buffer[position] & 0xFFL) | (buffer[position + 1] & 0xFFL) << 8 |
+                (buffer[position + 2] & 0xFFL) << 16 | (buffer[position + 3] & 0xFFL) << 24;
+        // Payload length: big endian unsigned int.
+        long length = (buffer[position + 4] & 0xFFL) << 24 | (buffer[position + 5] & 0xFFL) << 16 |
+                (buffer[position + 6] & 0xFFL) << 8 | (buffer[position + 7] & 0xFFL);
+
+        try {
+            type = StdioType.fromStreamType(streamType);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid stream content.", e);
+        }
+
+        position += HEADER_SIZE;
+        frameRemaining = length;
+    }
+
+    /**
+     * Ensures that at least the given number of bytes are available in the buffer, reading the stream if required.
+     *
+     * @return {@code false} if the end of stream was reached before
+     */
+    private boolean fill(int required) throws IOException {
+        assert required <= buffer.length;
+
+        if (limit - position >= required) {
+            return true;
+        }
+
+        // Compact the buffer, unprocessed bytes (eg. a partial header) are moved at the beginning.
+        int remaining = limit - position;
+        if (remaining > 0 && position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+
+        while (limit < required && !eof) {
+            int n = inputStream.read(buffer, limit, buffer.length - limit);
+            if (n == -1) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+
+        return limit >= required;
+    }
+}
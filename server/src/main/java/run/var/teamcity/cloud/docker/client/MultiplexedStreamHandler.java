@@ -1,36 +1,41 @@
 package run.var.teamcity.cloud.docker.client;
 
 
-import com.intellij.openapi.diagnostic.Logger;
-import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
-
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * {@link AbstractStreamHandler} supporting multiplexed {@link StdioInputStream}s.
+ * <p>
+ * The stream fragments are built on top of a {@link MultiplexedFrameReader}, which can also be accessed directly
+ * through {@link #getFrameReader()} to process the payloads without any intermediate stream. Both APIs must not be
+ * mixed on a same handler.
+ * </p>
  */
 public class MultiplexedStreamHandler extends AbstractStreamHandler {
 
-    private static final Logger LOG = DockerCloudUtils.getLogger(MultiplexedStreamHandler.class);
-
-    private final static int STREAM_HEADER_SIZE = 8;
-
-    private final byte[] headerBuffer = new byte[STREAM_HEADER_SIZE];
-
-    private final InputStream inputStream;
+    private final MultiplexedFrameReader frameReader;
 
-    private CappedInputStream previousStreamFragment;
+    private FrameInputStream previousStreamFragment;
 
     MultiplexedStreamHandler(Closeable closeHandle, InputStream inputStream, OutputStream outputStream) {
         super(closeHandle, inputStream, outputStream);
 
-        this.inputStream = inputStream;
+        this.frameReader = new MultiplexedFrameReader(inputStream);
+    }
+
+    /**
+     * Gets the frame reader used to demultiplex the stream.
+     *
+     * @return the frame reader
+     */
+    @Nonnull
+    public MultiplexedFrameReader getFrameReader() {
+        return frameReader;
     }
 
     @Nullable
@@ -39,40 +44,109 @@ public class MultiplexedStreamHandler extends AbstractStreamHandler {
 
         if (previousStreamFragment != null) {
             previousStreamFragment.exhaustAndClose();
+            previousStreamFragment = null;
         }
 
-        // Demultiplexes the streams using the instructions from the Docker remote API.
-        int n;
-        int headerOffset = 0;
-        while ((n = inputStream.read(headerBuffer, headerOffset, headerBuffer.length - headerOffset)) != -1) {
-            headerOffset += n;
-            assert headerOffset <= headerBuffer.length;
-            if (headerOffset == headerBuffer.length) {
-                // Header buffer is full.
-                ByteBuffer bb = ByteBuffer.wrap(headerBuffer);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                StdioType type;
-                try {
-                    type = StdioType.fromStreamType(DockerCloudUtils.toUnsignedLong(bb.getInt()));
-                } catch (IllegalArgumentException e) {
-                    throw new IOException("Invalid stream content.", e);
-                }
+        if (!frameReader.next()) {
+            return null;
+        }
 
-                bb.order(ByteOrder.BIG_ENDIAN);
-                long fragmentLength = DockerCloudUtils.toUnsignedLong(bb.getInt());
-                assert !bb.hasRemaining() : "Header not fully parsed.";
+        FrameInputStream streamFragment = new FrameInputStream(frameReader);
 
-                CappedInputStream streamFragment = new CappedInputStream(inputStream,
-                        fragmentLength);
+        previousStreamFragment = streamFragment;
 
-                previousStreamFragment = streamFragment;
+        return new StdioInputStream(streamFragment, frameReader.getType());
+    }
+
+    /**
+     * Input stream over the payload of a single frame. Copies the slices delivered by the frame reader, fetching the
+     * next slices of the frame when required.
+     * <p>
+     * Like the frame reader, this stream is not thread-safe.
+     * </p>
+     */
+    private static class FrameInputStream extends InputStream {
+
+        private final MultiplexedFrameReader frameReader;
+
+        private int offset;
+        private int remaining;
+        private boolean closed = false;
+
+        FrameInputStream(MultiplexedFrameReader frameReader) {
+            this.frameReader = frameReader;
+            this.offset = frameReader.getOffset();
+            this.remaining = frameReader.getLength();
+        }
 
-                return new StdioInputStream(streamFragment, type);
+        @Override
+        public int read() throws IOException {
+            if (!ensureAvailable()) {
+                return -1;
             }
+            remaining--;
+            return frameReader.getBuffer()[offset++] & 0xFF;
         }
-        if (headerOffset != 0) {
-            LOG.warn("Underflow while reading stream header.");
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            int n = Math.min(len, remaining);
+            System.arraycopy(frameReader.getBuffer(), offset, b, off, n);
+            offset += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && ensureAvailable()) {
+                int count = (int) Math.min(n - skipped, remaining);
+                offset += count;
+                remaining -= count;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return closed ? 0 : remaining;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void exhaustAndClose() throws IOException {
+            // The remaining payload must be consumed even if the stream was closed by the caller.
+            remaining = 0;
+            frameReader.skipFrame();
+            closed = true;
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            if (closed) {
+                return false;
+            }
+            if (remaining == 0) {
+                if (frameReader.isFrameComplete() || !frameReader.next()) {
+                    return false;
+                }
+                offset = frameReader.getOffset();
+                remaining = frameReader.getLength();
+            }
+            return true;
         }
-        return null;
     }
 }
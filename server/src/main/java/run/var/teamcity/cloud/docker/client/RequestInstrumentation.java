@@ -0,0 +1,30 @@
+package run.var.teamcity.cloud.docker.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Instrumentation hook for the requests performed by a {@link DockerAbstractClient}.
+ *
+ * <p>Implementations are invoked synchronously from the requesting thread, and must therefore be thread safe and
+ * return quickly.</p>
+ */
+@FunctionalInterface
+public interface RequestInstrumentation {
+
+    /**
+     * Instrumentation discarding all measures.
+     */
+    RequestInstrumentation NONE = (requestSpec, durationNanos, failure) -> {
+    };
+
+    /**
+     * Notifies the completion of a request. The duration covers the request submission until the response status
+     * and headers are received and validated. It does not include the consumption of the response body.
+     *
+     * @param requestSpec   the normalized request specification, such as {@code POST /containers/{id}/start}
+     * @param durationNanos the request duration in nanoseconds
+     * @param failure       the request failure if any
+     */
+    void requestCompleted(@Nonnull String requestSpec, long durationNanos, @Nullable Exception failure);
+}
@@ -0,0 +1,467 @@
+package run.var.teamcity.cloud.docker.client;
+
+import com.intellij.openapi.diagnostic.Logger;
+import run.var.teamcity.cloud.docker.StreamHandler;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.LockHandler;
+import run.var.teamcity.cloud.docker.util.Node;
+import run.var.teamcity.cloud.docker.util.NodeStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registry of reference-counted {@link DockerClient}s shared between all the users of a same daemon endpoint.
+ * <p>
+ *     A {@link DockerDaemonEndpoint daemon endpoint} is identified by the daemon URI, the TLS settings and the target
+ *     API version of the client configuration. The first client acquired for an endpoint performs the API version
+ *     negotiation, the following ones reuse the connected client and its negotiated version. The connection and
+ *     transfer timeouts are not part of the endpoint: they are applied to the requests of each user according to its
+ *     own configuration. The connection pool of a shared client is sized to the sum of the pool sizes requested by
+ *     its current users, so that sharing a client never reduces the number of connections available to each of them.
+ * </p>
+ * <p>
+ *     The clients returned by this registry must be closed once not used anymore. The underlying client is closed,
+ *     and the endpoint removed from the registry, when its last user is gone. The negotiated API version is however
+ *     remembered for some time, so that short-lived clients, such as the one used to check the daemon connectivity,
+ *     do not renegotiate it each time.
+ * </p>
+ * <p>
+ *     The API version of the returned clients cannot be changed: {@link DockerClient#setApiVersion(DockerAPIVersion)}
+ *     will throw an {@link UnsupportedOperationException}.
+ * </p>
+ * <p>
+ *     Instances of this class are thread-safe.
+ * </p>
+ */
+public class SharedDockerClientRegistry {
+
+    private final static Logger LOG = DockerCloudUtils.getLogger(SharedDockerClientRegistry.class);
+
+    /**
+     * How long a negotiated API version is remembered once the corresponding shared client has been closed.
+     */
+    private final static Duration NEGOTIATED_VERSION_TTL = Duration.ofMinutes(10);
+
+    private final static SharedDockerClientRegistry DEFAULT =
+            new SharedDockerClientRegistry(DockerClientFactory.getDefault());
+
+    private final DockerClientFactory clientFactory;
+
+    private final LockHandler lock = LockHandler.newReentrantLock();
+    private final Map<DockerDaemonEndpoint, SharedClientHolder> holders = new HashMap<>();
+    private final Map<DockerDaemonEndpoint, NegotiatedVersion> negotiatedVersions = new HashMap<>();
+
+    /**
+     * Creates a new registry.
+     *
+     * @param clientFactory the factory used to create the underlying clients
+     *
+     * @throws NullPointerException if {@code clientFactory} is {@code null}
+     */
+    public SharedDockerClientRegistry(@Nonnull DockerClientFactory clientFactory) {
+        this.clientFactory = DockerCloudUtils.requireNonNull(clientFactory, "Client factory cannot be null.");
+    }
+
+    /**
+     * Gets the process-wide registry instance.
+     *
+     * @return the process-wide registry
+     */
+    @Nonnull
+    public static SharedDockerClientRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Acquires a client for the given configuration, with API version negotiation enabled. The API version of the
+     * returned client cannot be changed.
+     *
+     * @param config the client configuration
+     *
+     * @return the acquired client, to be closed when not used anymore
+     *
+     * @throws NullPointerException if {@code config} is {@code null}
+     * @throws IllegalArgumentException if the client configuration is invalid
+     * @throws DockerClientException if negotiating the API version failed
+     *
+     * @see DockerClientFactory#createClientWithAPINegotiation(DockerClientConfig)
+     */
+    @Nonnull
+    public DockerClient acquireClient(@Nonnull DockerClientConfig config) {
+        DockerCloudUtils.requireNonNull(config, "Client configuration cannot be null.");
+
+        return acquireClient(config, config.getConnectionPoolSize());
+    }
+
+    /**
+     * Borrows a client for the given configuration, with API version negotiation enabled. Unlike
+     * {@link #acquireClient(DockerClientConfig)}, the connection pool of the shared client is not extended: the
+     * returned client uses the connections of the other users of the endpoint, or a single connection if there is no
+     * other user. This is suited to background tasks performing requests on behalf of the other users. The API
+     * version of the returned client cannot be changed.
+     *
+     * @param config the client configuration
+     *
+     * @return the borrowed client, to be closed when not used anymore
+     *
+     * @throws NullPointerException if {@code config} is {@code null}
+     * @throws IllegalArgumentException if the client configuration is invalid
+     * @throws DockerClientException if negotiating the API version failed
+     */
+    @Nonnull
+    public DockerClient borrowClient(@Nonnull DockerClientConfig config) {
+        DockerCloudUtils.requireNonNull(config, "Client configuration cannot be null.");
+
+        return acquireClient(config, 0);
+    }
+
+    private DockerClient acquireClient(DockerClientConfig config, int requestedPoolSize) {
+        DockerDaemonEndpoint endpoint = new DockerDaemonEndpoint(config);
+        while (true) {
+            SharedClientHolder holder = lock.call(() -> holders.computeIfAbsent(endpoint, SharedClientHolder::new));
+
+            DockerClient client = holder.acquire(config, requestedPoolSize);
+            if (client != null) {
+                return client;
+            }
+
+            // The holder was concurrently retired by its last user, and removed from the registry: retry.
+        }
+    }
+
+    /**
+     * Gets the number of users currently sharing a client for the endpoint of the given configuration.
+     *
+     * @param config the client configuration
+     *
+     * @return the number of users
+     *
+     * @throws NullPointerException if {@code config} is {@code null}
+     */
+    public int getUserCount(@Nonnull DockerClientConfig config) {
+        DockerCloudUtils.requireNonNull(config, "Client configuration cannot be null.");
+
+        SharedClientHolder holder = lock.call(() -> holders.get(new DockerDaemonEndpoint(config)));
+        return holder != null ? holder.lock.call(() -> holder.userCount) : 0;
+    }
+
+    /**
+     * Gets the number of endpoints currently registered.
+     *
+     * @return the number of endpoints
+     */
+    int getEndpointCount() {
+        return lock.call(holders::size);
+    }
+
+    private DockerAPIVersion getNegotiatedVersion(DockerDaemonEndpoint endpoint) {
+        return lock.call(() -> {
+            long now = System.nanoTime();
+            // Evict all the expired entries.
+            negotiatedVersions.values().removeIf(negotiatedVersion ->
+                    now - negotiatedVersion.nanos >= NEGOTIATED_VERSION_TTL.toNanos());
+            NegotiatedVersion negotiatedVersion = negotiatedVersions.get(endpoint);
+            return negotiatedVersion != null ? negotiatedVersion.version : null;
+        });
+    }
+
+    private void setNegotiatedVersion(DockerDaemonEndpoint endpoint, DockerAPIVersion version) {
+        lock.run(() -> negotiatedVersions.put(endpoint, new NegotiatedVersion(version, System.nanoTime())));
+    }
+
+    private class SharedClientHolder {
+
+        final DockerDaemonEndpoint endpoint;
+
+        // This lock is also held while creating the client to perform the API negotiation only once. It may be held
+        // when acquiring the registry lock, but not the other way around.
+        final LockHandler lock = LockHandler.newReentrantLock();
+
+        DockerClient client;
+        int userCount;
+        int connectionPoolSize;
+        // Set once the holder has been removed from the registry.
+        boolean retired;
+
+        SharedClientHolder(DockerDaemonEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Acquires a client from this holder.
+         *
+         * @param requestedPoolSize the number of connections added to the pool by this user
+         *
+         * @return the acquired client, or {@code null} if this holder is retired
+         */
+        DockerClient acquire(DockerClientConfig config, int requestedPoolSize) {
+            return lock.call(() -> {
+                if (retired) {
+                    return null;
+                }
+                if (client == null) {
+                    try {
+                        client = createClient(config);
+                    } catch (RuntimeException e) {
+                        // No user left, the holder must not linger in the registry.
+                        retire();
+                        throw e;
+                    }
+                }
+                connectionPoolSize += requestedPoolSize;
+                resizePool();
+                userCount++;
+                DockerClient userClient = client instanceof DefaultDockerClient ?
+                        ((DefaultDockerClient) client).withTimeouts(config.getConnectTimeout(),
+                                config.getTransferTimeout()) : client;
+                return new SharedDockerClient(this, userClient, requestedPoolSize);
+            });
+        }
+
+        void release(int poolSize) {
+            lock.run(() -> {
+                assert userCount > 0;
+                userCount--;
+                if (userCount == 0) {
+                    LOG.debug("Last user gone, closing shared client for " + endpoint + ".");
+                    // Start measuring the cache lifetime from the last use.
+                    setNegotiatedVersion(endpoint, client.getApiVersion());
+                    client.close();
+                    client = null;
+                    connectionPoolSize = 0;
+                    retire();
+                } else {
+                    connectionPoolSize -= poolSize;
+                    resizePool();
+                }
+            });
+        }
+
+        private void retire() {
+            assert lock.isHeldByCurrentThread();
+            retired = true;
+            SharedDockerClientRegistry.this.lock.run(() -> holders.remove(endpoint, this));
+        }
+
+        private DockerClient createClient(DockerClientConfig config) {
+            assert lock.isHeldByCurrentThread();
+
+            DockerAPIVersion negotiatedVersion = getNegotiatedVersion(endpoint);
+            if (negotiatedVersion != null) {
+                DockerClient client = clientFactory.createClient(config);
+                client.setApiVersion(negotiatedVersion);
+                return client;
+            }
+
+            DockerClient client = clientFactory.createClientWithAPINegotiation(config);
+            setNegotiatedVersion(endpoint, client.getApiVersion());
+            return client;
+        }
+
+        private void resizePool() {
+            assert lock.isHeldByCurrentThread();
+            if (client instanceof DefaultDockerClient) {
+                // A client only used by borrowers has no contributed connection, but still needs one.
+                ((DefaultDockerClient) client).setConnectionPoolSize(Math.max(connectionPoolSize, 1));
+            }
+        }
+    }
+
+    /**
+     * API version negotiated for an endpoint, with the time at which it was last used.
+     */
+    private static class NegotiatedVersion {
+
+        final DockerAPIVersion version;
+        final long nanos;
+
+        NegotiatedVersion(DockerAPIVersion version, long nanos) {
+            this.version = version;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Client handle given to each user of a shared client. Closing the handle releases the shared client.
+     */
+    private static class SharedDockerClient implements DockerClient {
+
+        private final SharedClientHolder holder;
+        private final DockerClient client;
+        private final int connectionPoolSize;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        SharedDockerClient(SharedClientHolder holder, DockerClient client, int connectionPoolSize) {
+            this.holder = holder;
+            this.client = client;
+            this.connectionPoolSize = connectionPoolSize;
+        }
+
+        @Nonnull
+        @Override
+        public DockerAPIVersion getApiVersion() {
+            return client.getApiVersion();
+        }
+
+        @Override
+        public void setApiVersion(@Nonnull DockerAPIVersion apiVersion) {
+            throw new UnsupportedOperationException("The API version of a shared client cannot be changed.");
+        }
+
+        @Nonnull
+        @Override
+        public Node getVersion() {
+            return client.getVersion();
+        }
+
+        @Nonnull
+        @Override
+        public Node getInfo() {
+            return client.getInfo();
+        }
+
+        @Nonnull
+        @Override
+        public Node createContainer(@Nonnull Node containerSpec, @Nullable String name) {
+            return client.createContainer(containerSpec, name);
+        }
+
+        @Override
+        public void startContainer(@Nonnull String containerId) {
+            client.startContainer(containerId);
+        }
+
+        @Nonnull
+        @Override
+        public Node createService(@Nonnull Node serviceSpec) {
+            return client.createService(serviceSpec);
+        }
+
+        @Override
+        public Node inspectService(@Nonnull String service) {
+            return client.inspectService(service);
+        }
+
+        @Override
+        public void updateService(@Nonnull String service, @Nonnull Node serviceSpec, @Nonnull BigInteger version) {
+            client.updateService(service, serviceSpec, version);
+        }
+
+        @Override
+        public void restartContainer(@Nonnull String containerId) {
+            client.restartContainer(containerId);
+        }
+
+        @Nonnull
+        @Override
+        public Node inspectContainer(@Nonnull String container) {
+            return client.inspectContainer(container);
+        }
+
+        @Nonnull
+        @Override
+        public Node inspectImage(@Nonnull String image) {
+            return client.inspectImage(image);
+        }
+
+        @Nonnull
+        @Override
+        public NodeStream createImage(@Nonnull String from, @Nullable String tag,
+                                      @Nonnull DockerRegistryCredentials credentials) {
+            return client.createImage(from, tag, credentials);
+        }
+
+        @Nonnull
+        @Override
+        public StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                                        boolean follow, boolean demuxStdio) {
+            return client.streamLogs(containerId, lineCount, stdioTypes, follow, demuxStdio);
+        }
+
+        @Nonnull
+        @Override
+        public StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                                        @Nullable Instant since, boolean timestamps, boolean follow,
+                                        boolean demuxStdio) {
+            return client.streamLogs(containerId, lineCount, stdioTypes, since, timestamps, follow, demuxStdio);
+        }
+
+        @Nonnull
+        @Override
+        public StreamHandler streamServiceLogs(@Nonnull String containerId, int lineCount,
+                                               @Nonnull Set<StdioType> stdioTypes, boolean follow,
+                                               boolean demuxStream) {
+            return client.streamServiceLogs(containerId, lineCount, stdioTypes, follow, demuxStream);
+        }
+
+        @Nonnull
+        @Override
+        public StreamHandler streamServiceLogs(@Nonnull String containerId, int lineCount,
+                                               @Nonnull Set<StdioType> stdioTypes, @Nullable Instant since,
+                                               boolean timestamps, boolean follow, boolean demuxStream) {
+            return client.streamServiceLogs(containerId, lineCount, stdioTypes, since, timestamps, follow,
+                    demuxStream);
+        }
+
+        @Override
+        public void stopContainer(@Nonnull String container, Duration timeout) {
+            client.stopContainer(container, timeout);
+        }
+
+        @Override
+        public void removeContainer(@Nonnull String container, boolean removeVolumes, boolean force) {
+            client.removeContainer(container, removeVolumes, force);
+        }
+
+        @Override
+        public void removeService(@Nonnull String service) {
+            client.removeService(service);
+        }
+
+        @Nonnull
+        @Override
+        public Node listContainersWithLabel(@Nonnull Map<String, String> labelFilters) {
+            return client.listContainersWithLabel(labelFilters);
+        }
+
+        @Nonnull
+        @Override
+        public List<ContainerSummary> listContainerSummariesWithLabel(@Nonnull Map<String, String> labelFilters) {
+            return client.listContainerSummariesWithLabel(labelFilters);
+        }
+
+        @Nonnull
+        @Override
+        public Node listServicesWithLabel(@Nonnull Map<String, String> labelFilters) {
+            return client.listServicesWithLabel(labelFilters);
+        }
+
+        @Nonnull
+        @Override
+        public NodeStream streamEvents(@Nonnull Map<String, String> labelFilters) {
+            return client.streamEvents(labelFilters);
+        }
+
+        @Nonnull
+        @Override
+        public Node listTasks(@Nonnull String serviceId) {
+            return client.listTasks(serviceId);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                holder.release(connectionPoolSize);
+            }
+        }
+    }
+}
@@ -92,6 +92,24 @@ public final class DockerCloudUtils {
      * Docker cloud parameter: use transport layer security.
      */
     public static final String USE_TLS = NS_PREFIX + "use_tls";
+    /**
+     * Docker cloud parameter: track the agent holders using the daemon events stream.
+     */
+    public static final String USE_EVENT_DRIVEN_SYNC_PARAM = NS_PREFIX + "use_event_driven_sync";
+    /**
+     * Docker cloud parameter: synchronize with the daemon concurrently with the instances operations.
+     */
+    public static final String USE_CONCURRENT_SYNC_PARAM = NS_PREFIX + "use_concurrent_sync";
+    /**
+     * Docker cloud parameter: share the listing of the agent holders with the other cloud profiles using the same
+     * daemon.
+     */
+    public static final String USE_SHARED_SYNC_PARAM = NS_PREFIX + "use_shared_sync";
+    /**
+     * Docker cloud parameter: maximal delay between two synchronizations with the daemon, in seconds. Enables the
+     * adaptive synchronization rate.
+     */
+    public static final String MAX_DOCKER_SYNC_RATE_SEC_PARAM = NS_PREFIX + "max_docker_sync_rate_sec";
     /**
      * Agent configuration parameter: runtime id. This id is generated by the Docker cloud agent plugin each time the
      * agent is started (including after upgrade).
@@ -141,6 +159,11 @@ public final class DockerCloudUtils {
      * Debug flag system property.
      */
     public static final String DEBUG_SYSPROP = NS_PREFIX + "debug";
+    /**
+     * Virtual threads flag system property. When set, blocking I/O workloads are executed on virtual threads if
+     * supported by the JVM.
+     */
+    public static final String VIRTUAL_THREADS_SYSPROP = NS_PREFIX + "virtual_threads";
 
     /**
      * Prefix for environment variables to be published.
@@ -472,6 +495,19 @@ public final class DockerCloudUtils {
         return DEBUG_ENABLED;
     }
 
+    private final static boolean VIRTUAL_THREADS_ENABLED = Boolean.valueOf(System.getProperty(VIRTUAL_THREADS_SYSPROP))
+            && NamedThreadFactory.isVirtualThreadSupported();
+
+    /**
+     * Checks if blocking I/O workloads must be executed on virtual threads. Requires the
+     * {@link #VIRTUAL_THREADS_SYSPROP corresponding system property} to be set and the JVM to support virtual threads.
+     *
+     * @return {@code true} if virtual threads must be used
+     */
+    public static boolean isUsingVirtualThreads() {
+        return VIRTUAL_THREADS_ENABLED;
+    }
+
     /**
      * Checks if this default Docker socket is available on this host. This method will only verify the existence of
      * the socket file without additional check.
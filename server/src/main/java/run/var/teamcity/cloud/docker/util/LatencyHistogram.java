@@ -0,0 +1,136 @@
+package run.var.teamcity.cloud.docker.util;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with exponentially growing buckets. The first bucket covers durations up to one millisecond, each
+ * following bucket doubling the upper bound of the previous one, up to about 17 minutes. Longer durations are all
+ * collected in the last bucket.
+ * <p>
+ *     Recording a value is lock-free. Read accessors reflect the current state of the histogram and are not atomic
+ *     with respect to concurrent recordings.
+ * </p>
+ * <p>
+ *     Instances of this class are thread safe.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private final static int BUCKETS_COUNT = 22;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Creates a new empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration. Negative durations are recorded as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        buckets[bucketIndex(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get())) {
+            if (maxNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return the mean duration, or zero if nothing was recorded
+     */
+    @Nonnull
+    public Duration getMean() {
+        long count = this.count.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the longest recorded duration, or zero if nothing was recorded
+     */
+    @Nonnull
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    /**
+     * Gets an upper bound for the given percentile of the recorded durations. The returned value is the upper bound
+     * of the bucket containing the percentile, capped to the longest recorded duration.
+     *
+     * @param percentile the percentile, between 0 and 100
+     *
+     * @return the percentile upper bound, or zero if nothing was recorded
+     *
+     * @throws IllegalArgumentException if {@code percentile} is not between 0 and 100
+     */
+    @Nonnull
+    public Duration getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = new long[BUCKETS_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long cumulated = 0;
+        int index = BUCKETS_COUNT - 1;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank && counts[i] > 0) {
+                index = i;
+                break;
+            }
+        }
+        return Duration.ofNanos(Math.min(bucketUpperBound(index), maxNanos.get()));
+    }
+
+    private static int bucketIndex(long nanos) {
+        long millis = (nanos + 999_999) / 1_000_000;
+        if (millis <= 1) {
+            return 0;
+        }
+        // Number of doublings of 1ms required to reach the given duration.
+        int index = 64 - Long.numberOfLeadingZeros(millis - 1);
+        return Math.min(index, BUCKETS_COUNT - 1);
+    }
+
+    private static long bucketUpperBound(int index) {
+        return index == BUCKETS_COUNT - 1 ? Long.MAX_VALUE : (1L << index) * 1_000_000;
+    }
+}
@@ -1,16 +1,47 @@
 package run.var.teamcity.cloud.docker.util;
 
 import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
 /**
  * A {@link ThreadFactory} to start with a given name.
+ *
+ * <p>The factory may be configured to create virtual threads, in which case it will fallback to platform threads
+ * if the current JVM does not {@link #isVirtualThreadSupported() support them}.</p>
  */
 public class NamedThreadFactory implements ThreadFactory {
 
+    // Virtual threads API, resolved by reflection since we must still run on older JVMs.
+    private final static Method OF_VIRTUAL;
+    private final static Method BUILDER_NAME;
+    private final static Method BUILDER_UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderUnstarted = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class);
+            builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+            // The API is also present on JVMs where virtual threads are a preview feature. Creating a builder will
+            // fail in such case if preview features are not enabled.
+            ofVirtual.invoke(null);
+        } catch (Throwable e) {
+            // Not supported.
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+    }
+
     private final String name;
     private final boolean usingDaemonThreads;
+    private final boolean usingVirtualThreads;
     private final ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
 
     /**
@@ -33,13 +64,56 @@ public class NamedThreadFactory implements ThreadFactory {
      * @throws NullPointerException if {@code name} is {@code null}
      */
     public NamedThreadFactory(@Nonnull String name, boolean usingDaemonThreads) {
+        this(name, usingDaemonThreads, false);
+    }
+
+    /**
+     * Creates a new factory instance with virtual threads support. Virtual threads are always daemon threads.
+     *
+     * @param name                the name to be used for new threads
+     * @param usingDaemonThreads  {@code true} if usingDaemonThreads thread must be created
+     * @param usingVirtualThreads {@code true} if virtual threads must be created when supported
+     *
+     * @throws NullPointerException if {@code name} is {@code null}
+     */
+    public NamedThreadFactory(@Nonnull String name, boolean usingDaemonThreads, boolean usingVirtualThreads) {
         this.name = DockerCloudUtils.requireNonNull("Name cannot be null.", name);
         this.usingDaemonThreads = usingDaemonThreads;
+        this.usingVirtualThreads = usingVirtualThreads && isVirtualThreadSupported();
+    }
+
+    /**
+     * Checks if virtual threads are supported by the current JVM. Virtual threads are not considered as supported when
+     * only available as a disabled preview feature.
+     *
+     * @return {@code true} if virtual threads are supported
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Checks if this factory creates virtual threads.
+     *
+     * @return {@code true} if this factory creates virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return usingVirtualThreads;
     }
 
     @Override
     public Thread newThread(@Nonnull Runnable r) {
 
+        if (usingVirtualThreads) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                BUILDER_NAME.invoke(builder, name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, r);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Should not happen since support was checked beforehand, use a platform thread instead.
+            }
+        }
+
         Thread t = defaultThreadFactory.newThread(r);
         t.setName(name);
         t.setDaemon(usingDaemonThreads);
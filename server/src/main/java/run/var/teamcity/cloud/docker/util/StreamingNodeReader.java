@@ -0,0 +1,249 @@
+package run.var.teamcity.cloud.docker.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader of JSON structures. Unlike {@link Node#parse(InputStream)}, this reader does not materialize the
+ * whole JSON tree, but let the caller pick the values it is interested in while skipping over everything else.
+ * <p>
+ *     The reader is positioned on a current token. Reading a value consumes it entirely, leaving the reader on the
+ *     last token of the value.
+ * </p>
+ * <p>
+ *     Instances of this class are not thread-safe.
+ * </p>
+ */
+public class StreamingNodeReader implements Closeable {
+
+    private final JsonParser parser;
+
+    private StreamingNodeReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Creates a new reader positioned on the first token of the given stream.
+     *
+     * @param jsonStream the JSON input stream
+     *
+     * @return the new reader
+     *
+     * @throws NullPointerException if {@code jsonStream} is {@code null}
+     * @throws IOException if an error occurred while processing the stream
+     * @throws NodeProcessingException if the stream is empty
+     */
+    @Nonnull
+    public static StreamingNodeReader create(@Nonnull InputStream jsonStream) throws IOException {
+        DockerCloudUtils.requireNonNull(jsonStream, "JSON stream cannot be null.");
+        JsonParser parser = AbstractNode.JSON_FACTORY.createParser(jsonStream);
+        if (parser.nextToken() == null) {
+            throw new NodeProcessingException("No JSON content available.");
+        }
+        return new StreamingNodeReader(parser);
+    }
+
+    /**
+     * Reads an array, using the given reader for each element. The reader will be positioned on the first token of
+     * the element upon invocation, and must consume the element entirely.
+     *
+     * @param elementReader the element reader
+     * @param <T> the element type
+     *
+     * @return the list of elements, excluding {@code null} values returned by the element reader
+     *
+     * @throws NullPointerException if {@code elementReader} is {@code null}
+     * @throws NodeProcessingException if the current value is not an array
+     * @throws IOException if an error occurred while processing the stream
+     */
+    @Nonnull
+    public <T> List<T> readArray(@Nonnull ValueReader<T> elementReader) throws IOException {
+        DockerCloudUtils.requireNonNull(elementReader, "Element reader cannot be null.");
+        expect(JsonToken.START_ARRAY);
+        List<T> values = new ArrayList<>();
+        while (nextToken() != JsonToken.END_ARRAY) {
+            T value = elementReader.read(this);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads an object, invoking the given handler for each field. The reader will be positioned on the first token of
+     * the field value upon invocation. Fields values that are not consumed by the handler are skipped.
+     *
+     * @param fieldHandler the field handler
+     *
+     * @throws NullPointerException if {@code fieldHandler} is {@code null}
+     * @throws NodeProcessingException if the current value is not an object
+     * @throws IOException if an error occurred while processing the stream
+     */
+    public void readObject(@Nonnull FieldHandler fieldHandler) throws IOException {
+        DockerCloudUtils.requireNonNull(fieldHandler, "Field handler cannot be null.");
+        expect(JsonToken.START_OBJECT);
+        while (nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            nextToken();
+            if (!fieldHandler.handle(fieldName, this)) {
+                skipValue();
+            }
+        }
+    }
+
+    /**
+     * Reads the current value as a string.
+     *
+     * @return the string value, or {@code null} if the value is a JSON {@code null}
+     *
+     * @throws NodeProcessingException if the current value is not a string
+     * @throws IOException if an error occurred while processing the stream
+     */
+    @Nullable
+    public String readString() throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(JsonToken.VALUE_STRING);
+        return parser.getText();
+    }
+
+    /**
+     * Reads the current value as a long.
+     *
+     * @return the long value
+     *
+     * @throws NodeProcessingException if the current value is not an integer, or is not within the long range
+     * @throws IOException if an error occurred while processing the stream
+     */
+    public long readLong() throws IOException {
+        expect(JsonToken.VALUE_NUMBER_INT);
+        if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            throw new NodeProcessingException("Value is not within the long range: " + parser.getText());
+        }
+        return parser.getLongValue();
+    }
+
+    /**
+     * Reads the current value as a list of strings.
+     *
+     * @return the list of strings, which will be empty if the value is a JSON {@code null}
+     *
+     * @throws NodeProcessingException if the current value is not an array of strings
+     * @throws IOException if an error occurred while processing the stream
+     */
+    @Nonnull
+    public List<String> readStringList() throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return Collections.emptyList();
+        }
+        return readArray(StreamingNodeReader::readString);
+    }
+
+    /**
+     * Reads the current value as a map of strings.
+     *
+     * @return the map of strings, which will be empty if the value is a JSON {@code null}
+     *
+     * @throws NodeProcessingException if the current value is not an object of strings
+     * @throws IOException if an error occurred while processing the stream
+     */
+    @Nonnull
+    public Map<String, String> readStringMap() throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new HashMap<>();
+        readObject((fieldName, reader) -> {
+            values.put(fieldName, reader.readString());
+            return true;
+        });
+        return values;
+    }
+
+    /**
+     * Skips the current value, including all its children.
+     *
+     * @throws IOException if an error occurred while processing the stream
+     */
+    public void skipValue() throws IOException {
+        parser.skipChildren();
+    }
+
+    /**
+     * Closes this reader and the underlying stream.
+     *
+     * @throws IOException if an error occurred while closing the stream
+     */
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private JsonToken nextToken() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new NodeProcessingException("Unexpected end of JSON content.");
+        }
+        return token;
+    }
+
+    private void expect(JsonToken token) {
+        JsonToken currentToken = parser.getCurrentToken();
+        if (currentToken != token) {
+            throw new NodeProcessingException("Expected " + token + " but found " + currentToken + ".");
+        }
+    }
+
+    /**
+     * Reader of a single JSON value.
+     *
+     * @param <T> the value type
+     */
+    @FunctionalInterface
+    public interface ValueReader<T> {
+
+        /**
+         * Reads a value. The reader is positioned on the first token of the value, and must consume it entirely.
+         *
+         * @param reader the streaming reader
+         *
+         * @return the read value (may be {@code null})
+         *
+         * @throws IOException if an error occurred while processing the stream
+         */
+        @Nullable
+        T read(@Nonnull StreamingNodeReader reader) throws IOException;
+    }
+
+    /**
+     * Handler of object fields.
+     */
+    @FunctionalInterface
+    public interface FieldHandler {
+
+        /**
+         * Handles a field. The reader is positioned on the first token of the field value.
+         *
+         * @param fieldName the field name
+         * @param reader the streaming reader
+         *
+         * @return {@code true} if the field value has been consumed, {@code false} if it must be skipped
+         *
+         * @throws IOException if an error occurred while processing the stream
+         */
+        boolean handle(@Nonnull String fieldName, @Nonnull StreamingNodeReader reader) throws IOException;
+    }
+}
@@ -0,0 +1,150 @@
+package run.var.teamcity.cloud.docker.util;
+
+import javax.annotation.Nonnull;
+import java.nio.CharBuffer;
+
+/**
+ * Streaming filter removing VT100 control sequences (such as colors or cursor movements) from text.
+ * <p>
+ * Control sequences are made of the {@code ESC [} prefix, followed by any number of numeric parameters separated by
+ * semicolons, and terminated by a single character. A sequence never spans several lines: an unterminated sequence
+ * is kept as is when a line separator is met. The filter is a state machine fed with consecutive chunks of text:
+ * sequences split across chunks are properly detected, the characters of an incomplete sequence being retained until
+ * the sequence is either completed or invalidated. Invoking {@link #flush(StringBuilder)} at the end of the text will
+ * output any pending characters.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public class VT100EscapeFilter {
+
+    private final static char ESC = '\u001B';
+
+    private enum State {
+        TEXT,
+        ESCAPE,
+        CONTROL_SEQUENCE
+    }
+
+    private final StringBuilder pending = new StringBuilder();
+    private State state = State.TEXT;
+
+    /**
+     * Filters a chunk of text.
+     *
+     * @param txt the text chunk
+     * @param out the buffer where the filtered text is appended
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public void filter(@Nonnull CharSequence txt, @Nonnull StringBuilder out) {
+        DockerCloudUtils.requireNonNull(txt, "Text cannot be null.");
+        DockerCloudUtils.requireNonNull(out, "Output buffer cannot be null.");
+
+        int length = txt.length();
+        // Start of the current run of plain text, appended in bulk.
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = txt.charAt(i);
+            switch (state) {
+                case TEXT:
+                    if (c == ESC) {
+                        out.append(txt, runStart, i);
+                        pending.append(c);
+                        state = State.ESCAPE;
+                    }
+                    break;
+                case ESCAPE:
+                    if (c == '[') {
+                        pending.append(c);
+                        state = State.CONTROL_SEQUENCE;
+                    } else {
+                        // Not a control sequence: the escape character is kept as is.
+                        out.append(pending);
+                        pending.setLength(0);
+                        if (c == ESC) {
+                            pending.append(c);
+                        } else {
+                            state = State.TEXT;
+                            runStart = i;
+                        }
+                    }
+                    break;
+                case CONTROL_SEQUENCE:
+                    if ((c >= '0' && c <= '9') || c == ';') {
+                        pending.append(c);
+                    } else if (c == '\n') {
+                        // Unterminated sequence: kept as is, the line separator must not be swallowed.
+                        out.append(pending);
+                        pending.setLength(0);
+                        state = State.TEXT;
+                        runStart = i;
+                    } else {
+                        // Final character: the whole sequence is discarded.
+                        pending.setLength(0);
+                        state = State.TEXT;
+                        runStart = i + 1;
+                    }
+                    break;
+                default:
+                    throw new AssertionError("Unknown state: " + state);
+            }
+        }
+        if (state == State.TEXT) {
+            out.append(txt, runStart, length);
+        }
+    }
+
+    /**
+     * Filters a chunk of text.
+     *
+     * @param buffer the buffer holding the text chunk
+     * @param offset the offset of the text chunk
+     * @param length the length of the text chunk
+     * @param out    the buffer where the filtered text is appended
+     *
+     * @throws NullPointerException if {@code buffer} or {@code out} is {@code null}
+     * @throws IndexOutOfBoundsException if the {@code offset} and {@code length} arguments do not describe a valid
+     * region of the buffer
+     */
+    public void filter(@Nonnull char[] buffer, int offset, int length, @Nonnull StringBuilder out) {
+        DockerCloudUtils.requireNonNull(buffer, "Buffer cannot be null.");
+        if (offset < 0 || length < 0 || length > buffer.length - offset) {
+            throw new IndexOutOfBoundsException("Invalid region: offset=" + offset + ", length=" + length);
+        }
+        filter(CharBuffer.wrap(buffer, offset, length), out);
+    }
+
+    /**
+     * Outputs the characters of an incomplete control sequence, if any, and resets the filter state.
+     *
+     * @param out the buffer where the pending characters are appended
+     *
+     * @throws NullPointerException if {@code out} is {@code null}
+     */
+    public void flush(@Nonnull StringBuilder out) {
+        DockerCloudUtils.requireNonNull(out, "Output buffer cannot be null.");
+        out.append(pending);
+        pending.setLength(0);
+        state = State.TEXT;
+    }
+
+    /**
+     * Strips all control sequences from the given text.
+     *
+     * @param txt the text
+     *
+     * @return the filtered text
+     *
+     * @throws NullPointerException if {@code txt} is {@code null}
+     */
+    @Nonnull
+    public static String strip(@Nonnull CharSequence txt) {
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder sb = new StringBuilder(txt.length());
+        filter.filter(txt, sb);
+        filter.flush(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package run.var.teamcity.cloud.docker.web;
+
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A range of the agent holder logs cached for a container test. Positions in the logs are expressed as offsets from
+ * the beginning of the logs. Only the most recent logs are cached: the returned range may therefore start after the
+ * requested offset, in which case the older logs are lost to the client.
+ */
+public class AgentHolderTestLogs {
+
+    private final String text;
+    private final long start;
+
+    /**
+     * Creates a new logs range.
+     *
+     * @param text  the logs text
+     * @param start the offset of the first character of the logs text
+     *
+     * @throws NullPointerException if {@code text} is {@code null}
+     * @throws IllegalArgumentException if {@code start} is negative
+     */
+    public AgentHolderTestLogs(@Nonnull String text, long start) {
+        this.text = DockerCloudUtils.requireNonNull(text, "Logs text cannot be null.");
+        if (start < 0) {
+            throw new IllegalArgumentException("Start offset must be a positive integer: " + start);
+        }
+        this.start = start;
+    }
+
+    /**
+     * Gets the logs text.
+     *
+     * @return the logs text
+     */
+    @Nonnull
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the offset of the first character of the logs text.
+     *
+     * @return the start offset
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the offset following the last character of the logs text, from which the next logs must be queried.
+     *
+     * @return the end offset
+     */
+    public long getEnd() {
+        return start + text.length();
+    }
+}
@@ -38,17 +38,20 @@ interface AgentHolderTestManager {
     void startTestContainer(@Nonnull UUID testUuid);
 
     /**
-     * Gets the agent holder logs for the given test UUID.
+     * Gets the agent holder logs for the given test UUID, starting from the given offset. Only the most recent logs
+     * are retained, the returned logs may therefore start after the requested offset.
      *
      * @param testUuid the test UUID
+     * @param offset the offset from which the logs must be returned
      *
      * @return the agent holder logs
      *
      * @throws NullPointerException if {@code testUuid} is {@code null}
+     * @throws IllegalArgumentException if {@code offset} is negative
      * @throws ContainerTestException if an error prevented querying the agent holder logs
      */
     @Nonnull
-    String getLogs(@Nonnull UUID testUuid);
+    AgentHolderTestLogs getLogs(@Nonnull UUID testUuid, long offset);
 
     /**
      * Dispose the test with the given UUID.
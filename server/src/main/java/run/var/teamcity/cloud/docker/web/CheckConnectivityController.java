@@ -7,6 +7,7 @@ import run.var.teamcity.cloud.docker.client.DockerAPIVersion;
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientConfig;
 import run.var.teamcity.cloud.docker.client.DockerClientFactory;
+import run.var.teamcity.cloud.docker.client.SharedDockerClientRegistry;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.EditableNode;
 import run.var.teamcity.cloud.docker.util.Node;
@@ -25,18 +26,24 @@ public class CheckConnectivityController extends BaseFormJsonController {
 
     public static final String PATH = "checkconnectivity.html";
 
-    private final DockerClientFactory dockerClientFactory;
+    private final SharedDockerClientRegistry clientRegistry;
 
 
     public CheckConnectivityController(@Nonnull PluginDescriptor pluginDescriptor,
                                        @Nonnull WebControllerManager manager) {
-        this(pluginDescriptor, manager, DockerClientFactory.getDefault());
+        this(pluginDescriptor, manager, SharedDockerClientRegistry.getDefault());
     }
 
     CheckConnectivityController(@Nonnull PluginDescriptor pluginDescriptor,
                                 @Nonnull WebControllerManager manager,
                                 @Nonnull DockerClientFactory dockerClientFactory) {
-        this.dockerClientFactory = dockerClientFactory;
+        this(pluginDescriptor, manager, new SharedDockerClientRegistry(dockerClientFactory));
+    }
+
+    private CheckConnectivityController(@Nonnull PluginDescriptor pluginDescriptor,
+                                        @Nonnull WebControllerManager manager,
+                                        @Nonnull SharedDockerClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
         manager.registerController(pluginDescriptor.getPluginResourcesPath(PATH), this);
     }
 
@@ -63,19 +70,20 @@ public class CheckConnectivityController extends BaseFormJsonController {
                     .connectionPoolSize(1)
                     .connectTimeout(Duration.ofSeconds(20));
 
-            DockerClient client = dockerClientFactory.createClientWithAPINegotiation(dockerConfig);
+            try (DockerClient client = clientRegistry.acquireClient(dockerConfig)) {
 
-            DockerAPIVersion effectiveApiVersion = client.getApiVersion();
+                DockerAPIVersion effectiveApiVersion = client.getApiVersion();
 
-            Node versionNode = client.getVersion();
-            Node infoNode = client.getInfo();
+                Node versionNode = client.getVersion();
+                Node infoNode = client.getInfo();
 
-            responseNode.put("version", versionNode);
+                responseNode.put("version", versionNode);
 
-            responseNode.put("info", infoNode);
-            responseNode.getOrCreateObject("meta")
-                    .put("serverTime", System.currentTimeMillis())
-                    .put("effectiveApiVersion", effectiveApiVersion.getVersionString());
+                responseNode.put("info", infoNode);
+                responseNode.getOrCreateObject("meta")
+                        .put("serverTime", System.currentTimeMillis())
+                        .put("effectiveApiVersion", effectiveApiVersion.getVersionString());
+            }
         } catch (Exception e) {
             error = e;
         }
@@ -174,7 +174,21 @@ public class ContainerTestController extends BaseFormJsonController {
         }
 
         if (action == Action.LOGS) {
-            responseNode.put("logs", testMgr.getLogs(testUuid));
+            String offsetParam = request.getParameter("logsOffset");
+            long offset;
+            try {
+                offset = offsetParam != null ? Long.parseLong(offsetParam) : 0;
+            } catch (NumberFormatException e) {
+                offset = -1;
+            }
+            if (offset < 0) {
+                sendErrorQuietly(response, HttpServletResponse.SC_BAD_REQUEST, "Bad logs offset: " + offsetParam);
+                return;
+            }
+            AgentHolderTestLogs logs = testMgr.getLogs(testUuid, offset);
+            responseNode.put("logs", logs.getText());
+            responseNode.put("logsStart", logs.getStart());
+            responseNode.put("logsEnd", logs.getEnd());
             return;
         }
 
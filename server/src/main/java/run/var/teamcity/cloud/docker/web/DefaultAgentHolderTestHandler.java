@@ -3,10 +3,12 @@ package run.var.teamcity.cloud.docker.web;
 import run.var.teamcity.cloud.docker.DockerClientFacade;
 import run.var.teamcity.cloud.docker.DockerCloudClientConfig;
 import run.var.teamcity.cloud.docker.DockerCloudSupport;
+import run.var.teamcity.cloud.docker.LogsCursor;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.LockHandler;
 import run.var.teamcity.cloud.docker.util.Resources;
 import run.var.teamcity.cloud.docker.util.ScheduledFutureWithRunnable;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 import run.var.teamcity.cloud.docker.web.TestAgentHolderStatusMsg.Phase;
 import run.var.teamcity.cloud.docker.web.TestAgentHolderStatusMsg.Status;
 
@@ -16,14 +18,27 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiFunction;
 
 /**
  * Default {@link AgentHolderTestHandler} implementation.
  */
 public class DefaultAgentHolderTestHandler implements AgentHolderTestHandler {
 
+    /**
+     * Maximum number of log lines cached for a test.
+     */
+    final static int MAX_CACHED_LOG_LINES = 10_000;
+
     private final UUID uuid = UUID.randomUUID();
     private final LockHandler lock = LockHandler.newReentrantLock();
+    private final LockHandler logsLock = LockHandler.newReentrantLock();
+    private final LogsCursor logsCursor = new LogsCursor();
+    private final VT100EscapeFilter logsFilter = new VT100EscapeFilter();
+    private final StringBuilder logs = new StringBuilder();
+    // Guarded by the logs lock. Offset of the first cached character, and number of line separators in the cache.
+    private long logsStart = 0;
+    private int logsLineCount = 0;
     private final DockerClientFacade clientFacade;
     private final Resources resources;
 
@@ -120,6 +135,62 @@ public class DefaultAgentHolderTestHandler implements AgentHolderTestHandler {
         return clientFacade;
     }
 
+    /**
+     * Gets the agent holder logs from the given offset. Only the logs not retrieved yet are fetched from the daemon
+     * and appended to the logs cached so far. The cache is limited to the {@value #MAX_CACHED_LOG_LINES} most recent
+     * lines. Concurrent invocations will be serialized.
+     *
+     * @param logsFetcher the function fetching the new logs using the provided cursor, and stripping their VT100
+     * control sequences using the provided filter
+     * @param offset      the offset from which the logs must be returned
+     *
+     * @return the cached logs from the given offset, or from the oldest cached logs if more recent
+     *
+     * @throws NullPointerException if {@code logsFetcher} is {@code null}
+     * @throws IllegalArgumentException if {@code offset} is negative
+     */
+    @Nonnull
+    public AgentHolderTestLogs getLogs(@Nonnull BiFunction<LogsCursor, VT100EscapeFilter, CharSequence> logsFetcher,
+            long offset) {
+        DockerCloudUtils.requireNonNull(logsFetcher, "Logs fetcher cannot be null.");
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must be a positive integer: " + offset);
+        }
+        return logsLock.call(() -> {
+            int previousLength = logs.length();
+            logs.append(logsFetcher.apply(logsCursor, logsFilter));
+            for (int i = previousLength; i < logs.length(); i++) {
+                if (logs.charAt(i) == '\n') {
+                    logsLineCount++;
+                }
+            }
+            trimLogs();
+
+            long end = logsStart + logs.length();
+            long start = Math.max(logsStart, Math.min(offset, end));
+            return new AgentHolderTestLogs(logs.substring((int) (start - logsStart)), start);
+        });
+    }
+
+    private void trimLogs() {
+        assert logsLock.isHeldByCurrentThread();
+
+        // The last line may not be terminated yet.
+        int excessLines = logsLineCount - MAX_CACHED_LOG_LINES + 1;
+        if (excessLines <= 0) {
+            return;
+        }
+        int trimmed = 0;
+        for (int lines = 0; lines < excessLines; trimmed++) {
+            if (logs.charAt(trimmed) == '\n') {
+                lines++;
+            }
+        }
+        logs.delete(0, trimmed);
+        logsStart += trimmed;
+        logsLineCount -= excessLines;
+    }
+
     @Nonnull
     @Override
     public Resources getResources() {
@@ -40,7 +40,6 @@ import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 /**
  * Default {@link AgentHolderTestManager} implementation.
@@ -52,6 +51,7 @@ public class DefaultAgentHolderTestManager implements AgentHolderTestManager {
     private final static Duration REFRESH_TASK_RATE = Duration.ofSeconds(10);
     final static Duration CLEANUP_DEFAULT_TASK_RATE = Duration.ofSeconds(10);
     final static Duration TEST_DEFAULT_IDLE_TIME = Duration.ofMinutes(10);
+    private final static int MAX_CONCURRENT_TASKS_VIRTUAL = 16;
 
     private final LockHandler lock = LockHandler.newReentrantLock();
     private final Map<UUID, DefaultAgentHolderTestHandler> tests = new HashMap<>();
@@ -134,11 +134,9 @@ public class DefaultAgentHolderTestManager implements AgentHolderTestManager {
         test.setCurrentTaskFuture(schedule(testTask));
     }
 
-    private static final Pattern VT100_ESCAPE_PTN = Pattern.compile("\u001B\\[[\\d;]*[^\\d;]");
-
     @Nonnull
     @Override
-    public String getLogs(@Nonnull UUID testUuid) {
+    public AgentHolderTestLogs getLogs(@Nonnull UUID testUuid, long offset) {
         DockerCloudUtils.requireNonNull(testUuid, "Test UUID cannot be null.");
 
         DefaultAgentHolderTestHandler test = retrieveTestInstance(testUuid);
@@ -149,9 +147,9 @@ public class DefaultAgentHolderTestManager implements AgentHolderTestManager {
             throw new ContainerTestException("Agent holdere not created.");
         }
 
-        CharSequence logs = test.getDockerClientFacade().getLogs(agentHolderId.get());
-
-        return VT100_ESCAPE_PTN.matcher(logs).replaceAll("");
+        // Only the new logs are fetched and filtered, the previous ones are cached in the test handler.
+        return test.getLogs((cursor, filter) ->
+                test.getDockerClientFacade().getLogs(agentHolderId.get(), cursor, filter), offset);
     }
 
     @Override
@@ -273,7 +271,12 @@ public class DefaultAgentHolderTestManager implements AgentHolderTestManager {
     }
 
     private ScheduledExecutorService createScheduledExecutor() {
-        return new ScheduledThreadPoolExecutor(2, new NamedThreadFactory("ContainerTestWorker")) {
+        // Test tasks are mostly blocked on the daemon socket, when using virtual threads we can afford more of them
+        // to run concurrently.
+        boolean usingVirtualThreads = DockerCloudUtils.isUsingVirtualThreads();
+        int poolSize = usingVirtualThreads ? MAX_CONCURRENT_TASKS_VIRTUAL : 2;
+        return new ScheduledThreadPoolExecutor(poolSize, new NamedThreadFactory("ContainerTestWorker", false,
+                usingVirtualThreads)) {
             @SuppressWarnings("unchecked")
             @Override
             protected RunnableScheduledFuture decorateTask(Runnable runnable, RunnableScheduledFuture
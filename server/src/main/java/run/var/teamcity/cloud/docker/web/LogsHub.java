@@ -0,0 +1,497 @@
+package run.var.teamcity.cloud.docker.web;
+
+import com.intellij.openapi.diagnostic.Logger;
+import run.var.teamcity.cloud.docker.DockerClientFacade;
+import run.var.teamcity.cloud.docker.StreamHandler;
+import run.var.teamcity.cloud.docker.client.StdioInputStream;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+import run.var.teamcity.cloud.docker.util.LockHandler;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out hub for container logs.
+ * <p>
+ * A single log stream is opened on the daemon for each container, regardless of the number of subscribers. The
+ * most recent logs are retained in a bounded replay buffer and sent to new subscribers upon subscription. Data is
+ * dispatched to the subscribers without blocking the upstream stream: each subscriber has its own bounded queue, and
+ * a subscriber unable to keep up is resynchronized from the replay buffer when this queue overflows. The upstream
+ * stream is closed as soon as the last subscriber leaves.
+ * </p>
+ * <p>
+ * The upstream bytes are decoded incrementally as UTF-8, so multibyte characters split across reads are preserved.
+ * The decoded text is coalesced into frames, which are published when reaching the maximal frame size or at the end
+ * of the frame time window, whichever comes first. At most one frame is in flight for each subscriber.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+class LogsHub {
+
+    private final static Logger LOG = DockerCloudUtils.getLogger(LogsHub.class);
+
+    /**
+     * Default number of characters retained for replay.
+     */
+    final static int DEFAULT_REPLAY_SIZE = 64 * 1024;
+
+    /**
+     * Default maximal number of characters queued for a single subscriber.
+     */
+    final static int DEFAULT_MAX_PENDING = 256 * 1024;
+
+    /**
+     * Default maximal number of characters coalesced in a single frame.
+     */
+    final static int DEFAULT_MAX_FRAME_SIZE = 16 * 1024;
+
+    /**
+     * Default time window during which the logs are coalesced in a single frame.
+     */
+    final static Duration DEFAULT_FRAME_WINDOW = Duration.ofMillis(200);
+
+    final static String RESYNC_MARKER = "\n[... logs skipped ...]\n";
+
+    private final LockHandler lock = LockHandler.newReentrantLock();
+    private final Map<String, Channel> channels = new HashMap<>();
+
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final int replaySize;
+    private final int maxPending;
+    private final int maxFrameSize;
+    private final long frameWindowNanos;
+
+    /**
+     * Creates a new hub using the default buffer sizes.
+     *
+     * @param executor  the executor on which the upstream streams will be consumed
+     * @param scheduler the scheduler used to publish the frames at the end of their time window
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    LogsHub(@Nonnull Executor executor, @Nonnull ScheduledExecutorService scheduler) {
+        this(executor, scheduler, DEFAULT_REPLAY_SIZE, DEFAULT_MAX_PENDING, DEFAULT_MAX_FRAME_SIZE,
+                DEFAULT_FRAME_WINDOW);
+    }
+
+    /**
+     * Creates a new hub.
+     *
+     * @param executor     the executor on which the upstream streams will be consumed
+     * @param scheduler    the scheduler used to publish the frames at the end of their time window
+     * @param replaySize   the number of characters retained for replay
+     * @param maxPending   the maximal number of characters queued for a single subscriber
+     * @param maxFrameSize the maximal number of characters coalesced in a single frame
+     * @param frameWindow  the time window during which the logs are coalesced in a single frame
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code replaySize} is negative, if {@code maxPending} is not greater
+     * than {@code replaySize}, if {@code maxFrameSize} is not strictly positive, or if {@code frameWindow} is
+     * negative
+     */
+    LogsHub(@Nonnull Executor executor, @Nonnull ScheduledExecutorService scheduler, int replaySize,
+            int maxPending, int maxFrameSize, @Nonnull Duration frameWindow) {
+        DockerCloudUtils.requireNonNull(executor, "Executor cannot be null.");
+        DockerCloudUtils.requireNonNull(scheduler, "Scheduler cannot be null.");
+        DockerCloudUtils.requireNonNull(frameWindow, "Frame window cannot be null.");
+        if (replaySize < 0) {
+            throw new IllegalArgumentException("Replay size must be a positive integer: " + replaySize);
+        }
+        if (maxPending <= replaySize) {
+            throw new IllegalArgumentException("Maximum pending size must be greater than the replay size: " +
+                    maxPending);
+        }
+        if (maxFrameSize <= 0) {
+            throw new IllegalArgumentException("Maximum frame size must be a strictly positive integer: " +
+                    maxFrameSize);
+        }
+        if (frameWindow.isNegative()) {
+            throw new IllegalArgumentException("Frame window must be a positive duration: " + frameWindow);
+        }
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.replaySize = replaySize;
+        this.maxPending = maxPending;
+        this.maxFrameSize = maxFrameSize;
+        this.frameWindowNanos = frameWindow.toNanos();
+    }
+
+    /**
+     * Subscribes to the logs of the container referenced by the given test. The upstream log stream will be opened
+     * if required.
+     *
+     * @param testRef    the test reference
+     * @param subscriber the subscriber
+     *
+     * @return the subscription handle
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if no container is registered in the test reference
+     */
+    @Nonnull
+    Subscription subscribe(@Nonnull ContainerTestReference testRef, @Nonnull Subscriber subscriber) {
+        DockerCloudUtils.requireNonNull(testRef, "Test reference cannot be null.");
+        DockerCloudUtils.requireNonNull(subscriber, "Subscriber cannot be null.");
+
+        String containerId = testRef.getContainerId().orElseThrow(() ->
+                new IllegalArgumentException("No container registered for test: " + testRef.getTestUuid()));
+
+        SubscriberQueue queue = new SubscriberQueue(subscriber);
+
+        boolean newChannel = lock.call(() -> {
+            Channel channel = channels.get(containerId);
+            boolean created = channel == null;
+            if (created) {
+                channel = new Channel(containerId, testRef);
+                channels.put(containerId, channel);
+            }
+            queue.channel = channel;
+            channel.subscribers.add(queue);
+            String replay = channel.getReplay();
+            if (!replay.isEmpty()) {
+                queue.pending.add(replay);
+                queue.pendingSize = replay.length();
+            }
+            return created;
+        });
+
+        if (newChannel) {
+            executor.execute(queue.channel::pump);
+        }
+
+        queue.flush();
+
+        return queue;
+    }
+
+    /**
+     * Gets the number of containers for which logs are currently streamed.
+     *
+     * @return the number of upstream streams
+     */
+    int getChannelCount() {
+        return lock.call(channels::size);
+    }
+
+    /**
+     * Log subscriber.
+     */
+    interface Subscriber {
+
+        /**
+         * Sends the given text to the subscriber. This method must not block: the completion handler must be
+         * invoked when the text has been sent, or if sending failed. The hub will never invoke this method again
+         * before the completion handler was invoked.
+         *
+         * @param text              the text to be sent
+         * @param completionHandler the completion handler
+         */
+        void send(@Nonnull String text, @Nonnull Runnable completionHandler);
+
+        /**
+         * Invoked when the upstream logs stream ended. All pending logs are sent beforehand.
+         *
+         * @param failure {@code true} if the upstream stream ended abnormally
+         * @param reason  the reason for closing
+         */
+        void close(boolean failure, @Nonnull String reason);
+    }
+
+    /**
+     * Subscription handle.
+     */
+    interface Subscription {
+
+        /**
+         * Cancels this subscription. The subscriber will not receive any further data. This method is idempotent.
+         */
+        void cancel();
+    }
+
+    private class Channel {
+
+        final String containerId;
+        final ContainerTestReference testRef;
+        final List<SubscriberQueue> subscribers = new ArrayList<>();
+        final Deque<String> replayChunks = new ArrayDeque<>();
+        final StringBuilder frame = new StringBuilder();
+        int replayLength = 0;
+        ScheduledFuture<?> frameFlush;
+        StreamHandler streamHandler;
+        boolean stopped = false;
+
+        Channel(String containerId, ContainerTestReference testRef) {
+            this.containerId = containerId;
+            this.testRef = testRef;
+        }
+
+        void pump() {
+            boolean failure = false;
+            String reason = "Connection with container lost.";
+            try (DockerClientFacade client = testRef.getCloudSupport().createClientFacade(testRef.getClientConfig());
+                 StreamHandler streamHandler = client.streamLogs(containerId)) {
+
+                if (!lock.call(() -> {
+                    this.streamHandler = streamHandler;
+                    return !stopped;
+                })) {
+                    return;
+                }
+
+                // The decoder state is kept across fragments: a character may be split over several frames.
+                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().
+                        onMalformedInput(CodingErrorAction.REPLACE).
+                        onUnmappableCharacter(CodingErrorAction.REPLACE);
+                ByteBuffer bytes = ByteBuffer.allocate(4096);
+                CharBuffer chars = CharBuffer.allocate(4096);
+                StdioInputStream is;
+                while ((is = streamHandler.getNextStreamFragment()) != null) {
+                    try {
+                        int n;
+                        while ((n = is.read(bytes.array(), bytes.position(), bytes.remaining())) != -1) {
+                            bytes.position(bytes.position() + n);
+                            bytes.flip();
+                            decoder.decode(bytes, chars, false);
+                            bytes.compact();
+                            append(chars);
+                        }
+                    } finally {
+                        is.close();
+                    }
+                }
+                bytes.flip();
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+                append(chars);
+            } catch (IOException e) {
+                if (!lock.call(() -> stopped)) {
+                    failure = true;
+                    reason = "Connection with server failed:\n" + DockerCloudUtils.getStackTrace(e);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to stream container logs.", e);
+                failure = true;
+                reason = "Failed to stream container logs.";
+            } finally {
+                end(failure, reason);
+            }
+        }
+
+        void append(CharBuffer chars) {
+            chars.flip();
+            if (!chars.hasRemaining()) {
+                chars.clear();
+                return;
+            }
+            boolean publishNow = lock.call(() -> {
+                frame.append(chars);
+                if (frame.length() >= maxFrameSize) {
+                    return true;
+                }
+                if (frameFlush == null) {
+                    frameFlush = scheduler.schedule(this::publishFrame, frameWindowNanos, TimeUnit.NANOSECONDS);
+                }
+                return false;
+            });
+            chars.clear();
+
+            if (publishNow) {
+                publishFrame();
+            }
+        }
+
+        void publishFrame() {
+            List<SubscriberQueue> toFlush = lock.call(() -> {
+                if (frameFlush != null) {
+                    frameFlush.cancel(false);
+                    frameFlush = null;
+                }
+                if (frame.length() == 0) {
+                    return Collections.<SubscriberQueue>emptyList();
+                }
+                String chunk = frame.toString();
+                frame.setLength(0);
+                replayChunks.add(chunk);
+                replayLength += chunk.length();
+                trimReplay();
+                for (SubscriberQueue queue : subscribers) {
+                    queue.enqueue(chunk);
+                }
+                return new ArrayList<>(subscribers);
+            });
+
+            toFlush.forEach(SubscriberQueue::flush);
+        }
+
+        void end(boolean failure, String reason) {
+            publishFrame();
+            List<SubscriberQueue> toFlush = lock.call(() -> {
+                stopped = true;
+                if (channels.get(containerId) == this) {
+                    channels.remove(containerId);
+                }
+                for (SubscriberQueue queue : subscribers) {
+                    queue.ended = true;
+                    queue.failure = failure;
+                    queue.closeReason = reason;
+                }
+                return new ArrayList<>(subscribers);
+            });
+
+            toFlush.forEach(SubscriberQueue::flush);
+        }
+
+        void unsubscribe(SubscriberQueue queue) {
+            StreamHandler toClose = lock.call(() -> {
+                if (!subscribers.remove(queue) || !subscribers.isEmpty() || stopped) {
+                    return null;
+                }
+                // Last subscriber leaving: the upstream stream is no longer needed.
+                stopped = true;
+                if (channels.get(containerId) == this) {
+                    channels.remove(containerId);
+                }
+                return streamHandler;
+            });
+
+            if (toClose != null) {
+                try {
+                    toClose.close();
+                } catch (IOException e) {
+                    LOG.debug("Failed to close logs stream for container " + containerId + ".", e);
+                }
+            }
+        }
+
+        void trimReplay() {
+            assert lock.isHeldByCurrentThread();
+
+            while (replayLength > replaySize) {
+                String first = replayChunks.removeFirst();
+                int excess = replayLength - replaySize;
+                if (first.length() > excess) {
+                    // Keep the tail of the chunk, without splitting a surrogate pair.
+                    if (Character.isLowSurrogate(first.charAt(excess))) {
+                        excess++;
+                    }
+                    replayChunks.addFirst(first.substring(excess));
+                }
+                replayLength -= Math.min(excess, first.length());
+            }
+        }
+
+        String getReplay() {
+            assert lock.isHeldByCurrentThread();
+
+            StringBuilder sb = new StringBuilder(replayLength);
+            replayChunks.forEach(sb::append);
+            return sb.toString();
+        }
+    }
+
+    private class SubscriberQueue implements Subscription {
+
+        final Subscriber subscriber;
+        final Deque<String> pending = new ArrayDeque<>();
+        Channel channel;
+        int pendingSize = 0;
+        boolean sending = false;
+        boolean cancelled = false;
+        boolean ended = false;
+        boolean closed = false;
+        boolean failure;
+        String closeReason;
+
+        SubscriberQueue(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void enqueue(String chunk) {
+            assert lock.isHeldByCurrentThread();
+
+            if (pendingSize + chunk.length() > maxPending) {
+                // Slow subscriber: discard the backlog and resynchronize from the replay buffer, which already
+                // includes the new chunk.
+                pending.clear();
+                String replay = channel.getReplay();
+                pending.add(RESYNC_MARKER);
+                pending.add(replay);
+                pendingSize = RESYNC_MARKER.length() + replay.length();
+            } else {
+                pending.add(chunk);
+                pendingSize += chunk.length();
+            }
+        }
+
+        void flush() {
+            String text = null;
+            boolean close = false;
+            lock.lock();
+            try {
+                if (sending || cancelled || closed) {
+                    return;
+                }
+                if (!pending.isEmpty()) {
+                    // Coalesce the pending chunks in a single message.
+                    StringBuilder sb = new StringBuilder(pendingSize);
+                    pending.forEach(sb::append);
+                    pending.clear();
+                    pendingSize = 0;
+                    text = sb.toString();
+                    sending = true;
+                } else if (ended) {
+                    closed = true;
+                    close = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (text != null) {
+                subscriber.send(text, this::sent);
+            } else if (close) {
+                subscriber.close(failure, closeReason);
+            }
+        }
+
+        void sent() {
+            lock.run(() -> sending = false);
+            flush();
+        }
+
+        @Override
+        public void cancel() {
+            if (lock.call(() -> {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+                pending.clear();
+                pendingSize = 0;
+                return true;
+            })) {
+                channel.unsubscribe(this);
+            }
+        }
+    }
+}
@@ -2,14 +2,10 @@ package run.var.teamcity.cloud.docker.web;
 
 
 import com.intellij.openapi.diagnostic.Logger;
-import run.var.teamcity.cloud.docker.DockerClientFacade;
-import run.var.teamcity.cloud.docker.DockerCloudSupport;
-import run.var.teamcity.cloud.docker.StreamHandler;
-import run.var.teamcity.cloud.docker.client.DockerClientConfig;
-import run.var.teamcity.cloud.docker.client.StdioInputStream;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.NamedThreadFactory;
 
+import javax.annotation.Nonnull;
 import javax.servlet.http.HttpSession;
 import javax.websocket.CloseReason;
 import javax.websocket.OnClose;
@@ -22,23 +18,62 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 
 import static javax.websocket.CloseReason.CloseCodes.NORMAL_CLOSURE;
 import static javax.websocket.CloseReason.CloseCodes.UNEXPECTED_CONDITION;
 import static javax.websocket.CloseReason.CloseCodes.VIOLATED_POLICY;
 
 /**
- * WebSocket endpoint to provide live-logs streaming.
+ * WebSocket endpoint to provide live-logs streaming. The logs are dispatched to the clients through a
+ * {@link LogsHub}.
  */
 public class LogsStreamingEndpoint {
 
     // NB: this bean is expected to be used as singleton instead of being created for each client as by default with
     // JSR-356 containers.
     private final static Logger LOG = DockerCloudUtils.getLogger(LogsStreamingEndpoint.class);
-    private final static String USER_PROP_LOGS_WORKER = DockerCloudUtils.NS_PREFIX + "logsWorker";
+    private final static String USER_PROP_LOGS_SUBSCRIPTION = DockerCloudUtils.NS_PREFIX + "logsSubscription";
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(3, new NamedThreadFactory
-            ("DockerStreaming"));
+    /**
+     * Maximal number of logs streamed concurrently when using virtual threads.
+     */
+    final static int MAX_CONCURRENT_STREAMS_VIRTUAL = 64;
+
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService frameScheduler;
+    private final Semaphore streamPermits;
+    private final LogsHub logsHub;
+
+    public LogsStreamingEndpoint() {
+        this(DockerCloudUtils.isUsingVirtualThreads());
+    }
+
+    LogsStreamingEndpoint(boolean usingVirtualThreads) {
+        if (usingVirtualThreads) {
+            // Streaming workers are mostly blocked on the daemon socket: use a virtual thread for each stream and
+            // bound the number of concurrent streams explicitly.
+            executorService = Executors.newCachedThreadPool(new NamedThreadFactory("DockerStreaming", true, true));
+            streamPermits = new Semaphore(MAX_CONCURRENT_STREAMS_VIRTUAL);
+        } else {
+            // One thread per streamed container. The number of streams is bounded by the number of running container
+            // tests, and idle threads are reclaimed once the streams end.
+            executorService = Executors.newCachedThreadPool(new NamedThreadFactory("DockerStreaming"));
+            streamPermits = null;
+        }
+        frameScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DockerLogsFrames", true));
+        // A single upstream stream is consumed per container, whatever the number of connected clients.
+        logsHub = new LogsHub(pump -> executorService.submit(() -> stream(pump)), frameScheduler);
+    }
+
+    /**
+     * Releases the streaming threads. Invoked by the Spring container when the bean is destroyed.
+     */
+    public void dispose() {
+        executorService.shutdownNow();
+        frameScheduler.shutdownNow();
+    }
 
     @OnOpen
     public void open(Session session) throws IOException {
@@ -76,11 +111,9 @@ public class LogsStreamingEndpoint {
             return;
         }
 
-        LogsWorker logsWorker = new LogsWorker(testRef.get(), session);
-
-        session.getUserProperties().put(USER_PROP_LOGS_WORKER, logsWorker);
+        LogsHub.Subscription subscription = logsHub.subscribe(testRef.get(), new SessionSubscriber(session));
 
-        executorService.submit(logsWorker);
+        session.getUserProperties().put(USER_PROP_LOGS_SUBSCRIPTION, subscription);
     }
 
     private String getParam(Map<String, List<String>> params, String name) {
@@ -93,74 +126,56 @@ public class LogsStreamingEndpoint {
 
     @OnClose
     public void close(Session session) {
+        LogsHub.Subscription subscription = (LogsHub.Subscription) session.getUserProperties().
+                get(USER_PROP_LOGS_SUBSCRIPTION);
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void stream(Runnable pump) {
+        if (streamPermits == null) {
+            pump.run();
+            return;
+        }
+
         try {
-            LogsWorker worker = (LogsWorker) session.getUserProperties().get(USER_PROP_LOGS_WORKER);
-            if (worker != null) {
-                worker.dispose();
-            }
-        } catch (IOException e) {
-            LOG.info("I/O Exception when closing worker.", e);
+            streamPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            pump.run();
+        } finally {
+            streamPermits.release();
         }
     }
 
-    private class LogsWorker implements Runnable {
+    private static class SessionSubscriber implements LogsHub.Subscriber {
 
-        final ContainerTestReference containerTestReference;
         final Session session;
 
-        volatile StreamHandler streamHandler;
-
-        LogsWorker(ContainerTestReference containerTestReference, Session session) {
-            this.containerTestReference = containerTestReference;
+        SessionSubscriber(Session session) {
             this.session = session;
         }
 
         @Override
-        public void run() {
-            assert containerTestReference.getContainerId().isPresent();
-
-            String containerId = containerTestReference.getContainerId().get();
-            DockerCloudSupport cloudSupport = containerTestReference.getCloudSupport();
-            DockerClientConfig clientConfig = containerTestReference.getClientConfig();
-
-            try (DockerClientFacade client = cloudSupport.createClientFacade(clientConfig)) {
-                try (StreamHandler streamHandler = client.streamLogs(containerId)) {
-                    this.streamHandler = streamHandler;
-
-                    while (true) {
-                        try (StdioInputStream is = streamHandler.getNextStreamFragment()) {
-                            if (is == null) {
-                                break;
-                            }
-                            byte[] buffer = new byte[4096];
-                            int n;
-                            while ((n = is.read(buffer)) != -1) {
-                                if (n > 0) {
-                                    synchronized (session) {
-                                        session.getBasicRemote().sendText(new String(buffer, 0, n));
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    synchronized (session) {
-                        session.close(new CloseReason(NORMAL_CLOSURE, "Connection with container lost."));
-                    }
-                } catch (IOException e) {
-                    String msg = "Connection with server failed:\n" + DockerCloudUtils.getStackTrace(e);
-                    synchronized (session) {
-                        session.close(new CloseReason(UNEXPECTED_CONDITION, msg));
-                    }
-
+        public void send(@Nonnull String text, @Nonnull Runnable completionHandler) {
+            session.getAsyncRemote().sendText(text, result -> {
+                if (!result.isOK()) {
+                    LOG.debug("Failed to send logs to client.", result.getException());
                 }
-            } catch (Exception e) {
-                LOG.error("Failed to stream container logs.", e);
-            }
+                completionHandler.run();
+            });
         }
 
-        void dispose() throws IOException {
-            if (streamHandler != null) {
-                streamHandler.close();
+        @Override
+        public void close(boolean failure, @Nonnull String reason) {
+            try {
+                session.close(new CloseReason(failure ? UNEXPECTED_CONDITION : NORMAL_CLOSURE, reason));
+            } catch (IOException e) {
+                LOG.info("I/O Exception when closing session.", e);
             }
         }
     }
@@ -10,6 +10,8 @@ import Clipboard from 'clipboard';
 import UAParser from 'ua-parser';
 
 const IMAGE_VERSION = 5;
+// Must match the number of log lines cached by the server for a container test.
+const MAX_TEST_LOG_LINES = 10000;
 
 function Controller(bs, oo, tabbedPane, params, schema) {
     Logger.logInfo('Initializing Docker Cloud JS ' + schema.cloudType + ' support.');
@@ -116,6 +118,8 @@ function Controller(bs, oo, tabbedPane, params, schema) {
     let testPhase;
     let testStatusSocket = null;
     let logStreamingSocket;
+    let testLogs;
+    let testLogsOffset;
 
     _initDaemonInfo();
     _initTabs();
@@ -339,6 +343,8 @@ function Controller(bs, oo, tabbedPane, params, schema) {
             _invokeTestAction('create', params)
                 .done(function (response) {
                     testUuid = JSON.parse(response.responseText).testUuid;
+                    testLogs = '';
+                    testLogsOffset = 0;
                     _queryTestStatus();
                 });
         });
@@ -373,10 +379,17 @@ function Controller(bs, oo, tabbedPane, params, schema) {
         });
 
         $testContainerContainerLogsBtn.click(function() {
-            _invokeTestAction('logs', null, true)
+            _invokeTestAction('logs', 'logsOffset=' + testLogsOffset, true)
                 .done(function(response) {
-                    let logs = JSON.parse(response.responseText).logs;
-                    prepareDiagnosticDialog(i18n.text('test.logs'), logs);
+                    let responseMap = JSON.parse(response.responseText);
+                    // Only the logs not retrieved yet are transmitted. The older logs may also have been discarded
+                    // by the server in the meantime, in which case the cached logs are replaced.
+                    if (responseMap.logsStart !== testLogsOffset) {
+                        testLogs = '';
+                    }
+                    testLogs = Utils.keepLastLines(testLogs + responseMap.logs, MAX_TEST_LOG_LINES);
+                    testLogsOffset = responseMap.logsEnd;
+                    prepareDiagnosticDialog(i18n.text('test.logs'), testLogs);
                     $testContainerLoader.hide();
                     BS.DockerDiagnosticDialog.showCentered();
                 });
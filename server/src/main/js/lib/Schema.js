@@ -61,6 +61,7 @@ function Schema() {
         if (Utils.notEmpty(viewModel.MaxInstanceCount)) {
             admin.MaxInstanceCount = parseInt(viewModel.MaxInstanceCount);
         }
+        _copy(viewModel, admin, 'WarmPoolSize', parseInt);
         _copy(viewModel, admin, 'UseOfficialTCAgentImage');
         _copy(viewModel, admin, 'RegistryUser');
         _copy(viewModel, admin, 'RegistryPassword', Utils.base64Utf16BEEncode);
@@ -287,6 +288,7 @@ function Schema() {
         _copy(admin, viewModel, 'PullOnCreate');
         _copy(admin, viewModel, 'RmOnExit');
         _copy(admin, viewModel, 'MaxInstanceCount');
+        _copy(admin, viewModel, 'WarmPoolSize');
         _copy(admin, viewModel, 'UseOfficialTCAgentImage');
         _copy(admin, viewModel, 'RegistryUser');
         _copy(admin, viewModel, 'RegistryPassword', Utils.base64Utf16BEDecode);
@@ -469,6 +471,7 @@ function Schema() {
         Image: Validators.imageValidators,
         UseOfficialTCAgentImage: Validators.useOfficialTCAgentImageValidators,
         MaxInstanceCount: Validators.maxInstanceCountValidators,
+        WarmPoolSize: [Validators.positiveIntegerValidator],
         RegistryUser: Validators.registryUserValidatorsFn($registryPassword),
         RegistryPassword: Validators.registryPasswordValidatorsFn($registryUser),
         StopTimeout: [Validators.positiveIntegerValidator, Validators.api1_25RequiredValidator],
@@ -59,6 +59,7 @@ function SwarmSchema() {
         let admin = {};
 
         _copy(viewModel, admin, 'MaxInstanceCount', parseInt);
+        _copy(viewModel, admin, 'WarmPoolSize', parseInt);
         _copy(viewModel, admin, 'Profile');
         _copy(viewModel, admin, 'UseOfficialTCAgentImage');
         _copy(viewModel, admin, 'RegistryUser');
@@ -184,6 +185,7 @@ function SwarmSchema() {
 
         _copy(admin, viewModel, 'Profile');
         _copy(admin, viewModel, 'MaxInstanceCount');
+        _copy(admin, viewModel, 'WarmPoolSize');
         _copy(admin, viewModel, 'UseOfficialTCAgentImage');
         _copy(admin, viewModel, 'RegistryUser');
         _copy(admin, viewModel, 'RegistryPassword', Utils.base64Utf16BEDecode);
@@ -278,6 +280,7 @@ function SwarmSchema() {
         Image: Validators.imageValidators,
         UseOfficialTCAgentImage: Validators.useOfficialTCAgentImageValidators,
         MaxInstanceCount: Validators.maxInstanceCountValidators,
+        WarmPoolSize: [Validators.positiveIntegerValidator],
         RegistryUser: Validators.registryUserValidatorsFn($registryPassword),
         RegistryPassword: Validators.registryPasswordValidatorsFn($registryUser),
         StopGracePeriod: [Validators.positiveIntegerValidator],
@@ -43,6 +43,23 @@ function notEmpty(value){
 }
 
 module.exports = {
+    keepLastLines: function(str, maxLines) {
+        if (!str) {
+            return "";
+        }
+        // The last line does not need to be terminated.
+        let index = str.length;
+        for (let lines = 0; lines < maxLines; lines++) {
+            if (index === 0) {
+                return str;
+            }
+            index = str.lastIndexOf('\n', index - 1);
+            if (index === -1) {
+                return str;
+            }
+        }
+        return str.substring(index + 1);
+    },
     shortenString: function(str, maxLen) {
         if (!str) {
             return "";
@@ -111,4 +111,24 @@ describe('shortenString', function() {
         expect(Utils.shortenString(null, 100)).toEqual('');
         expect(Utils.shortenString(undefined, 100)).toEqual('');
     });
-});
\ No newline at end of file
+});
+
+describe('keepLastLines', function() {
+
+    it('should keep the last lines', function() {
+        expect(Utils.keepLastLines('a\nb\nc', 2)).toEqual('b\nc');
+        expect(Utils.keepLastLines('a\nb\nc\n', 2)).toEqual('c\n');
+        expect(Utils.keepLastLines('\nabc', 1)).toEqual('abc');
+    });
+
+    it('should not affect strings with fewer lines', function() {
+        expect(Utils.keepLastLines('a\nb\nc', 3)).toEqual('a\nb\nc');
+        expect(Utils.keepLastLines('\nabc', 5)).toEqual('\nabc');
+        expect(Utils.keepLastLines('', 5)).toEqual('');
+    });
+
+    it('should be resilient to null or undefined values', function() {
+        expect(Utils.keepLastLines(null, 5)).toEqual('');
+        expect(Utils.keepLastLines(undefined, 5)).toEqual('');
+    });
+});
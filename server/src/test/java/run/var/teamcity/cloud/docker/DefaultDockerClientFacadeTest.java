@@ -10,16 +10,26 @@ import run.var.teamcity.cloud.docker.test.TestDockerClient.Container;
 import run.var.teamcity.cloud.docker.test.TestUtils;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.Node;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static run.var.teamcity.cloud.docker.test.TestUtils.listOf;
+import static run.var.teamcity.cloud.docker.test.TestUtils.waitUntil;
 import static run.var.teamcity.cloud.docker.util.DockerCloudUtils.mapOf;
 import static run.var.teamcity.cloud.docker.util.DockerCloudUtils.pair;
 
@@ -219,6 +229,120 @@ public class DefaultDockerClientFacadeTest extends BaseDockerClientFacadeTest {
     }
 
 
+    @Test
+    public void concurrentPullsMustBeShared() throws Exception {
+        dockerClient.newRegistryImage("resolved-image", "latest")
+                .pullProgress("layer1", "Downloading", 0, 100)
+                .pullProgress("layer2", "Downloading", 0, 100)
+                .pullProgress("layer1", "Downloading", 100, 100)
+                .pullProgress("layer2", "Downloading", 100, 100);
+
+        Interceptor<DockerClient> interceptor = Interceptor.wrap(dockerClient, DockerClient.class);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(interceptor.buildProxy());
+
+        CountDownLatch pullStarted = new CountDownLatch(1);
+        CountDownLatch resumePull = new CountDownLatch(1);
+
+        List<ListenerInvocation> invocations1 = new CopyOnWriteArrayList<>();
+        List<ListenerInvocation> invocations2 = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<NewAgentHolderInfo> agent1 = CompletableFuture.supplyAsync(() ->
+                facade.createAgent(CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                        imageName("resolved-image:latest").
+                        pullStrategy(PullStrategy.PULL).
+                        pullStatusListener((status, layer, percent) -> {
+                            invocations1.add(new ListenerInvocation(status, layer, percent));
+                            pullStarted.countDown();
+                            try {
+                                resumePull.await();
+                            } catch (InterruptedException e) {
+                                throw new AssertionError(e);
+                            }
+                        })));
+
+        pullStarted.await();
+
+        CompletableFuture<NewAgentHolderInfo> agent2 = CompletableFuture.supplyAsync(() ->
+                facade.createAgent(CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                        imageName("resolved-image:latest").
+                        pullStrategy(PullStrategy.PULL).
+                        pullStatusListener((status, layer, percent) ->
+                                invocations2.add(new ListenerInvocation(status, layer, percent)))));
+
+        // Wait for the second pull to join the pending one.
+        waitUntil(() -> !invocations2.isEmpty());
+
+        resumePull.countDown();
+
+        assertThat(agent1.get().getId()).isNotEqualTo(agent2.get().getId());
+
+        assertThat(interceptor.getInvocations().stream().filter(invocation -> invocation.getMethod().getName().
+                equals("createImage"))).hasSize(1);
+        assertThat(invocations1).containsExactly(
+                new ListenerInvocation("Downloading", "layer1", 0),
+                new ListenerInvocation("Downloading", "layer2", 0),
+                new ListenerInvocation("Downloading", "layer1", 100),
+                new ListenerInvocation("Downloading", "layer2", 100));
+        assertThat(invocations2).containsExactly(
+                new ListenerInvocation("Downloading", "layer1", 0),
+                new ListenerInvocation("Downloading", "layer2", 0),
+                new ListenerInvocation("Downloading", "layer1", 100),
+                new ListenerInvocation("Downloading", "layer2", 100));
+    }
+
+    @Test
+    public void sharedPullMustReportLeaderErrors() throws Exception {
+        dockerClient.newRegistryImage("resolved-image", "latest")
+                .pullProgress("layer1", "Downloading", 0, 100)
+                .pullProgress("layer1", "Downloading", 100, 100);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        CountDownLatch pullStarted = new CountDownLatch(1);
+        CountDownLatch resumePull = new CountDownLatch(1);
+
+        List<ListenerInvocation> invocations2 = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<NewAgentHolderInfo> agent1 = CompletableFuture.supplyAsync(() ->
+                facade.createAgent(CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                        imageName("resolved-image:latest").
+                        pullStrategy(PullStrategy.PULL).
+                        pullStatusListener((status, layer, percent) -> {
+                            pullStarted.countDown();
+                            try {
+                                resumePull.await();
+                            } catch (InterruptedException e) {
+                                throw new AssertionError(e);
+                            }
+                            throw new StackOverflowError("Simulated failure.");
+                        })));
+
+        pullStarted.await();
+
+        CompletableFuture<NewAgentHolderInfo> agent2 = CompletableFuture.supplyAsync(() ->
+                facade.createAgent(CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                        imageName("resolved-image:latest").
+                        pullStrategy(PullStrategy.PULL).
+                        pullStatusListener((status, layer, percent) ->
+                                invocations2.add(new ListenerInvocation(status, layer, percent)))));
+
+        // Wait for the second pull to join the pending one.
+        waitUntil(() -> !invocations2.isEmpty());
+
+        resumePull.countDown();
+
+        assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> agent1.get(10, TimeUnit.SECONDS)).
+                withCauseInstanceOf(StackOverflowError.class);
+        assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> agent2.get(10, TimeUnit.SECONDS)).
+                withCauseInstanceOf(DockerClientFacadeException.class);
+
+        // The failed pull must not be joined anymore.
+        facade.createAgent(CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest").
+                pullStrategy(PullStrategy.PULL));
+    }
+
     @Test
     public void containerLabels() {
         dockerClient.localImage("resolved-image", "latest");
@@ -323,6 +447,34 @@ public class DefaultDockerClientFacadeTest extends BaseDockerClientFacadeTest {
         assertThat(agentHolder.isRunning()).isTrue();
     }
 
+    @Test
+    public void listAgentContainersWithAnyLabelValue() {
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        TestImage img = dockerClient.newLocalImage("image-1", "latest");
+
+        Container container1 = new Container().
+                label("foo", "bar").
+                label(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL, img.getId()).
+                image(img);
+        Container container2 = new Container().
+                label("foo", "baz").
+                label(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL, img.getId()).
+                image(img);
+        Container container3 = new Container().
+                label("other", "bar").
+                label(DockerCloudUtils.SOURCE_IMAGE_ID_LABEL, img.getId()).
+                image(img);
+
+        dockerClient.container(container1).container(container2).container(container3);
+
+        List<String> containerIds = facade.listAgentHolders("foo", null).stream().
+                map(AgentHolderInfo::getId).
+                collect(Collectors.toList());
+
+        assertThat(containerIds).containsExactlyInAnyOrder(container1.getId(), container2.getId());
+    }
+
     @Test
     public void listAgentContainersMustListMultipleContainers() {
         DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
@@ -453,6 +605,199 @@ public class DefaultDockerClientFacadeTest extends BaseDockerClientFacadeTest {
         assertThat(logs.toString()).isEqualTo("txt on stdout, txt on stdin, txt unknown std type");
     }
 
+    @Test
+    public void getFilteredLogs() {
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        Container container = new Container();
+
+        container.getLogStreamHandler().
+                fragment("\u001B[1mtxt\u001B[", StdioType.STDOUT).
+                fragment("0m on stdout, ", StdioType.STDOUT).
+                fragment("txt on stderr\u001B[1", StdioType.STDERR);
+
+        dockerClient.container(container);
+
+        CharSequence logs = facade.getLogs(container.getId(), new LogsCursor(), new VT100EscapeFilter());
+
+        // The incomplete sequence is retained, until completed or invalidated by the next fetch.
+        assertThat(logs.toString()).isEqualTo("txt on stdout, txt on stderr");
+    }
+
+    @Test
+    public void getFilteredLogsIncrementally() {
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        Container container = new Container();
+
+        container.getLogStreamHandler().
+                fragment("2017-09-12T10:11:12Z \u001B[1mline 1\u001B[\n", StdioType.STDOUT).
+                fragment("2017-09-12T10:11:13Z line 2\n", StdioType.STDOUT);
+
+        dockerClient.container(container);
+
+        LogsCursor cursor = new LogsCursor();
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+
+        // The unterminated sequence must not swallow the line separator and the following timestamp.
+        assertThat(facade.getLogs(container.getId(), cursor, filter).toString()).
+                isEqualTo("line 1\u001B[\nline 2\n");
+
+        container.getLogStreamHandler().
+                fragment("2017-09-12T10:11:14Z \u001B[32mline 3\n", StdioType.STDOUT);
+
+        // The lines already retrieved are fetched again, but discarded before being filtered.
+        assertThat(facade.getLogs(container.getId(), cursor, filter).toString()).isEqualTo("line 3\n");
+    }
+
+    @Test
+    public void createAgentsFromPreparedSpec() {
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        dockerClient.localImage("resolved-image", "latest");
+
+        PreparedAgentHolderSpec preparedSpec = facade.prepareAgentHolder(CreateAgentParameters.
+                from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest").
+                label("ignored", "label"));
+
+        assertThat(preparedSpec.getResolvedImage()).contains("resolved-image:latest");
+
+        NewAgentHolderInfo agentInfo1 = facade.createAgent(preparedSpec, mapOf(pair("foo", "bar1")),
+                mapOf(pair("VAR", "value1")));
+        NewAgentHolderInfo agentInfo2 = facade.createAgent(preparedSpec, mapOf(pair("foo", "bar2")),
+                mapOf(pair("VAR", "value2")));
+
+        assertThat(agentInfo1.getId()).isNotEqualTo(agentInfo2.getId());
+
+        List<Container> containers = dockerClient.getContainers();
+        assertThat(containers).hasSize(2);
+
+        Container container1 = containers.stream().filter(container -> container.getId().equals(agentInfo1.getId()))
+                .findFirst().get();
+        Container container2 = containers.stream().filter(container -> container.getId().equals(agentInfo2.getId()))
+                .findFirst().get();
+
+        assertThat(container1.getLabels()).containsEntry("foo", "bar1").doesNotContainKey("ignored");
+        assertThat(container1.getEnv()).containsEntry("VAR", "value1");
+        assertThat(container2.getLabels()).containsEntry("foo", "bar2").doesNotContainKey("ignored");
+        assertThat(container2.getEnv()).containsEntry("VAR", "value2");
+    }
+
+    @Test
+    public void imageInspectionMustBeCached() {
+        Interceptor<DockerClient> interceptor = Interceptor.wrap(dockerClient, DockerClient.class);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(interceptor.buildProxy());
+
+        TestImage img = dockerClient.newLocalImage("resolved-image", "latest");
+
+        CreateAgentParameters createParameters = CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest");
+
+        PreparedAgentHolderSpec preparedSpec1 = facade.prepareAgentHolder(createParameters);
+        PreparedAgentHolderSpec preparedSpec2 = facade.prepareAgentHolder(createParameters);
+
+        assertThat(preparedSpec1.getAgentHolderSpec().getAsString("Image")).isEqualTo(img.getId());
+        assertThat(preparedSpec2.getAgentHolderSpec().getAsString("Image")).isEqualTo(img.getId());
+        assertThat(interceptor.getInvocations()).hasSize(1).first()
+                .matches(invocation -> invocation.matches("inspectImage", "resolved-image:latest"));
+    }
+
+    @Test
+    public void imageInspectionMustExpire() {
+        Interceptor<DockerClient> interceptor = Interceptor.wrap(dockerClient, DockerClient.class);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(interceptor.buildProxy(), Duration.ZERO);
+
+        dockerClient.newLocalImage("resolved-image", "latest");
+
+        CreateAgentParameters createParameters = CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest");
+
+        facade.prepareAgentHolder(createParameters);
+        facade.prepareAgentHolder(createParameters);
+
+        assertThat(interceptor.getInvocations()).hasSize(2)
+                .allMatch(invocation -> invocation.matches("inspectImage", "resolved-image:latest"));
+    }
+
+    @Test
+    public void pullMustBeSkippedWhileInspectionIsCached() {
+        Interceptor<DockerClient> interceptor = Interceptor.wrap(dockerClient, DockerClient.class);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(interceptor.buildProxy());
+
+        TestImage img = dockerClient.newRegistryImage("resolved-image", "latest").digest("sha256:digest1");
+
+        CreateAgentParameters createParameters = CreateAgentParameters.from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest").
+                pullStrategy(PullStrategy.PULL);
+
+        facade.prepareAgentHolder(createParameters);
+        PreparedAgentHolderSpec preparedSpec = facade.prepareAgentHolder(createParameters);
+
+        assertThat(preparedSpec.getAgentHolderSpec().getAsString("Image")).isEqualTo(img.getId());
+        assertThat(interceptor.getInvocations().stream().map(invocation -> invocation.getMethod().getName()))
+                .containsExactly("createImage", "inspectImage");
+    }
+
+    @Test
+    public void pullOfNewerImageMustInvalidateInspection() {
+        Interceptor<DockerClient> interceptor = Interceptor.wrap(dockerClient, DockerClient.class);
+
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(interceptor.buildProxy());
+
+        TestImage localImg = dockerClient.newLocalImage("resolved-image", "latest");
+
+        PreparedAgentHolderSpec preparedSpec = facade.prepareAgentHolder(CreateAgentParameters.
+                from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest"));
+
+        assertThat(preparedSpec.getAgentHolderSpec().getAsString("Image")).isEqualTo(localImg.getId());
+
+        TestImage registryImg = dockerClient.newRegistryImage("resolved-image", "latest").digest("sha256:digest2");
+
+        preparedSpec = facade.prepareAgentHolder(CreateAgentParameters.
+                from(Node.EMPTY_OBJECT).
+                imageName("resolved-image:latest").
+                pullStrategy(PullStrategy.PULL));
+
+        assertThat(preparedSpec.getAgentHolderSpec().getAsString("Image")).isEqualTo(registryImg.getId());
+        assertThat(interceptor.getInvocations().stream().map(invocation -> invocation.getMethod().getName()))
+                .containsExactly("inspectImage", "createImage", "inspectImage");
+    }
+
+    @Test
+    public void streamAgentHolderEvents() throws IOException {
+        DefaultDockerClientFacade facade = new DefaultDockerClientFacade(dockerClient);
+
+        TestImage img = dockerClient.newLocalImage("image-1", "latest");
+
+        Container container = new Container().
+                label("foo", "bar").
+                image(img);
+        Container otherContainer = new Container().
+                label("foo", "baz").
+                image(img);
+
+        dockerClient.container(container).container(otherContainer);
+
+        try (AgentHolderEventStream eventStream = facade.streamAgentHolderEvents("foo", "bar")) {
+            facade.startAgent(otherContainer.getId());
+            facade.startAgent(container.getId());
+            facade.terminateAgentContainer(container.getId(), Duration.ZERO, true);
+
+            AgentHolderEvent event = eventStream.next();
+            assertThat(event.getType()).isSameAs(AgentHolderEvent.Type.STARTED);
+            assertThat(event.getAgentHolderId()).isEqualTo(container.getId());
+            assertThat(event.getLabels()).containsEntry("foo", "bar");
+
+            assertThat(eventStream.next().getType()).isSameAs(AgentHolderEvent.Type.DIED);
+            assertThat(eventStream.next().getType()).isSameAs(AgentHolderEvent.Type.DESTROYED);
+        }
+    }
+
     @Override
     protected DockerClientFacade createFacade(TestDockerClient dockerClient) {
         return new DefaultDockerClientFacade(dockerClient);
@@ -28,22 +28,28 @@ import run.var.teamcity.cloud.docker.test.TestUtils;
 import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
 import run.var.teamcity.cloud.docker.util.Node;
 
+import javax.annotation.Nonnull;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Date;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static run.var.teamcity.cloud.docker.test.TestUtils.TEST_UUID;
 import static run.var.teamcity.cloud.docker.test.TestUtils.TEST_UUID_2;
+import static run.var.teamcity.cloud.docker.test.TestUtils.timeboxed;
+import static run.var.teamcity.cloud.docker.test.TestUtils.waitMillis;
 import static run.var.teamcity.cloud.docker.test.TestUtils.waitSec;
 import static run.var.teamcity.cloud.docker.test.TestUtils.waitUntil;
 
@@ -62,6 +68,13 @@ public class DefaultDockerCloudClientTest {
     private boolean pullOnCreate;
     private boolean rmOnExit;
     private int maxInstanceCount;
+    private int warmPoolSize;
+    private Duration dockerSyncRate;
+    private Duration maxDockerSyncRate;
+    private boolean usingEventDrivenSync;
+    private boolean usingConcurrentSync;
+    private boolean usingSharedSync;
+    private int connectionPoolSize;
     private TestSBuildServer buildServer;
     private TestDockerImageResolver dockerImageResolver;
     private TestCloudState cloudState;
@@ -84,6 +97,13 @@ public class DefaultDockerCloudClientTest {
                 null, "", "", Collections.emptyMap());
         errorInfo = null;
         maxInstanceCount = 1;
+        warmPoolSize = 0;
+        dockerSyncRate = Duration.ofSeconds(2);
+        maxDockerSyncRate = null;
+        usingEventDrivenSync = false;
+        usingConcurrentSync = false;
+        usingSharedSync = false;
+        connectionPoolSize = 1;
         pullOnCreate = true;
         rmOnExit = true;
     }
@@ -131,6 +151,7 @@ public class DefaultDockerCloudClientTest {
         assertThat(instance.getAgentHolderId().get()).isEqualTo(container.getId());
         assertThat(container.getEnv().get(DockerCloudUtils.ENV_SERVER_URL)).isEqualTo(serverURL.toString());
         assertThat(container.getEnv().get(DockerCloudUtils.ENV_AGENT_PARAMS)).isEqualTo(userData.serialize());
+        assertThat(client.getScaleOutTime().getCount()).isEqualTo(1);
 
         clientFacade.lock();
 
@@ -175,6 +196,28 @@ public class DefaultDockerCloudClientTest {
         assertThat(testCloudSupport.getClientFacade().getAgentHolders().isEmpty());
     }
 
+    @Test
+    public void disposeMustReleaseClientFacade() {
+        client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        assertThat(clientFacade.isClosed()).isFalse();
+
+        client.dispose();
+
+        waitUntil(clientFacade::isClosed);
+
+        // The facade must only be released once the instances have been terminated.
+        assertThat(clientFacade.getTerminationInfos()).hasSize(1);
+    }
+
     @Test
     public void restartInstance() {
 
@@ -427,6 +470,43 @@ public class DefaultDockerCloudClientTest {
         assertThat(instance.getAgentRuntimeUuid()).isEmpty();
     }
 
+    @Test
+    public void findInstanceByAgentMustReturnInstanceAgainAfterDeregistration() {
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage dockerImage = waitForImage(client);
+
+        DockerInstance instance = client.startNewInstance(dockerImage, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        TestSBuildAgent agent = new TestSBuildAgent().
+                environmentVariable(DockerCloudUtils.ENV_CLIENT_ID, client.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_IMAGE_ID, dockerImage.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString()).
+                configurationParameter(DockerCloudUtils.AGENT_RUNTIME_ID_AGENT_CONF, TestUtils.TEST_UUID.toString());
+        TestSBuildAgent otherAgent = new TestSBuildAgent().
+                environmentVariable(DockerCloudUtils.ENV_CLIENT_ID, client.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_IMAGE_ID, dockerImage.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString()).
+                configurationParameter(DockerCloudUtils.AGENT_RUNTIME_ID_AGENT_CONF, TestUtils.TEST_UUID_2.toString());
+        TestSBuildAgent agentWithOtherImage = new TestSBuildAgent().
+                environmentVariable(DockerCloudUtils.ENV_CLIENT_ID, client.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_IMAGE_ID, TestUtils.TEST_UUID_2.toString()).
+                environmentVariable(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString()).
+                configurationParameter(DockerCloudUtils.AGENT_RUNTIME_ID_AGENT_CONF, TestUtils.TEST_UUID.toString());
+
+        buildServer.notifyAgentRegistered(agent);
+
+        assertThat(client.findInstanceByAgent(agent)).isSameAs(instance);
+        assertThat(client.findInstanceByAgent(otherAgent)).isNull();
+        assertThat(client.findInstanceByAgent(agentWithOtherImage)).isNull();
+
+        buildServer.notifyAgentUnregistered(agent);
+
+        assertThat(client.findInstanceByAgent(otherAgent)).isSameAs(instance);
+    }
+
     @Test
     public void findImageById() {
         DefaultDockerCloudClient client = createClient();
@@ -518,6 +598,59 @@ public class DefaultDockerCloudClientTest {
         waitUntil(() -> dockerImage.getInstances().isEmpty());
     }
 
+    @Test
+    public void readersMustNotBlockWhileSyncing() throws InterruptedException {
+        CountDownLatch syncLocked = new CountDownLatch(1);
+        CountDownLatch syncReleased = new CountDownLatch(1);
+        cloudState = new TestCloudState() {
+            @Override
+            public void registerTerminatedInstance(@Nonnull String imageId, @Nonnull String instanceId) {
+                // Invoked from the sync task while the client state is locked.
+                syncLocked.countDown();
+                try {
+                    syncReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage dockerImage = waitForImage(client);
+
+        DockerInstance instance = client.startNewInstance(dockerImage, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        TestSBuildAgent agent = new TestSBuildAgent().
+                environmentVariable(DockerCloudUtils.ENV_CLIENT_ID, client.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_IMAGE_ID, dockerImage.getUuid().toString()).
+                environmentVariable(DockerCloudUtils.ENV_INSTANCE_ID, instance.getUuid().toString());
+
+        testCloudSupport.getClientFacade().removeAgentHolder(instance.getAgentHolderId().get());
+        client.requestDockerSync();
+
+        assertThat(syncLocked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            timeboxed(() -> {
+                assertThat(client.isInitialized()).isTrue();
+                assertThat(client.getImages()).containsExactly(dockerImage);
+                assertThat(client.findImageById(dockerImage.getId())).isSameAs(dockerImage);
+                assertThat(client.findInstanceByAgent(agent)).isSameAs(instance);
+                assertThat(client.canStartNewInstance(dockerImage)).isFalse();
+                assertThat(client.getLastDockerSyncTime()).isPresent();
+                assertThat(dockerImage.getInstances()).containsExactly(instance);
+                assertThat(instance.getStatus()).isSameAs(InstanceStatus.RUNNING);
+            });
+        } finally {
+            syncReleased.countDown();
+        }
+
+        waitUntil(() -> dockerImage.getInstances().isEmpty());
+    }
+
     @Test
     public void mustClearDockerInstanceWhenContainerStopped() {
         DefaultDockerCloudClient client = createClient();
@@ -1016,6 +1149,303 @@ public class DefaultDockerCloudClientTest {
         assertThat(instance.getAgentHolderId().get()).isEqualTo(agentHolder.getId());
     }
 
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void eventDrivenSyncMustDetectDestroyedContainer() {
+        usingEventDrivenSync = true;
+        // Periodic sync must not interfere.
+        dockerSyncRate = Duration.ofMinutes(10);
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        waitUntil(() -> clientFacade.getEventStreamCount() == 1);
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        clientFacade.removeAgentHolder(instance.getAgentHolderId().get());
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR);
+        waitUntil(() -> image.getInstances().isEmpty());
+    }
+
+    @Test
+    public void syncMustNotUpdateUnchangedAgentHolders() {
+        client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+        waitUntil(() -> instance.getAgentHolderInfo().isPresent());
+
+        AgentHolderInfo agentHolderInfo = instance.getAgentHolderInfo().get();
+        long stateVersion = instance.getStateVersion();
+        int listCount = clientFacade.getListAgentHoldersCount();
+
+        waitUntil(() -> clientFacade.getListAgentHoldersCount() >= listCount + 2);
+
+        assertThat(instance.getAgentHolderInfo()).containsSame(agentHolderInfo);
+        assertThat(instance.getStateVersion()).isEqualTo(stateVersion);
+
+        clientFacade.removeAgentHolder(instance.getAgentHolderId().get());
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR);
+    }
+
+    @Test
+    public void sharedSync() {
+        usingSharedSync = true;
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        clientFacade.removeAgentHolder(instance.getAgentHolderId().get());
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR);
+        waitUntil(() -> image.getInstances().isEmpty());
+    }
+
+    @Test
+    public void adaptiveSyncRate() {
+        maxDockerSyncRate = Duration.ofSeconds(8);
+
+        Instant start = Instant.now();
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        // Nothing is going on, the sync delay must be doubled after each sync (2, 4, then 8 seconds).
+        waitUntil(() -> clientFacade.getListAgentHoldersCount() >= 4);
+
+        assertThat(Duration.between(start, Instant.now())).isGreaterThanOrEqualTo(Duration.ofSeconds(12));
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        clientFacade.removeAgentHolder(instance.getAgentHolderId().get());
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR);
+        waitUntil(() -> image.getInstances().isEmpty());
+    }
+
+    @Test
+    public void adaptiveSyncRateMustBeResetWhenBusyAfterIdle() {
+        dockerSyncRate = Duration.ofSeconds(1);
+        maxDockerSyncRate = Duration.ofMinutes(1);
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        // Nothing is going on: after four syncs (1, 2, then 4 seconds apart), the next one is 16 seconds away.
+        waitUntil(() -> clientFacade.getListAgentHoldersCount() >= 4);
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        Instant removalTime = Instant.now();
+
+        clientFacade.removeAgentHolder(instance.getAgentHolderId().get());
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR, 30);
+
+        // The waiting periodic sync must have been rescheduled according to the regular rate.
+        assertThat(Duration.between(removalTime, Instant.now())).isLessThan(Duration.ofSeconds(8));
+    }
+
+    @Test
+    public void eventDrivenSyncMustFallbackToPollingWhenNotSupported() {
+        usingEventDrivenSync = true;
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+        clientFacade.setSupportsStreamingEvents(false);
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        DockerInstance instance = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance, InstanceStatus.RUNNING);
+
+        clientFacade.getAgentHolders().forEach(agentHolder -> agentHolder.running(false));
+
+        waitUntil(() -> instance.getStatus() == InstanceStatus.ERROR);
+
+        assertThat(clientFacade.getEventStreamCount()).isZero();
+    }
+
+    @Test
+    public void eventStreamMustBeClosedOnDispose() {
+        usingEventDrivenSync = true;
+
+        DefaultDockerCloudClient client = createClient();
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        waitUntil(() -> clientFacade.getEventStreamCount() == 1);
+
+        client.dispose();
+
+        waitUntil(() -> clientFacade.getEventStreamCount() == 0);
+    }
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void concurrentSyncLifecycle() {
+        usingConcurrentSync = true;
+        maxInstanceCount = 2;
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        DockerInstance instance1 = client.startNewInstance(image, userData);
+        DockerInstance instance2 = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance1, InstanceStatus.RUNNING);
+        waitForInstanceStatus(instance2, InstanceStatus.RUNNING);
+
+        waitUntilNextSync(client);
+
+        assertThat(instance1.getErrorInfo()).isNull();
+        assertThat(instance2.getErrorInfo()).isNull();
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        clientFacade.removeAgentHolder(instance1.getAgentHolderId().get());
+
+        waitUntil(() -> instance1.getStatus() == InstanceStatus.ERROR);
+        waitUntil(() -> image.getInstances().size() == 1);
+
+        assertThat(instance2.getStatus()).isSameAs(InstanceStatus.RUNNING);
+    }
+
+    @Test
+    public void concurrentStartsMustShareAgentHolderPreparation() {
+        maxInstanceCount = 5;
+        connectionPoolSize = 5;
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        clientFacade.lock();
+
+        List<DockerInstance> instances = new ArrayList<>();
+        for (int i = 0; i < maxInstanceCount; i++) {
+            instances.add(client.startNewInstance(image, userData));
+        }
+
+        waitMillis(500);
+
+        clientFacade.unlock();
+
+        instances.forEach(instance -> waitForInstanceStatus(instance, InstanceStatus.RUNNING));
+
+        assertThat(clientFacade.getPreparedSpecCount()).isEqualTo(1);
+        assertThat(clientFacade.getAgentHolders()).hasSize(maxInstanceCount);
+        assertThat(clientFacade.getAgentHolders().stream().map(agentHolder -> agentHolder.getLabels().
+                get(DockerCloudUtils.INSTANCE_ID_LABEL)).distinct()).hasSize(maxInstanceCount);
+    }
+
+    @Test
+    public void sequentialStartsMustPrepareAgentHolderEachTime() {
+        maxInstanceCount = 2;
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        DockerInstance instance1 = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance1, InstanceStatus.RUNNING);
+
+        DockerInstance instance2 = client.startNewInstance(image, userData);
+
+        waitForInstanceStatus(instance2, InstanceStatus.RUNNING);
+
+        assertThat(clientFacade.getPreparedSpecCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void warmPoolMustKeepAgentHoldersReady() {
+        maxInstanceCount = 3;
+        warmPoolSize = 2;
+
+        DefaultDockerCloudClient client = createClient();
+
+        DockerImage image = waitForImage(client);
+
+        TestDockerClientFacade clientFacade = testCloudSupport.getClientFacade();
+
+        waitUntil(() -> clientFacade.getAgentHolders().size() == warmPoolSize);
+
+        Collection<DockerInstance> warmInstances = new ArrayList<>(image.getInstances());
+        assertThat(warmInstances).hasSize(warmPoolSize);
+        warmInstances.forEach(instance -> {
+            assertThat(instance.getStatus()).isEqualTo(InstanceStatus.STOPPED);
+            assertThat(instance.getAgentHolderId()).isPresent();
+        });
+        clientFacade.getAgentHolders().forEach(agentHolder -> {
+            assertThat(agentHolder.isRunning()).isFalse();
+            assertThat(agentHolder.getEnv()).containsEntry(DockerCloudUtils.ENV_SERVER_URL, serverURL.toString());
+            assertThat(agentHolder.getEnv()).doesNotContainKey(DockerCloudUtils.ENV_AGENT_PARAMS);
+        });
+
+        // Warm instances must not count against the instances quota.
+        assertThat(client.canStartNewInstance(image)).isTrue();
+
+        DockerInstance instance1 = client.startNewInstance(image, userData);
+        assertThat(warmInstances).contains(instance1);
+        waitForInstanceStatus(instance1, InstanceStatus.RUNNING);
+
+        DockerInstance instance2 = client.startNewInstance(image, userData);
+        waitForInstanceStatus(instance2, InstanceStatus.RUNNING);
+
+        // Only one extra agent holder can be created without exceeding the maximum instance count.
+        waitUntil(() -> clientFacade.getAgentHolders().size() == maxInstanceCount);
+
+        waitUntilNextSync(client);
+        waitUntilNextSync(client);
+
+        assertThat(clientFacade.getAgentHolders()).hasSize(maxInstanceCount);
+        assertThat(clientFacade.getAgentHolders().stream().filter(AgentHolder::isRunning)).hasSize(2);
+        assertThat(instance1.getStatus()).isEqualTo(InstanceStatus.RUNNING);
+        assertThat(instance2.getStatus()).isEqualTo(InstanceStatus.RUNNING);
+
+        // Only the agent holder created after the first start can use its user data.
+        assertThat(clientFacade.getAgentHolders().stream().filter(agentHolder -> userData.serialize().equals(
+                agentHolder.getEnv().get(DockerCloudUtils.ENV_AGENT_PARAMS)))).hasSize(1);
+    }
+
     private DockerInstance extractInstance(DockerImage dockerImage) {
         Collection<DockerInstance> instances = dockerImage.getInstances();
 
@@ -1046,11 +1476,15 @@ public class DefaultDockerCloudClientTest {
     private DefaultDockerCloudClient createClient() {
 
         DockerClientConfig dockerClientConfig = new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI,
-                DockerCloudUtils.DOCKER_API_TARGET_VERSION);
+                DockerCloudUtils.DOCKER_API_TARGET_VERSION).connectionPoolSize(connectionPoolSize);
         DockerCloudClientConfig clientConfig = new DockerCloudClientConfig(testCloudSupport, TestUtils
-                .TEST_UUID, dockerClientConfig, false, Duration.ofSeconds(2), Duration.ofMinutes(10), serverURL);
+                .TEST_UUID, dockerClientConfig, false, dockerSyncRate, Duration.ofMinutes(10), serverURL)
+                .usingEventDrivenSync(usingEventDrivenSync)
+                .usingConcurrentSync(usingConcurrentSync)
+                .usingSharedSync(usingSharedSync)
+                .maxDockerSyncRate(maxDockerSyncRate);
         DockerImageConfig imageConfig = new DockerImageConfig("UnitTest", containerSpec, pullOnCreate, rmOnExit, false,
-                registryCredentials, maxInstanceCount, 111);
+                registryCredentials, maxInstanceCount, 111, warmPoolSize);
 
         // Setup proxies to make sure that the cloud client is not accessing the docker client or the TC API when
         // client internal state is locked, to prevent deadlocks.
@@ -140,6 +140,71 @@ public class DockerCloudClientConfigTest {
         assertThat(dockerConfig.isUsingTLS()).isTrue();
     }
 
+    @Test
+    public void syncFlagsInConfigMap() {
+        Map<String, String> params = new HashMap<>();
+        params.put(DockerCloudUtils.CLIENT_UUID_PARAM, TestUtils.TEST_UUID.toString());
+        params.put(DockerCloudUtils.INSTANCE_URI, TestDockerClient.TEST_CLIENT_URI.toString());
+        params.put(DockerCloudUtils.CLOUD_TYPE_PARAM, TestDockerCloudSupport.CODE);
+
+        DockerCloudClientConfig config = DockerCloudClientConfig.processParams(params, testCloudSupportRegistry);
+
+        assertThat(config.isUsingEventDrivenSync()).isFalse();
+        assertThat(config.isUsingConcurrentSync()).isFalse();
+        assertThat(config.isUsingSharedSync()).isFalse();
+
+        params.put(DockerCloudUtils.USE_EVENT_DRIVEN_SYNC_PARAM, Boolean.TRUE.toString());
+        params.put(DockerCloudUtils.USE_CONCURRENT_SYNC_PARAM, Boolean.TRUE.toString());
+        params.put(DockerCloudUtils.USE_SHARED_SYNC_PARAM, Boolean.TRUE.toString());
+
+        config = DockerCloudClientConfig.processParams(params, testCloudSupportRegistry);
+
+        assertThat(config.isUsingEventDrivenSync()).isTrue();
+        assertThat(config.isUsingConcurrentSync()).isTrue();
+        assertThat(config.isUsingSharedSync()).isTrue();
+    }
+
+    @Test
+    public void maxDockerSyncRateInConfigMap() {
+        Map<String, String> params = new HashMap<>();
+        params.put(DockerCloudUtils.CLIENT_UUID_PARAM, TestUtils.TEST_UUID.toString());
+        params.put(DockerCloudUtils.INSTANCE_URI, TestDockerClient.TEST_CLIENT_URI.toString());
+        params.put(DockerCloudUtils.CLOUD_TYPE_PARAM, TestDockerCloudSupport.CODE);
+
+        DockerCloudClientConfig config = DockerCloudClientConfig.processParams(params, testCloudSupportRegistry);
+
+        assertThat(config.getMaxDockerSyncRate()).isNull();
+
+        params.put(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM, "300");
+
+        config = DockerCloudClientConfig.processParams(params, testCloudSupportRegistry);
+
+        assertThat(config.getMaxDockerSyncRate()).isEqualTo(Duration.ofMinutes(5));
+
+        params.put(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM, "10");
+
+        assertInvalidProperty(params, DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM);
+
+        params.put(DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM, "not a number");
+
+        assertInvalidProperty(params, DockerCloudUtils.MAX_DOCKER_SYNC_RATE_SEC_PARAM);
+    }
+
+    @Test
+    public void invalidMaxDockerSyncRate() {
+        DockerClientConfig dockerConfig = new DockerClientConfig(DockerCloudUtils.DOCKER_DEFAULT_SOCKET_URI,
+                DockerAPIVersion.DEFAULT);
+
+        DockerCloudClientConfig config = new DockerCloudClientConfig(testCloudSupport, TestUtils.TEST_UUID,
+                dockerConfig, true, Duration.ofSeconds(10), Duration.ofSeconds(10), serverURL);
+
+        config.maxDockerSyncRate(Duration.ofSeconds(10));
+        config.maxDockerSyncRate(null);
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                config.maxDockerSyncRate(Duration.ofSeconds(9)));
+    }
+
     @Test
     public void defaultLocalInstanceFlag() {
         URI defaultLocalInstanceURI;
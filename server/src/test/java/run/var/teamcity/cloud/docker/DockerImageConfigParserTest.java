@@ -86,6 +86,21 @@ public class DockerImageConfigParserTest {
                 emptyList()));
     }
 
+    @Test
+    public void warmPoolSize() {
+        DockerImageConfigParser parser = new DefaultDockerImageConfigParser(migrationHandler);
+        Spec spec = new Spec();
+        spec.administration.put("WarmPoolSize", 2);
+        DockerImageConfig config = parser.fromJSon(spec.root.saveNode(), emptyList());
+        assertThat(config.getWarmPoolSize()).isEqualTo(2);
+        spec.administration.remove("WarmPoolSize");
+        config = parser.fromJSon(spec.root.saveNode(), emptyList());
+        assertThat(config.getWarmPoolSize()).isEqualTo(0);
+        spec.administration.put("WarmPoolSize", 3);
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> parser.fromJSon(spec.root.saveNode(),
+                emptyList()));
+    }
+
     @Test
     public void UseOfficialTCAgentImage() {
         DockerImageConfigParser parser = new DefaultDockerImageConfigParser(migrationHandler);
@@ -35,6 +35,10 @@ public class DockerImageConfigTest {
         assertThat(config.isUseOfficialTCAgentImage()).isFalse();
         assertThat(config.getMaxInstanceCount()).isEqualTo(42);
         assertThat(config.getAgentPoolId()).isEqualTo(Optional.of(111));
+        assertThat(config.getWarmPoolSize()).isEqualTo(0);
+
+        config = new DockerImageConfig("test", Node.EMPTY_OBJECT, false, false, false, DockerRegistryCredentials.ANONYMOUS, 42, null, 3);
+        assertThat(config.getWarmPoolSize()).isEqualTo(3);
 
         config = new DockerImageConfig("test", Node.EMPTY_OBJECT, false, true, false, DockerRegistryCredentials.ANONYMOUS, 42, null);
         assertThat(config.isPullOnCreate()).isFalse();
@@ -67,6 +71,14 @@ public class DockerImageConfigTest {
 
         assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
                 new DockerImageConfig("test", Node.EMPTY_OBJECT, true,true, false, DockerRegistryCredentials.ANONYMOUS, -1, 111));
+
+        new DockerImageConfig("test", Node.EMPTY_OBJECT, true,true, false, DockerRegistryCredentials.ANONYMOUS, 2, 111, 2);
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new DockerImageConfig("test", Node.EMPTY_OBJECT, true,true, false, DockerRegistryCredentials.ANONYMOUS, 2, 111, -1));
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new DockerImageConfig("test", Node.EMPTY_OBJECT, true,true, false, DockerRegistryCredentials.ANONYMOUS, 2, 111, 3));
     }
 
     @Test
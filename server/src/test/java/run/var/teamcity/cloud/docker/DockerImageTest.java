@@ -0,0 +1,109 @@
+package run.var.teamcity.cloud.docker;
+
+import jetbrains.buildServer.clouds.InstanceStatus;
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link DockerImage} test suite.
+ */
+public class DockerImageTest {
+
+    @Test
+    public void canStartNewInstanceMustHonourMaxInstanceCount() {
+        DockerImage image = createImage(2);
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        DockerInstance instance1 = image.createInstance();
+        DockerInstance instance2 = image.createInstance();
+
+        assertThat(image.canStartNewInstance()).isFalse();
+
+        instance1.setStatus(InstanceStatus.STOPPED);
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        instance1.setStatus(InstanceStatus.STARTING);
+
+        assertThat(image.canStartNewInstance()).isFalse();
+
+        image.clearInstanceId(instance2.getUuid());
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        // Unregistered instances are no longer accounted.
+        instance2.setStatus(InstanceStatus.RUNNING);
+
+        assertThat(image.canStartNewInstance()).isTrue();
+    }
+
+    @Test
+    public void canStartNewInstanceMustBeFalseWhileInstanceInError() {
+        DockerImage image = createImage(10);
+
+        DockerInstance instance = image.createInstance();
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        instance.notifyFailure("Test failure", null);
+
+        assertThat(image.canStartNewInstance()).isFalse();
+
+        instance.setStatus(InstanceStatus.STOPPED);
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        instance.notifyFailure("Test failure", null);
+
+        assertThat(image.canStartNewInstance()).isFalse();
+
+        image.clearInstanceId(instance.getUuid());
+
+        assertThat(image.canStartNewInstance()).isTrue();
+    }
+
+    @Test
+    public void canStartNewInstanceMustIgnoreStoppedInstances() {
+        DockerImage image = createImage(100);
+
+        for (int i = 0; i < 99; i++) {
+            image.createInstance().setStatus(InstanceStatus.RUNNING);
+        }
+
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        DockerInstance instance = image.createInstance();
+        instance.setStatus(InstanceStatus.RUNNING);
+
+        assertThat(image.canStartNewInstance()).isFalse();
+
+        instance.setStatus(InstanceStatus.STOPPED);
+
+        assertThat(image.canStartNewInstance()).isTrue();
+    }
+
+    @Test
+    public void createInstanceWithInitialStatus() {
+        DockerImage image = createImage(1);
+
+        DockerInstance instance = image.createInstance(InstanceStatus.STOPPED);
+
+        assertThat(instance.getStatus()).isEqualTo(InstanceStatus.STOPPED);
+        assertThat(image.getInstances()).containsExactly(instance);
+        // Never accounted as used.
+        assertThat(image.canStartNewInstance()).isTrue();
+
+        instance.setStatus(InstanceStatus.STARTING);
+
+        assertThat(image.canStartNewInstance()).isFalse();
+    }
+
+    private DockerImage createImage(int maxInstanceCount) {
+        return new DockerImage(null, new DockerImageConfig("test", Node.EMPTY_OBJECT, false, false, false,
+                DockerRegistryCredentials.ANONYMOUS, maxInstanceCount, null));
+    }
+}
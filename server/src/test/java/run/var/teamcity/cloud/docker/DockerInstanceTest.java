@@ -1,5 +1,6 @@
 package run.var.teamcity.cloud.docker;
 
+import jetbrains.buildServer.clouds.InstanceStatus;
 import org.junit.Test;
 import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
 import run.var.teamcity.cloud.docker.test.TestUtils;
@@ -167,6 +168,36 @@ public class DockerInstanceTest {
         assertThat(instance.getAgentRuntimeUuid().get()).isEqualTo(TestUtils.TEST_UUID);
     }
 
+    @Test
+    public void stateVersionIncrementedOnStateChange() {
+        DockerInstance instance = createInstance();
+
+        long version = instance.getStateVersion();
+
+        instance.setStatus(InstanceStatus.RUNNING);
+
+        assertThat(instance.getStateVersion()).isGreaterThan(version);
+
+        version = instance.getStateVersion();
+
+        instance.bindWithAgentHolder(new NewAgentHolderInfo(TestUtils.createRandomSha256(), "", "",
+                Collections.emptyList()));
+
+        assertThat(instance.getStateVersion()).isGreaterThan(version);
+
+        version = instance.getStateVersion();
+
+        instance.notifyFailure("Test failure.", null);
+
+        assertThat(instance.getStateVersion()).isGreaterThan(version);
+
+        version = instance.getStateVersion();
+
+        instance.registerOrCompareAgentId(42);
+
+        assertThat(instance.getStateVersion()).isEqualTo(version);
+    }
+
     private DockerInstance createInstance() {
         return new DockerInstance(new DockerImage(null,
                 new DockerImageConfig("test", Node.EMPTY_OBJECT, false,false, false, DockerRegistryCredentials.ANONYMOUS, 1, null)));
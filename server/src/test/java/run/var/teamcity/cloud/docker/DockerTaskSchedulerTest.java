@@ -8,11 +8,13 @@ import run.var.teamcity.cloud.docker.client.DockerRegistryCredentials;
 import run.var.teamcity.cloud.docker.util.Node;
 import run.var.teamcity.cloud.docker.util.Stopwatch;
 
+import javax.annotation.Nonnull;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -73,6 +75,32 @@ public class DockerTaskSchedulerTest {
         assertThat(task3.isRunning()).isTrue();
     }
 
+    @Test
+    public void virtualThreadsMustObserveConcurrencyLimit() {
+        // Will fallback to platform threads if not supported by the JVM.
+        scheduler = new DockerTaskScheduler(2, false, Duration.ofSeconds(2), false, true);
+
+        InstanceTestTaskDelegator task1 = new InstanceTestTaskDelegator(instance1);
+        InstanceTestTaskDelegator task2 = new InstanceTestTaskDelegator(instance2);
+        InstanceTestTaskDelegator task3 = new InstanceTestTaskDelegator(instance3);
+
+        instanceLock.lock();
+
+        scheduler.scheduleInstanceTask(task1.task);
+        scheduler.scheduleInstanceTask(task2.task);
+        scheduler.scheduleInstanceTask(task3.task);
+
+        waitMillis(500);
+
+        assertThat(task1.isRunning()).isTrue();
+        assertThat(task2.isRunning()).isTrue();
+        assertThat(task3.executions).isEmpty();
+
+        instanceLock.unlock();
+
+        waitUntil(() -> task1.isSuccessful() && task2.isSuccessful() && task3.isSuccessful());
+    }
+
     @Test
     public void sameInstanceTasksMayNotExecuteConcurrently() {
         scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(2));
@@ -127,6 +155,85 @@ public class DockerTaskSchedulerTest {
         assertThat(instanceTask.isSuccessful()).isTrue();
     }
 
+    @Test
+    public void clientTaskMayExecuteConcurrentlyWithInstanceTasksInConcurrentMode() {
+        scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(2), true);
+
+        ClientTestTaskDelegator clientTask = new ClientTestTaskDelegator();
+        InstanceTestTaskDelegator instanceTask = new InstanceTestTaskDelegator(instance1);
+
+        clientLock.lock();
+
+        scheduler.scheduleClientTask(clientTask.task);
+        scheduler.scheduleInstanceTask(instanceTask.task);
+
+        waitMillis(500);
+
+        assertThat(clientTask.executions).hasSize(1).first().matches(Execution::isRunning);
+        assertThat(instanceTask.isSuccessful()).isTrue();
+
+        clientLock.unlock();
+
+        waitMillis(500);
+
+        assertThat(clientTask.isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void sameInstanceTasksMayNotExecuteConcurrentlyInConcurrentMode() {
+        scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(2), true);
+
+        ClientTestTaskDelegator clientTask = new ClientTestTaskDelegator();
+        InstanceTestTaskDelegator task1 = new InstanceTestTaskDelegator(instance1);
+        InstanceTestTaskDelegator task1b = new InstanceTestTaskDelegator(instance1);
+
+        clientLock.lock();
+        instanceLock.lock();
+
+        scheduler.scheduleClientTask(clientTask.task);
+        scheduler.scheduleInstanceTask(task1.task);
+        scheduler.scheduleInstanceTask(task1b.task);
+
+        waitMillis(500);
+
+        assertThat(clientTask.executions).hasSize(1).first().matches(Execution::isRunning);
+        assertThat(task1.isRunning()).isTrue();
+        assertThat(task1b.executions).isEmpty();
+
+        instanceLock.unlock();
+
+        waitMillis(500);
+
+        assertThat(task1.isSuccessful()).isTrue();
+        assertThat(task1b.isSuccessful()).isTrue();
+
+        clientLock.unlock();
+    }
+
+    @Test
+    public void multipleClientTaskAreExecutedSynchronouslyInConcurrentMode() {
+        scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(2), true);
+
+        ClientTestTaskDelegator clientTask1 = new ClientTestTaskDelegator();
+        ClientTestTaskDelegator clientTask2 = new ClientTestTaskDelegator();
+
+        clientLock.lock();
+
+        scheduler.scheduleClientTask(clientTask1.task);
+        scheduler.scheduleClientTask(clientTask2.task);
+
+        waitMillis(500);
+
+        assertThat(clientTask1.executions).hasSize(1).first().matches(Execution::isRunning);
+        assertThat(clientTask2.executions).isEmpty();
+
+        clientLock.unlock();
+
+        waitMillis(500);
+
+        assertThat(clientTask2.isSuccessful()).isTrue();
+    }
+
     @Test
     public void multipleClientTaskAreExecutedSynchronously() {
         scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(2));
@@ -260,6 +367,147 @@ public class DockerTaskSchedulerTest {
         waitUntil(() -> task1.isFailed() && task2.isSuccessful());
     }
 
+    @Test
+    public void timeoutMustBeCancelledOnCompletion() {
+        scheduler = new DockerTaskScheduler(3, false, Duration.ofMinutes(10));
+
+        List<InstanceTestTaskDelegator> tasks = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            InstanceTestTaskDelegator task = new InstanceTestTaskDelegator(new DockerInstance(testImage()));
+            tasks.add(task);
+            scheduler.scheduleInstanceTask(task.task);
+        }
+
+        waitUntil(() -> tasks.stream().allMatch(InstanceTestTaskDelegator::isSuccessful));
+
+        // Timeouts of completed tasks must not linger until their expiration.
+        waitUntil(() -> scheduler.getPendingMaintenanceTaskCount() == 0);
+    }
+
+    @Test
+    public void tasksMustBeOrderedByPriority() {
+        scheduler = new DockerTaskScheduler(1, false, Duration.ofSeconds(10));
+
+        InstanceTestTaskDelegator blockingTask = new InstanceTestTaskDelegator(instance1);
+        ClientTestTaskDelegator syncTask = new ClientTestTaskDelegator();
+        InstanceTestTaskDelegator restartTask = new InstanceTestTaskDelegator(instance2, DockerTaskPriority.RESTART);
+        InstanceTestTaskDelegator startTask = new InstanceTestTaskDelegator(instance3, DockerTaskPriority.START);
+        InstanceTestTaskDelegator terminateTask = new InstanceTestTaskDelegator(new DockerInstance(testImage()),
+                DockerTaskPriority.TERMINATE);
+
+        List<TestTaskDelegator> executionOrder = new CopyOnWriteArrayList<>();
+        syncTask.fixture = () -> executionOrder.add(syncTask);
+        restartTask.fixture = () -> executionOrder.add(restartTask);
+        startTask.fixture = () -> executionOrder.add(startTask);
+        terminateTask.fixture = () -> executionOrder.add(terminateTask);
+
+        instanceLock.lock();
+
+        scheduler.scheduleInstanceTask(blockingTask.task);
+
+        waitUntil(blockingTask::isRunning);
+
+        scheduler.scheduleClientTask(syncTask.task);
+        scheduler.scheduleInstanceTask(restartTask.task);
+        scheduler.scheduleInstanceTask(startTask.task);
+        scheduler.scheduleInstanceTask(terminateTask.task);
+
+        assertThat(scheduler.getQueuedTasks()).containsExactly(terminateTask.task, startTask.task, restartTask.task,
+                syncTask.task);
+
+        instanceLock.unlock();
+
+        waitUntil(() -> executionOrder.size() == 4);
+
+        assertThat(executionOrder).containsExactly(terminateTask, startTask, restartTask, syncTask);
+    }
+
+    @Test
+    public void expiredDeadlineMustTakePrecedence() {
+        scheduler = new DockerTaskScheduler(1, false, Duration.ofSeconds(10));
+
+        InstanceTestTaskDelegator blockingTask = new InstanceTestTaskDelegator(instance1);
+        InstanceTestTaskDelegator terminateTask = new InstanceTestTaskDelegator(instance2,
+                DockerTaskPriority.TERMINATE);
+        DockerClientTask syncTask = new DockerClientTask("test client task", cloudClient) {
+            @Override
+            void callInternal() {
+                // Nothing to do.
+            }
+
+            @Nonnull
+            @Override
+            Duration getDeadline() {
+                return Duration.ZERO;
+            }
+        };
+
+        instanceLock.lock();
+
+        scheduler.scheduleInstanceTask(blockingTask.task);
+
+        waitUntil(blockingTask::isRunning);
+
+        scheduler.scheduleInstanceTask(terminateTask.task);
+        scheduler.scheduleClientTask(syncTask);
+
+        assertThat(scheduler.getQueuedTasks()).containsExactly(syncTask, terminateTask.task);
+    }
+
+    @Test
+    public void stats() {
+        scheduler = new DockerTaskScheduler(1, false, Duration.ofMillis(500));
+
+        InstanceTestTaskDelegator startTask = new InstanceTestTaskDelegator(instance1, DockerTaskPriority.START);
+        InstanceTestTaskDelegator terminateTask = new InstanceTestTaskDelegator(instance2,
+                DockerTaskPriority.TERMINATE);
+        ClientTestTaskDelegator syncTask = new ClientTestTaskDelegator();
+
+        startTask.fixture = () -> waitSec(2);
+
+        scheduler.scheduleInstanceTask(startTask.task);
+
+        waitUntil(startTask::isRunning);
+
+        scheduler.scheduleInstanceTask(terminateTask.task);
+        scheduler.scheduleClientTask(syncTask.task);
+
+        DockerTaskSchedulerStats stats = scheduler.getStats();
+
+        assertThat(stats.getExecutingTaskCount()).isEqualTo(1);
+        assertThat(stats.getQueueDepth(DockerTaskPriority.TERMINATE)).isEqualTo(1);
+        assertThat(stats.getQueueDepth(DockerTaskPriority.START)).isZero();
+        assertThat(stats.getQueueDepth(DockerTaskPriority.SYNC)).isEqualTo(1);
+        assertThat(stats.getQueuedOperations()).containsExactly(terminateTask.task.getOperationName(),
+                syncTask.task.getOperationName());
+
+        waitUntil(() -> startTask.isFailed() && terminateTask.isSuccessful() && syncTask.isSuccessful());
+
+        stats = scheduler.getStats();
+
+        assertThat(stats.getExecutingTaskCount()).isZero();
+        assertThat(stats.getQueuedOperations()).isEmpty();
+
+        assertThat(stats.getTaskStats()).containsOnlyKeys(startTask.task.getOperationName(),
+                terminateTask.task.getOperationName(), syncTask.task.getOperationName());
+
+        DockerTaskStats startStats = stats.getTaskStats(startTask.task.getOperationName()).get();
+        assertThat(startStats.getSubmittedCount()).isEqualTo(1);
+        assertThat(startStats.getCompletedCount()).isEqualTo(1);
+        assertThat(startStats.getFailedCount()).isEqualTo(1);
+        assertThat(startStats.getTimedOutCount()).isEqualTo(1);
+        assertThat(startStats.getRunTime().getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+
+        DockerTaskStats terminateStats = stats.getTaskStats(terminateTask.task.getOperationName()).get();
+        assertThat(terminateStats.getCompletedCount()).isEqualTo(1);
+        assertThat(terminateStats.getFailedCount()).isZero();
+        // The termination had to wait for the start task to complete.
+        assertThat(terminateStats.getGateWait().getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+
+        assertThat(stats.getTaskStats(syncTask.task.getOperationName()).get().getCompletedCount()).isEqualTo(1);
+        assertThat(stats.getTaskStats("unknown")).isEmpty();
+    }
+
     @Test
     public void initialDelay() {
         ClientTestTaskDelegator taskWithoutInitialDelay = new ClientTestTaskDelegator();
@@ -343,6 +591,58 @@ public class DockerTaskSchedulerTest {
 
     }
 
+    @Test
+    public void rescheduleNow() {
+        ClientTestTaskDelegator repeatableTask = new ClientTestTaskDelegator(Duration.ZERO, Duration.ofMinutes(1));
+
+        scheduler = new DockerTaskScheduler(3, false, Duration.ofSeconds(1));
+
+        scheduler.scheduleClientTask(repeatableTask.task);
+
+        waitUntil(() -> repeatableTask.executions.size() == 1);
+
+        assertThat(scheduler.rescheduleNow(repeatableTask.task)).isTrue();
+
+        waitUntil(() -> repeatableTask.executions.size() == 2);
+
+        // Tasks not waiting for their delay are ignored.
+        assertThat(scheduler.rescheduleNow(new ClientTestTaskDelegator().task)).isFalse();
+
+        scheduler.shutdown();
+
+        assertThat(scheduler.rescheduleNow(repeatableTask.task)).isFalse();
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> scheduler.rescheduleNow(null));
+    }
+
+    @Test
+    public void terminationHookMustRunOnceTasksCompleted() {
+        scheduler = new DockerTaskScheduler(2, false, Duration.ofSeconds(2));
+
+        InstanceTestTaskDelegator task1 = new InstanceTestTaskDelegator(instance1);
+        InstanceTestTaskDelegator task2 = new InstanceTestTaskDelegator(instance2);
+
+        AtomicBoolean terminated = new AtomicBoolean();
+
+        instanceLock.lock();
+
+        scheduler.scheduleInstanceTask(task1.task);
+        scheduler.scheduleInstanceTask(task2.task);
+
+        scheduler.shutdown(() -> {
+            assertThat(task1.isSuccessful() && task2.isSuccessful()).isTrue();
+            terminated.set(true);
+        });
+
+        waitMillis(500);
+
+        assertThat(terminated).isFalse();
+
+        instanceLock.unlock();
+
+        waitUntil(terminated::get);
+    }
+
     @After
     public void tearDown() {
         if (instanceLock.isHeldByCurrentThread()) {
@@ -471,9 +771,14 @@ public class DockerTaskSchedulerTest {
         final DockerInstanceTask task;
 
         InstanceTestTaskDelegator(DockerInstance instance) {
+            this(instance, DockerTaskPriority.SYNC);
+        }
+
+        InstanceTestTaskDelegator(DockerInstance instance, DockerTaskPriority priority) {
             super(instanceLock);
 
-            task = new DockerInstanceTask("test", instance, InstanceStatus.SCHEDULED_TO_START) {
+            task = new DockerInstanceTask("test " + priority, instance, InstanceStatus.SCHEDULED_TO_START,
+                    priority) {
                 @Override
                 void callInternal() throws Exception {
                     run(instanceLock);
@@ -0,0 +1,123 @@
+package run.var.teamcity.cloud.docker;
+
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.util.EditableNode;
+import run.var.teamcity.cloud.docker.util.Node;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link ImageInspectionCache} test suite.
+ */
+public class ImageInspectionCacheTest {
+
+    @Test
+    public void cachedInspection() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        Node inspection = inspection();
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+
+        cache.put("image:latest", inspection, false);
+
+        assertThat(cache.getInspection("image:latest")).containsSame(inspection);
+        assertThat(cache.getInspection("another_image:latest")).isEmpty();
+        assertThat(cache.isPullValidated("image:latest")).isFalse();
+
+        cache.invalidate("image:latest");
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+    }
+
+    @Test
+    public void expiredInspection() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ZERO);
+
+        cache.put("image:latest", inspection(), true);
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+        assertThat(cache.isPullValidated("image:latest")).isFalse();
+    }
+
+    @Test
+    public void pullWithKnownDigest() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        Node inspection = inspection();
+
+        cache.put("image:latest", inspection, false);
+        cache.pullCompleted("image:latest", "sha256:digest", false);
+
+        assertThat(cache.getInspection("image:latest")).containsSame(inspection);
+        assertThat(cache.isPullValidated("image:latest")).isTrue();
+    }
+
+    @Test
+    public void pullWithoutDigest() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        cache.put("image:latest", inspection(), false);
+        cache.pullCompleted("image:latest", null, false);
+
+        assertThat(cache.isPullValidated("image:latest")).isTrue();
+    }
+
+    @Test
+    public void pullWithUnknownDigest() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        cache.put("image:latest", inspection(), true);
+        cache.pullCompleted("image:latest", "sha256:another_digest", false);
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+    }
+
+    @Test
+    public void pullOfNewerImage() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        cache.put("image:latest", inspection(), true);
+        cache.pullCompleted("image:latest", "sha256:digest", true);
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+    }
+
+    @Test
+    public void pullOfUncachedImage() {
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        cache.pullCompleted("image:latest", "sha256:digest", false);
+
+        assertThat(cache.getInspection("image:latest")).isEmpty();
+        assertThat(cache.isPullValidated("image:latest")).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void invalidInput() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> new ImageInspectionCache(null));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new ImageInspectionCache(Duration.ofSeconds(-1)));
+
+        ImageInspectionCache cache = new ImageInspectionCache(Duration.ofMinutes(1));
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.getInspection(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.isPullValidated(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.put(null, inspection(), false));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.put("image:latest", null,
+                false));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.pullCompleted(null, null,
+                false));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> cache.invalidate(null));
+    }
+
+    private Node inspection() {
+        EditableNode inspection = Node.EMPTY_OBJECT.editNode().put("Id", "sha256:image_id");
+        inspection.getOrCreateArray("RepoDigests").add("image@sha256:digest");
+        return inspection.saveNode();
+    }
+}
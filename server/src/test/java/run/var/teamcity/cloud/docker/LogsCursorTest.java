@@ -0,0 +1,89 @@
+package run.var.teamcity.cloud.docker;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link LogsCursor} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class LogsCursorTest {
+
+    @Test
+    public void initialState() {
+        LogsCursor cursor = new LogsCursor();
+
+        assertThat(cursor.getSince()).isEmpty();
+    }
+
+    @Test
+    public void timestampsMustBeStripped() {
+        LogsCursor cursor = new LogsCursor();
+
+        CharSequence logs = cursor.process("2017-09-12T10:11:12.000000001Z line 1\n" +
+                "2017-09-12T10:11:13.123456789Z line 2\n");
+
+        assertThat(logs.toString()).isEqualTo("line 1\nline 2\n");
+        assertThat(cursor.getSince()).contains(Instant.parse("2017-09-12T10:11:13.123456789Z"));
+    }
+
+    @Test
+    public void linesAlreadyRetrievedMustBeDiscarded() {
+        LogsCursor cursor = new LogsCursor();
+
+        cursor.process("2017-09-12T10:11:12Z line 1\n" +
+                "2017-09-12T10:11:13Z line 2\n");
+
+        // Querying from the last timestamp returns the last line again.
+        CharSequence logs = cursor.process("2017-09-12T10:11:13Z line 2\n" +
+                "2017-09-12T10:11:14Z line 3\n");
+
+        assertThat(logs.toString()).isEqualTo("line 3\n");
+        assertThat(cursor.getSince()).contains(Instant.parse("2017-09-12T10:11:14Z"));
+
+        assertThat(cursor.process("2017-09-12T10:11:14Z line 3\n").toString()).isEmpty();
+    }
+
+    @Test
+    public void linesSharingTheLastTimestamp() {
+        LogsCursor cursor = new LogsCursor();
+
+        cursor.process("2017-09-12T10:11:12Z line 1\n" +
+                "2017-09-12T10:11:12Z line 2\n");
+
+        CharSequence logs = cursor.process("2017-09-12T10:11:12Z line 1\n" +
+                "2017-09-12T10:11:12Z line 2\n" +
+                "2017-09-12T10:11:12Z line 3\n");
+
+        assertThat(logs.toString()).isEqualTo("line 3\n");
+
+        logs = cursor.process("2017-09-12T10:11:12Z line 1\n" +
+                "2017-09-12T10:11:12Z line 2\n" +
+                "2017-09-12T10:11:12Z line 3\n" +
+                "2017-09-12T10:11:13Z line 4");
+
+        assertThat(logs.toString()).isEqualTo("line 4");
+    }
+
+    @Test
+    public void linesWithoutTimestampMustBeKept() {
+        LogsCursor cursor = new LogsCursor();
+
+        CharSequence logs = cursor.process("no timestamp\n" +
+                "2017-09-12T10:11:12Z line 1\n" +
+                "not a timestamp\n" +
+                "\n");
+
+        assertThat(logs.toString()).isEqualTo("no timestamp\nline 1\nnot a timestamp\n\n");
+        assertThat(cursor.getSince()).contains(Instant.parse("2017-09-12T10:11:12Z"));
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> new LogsCursor().process(null));
+    }
+}
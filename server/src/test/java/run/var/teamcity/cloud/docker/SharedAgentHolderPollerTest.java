@@ -0,0 +1,246 @@
+package run.var.teamcity.cloud.docker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.TestDockerClientFacade.AgentHolder;
+import run.var.teamcity.cloud.docker.client.DockerClientConfig;
+import run.var.teamcity.cloud.docker.client.DockerClientException;
+import run.var.teamcity.cloud.docker.test.TestDockerClient;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static run.var.teamcity.cloud.docker.test.TestUtils.waitUntil;
+
+/**
+ * {@link SharedAgentHolderPoller} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class SharedAgentHolderPollerTest {
+
+    private TestDockerCloudSupport cloudSupport;
+    private DockerClientConfig clientConfig;
+    private List<TestSubscriber> subscribers;
+
+    @Before
+    public void init() {
+        cloudSupport = new TestDockerCloudSupport();
+        clientConfig = new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI,
+                DockerCloudUtils.DOCKER_API_TARGET_VERSION);
+        subscribers = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        subscribers.forEach(subscriber -> SharedAgentHolderPoller.unsubscribe(cloudSupport, clientConfig,
+                subscriber));
+    }
+
+    @Test
+    public void mustDispatchAgentHoldersToSubscribers() {
+        TestDockerClientFacade clientFacade = cloudSupport.getClientFacade();
+
+        TestSubscriber subscriber1 = new TestSubscriber(Duration.ofMinutes(10));
+        TestSubscriber subscriber2 = new TestSubscriber(Duration.ofMinutes(10));
+
+        AgentHolder agentHolder1 = new AgentHolder().
+                label(DockerCloudUtils.CLIENT_ID_LABEL, subscriber1.uuid.toString());
+        AgentHolder agentHolder2 = new AgentHolder().
+                label(DockerCloudUtils.CLIENT_ID_LABEL, subscriber2.uuid.toString());
+        AgentHolder agentHolder3 = new AgentHolder().
+                label(DockerCloudUtils.CLIENT_ID_LABEL, UUID.randomUUID().toString());
+
+        clientFacade.agentHolder(agentHolder1).agentHolder(agentHolder2).agentHolder(agentHolder3);
+
+        subscribe(subscriber1);
+        subscribe(subscriber2);
+
+        waitUntil(() -> !subscriber1.results.isEmpty() && !subscriber2.results.isEmpty());
+
+        assertThat(subscriber1.results.get(0)).containsExactly(agentHolder1.getId());
+        assertThat(subscriber2.results.get(0)).containsExactly(agentHolder2.getId());
+    }
+
+    @Test
+    public void mustPrepareSyncBeforeListing() {
+        TestDockerClientFacade clientFacade = cloudSupport.getClientFacade();
+
+        TestSubscriber subscriber = new TestSubscriber(Duration.ofMinutes(10)) {
+            @Nonnull
+            @Override
+            public SharedAgentHolderPoller.PendingSync prepareSync() {
+                assertThat(clientFacade.getListAgentHoldersCount()).isEqualTo(preparedSyncCount);
+                return super.prepareSync();
+            }
+        };
+
+        subscribe(subscriber);
+
+        waitUntil(() -> subscriber.results.size() == 1);
+
+        assertThat(subscriber.failures).isEmpty();
+    }
+
+    @Test
+    public void mustListOncePerCycle() {
+        TestDockerClientFacade clientFacade = cloudSupport.getClientFacade();
+
+        List<TestSubscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestSubscriber subscriber = new TestSubscriber(Duration.ofSeconds(2));
+            subscribers.add(subscriber);
+            subscribe(subscriber);
+        }
+
+        waitUntil(() -> subscribers.stream().allMatch(subscriber -> subscriber.results.size() >= 3));
+
+        // A cycle may have been triggered for each subscription, but must not be repeated for each subscriber.
+        assertThat(clientFacade.getListAgentHoldersCount()).isLessThan(10 * 3);
+    }
+
+    @Test
+    public void mustUseShortestSyncRate() {
+        TestSubscriber slowSubscriber = new TestSubscriber(Duration.ofMinutes(10));
+        TestSubscriber fastSubscriber = new TestSubscriber(Duration.ofSeconds(2));
+
+        subscribe(slowSubscriber);
+        subscribe(fastSubscriber);
+
+        waitUntil(() -> slowSubscriber.results.size() >= 3);
+    }
+
+    @Test
+    public void mustNotifyListingFailures() {
+        TestDockerClientFacade clientFacade = cloudSupport.getClientFacade();
+        DockerClientException failure = new DockerClientException("Simulated failure.");
+        clientFacade.setFailOnAccessException(failure);
+
+        TestSubscriber subscriber = new TestSubscriber(Duration.ofSeconds(2));
+
+        subscribe(subscriber);
+
+        waitUntil(() -> !subscriber.failures.isEmpty());
+
+        assertThat(subscriber.failures.get(0)).isSameAs(failure);
+
+        clientFacade.setFailOnAccessException(null);
+
+        waitUntil(() -> !subscriber.results.isEmpty());
+    }
+
+    @Test
+    public void mustStopWithLastSubscriber() {
+        TestSubscriber subscriber1 = new TestSubscriber(Duration.ofMinutes(10));
+        TestSubscriber subscriber2 = new TestSubscriber(Duration.ofMinutes(10));
+
+        subscribe(subscriber1);
+        subscribe(subscriber2);
+
+        waitUntil(() -> !subscriber1.results.isEmpty() && !subscriber2.results.isEmpty());
+
+        assertThat(SharedAgentHolderPoller.isPolling(cloudSupport, clientConfig)).isTrue();
+
+        SharedAgentHolderPoller.unsubscribe(cloudSupport, clientConfig, subscriber1);
+
+        assertThat(SharedAgentHolderPoller.isPolling(cloudSupport, clientConfig)).isTrue();
+
+        SharedAgentHolderPoller.unsubscribe(cloudSupport, clientConfig, subscriber2);
+
+        assertThat(SharedAgentHolderPoller.isPolling(cloudSupport, clientConfig)).isFalse();
+
+        waitUntil(() -> cloudSupport.getClientFacade().isClosed());
+    }
+
+    @Test
+    public void mustNotShareBetweenCloudSupports() {
+        TestDockerCloudSupport otherCloudSupport = new TestDockerCloudSupport();
+
+        TestSubscriber subscriber = new TestSubscriber(Duration.ofMinutes(10));
+        TestSubscriber otherSubscriber = new TestSubscriber(Duration.ofMinutes(10));
+
+        subscribe(subscriber);
+        SharedAgentHolderPoller.subscribe(otherCloudSupport, clientConfig, otherSubscriber);
+
+        try {
+            waitUntil(() -> !subscriber.results.isEmpty() && !otherSubscriber.results.isEmpty());
+
+            assertThat(cloudSupport.getClientFacade().getListAgentHoldersCount()).isEqualTo(1);
+            assertThat(otherCloudSupport.getClientFacade().getListAgentHoldersCount()).isEqualTo(1);
+        } finally {
+            SharedAgentHolderPoller.unsubscribe(otherCloudSupport, clientConfig, otherSubscriber);
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        TestSubscriber subscriber = new TestSubscriber(Duration.ofMinutes(10));
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                SharedAgentHolderPoller.subscribe(null, clientConfig, subscriber));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                SharedAgentHolderPoller.subscribe(cloudSupport, null, subscriber));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                SharedAgentHolderPoller.subscribe(cloudSupport, clientConfig, null));
+
+        subscribe(subscriber);
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                SharedAgentHolderPoller.subscribe(cloudSupport, clientConfig, subscriber));
+    }
+
+    private void subscribe(TestSubscriber subscriber) {
+        subscribers.add(subscriber);
+        SharedAgentHolderPoller.subscribe(cloudSupport, clientConfig, subscriber);
+    }
+
+    private static class TestSubscriber implements SharedAgentHolderPoller.Subscriber {
+
+        final UUID uuid = UUID.randomUUID();
+        final Duration syncRate;
+        final List<List<String>> results = new CopyOnWriteArrayList<>();
+        final List<Exception> failures = new CopyOnWriteArrayList<>();
+        volatile int preparedSyncCount = 0;
+
+        TestSubscriber(Duration syncRate) {
+            this.syncRate = syncRate;
+        }
+
+        @Nonnull
+        @Override
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        @Nonnull
+        @Override
+        public Duration getSyncRate() {
+            return syncRate;
+        }
+
+        @Nonnull
+        @Override
+        public SharedAgentHolderPoller.PendingSync prepareSync() {
+            preparedSyncCount++;
+            return new SharedAgentHolderPoller.PendingSync() {
+                @Override
+                public void complete(@Nonnull List<AgentHolderInfo> agentHolders) {
+                    results.add(agentHolders.stream().map(AgentHolderInfo::getId).collect(Collectors.toList()));
+                }
+
+                @Override
+                public void fail(@Nonnull Exception failure) {
+                    failures.add(failure);
+                }
+            };
+        }
+    }
+}
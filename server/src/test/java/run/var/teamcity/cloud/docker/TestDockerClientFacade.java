@@ -8,8 +8,12 @@ import run.var.teamcity.cloud.docker.client.NotFoundException;
 import run.var.teamcity.cloud.docker.client.UnauthorizedException;
 import run.var.teamcity.cloud.docker.test.TestUtils;
 import run.var.teamcity.cloud.docker.util.LockHandler;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -21,7 +25,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class TestDockerClientFacade implements DockerClientFacade {
@@ -33,6 +40,7 @@ public class TestDockerClientFacade implements DockerClientFacade {
 
     private final Map<String, AgentHolder> agentHolders = new HashMap<>();
     private final List<TerminationInfo> terminationInfos = new ArrayList<>();
+    private final List<EventStream> eventStreams = new CopyOnWriteArrayList<>();
 
     private Consumer<AgentHolder> agentConfigurator = null;
 
@@ -40,24 +48,30 @@ public class TestDockerClientFacade implements DockerClientFacade {
 
     private boolean closed = false;
     private boolean supportsQueryingLogs = true;
+    private boolean supportsStreamingEvents = true;
+    private int preparedSpecCount = 0;
+    private int listAgentHoldersCount = 0;
+    private int streamLogsCount = 0;
+    private Supplier<StreamHandler> logsStreamHandlerSupplier = null;
     private DockerClientException failOnCreateException = null;
     private DockerClientException failOnAccessException = null;
 
     @Nonnull
     @Override
     public NewAgentHolderInfo createAgent(@Nonnull CreateAgentParameters createAgentParameters) {
-        AgentHolder container = new AgentHolder();
-        container.labels.putAll(createAgentParameters.getLabels());
-        container.env.putAll(createAgentParameters.getEnv());
+        return createAgent(prepareAgentHolder(createAgentParameters), createAgentParameters.getLabels(),
+                createAgentParameters.getEnv());
+    }
 
+    @Nonnull
+    @Override
+    public PreparedAgentHolderSpec prepareAgentHolder(@Nonnull CreateAgentParameters createAgentParameters) {
         String image = createAgentParameters.getImageName().orElse(createAgentParameters.getAgentHolderSpec().
                 getAsString("Image"));
 
         lock.run(() -> {
-            if (failOnCreateException != null) {
-                throw failOnCreateException;
-            }
             checkForFailure();
+            preparedSpecCount++;
             if (createAgentParameters.getPullStrategy() != PullStrategy.NO_PULL) {
                 if (registryImages.contains(image)) {
                     localImages.add(image);
@@ -66,12 +80,32 @@ public class TestDockerClientFacade implements DockerClientFacade {
                 }
 
             }
-            if (!localImages.contains(image)) {
-                throw new NotFoundException("Image not found: " + image);
-            }
             if (!registryCredentials.equals(createAgentParameters.getRegistryCredentials())) {
                 throw new UnauthorizedException("Wrong credentials.");
             }
+        });
+
+        return new PreparedAgentHolderSpec(createAgentParameters.getAgentHolderSpec(), image);
+    }
+
+    @Nonnull
+    @Override
+    public NewAgentHolderInfo createAgent(@Nonnull PreparedAgentHolderSpec preparedSpec,
+                                          @Nonnull Map<String, String> labels, @Nonnull Map<String, String> env) {
+        AgentHolder container = new AgentHolder();
+        container.labels.putAll(labels);
+        container.env.putAll(env);
+
+        String image = preparedSpec.getResolvedImage().get();
+
+        lock.run(() -> {
+            if (failOnCreateException != null) {
+                throw failOnCreateException;
+            }
+            checkForFailure();
+            if (!localImages.contains(image)) {
+                throw new NotFoundException("Image not found: " + image);
+            }
             agentHolders.put(container.getId(), container);
             if (agentConfigurator != null) {
                 agentConfigurator.accept(container);
@@ -93,6 +127,7 @@ public class TestDockerClientFacade implements DockerClientFacade {
                 throw new InvocationFailedException("Container already started: " + agentHolderId);
             }
             agentHolder.running(true);
+            publishEvent(AgentHolderEvent.Type.STARTED, agentHolder);
             return agentHolder.getTaskId();
         });
     }
@@ -111,17 +146,40 @@ public class TestDockerClientFacade implements DockerClientFacade {
 
     @Nonnull
     @Override
-    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nonnull String valueFilter) {
+    public List<AgentHolderInfo> listAgentHolders(@Nonnull String labelFilter, @Nullable String valueFilter) {
         return lock.call(() -> {
             checkForFailure();
+            listAgentHoldersCount++;
             return agentHolders.values().stream().
-                    filter(container -> valueFilter.equals(container.getLabels().get(labelFilter))).
+                    filter(container -> {
+                        String labelValue = container.getLabels().get(labelFilter);
+                        return labelValue != null && (valueFilter == null || valueFilter.equals(labelValue));
+                    }).
                     map(agentHolder -> new AgentHolderInfo(agentHolder.getId(), agentHolder.getTaskId(),
                             agentHolder.getLabels(), "", agentHolder.getName(), Instant.MIN, agentHolder.running)).
                     collect(Collectors.toList());
         });
     }
 
+    @Nonnull
+    @Override
+    public AgentHolderEventStream streamAgentHolderEvents(@Nonnull String labelFilter, @Nonnull String valueFilter) {
+        return lock.call(() -> {
+            checkForFailure();
+            if (!supportsStreamingEvents) {
+                throw new UnsupportedOperationException("Streaming events not supported.");
+            }
+            EventStream eventStream = new EventStream(labelFilter, valueFilter);
+            eventStreams.add(eventStream);
+            return eventStream;
+        });
+    }
+
+    @Override
+    public boolean supportStreamingEvents() {
+        return supportsStreamingEvents;
+    }
+
     @Override
     public boolean terminateAgentContainer(@Nonnull String containerId, @Nonnull Duration timeout, boolean removeContainer) {
         return lock.call(() -> {
@@ -131,6 +189,10 @@ public class TestDockerClientFacade implements DockerClientFacade {
                     throw new NotFoundException("Container not found: " + containerId);
                 }
                 terminationInfos.add(new TerminationInfo(containerId, timeout, removeContainer));
+                if (agentHolder.running) {
+                    publishEvent(AgentHolderEvent.Type.DIED, agentHolder);
+                }
+                publishEvent(AgentHolderEvent.Type.DESTROYED, agentHolder);
                 return false;
             }
 
@@ -143,6 +205,7 @@ public class TestDockerClientFacade implements DockerClientFacade {
             }
             agentHolder.running(false);
             terminationInfos.add(new TerminationInfo(containerId, timeout, removeContainer));
+            publishEvent(AgentHolderEvent.Type.DIED, agentHolder);
             return true;
         });
     }
@@ -154,10 +217,23 @@ public class TestDockerClientFacade implements DockerClientFacade {
 
     @Nonnull
     @Override
-    public StreamHandler streamLogs(String containerId) {
+    public CharSequence getLogs(@Nonnull String containerId, @Nonnull LogsCursor cursor,
+            @Nonnull VT100EscapeFilter filter) {
         throw new UnsupportedOperationException("Not implemented yet.");
     }
 
+    @Nonnull
+    @Override
+    public StreamHandler streamLogs(String containerId) {
+        return lock.call(() -> {
+            if (logsStreamHandlerSupplier == null) {
+                throw new UnsupportedOperationException("Not implemented yet.");
+            }
+            streamLogsCount++;
+            return logsStreamHandlerSupplier.get();
+        });
+    }
+
     @Override
     public boolean supportQueryingLogs() {
         return supportsQueryingLogs;
@@ -172,6 +248,7 @@ public class TestDockerClientFacade implements DockerClientFacade {
     @Override
     public void close() {
         lock.run(() -> closed = true);
+        eventStreams.forEach(EventStream::close);
     }
 
     private void checkForFailure() {
@@ -209,6 +286,40 @@ public class TestDockerClientFacade implements DockerClientFacade {
         this.supportsQueryingLogs = supportsQueryingLogs;
     }
 
+    public void setSupportsStreamingEvents(boolean supportsStreamingEvents) {
+        this.supportsStreamingEvents = supportsStreamingEvents;
+    }
+
+    public int getPreparedSpecCount() {
+        return lock.call(() -> preparedSpecCount);
+    }
+
+    public int getListAgentHoldersCount() {
+        return lock.call(() -> listAgentHoldersCount);
+    }
+
+    public int getStreamLogsCount() {
+        return lock.call(() -> streamLogsCount);
+    }
+
+    public void setLogsStreamHandlerSupplier(Supplier<StreamHandler> logsStreamHandlerSupplier) {
+        lock.run(() -> this.logsStreamHandlerSupplier = logsStreamHandlerSupplier);
+    }
+
+    public int getEventStreamCount() {
+        return eventStreams.size();
+    }
+
+    public void publishEvent(AgentHolderEvent.Type type, AgentHolder agentHolder) {
+        AgentHolderEvent event = new AgentHolderEvent(type, agentHolder.getId(), agentHolder.getLabels(),
+                Instant.now());
+        for (EventStream eventStream : eventStreams) {
+            if (eventStream.valueFilter.equals(agentHolder.getLabels().get(eventStream.labelFilter))) {
+                eventStream.events.add(event);
+            }
+        }
+    }
+
     public void lock() {
         lock.lock();
     }
@@ -243,7 +354,48 @@ public class TestDockerClientFacade implements DockerClientFacade {
     }
 
     public void removeAgentHolder(String agentHolderId) {
-        lock.run(() -> agentHolders.remove(agentHolderId));
+        lock.run(() -> {
+            AgentHolder agentHolder = agentHolders.remove(agentHolderId);
+            if (agentHolder != null) {
+                publishEvent(AgentHolderEvent.Type.DESTROYED, agentHolder);
+            }
+        });
+    }
+
+    private class EventStream implements AgentHolderEventStream {
+
+        private final AgentHolderEvent END_OF_STREAM = new AgentHolderEvent(AgentHolderEvent.Type.DESTROYED, "",
+                Collections.emptyMap(), Instant.MIN);
+
+        private final String labelFilter;
+        private final String valueFilter;
+        private final LinkedBlockingQueue<AgentHolderEvent> events = new LinkedBlockingQueue<>();
+
+        EventStream(String labelFilter, String valueFilter) {
+            this.labelFilter = labelFilter;
+            this.valueFilter = valueFilter;
+        }
+
+        @Override
+        public AgentHolderEvent next() throws IOException {
+            AgentHolderEvent event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (event == END_OF_STREAM) {
+                events.add(END_OF_STREAM);
+                return null;
+            }
+            return event;
+        }
+
+        @Override
+        public void close() {
+            eventStreams.remove(this);
+            events.add(END_OF_STREAM);
+        }
     }
 
     public static class AgentHolder {
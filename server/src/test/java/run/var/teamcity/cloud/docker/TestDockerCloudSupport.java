@@ -51,6 +51,12 @@ public class TestDockerCloudSupport implements DockerCloudSupport {
         return facadeWrapper != null ? facadeWrapper : clientFacade;
     }
 
+    @Nonnull
+    @Override
+    public DockerClientFacade createBorrowingClientFacade(DockerClientConfig dockerClientConfig) {
+        return createClientFacade(dockerClientConfig);
+    }
+
     @Nonnull
     @Override
     public DockerImageConfigParser createImageConfigParser() {
@@ -0,0 +1,78 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.util.NodeProcessingException;
+import run.var.teamcity.cloud.docker.util.StreamingNodeReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * {@link ContainerSummary} test suite.
+ */
+public class ContainerSummaryTest {
+
+    @Test
+    public void readList() throws IOException {
+        List<ContainerSummary> containers = readList("[{\"Id\": \"abc\", \"Names\": [\"/name\", \"/alias\"], " +
+                "\"Image\": \"img:1.0\", \"ImageID\": \"sha256:123\", \"Command\": \"run.sh\", \"Created\": 42, " +
+                "\"Ports\": [{\"PrivatePort\": 9090, \"Type\": \"tcp\"}], \"Labels\": {\"A\": \"1\", \"B\": \"2\"}, " +
+                "\"State\": \"running\", \"Status\": \"Up 2 minutes\", \"HostConfig\": {\"NetworkMode\": \"default\"}, " +
+                "\"NetworkSettings\": {\"Networks\": {\"bridge\": {\"IPAddress\": \"172.17.0.2\"}}}, \"Mounts\": []}, " +
+                "{\"Id\": \"def\", \"Names\": [], \"Labels\": null, \"State\": \"exited\", \"Created\": 43}]");
+
+        assertThat(containers).hasSize(2);
+
+        ContainerSummary container = containers.get(0);
+        assertThat(container.getId()).isEqualTo("abc");
+        assertThat(container.getName()).contains("/name");
+        assertThat(container.getLabels()).containsOnly(entry("A", "1"), entry("B", "2"));
+        assertThat(container.getState()).isEqualTo("running");
+        assertThat(container.getImageId()).contains("sha256:123");
+        assertThat(container.getCreationTimestamp()).isEqualTo(Instant.ofEpochSecond(42));
+
+        container = containers.get(1);
+        assertThat(container.getId()).isEqualTo("def");
+        assertThat(container.getName()).isEmpty();
+        assertThat(container.getLabels()).isEmpty();
+        assertThat(container.getState()).isEqualTo("exited");
+        assertThat(container.getImageId()).isEmpty();
+        assertThat(container.getCreationTimestamp()).isEqualTo(Instant.ofEpochSecond(43));
+    }
+
+    @Test
+    public void readListIncompleteContainer() {
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> readList("[{\"Names\": [\"/name\"], \"State\": \"running\", \"Created\": 42}]"));
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> readList("[{\"Id\": \"abc\", \"Created\": 42}]"));
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> readList("[{\"Id\": \"abc\", \"State\": \"running\"}]"));
+    }
+
+    @Test
+    public void invalidConstructorInput() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(
+                () -> new ContainerSummary(null, "name", Collections.emptyMap(), "running", "img", Instant.now()));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(
+                () -> new ContainerSummary("abc", "name", null, "running", "img", Instant.now()));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(
+                () -> new ContainerSummary("abc", "name", Collections.emptyMap(), null, "img", Instant.now()));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(
+                () -> new ContainerSummary("abc", "name", Collections.emptyMap(), "running", "img", null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> ContainerSummary.readList(null));
+    }
+
+    private List<ContainerSummary> readList(String json) throws IOException {
+        return ContainerSummary.readList(StreamingNodeReader.create(new ByteArrayInputStream(
+                json.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,47 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link DefaultRequestInstrumentation} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class DefaultRequestInstrumentationTest {
+
+    @Test
+    public void statsPerRequestSpec() {
+        DefaultRequestInstrumentation instrumentation = new DefaultRequestInstrumentation(Duration.ofSeconds(5));
+
+        instrumentation.requestCompleted("POST /containers/{id}/start", TimeUnit.MILLISECONDS.toNanos(10), null);
+        instrumentation.requestCompleted("POST /containers/{id}/start", TimeUnit.MILLISECONDS.toNanos(20),
+                new NotFoundException("Not found."));
+        instrumentation.requestCompleted("GET /containers/json", TimeUnit.SECONDS.toNanos(6), null);
+
+        assertThat(instrumentation.getStats()).containsOnlyKeys("POST /containers/{id}/start",
+                "GET /containers/json");
+
+        DefaultRequestInstrumentation.RequestStats startStats = instrumentation.getStats().
+                get("POST /containers/{id}/start");
+        assertThat(startStats.getCount()).isEqualTo(2);
+        assertThat(startStats.getErrorCount()).isEqualTo(1);
+        assertThat(startStats.getLatency().getMax()).isEqualTo(Duration.ofMillis(20));
+
+        DefaultRequestInstrumentation.RequestStats listStats = instrumentation.getStats().get("GET /containers/json");
+        assertThat(listStats.getCount()).isEqualTo(1);
+        assertThat(listStats.getErrorCount()).isZero();
+    }
+
+    @Test
+    public void invalidConstructorArguments() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                new DefaultRequestInstrumentation(null));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new DefaultRequestInstrumentation(Duration.ofSeconds(-1)));
+    }
+}
@@ -0,0 +1,53 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link DockerAbstractClient} test suite.
+ */
+public class DockerAbstractClientTest {
+
+    private Client jerseyClient;
+    private DockerAbstractClient client;
+
+    @Before
+    public void init() {
+        jerseyClient = ClientBuilder.newClient();
+        client = new DockerAbstractClient(jerseyClient) {
+        };
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void normalizedRequestSpec() {
+        assertThat(normalize(HttpMethod.POST, "/v1.24/containers/8f2a1c/start")).
+                isEqualTo("POST /containers/{id}/start");
+        assertThat(normalize(HttpMethod.POST, "/containers/8f2a1c/start")).
+                isEqualTo("POST /containers/{id}/start");
+        assertThat(normalize(HttpMethod.GET, "/v1.24/containers/json")).isEqualTo("GET /containers/json");
+        assertThat(normalize(HttpMethod.POST, "/v1.24/containers/create")).isEqualTo("POST /containers/create");
+        assertThat(normalize(HttpMethod.DELETE, "/v1.24/containers/8f2a1c")).isEqualTo("DELETE /containers/{id}");
+        assertThat(normalize(HttpMethod.GET, "/v1.24/images/library/ubuntu:latest/json")).
+                isEqualTo("GET /images/{id}/json");
+        assertThat(normalize(HttpMethod.GET, "/v1.24/version")).isEqualTo("GET /version");
+        assertThat(normalize(HttpMethod.GET, "/version")).isEqualTo("GET /version");
+    }
+
+    private String normalize(String method, String path) {
+        WebTarget target = jerseyClient.target("http://docker.test.local").path(path);
+        return client.getNormalizedRequestSpec(target, method);
+    }
+}
@@ -0,0 +1,173 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link MultiplexedFrameReader} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class MultiplexedFrameReaderTest {
+
+    @Test
+    public void readFrames() throws IOException {
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(
+                frames(StdioType.STDOUT, "hello", StdioType.STDERR, "world")));
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getType()).isSameAs(StdioType.STDOUT);
+        assertThat(slice(reader)).isEqualTo("hello");
+        assertThat(reader.isFrameComplete()).isTrue();
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getType()).isSameAs(StdioType.STDERR);
+        assertThat(slice(reader)).isEqualTo("world");
+        assertThat(reader.isFrameComplete()).isTrue();
+
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void splitReads() throws IOException {
+        // Headers and payloads delivered one byte at a time.
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new OneByteInputStream(
+                frames(StdioType.STDOUT, "hello", StdioType.STDERR, "world")), 8);
+
+        assertThat(readFrame(reader, StdioType.STDOUT)).isEqualTo("hello");
+        assertThat(readFrame(reader, StdioType.STDERR)).isEqualTo("world");
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void frameLargerThanBuffer() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i % 10);
+        }
+        String large = sb.toString();
+
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(
+                frames(StdioType.STDOUT, large, StdioType.STDERR, "after")), 64);
+
+        assertThat(readFrame(reader, StdioType.STDOUT)).isEqualTo(large);
+        assertThat(readFrame(reader, StdioType.STDERR)).isEqualTo("after");
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void skipFrame() throws IOException {
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(
+                frames(StdioType.STDOUT, "0123456789012345678901234567890123456789", StdioType.STDERR, "next")),
+                16);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.isFrameComplete()).isFalse();
+
+        reader.skipFrame();
+
+        assertThat(readFrame(reader, StdioType.STDERR)).isEqualTo("next");
+    }
+
+    @Test
+    public void emptyFramesAreSkipped() throws IOException {
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(
+                frames(StdioType.STDOUT, "", StdioType.STDERR, "", StdioType.STDOUT, "text")));
+
+        assertThat(readFrame(reader, StdioType.STDOUT)).isEqualTo("text");
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void truncatedStream() throws IOException {
+        byte[] frames = frames(StdioType.STDOUT, "hello");
+
+        byte[] truncatedHeader = new byte[4];
+        System.arraycopy(frames, 0, truncatedHeader, 0, truncatedHeader.length);
+        assertThat(new MultiplexedFrameReader(new ByteArrayInputStream(truncatedHeader)).next()).isFalse();
+
+        byte[] truncatedPayload = new byte[10];
+        System.arraycopy(frames, 0, truncatedPayload, 0, truncatedPayload.length);
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(truncatedPayload));
+        assertThat(reader.next()).isTrue();
+        assertThat(slice(reader)).isEqualTo("he");
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void invalidStreamType() {
+        ByteBuffer bb = ByteBuffer.allocate(8);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(42);
+        bb.putInt(0);
+        MultiplexedFrameReader reader = new MultiplexedFrameReader(new ByteArrayInputStream(bb.array()));
+
+        assertThatExceptionOfType(IOException.class).isThrownBy(reader::next);
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                new MultiplexedFrameReader(null));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new MultiplexedFrameReader(new ByteArrayInputStream(new byte[0]), 7));
+    }
+
+    private static String readFrame(MultiplexedFrameReader reader, StdioType type) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        do {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getType()).isSameAs(type);
+            baos.write(reader.getBuffer(), reader.getOffset(), reader.getLength());
+        } while (!reader.isFrameComplete());
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String slice(MultiplexedFrameReader reader) {
+        return new String(reader.getBuffer(), reader.getOffset(), reader.getLength(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] frames(Object... typesAndPayloads) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = 0; i < typesAndPayloads.length; i += 2) {
+            StdioType type = (StdioType) typesAndPayloads[i];
+            byte[] payload = ((String) typesAndPayloads[i + 1]).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer bb = ByteBuffer.allocate(8);
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt((int) type.streamType());
+            bb.order(ByteOrder.BIG_ENDIAN);
+            bb.putInt(payload.length);
+            baos.write(bb.array(), 0, 8);
+            baos.write(payload, 0, payload.length);
+        }
+        return baos.toByteArray();
+    }
+
+    private static class OneByteInputStream extends InputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        OneByteInputStream(byte[] content) {
+            delegate = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return delegate.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package run.var.teamcity.cloud.docker.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.test.TestDockerClient;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link SharedDockerClientRegistry} test suite.
+ */
+public class SharedDockerClientRegistryTest {
+
+    private final static DockerAPIVersion NEGOTIATED_VERSION = DockerAPIVersion.parse("1.30");
+
+    private CountingClientFactory clientFactory;
+
+    @Before
+    public void init() {
+        clientFactory = new CountingClientFactory();
+    }
+
+    @Test
+    public void mustShareClientForSameEndpoint() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        DockerClient client1 = registry.acquireClient(createConfig());
+        DockerClient client2 = registry.acquireClient(createConfig());
+
+        assertThat(clientFactory.clients).hasSize(1);
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(2);
+        assertThat(registry.getEndpointCount()).isEqualTo(1);
+
+        TestDockerClient sharedClient = clientFactory.clients.get(0);
+
+        client1.close();
+
+        assertThat(sharedClient.isClosed()).isFalse();
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(1);
+
+        client2.close();
+
+        assertThat(sharedClient.isClosed()).isTrue();
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(0);
+        assertThat(registry.getEndpointCount()).isZero();
+    }
+
+    @Test
+    public void failedNegotiationMustNotRegisterEndpoint() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        clientFactory.failing = true;
+
+        assertThatExceptionOfType(DockerClientException.class).isThrownBy(() ->
+                registry.acquireClient(createConfig()));
+
+        assertThat(registry.getEndpointCount()).isZero();
+
+        clientFactory.failing = false;
+
+        registry.acquireClient(createConfig());
+
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(1);
+    }
+
+    @Test
+    public void mustNotShareClientForDifferentEndpoints() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        registry.acquireClient(createConfig());
+        registry.acquireClient(createConfig().usingTls(true));
+        registry.acquireClient(new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI, DockerAPIVersion.parse("1.25")));
+
+        assertThat(clientFactory.clients).hasSize(3);
+    }
+
+    @Test
+    public void mustShareClientRegardlessOfTimeouts() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        registry.acquireClient(createConfig());
+        registry.acquireClient(createConfig().connectTimeout(Duration.ofSeconds(20)));
+        registry.acquireClient(createConfig().transferTimeout(Duration.ofSeconds(20)));
+
+        assertThat(clientFactory.clients).hasSize(1);
+        assertThat(clientFactory.negotiationCount).isEqualTo(1);
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(3);
+    }
+
+    @Test
+    public void mustReuseNegotiatedVersion() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        DockerClient client = registry.acquireClient(createConfig());
+
+        assertThat(client.getApiVersion()).isEqualTo(NEGOTIATED_VERSION);
+
+        client.close();
+
+        client = registry.acquireClient(createConfig());
+
+        assertThat(clientFactory.clients).hasSize(2);
+        assertThat(clientFactory.negotiationCount).isEqualTo(1);
+        assertThat(client.getApiVersion()).isEqualTo(NEGOTIATED_VERSION);
+    }
+
+    @Test
+    public void closeMustBeIdempotent() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        DockerClient client1 = registry.acquireClient(createConfig());
+        registry.acquireClient(createConfig());
+
+        client1.close();
+        client1.close();
+
+        assertThat(registry.getUserCount(createConfig())).isEqualTo(1);
+        assertThat(clientFactory.clients.get(0).isClosed()).isFalse();
+    }
+
+    @Test
+    public void mustSumConnectionPoolSizes() {
+        List<DefaultDockerClient> clients = new ArrayList<>();
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(new DockerClientFactory() {
+            @Nonnull
+            @Override
+            public DockerClient createClientWithAPINegotiation(DockerClientConfig config) {
+                return createClient(config);
+            }
+
+            @Nonnull
+            @Override
+            public DockerClient createClient(DockerClientConfig config) {
+                DefaultDockerClient client = DefaultDockerClient.newInstance(config);
+                clients.add(client);
+                return client;
+            }
+        });
+
+        URI uri = URI.create("tcp://127.0.0.1:2375");
+        DockerClient client1 = registry.acquireClient(new DockerClientConfig(uri, DockerAPIVersion.DEFAULT).
+                connectionPoolSize(4));
+        DockerClient client2 = registry.acquireClient(new DockerClientConfig(uri, DockerAPIVersion.DEFAULT).
+                connectionPoolSize(1));
+
+        assertThat(clients).hasSize(1);
+        assertThat(clients.get(0).getConnectionPoolSize()).isEqualTo(5);
+
+        client1.close();
+
+        assertThat(clients.get(0).getConnectionPoolSize()).isEqualTo(1);
+
+        client2.close();
+    }
+
+    @Test
+    public void borrowedClientsMustNotExtendConnectionPool() {
+        List<DefaultDockerClient> clients = new ArrayList<>();
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(new DockerClientFactory() {
+            @Nonnull
+            @Override
+            public DockerClient createClientWithAPINegotiation(DockerClientConfig config) {
+                return createClient(config);
+            }
+
+            @Nonnull
+            @Override
+            public DockerClient createClient(DockerClientConfig config) {
+                DefaultDockerClient client = DefaultDockerClient.newInstance(config);
+                clients.add(client);
+                return client;
+            }
+        });
+
+        URI uri = URI.create("tcp://127.0.0.1:2375");
+        DockerClient borrowedClient = registry.borrowClient(new DockerClientConfig(uri, DockerAPIVersion.DEFAULT).
+                connectionPoolSize(4));
+
+        assertThat(clients).hasSize(1);
+        assertThat(clients.get(0).getConnectionPoolSize()).isEqualTo(1);
+
+        DockerClient client = registry.acquireClient(new DockerClientConfig(uri, DockerAPIVersion.DEFAULT).
+                connectionPoolSize(4));
+
+        assertThat(clients).hasSize(1);
+        assertThat(clients.get(0).getConnectionPoolSize()).isEqualTo(4);
+
+        client.close();
+
+        assertThat(clients.get(0).getConnectionPoolSize()).isEqualTo(1);
+        assertThat(registry.getUserCount(new DockerClientConfig(uri, DockerAPIVersion.DEFAULT))).isEqualTo(1);
+
+        borrowedClient.close();
+    }
+
+    @Test
+    public void apiVersionCannotBeChanged() {
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        DockerClient client = registry.acquireClient(createConfig());
+
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+                client.setApiVersion(DockerAPIVersion.DEFAULT));
+    }
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void invalidArguments() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> new SharedDockerClientRegistry(null));
+
+        SharedDockerClientRegistry registry = new SharedDockerClientRegistry(clientFactory);
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> registry.acquireClient(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> registry.borrowClient(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> registry.getUserCount(null));
+    }
+
+    private DockerClientConfig createConfig() {
+        return new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI, DockerAPIVersion.DEFAULT);
+    }
+
+    private static class CountingClientFactory extends DockerClientFactory {
+
+        final List<TestDockerClient> clients = new ArrayList<>();
+        int negotiationCount = 0;
+        boolean failing = false;
+
+        @Nonnull
+        @Override
+        public DockerClient createClientWithAPINegotiation(DockerClientConfig config) {
+            if (failing) {
+                throw new DockerClientException("Negotiation failure.");
+            }
+            negotiationCount++;
+            return super.createClientWithAPINegotiation(config);
+        }
+
+        @Nonnull
+        @Override
+        public DockerClient createClient(DockerClientConfig config) {
+            TestDockerClient client = new TestDockerClient(config, DockerRegistryCredentials.ANONYMOUS);
+            client.setSupportedAPIVersion(NEGOTIATED_VERSION);
+            clients.add(client);
+            return client;
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class TestImage {
     private final List<PullProgress> pullProgress = new CopyOnWriteArrayList<>();
     private final Map<String, String> labels = new ConcurrentHashMap<>();
     private final Map<String, String> env = new ConcurrentHashMap<>();
+    private volatile String digest;
 
     public TestImage(String repo, String tag) {
         this.repo = repo;
@@ -34,6 +35,15 @@ public class TestImage {
         return this;
     }
 
+    public TestImage digest(String digest) {
+        this.digest = digest;
+        return this;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,66 @@
+package run.var.teamcity.cloud.docker.client;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream handler delivering fragments as they are pushed, blocking until then. Closing the handler will unblock
+ * pending reads.
+ */
+public class TestLiveStreamHandler extends TestStreamHandler {
+
+    private final static byte[] END_OF_STREAM = new byte[0];
+
+    private final BlockingQueue<byte[]> fragments = new LinkedBlockingQueue<>();
+
+    public TestLiveStreamHandler() {
+        super(new ByteArrayOutputStream());
+    }
+
+    public TestLiveStreamHandler push(String content) {
+        return push(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TestLiveStreamHandler push(byte[] content) {
+        fragments.add(content);
+        return this;
+    }
+
+    public void end() {
+        fragments.add(END_OF_STREAM);
+    }
+
+    public boolean isClosed() {
+        return lock.call(() -> closed);
+    }
+
+    @Nullable
+    @Override
+    public StdioInputStream getNextStreamFragment() throws IOException {
+        while (true) {
+            if (isClosed()) {
+                throw new IOException("Handler closed.");
+            }
+            byte[] content;
+            try {
+                content = fragments.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (content == END_OF_STREAM) {
+                return null;
+            }
+            if (content != null) {
+                return new StdioInputStream(new ByteArrayInputStream(content),
+                        StdioType.STDOUT);
+            }
+        }
+    }
+}
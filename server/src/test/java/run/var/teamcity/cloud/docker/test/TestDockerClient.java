@@ -7,6 +7,7 @@ import run.var.teamcity.cloud.docker.StreamHandler;
 import run.var.teamcity.cloud.docker.SwarmDockerClientFacade;
 import run.var.teamcity.cloud.docker.client.BadRequestException;
 import run.var.teamcity.cloud.docker.client.ContainerAlreadyStoppedException;
+import run.var.teamcity.cloud.docker.client.ContainerSummary;
 import run.var.teamcity.cloud.docker.client.DockerAPIVersion;
 import run.var.teamcity.cloud.docker.client.DockerClient;
 import run.var.teamcity.cloud.docker.client.DockerClientConfig;
@@ -22,14 +23,18 @@ import run.var.teamcity.cloud.docker.util.EditableNode;
 import run.var.teamcity.cloud.docker.util.LockHandler;
 import run.var.teamcity.cloud.docker.util.Node;
 import run.var.teamcity.cloud.docker.util.NodeStream;
+import run.var.teamcity.cloud.docker.util.StreamingNodeReader;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
@@ -43,6 +48,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -71,6 +78,7 @@ public class TestDockerClient implements DockerClient {
     private final Set<TestImage> localImages = new HashSet<>();
     private final List<String> containerCreationWarnings = new ArrayList<>();
     private final LockHandler lock = LockHandler.newReentrantLock();
+    private final List<EventSubscription> eventSubscriptions = new CopyOnWriteArrayList<>();
 
     /**
      * The only URI supported by this Docker client.
@@ -84,6 +92,7 @@ public class TestDockerClient implements DockerClient {
     private String serviceCreationWarning;
     private boolean lenientVersionCheck = false;
     private String daemonOs = DockerDaemonOS.LINUX.getAttribute();
+    private volatile Duration latency = Duration.ofMillis(300);
     private final DockerRegistryCredentials dockerRegistryCredentials;
 
     public TestDockerClient(DockerClientConfig config, DockerRegistryCredentials dockerRegistryCredentials) {
@@ -139,7 +148,7 @@ public class TestDockerClient implements DockerClient {
     @Override
     public Node createContainer(@Nonnull Node containerSpec, @Nullable String name) {
 
-        waitMillis(300);
+        simulateLatency();
 
         return lock.call(() -> {
             String containerId;
@@ -177,7 +186,7 @@ public class TestDockerClient implements DockerClient {
 
     @Override
     public void startContainer(@Nonnull String containerId) {
-        waitMillis(300);
+        simulateLatency();
         lock.run(() -> {
             checkForFailure();
             Container container = containers.get(containerId);
@@ -188,13 +197,14 @@ public class TestDockerClient implements DockerClient {
             }
 
             container.running(true);
+            publishContainerEvent(container, "start");
         });
     }
 
     @Nonnull
     @Override
     public Node createService(@Nonnull Node serviceSpec) {
-        waitMillis(300);
+        simulateLatency();
 
         return lock.call(() -> {
             checkForFailure();
@@ -365,6 +375,10 @@ public class TestDockerClient implements DockerClient {
                     map(entry -> entry.getKey() + "=" + entry.getValue()).
                     forEach(env::add);
 
+            if (testImage.getDigest() != null) {
+                inspectNode.getOrCreateArray("RepoDigests").add(testImage.getRepo() + "@" + testImage.getDigest());
+            }
+
             return inspectNode.saveNode();
         });
     }
@@ -435,6 +449,16 @@ public class TestDockerClient implements DockerClient {
                         result.add(pullNode.saveNode());
                     }
 
+                    // Only report the pull outcome for images with a known digest (as done by the daemon for images
+                    // pulled from a registry).
+                    if (img.getDigest() != null) {
+                        String outcome = localImages.contains(img) ? "Status: Image is up to date for " :
+                                "Status: Downloaded newer image for ";
+                        result.add(Node.EMPTY_OBJECT.editNode().put("status", "Digest: " + img.getDigest()).saveNode());
+                        result.add(Node.EMPTY_OBJECT.editNode().put("status", outcome + img.fqin()).saveNode());
+                        localImages.removeIf(localImg -> localImg != img && localImg.fqin().equals(img.fqin()));
+                    }
+
                     localImages.add(img);
                 }
             });
@@ -501,6 +525,23 @@ public class TestDockerClient implements DockerClient {
         });
     }
 
+    @Nonnull
+    @Override
+    public StreamHandler streamLogs(@Nonnull String containerId, int lineCount, @Nonnull Set<StdioType> stdioTypes,
+                                    @Nullable Instant since, boolean timestamps, boolean follow,
+                                    boolean demuxStdio) {
+        // Logs timestamps are not simulated.
+        return streamLogs(containerId, lineCount, stdioTypes, follow, demuxStdio);
+    }
+
+    @Nonnull
+    @Override
+    public StreamHandler streamServiceLogs(@Nonnull String serviceId, int lineCount, @Nonnull Set<StdioType>
+            stdioTypes, @Nullable Instant since, boolean timestamps, boolean follow, boolean demuxStream) {
+        // Logs timestamps are not simulated.
+        return streamServiceLogs(serviceId, lineCount, stdioTypes, follow, demuxStream);
+    }
+
     private BigDecimal toBigDecimal(Number number) {
         if (number instanceof BigInteger) {
             return new BigDecimal((BigInteger) number);
@@ -511,7 +552,7 @@ public class TestDockerClient implements DockerClient {
 
     @Override
     public void stopContainer(@Nonnull String containerId, Duration timeout) {
-        waitMillis(300);
+        simulateLatency();
 
         lock.run(() -> {
             checkForFailure();
@@ -522,13 +563,14 @@ public class TestDockerClient implements DockerClient {
                 throw new ContainerAlreadyStoppedException("Container is not running: " + containerId);
             }
 
-            container.running(true);
+            container.running(false);
+            publishContainerEvent(container, "die");
         });
     }
 
     @Override
     public void removeContainer(@Nonnull String containerId, boolean removeVolumes, boolean force) {
-        waitMillis(300);
+        simulateLatency();
 
         lock.run(() -> {
             checkForFailure();
@@ -539,6 +581,10 @@ public class TestDockerClient implements DockerClient {
                 throw new InvocationFailedException("Container is still running: " + containerId);
             }
             containers.remove(containerId);
+            if (container.isRunning()) {
+                publishContainerEvent(container, "die");
+            }
+            publishContainerEvent(container, "destroy");
         });
     }
 
@@ -554,11 +600,24 @@ public class TestDockerClient implements DockerClient {
         });
     }
 
+    @Nonnull
+    @Override
+    public List<ContainerSummary> listContainerSummariesWithLabel(@Nonnull Map<String, String> labelFilters) {
+        Node containers = listContainersWithLabel(labelFilters);
+        // Round-trip through the serialized form to exercise the streaming parser.
+        try (StreamingNodeReader reader = StreamingNodeReader.create(new ByteArrayInputStream(
+                containers.toString().getBytes(StandardCharsets.UTF_8)))) {
+            return ContainerSummary.readList(reader);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     @Nonnull
     @Override
     public Node listContainersWithLabel(@Nonnull Map<String, String> labelFilters) {
 
-        waitMillis(300);
+        simulateLatency();
 
         return lock.call(() -> {
             checkForFailure();
@@ -566,7 +625,8 @@ public class TestDockerClient implements DockerClient {
                     filter(container -> {
                         for (Map.Entry<String, String> labelFilter : labelFilters.entrySet()) {
                             String labelValue = container.labels.get(labelFilter.getKey());
-                            if (labelValue == null || !labelValue.equals(labelFilter.getValue())) {
+                            if (labelValue == null || (labelFilter.getValue() != null &&
+                                    !labelValue.equals(labelFilter.getValue()))) {
                                 return false;
                             }
                         }
@@ -595,7 +655,7 @@ public class TestDockerClient implements DockerClient {
     @Nonnull
     @Override
     public Node listServicesWithLabel(@Nonnull Map<String, String> labelFilters) {
-        waitMillis(300);
+        simulateLatency();
 
         return lock.call(() -> {
             checkForFailure();
@@ -603,7 +663,8 @@ public class TestDockerClient implements DockerClient {
                     filter(service -> {
                         for (Map.Entry<String, String> labelFilter : labelFilters.entrySet()) {
                             String labelValue = service.labels.get(labelFilter.getKey());
-                            if (labelValue == null || !labelValue.equals(labelFilter.getValue())) {
+                            if (labelValue == null || (labelFilter.getValue() != null &&
+                                    !labelValue.equals(labelFilter.getValue()))) {
                                 return false;
                             }
                         }
@@ -640,6 +701,18 @@ public class TestDockerClient implements DockerClient {
         return this;
     }
 
+    /**
+     * Sets the latency simulated for the daemon operations. Defaults to 300ms.
+     *
+     * @param latency the simulated latency
+     *
+     * @return this client instance
+     */
+    public TestDockerClient latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
     public TestDockerClient serviceCreationWarning(String serviceCreationWarning) {
         lock.run(() -> this.serviceCreationWarning = serviceCreationWarning);
         return this;
@@ -669,12 +742,48 @@ public class TestDockerClient implements DockerClient {
     @Override
     public void close() {
         lock.run(() -> closed = true);
+        eventSubscriptions.forEach(EventSubscription::close);
+    }
+
+    @Nonnull
+    @Override
+    public NodeStream streamEvents(@Nonnull Map<String, String> labelFilters) {
+        return lock.call(() -> {
+            checkForFailure();
+            EventSubscription subscription = new EventSubscription(labelFilters);
+            eventSubscriptions.add(subscription);
+            return subscription;
+        });
+    }
+
+    private void publishContainerEvent(Container container, String action) {
+        Instant now = Instant.now();
+        EditableNode event = Node.EMPTY_OBJECT.editNode().
+                put("Type", "container").
+                put("Action", action).
+                put("status", action).
+                put("id", container.id).
+                put("time", now.getEpochSecond()).
+                put("timeNano", now.getEpochSecond() * 1_000_000_000L + now.getNano());
+        EditableNode actor = event.getOrCreateObject("Actor");
+        actor.put("ID", container.id);
+        EditableNode attributes = actor.getOrCreateObject("Attributes");
+        attributes.put("name", container.name);
+        container.labels.forEach(attributes::put);
+
+        Node eventNode = event.saveNode();
+
+        for (EventSubscription subscription : eventSubscriptions) {
+            if (subscription.matches(container.labels)) {
+                subscription.events.add(eventNode);
+            }
+        }
     }
 
     @Nonnull
     @Override
     public Node listTasks(@Nonnull String serviceId) {
-        waitMillis(300);
+        simulateLatency();
 
         return lock.call(() -> {
            Service service = services.get(serviceId);
@@ -728,6 +837,13 @@ public class TestDockerClient implements DockerClient {
         lock.run(() -> this.daemonOs = daemonOs);
     }
 
+    private void simulateLatency() {
+        long latencyMillis = latency.toMillis();
+        if (latencyMillis > 0) {
+            waitMillis(latencyMillis);
+        }
+    }
+
     private TestImage lookupImage(Set<TestImage> src, String image) {
         return src.stream()
                 .filter(img -> img.getId().equals(image) || img.fqin().equals(image))
@@ -763,6 +879,48 @@ public class TestDockerClient implements DockerClient {
         }
     }
 
+    private class EventSubscription implements NodeStream {
+
+        private final Node END_OF_STREAM = Node.EMPTY_OBJECT;
+
+        private final Map<String, String> labelFilters;
+        private final LinkedBlockingQueue<Node> events = new LinkedBlockingQueue<>();
+
+        EventSubscription(Map<String, String> labelFilters) {
+            this.labelFilters = labelFilters;
+        }
+
+        boolean matches(Map<String, String> labels) {
+            for (Map.Entry<String, String> labelFilter : labelFilters.entrySet()) {
+                if (!labelFilter.getValue().equals(labels.get(labelFilter.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Node next() throws IOException {
+            Node event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (event == END_OF_STREAM) {
+                events.add(END_OF_STREAM);
+                return null;
+            }
+            return event;
+        }
+
+        @Override
+        public void close() {
+            eventSubscriptions.remove(this);
+            events.add(END_OF_STREAM);
+        }
+    }
+
     public static class Container {
         private final String id = TestUtils.createRandomSha256();
         private final Map<String, String> labels = new ConcurrentHashMap<>();
@@ -0,0 +1,66 @@
+package run.var.teamcity.cloud.docker.util;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link LatencyHistogram} test suite.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMean()).isEqualTo(Duration.ZERO);
+        assertThat(histogram.getMax()).isEqualTo(Duration.ZERO);
+        assertThat(histogram.getPercentile(50)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void record() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getMean()).isEqualTo(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(12700)));
+        assertThat(histogram.getMax()).isEqualTo(Duration.ofMillis(100));
+        // Percentiles are reported as the upper bound of the matching bucket.
+        assertThat(histogram.getPercentile(50)).isEqualTo(Duration.ofMillis(4));
+        assertThat(histogram.getPercentile(90)).isEqualTo(Duration.ofMillis(4));
+        assertThat(histogram.getPercentile(95)).isEqualTo(Duration.ofMillis(100));
+        assertThat(histogram.getPercentile(100)).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    public void negativeAndVeryLongDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-1);
+        histogram.record(TimeUnit.DAYS.toNanos(1));
+
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.getPercentile(50)).isEqualTo(Duration.ofMillis(1));
+        assertThat(histogram.getPercentile(100)).isEqualTo(Duration.ofDays(1));
+    }
+
+    @Test
+    public void invalidPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> histogram.getPercentile(-1));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> histogram.getPercentile(101));
+    }
+}
@@ -0,0 +1,117 @@
+package run.var.teamcity.cloud.docker.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * {@link StreamingNodeReader} test suite.
+ */
+public class StreamingNodeReaderTest {
+
+    @Test
+    public void readArray() throws IOException {
+        List<String> values = reader("[\"A\", \"B\", null, \"C\"]").readArray(StreamingNodeReader::readString);
+
+        assertThat(values).containsExactly("A", "B", "C");
+        assertThat(reader("[]").readArray(StreamingNodeReader::readString)).isEmpty();
+    }
+
+    @Test
+    public void readArrayNotAnArray() {
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("{}").readArray(StreamingNodeReader::readString));
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("\"A\"").readArray(StreamingNodeReader::readString));
+    }
+
+    @Test
+    public void readObjectMustSkipUnhandledFields() throws IOException {
+        List<String> handled = new ArrayList<>();
+        StreamingNodeReader reader = reader("{\"A\": \"1\", \"B\": {\"C\": [1, 2, {\"D\": 3}]}, \"E\": 42, " +
+                "\"F\": [\"G\"]}");
+
+        reader.readObject((fieldName, fieldReader) -> {
+            switch (fieldName) {
+                case "A":
+                    handled.add(fieldReader.readString());
+                    return true;
+                case "E":
+                    handled.add(String.valueOf(fieldReader.readLong()));
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        assertThat(handled).containsExactly("1", "42");
+    }
+
+    @Test
+    public void readObjectNotAnObject() {
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("[]").readObject((fieldName, fieldReader) -> false));
+    }
+
+    @Test
+    public void readString() throws IOException {
+        assertThat(reader("\"A\"").readString()).isEqualTo("A");
+        assertThat(reader("null").readString()).isNull();
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(() -> reader("42").readString());
+    }
+
+    @Test
+    public void readLong() throws IOException {
+        assertThat(reader("42").readLong()).isEqualTo(42L);
+        assertThat(reader(String.valueOf(Long.MAX_VALUE)).readLong()).isEqualTo(Long.MAX_VALUE);
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("9223372036854775808").readLong());
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(() -> reader("4.2").readLong());
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(() -> reader("\"42\"").readLong());
+    }
+
+    @Test
+    public void readStringList() throws IOException {
+        assertThat(reader("[\"A\", \"B\"]").readStringList()).containsExactly("A", "B");
+        assertThat(reader("null").readStringList()).isEmpty();
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("[{}]").readStringList());
+    }
+
+    @Test
+    public void readStringMap() throws IOException {
+        Map<String, String> values = reader("{\"A\": \"1\", \"B\": \"2\"}").readStringMap();
+
+        assertThat(values).containsOnly(entry("A", "1"), entry("B", "2"));
+        assertThat(reader("null").readStringMap()).isEmpty();
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(
+                () -> reader("{\"A\": 1}").readStringMap());
+    }
+
+    @Test
+    public void truncatedContent() {
+        assertThatExceptionOfType(NodeProcessingException.class).isThrownBy(() -> reader(""));
+        assertThatExceptionOfType(IOException.class).isThrownBy(
+                () -> reader("[\"A\", ").readArray(StreamingNodeReader::readString));
+    }
+
+    @Test
+    public void invalidInput() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> StreamingNodeReader.create(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> reader("[]").readArray(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> reader("{}").readObject(null));
+    }
+
+    private StreamingNodeReader reader(String json) throws IOException {
+        return StreamingNodeReader.create(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
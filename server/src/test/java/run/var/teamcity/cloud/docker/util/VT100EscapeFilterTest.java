@@ -0,0 +1,116 @@
+package run.var.teamcity.cloud.docker.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link VT100EscapeFilter} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class VT100EscapeFilterTest {
+
+    // A line separator is never the final character of a sequence.
+    private static final Pattern VT100_ESCAPE_PTN = Pattern.compile("\u001B\\[[\\d;]*[^\\d;\n]");
+
+    @Test
+    public void strip() {
+        assertThat(VT100EscapeFilter.strip("")).isEmpty();
+        assertThat(VT100EscapeFilter.strip("plain text")).isEqualTo("plain text");
+        assertThat(VT100EscapeFilter.strip("\u001B[1;31mred\u001B[0m text")).isEqualTo("red text");
+        assertThat(VT100EscapeFilter.strip("\u001B[Kclear")).isEqualTo("clear");
+    }
+
+    @Test
+    public void invalidSequencesMustBeKept() {
+        assertThat(VT100EscapeFilter.strip("\u001Bx")).isEqualTo("\u001Bx");
+        assertThat(VT100EscapeFilter.strip("\u001B\u001B[1mtxt")).isEqualTo("\u001Btxt");
+        // Incomplete sequence at the end of the text.
+        assertThat(VT100EscapeFilter.strip("txt\u001B[1;3")).isEqualTo("txt\u001B[1;3");
+    }
+
+    @Test
+    public void sequencesMustNotSpanLines() {
+        assertThat(VT100EscapeFilter.strip("txt\u001B[1\nnext line")).isEqualTo("txt\u001B[1\nnext line");
+        assertThat(VT100EscapeFilter.strip("txt\u001B[\n\u001B[1mnext line")).isEqualTo("txt\u001B[\nnext line");
+
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder out = new StringBuilder();
+
+        filter.filter("txt\u001B[1", out);
+        filter.filter("\nnext line", out);
+
+        assertThat(out.toString()).isEqualTo("txt\u001B[1\nnext line");
+    }
+
+    @Test
+    public void sequencesSplitAcrossChunks() {
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder out = new StringBuilder();
+
+        filter.filter("hello \u001B", out);
+        filter.filter("[1;", out);
+        filter.filter("32mworld\u001B[", out);
+        filter.filter("0m!", out);
+        filter.flush(out);
+
+        assertThat(out.toString()).isEqualTo("hello world!");
+    }
+
+    @Test
+    public void charArrayRegion() {
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder out = new StringBuilder();
+
+        char[] buffer = "xx\u001B[1mtxtxx".toCharArray();
+        filter.filter(buffer, 2, buffer.length - 4, out);
+
+        assertThat(out.toString()).isEqualTo("txt");
+    }
+
+    @Test
+    public void mustBehaveLikeRegex() {
+        Random random = new Random(42);
+        char[] alphabet = {'\u001B', '[', '1', '9', ';', 'm', 'a', '\n', 'é'};
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(50);
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String txt = sb.toString();
+            String expected = VT100_ESCAPE_PTN.matcher(txt).replaceAll("");
+
+            assertThat(VT100EscapeFilter.strip(txt)).isEqualTo(expected);
+
+            // Same result when processing the text one character at a time.
+            VT100EscapeFilter filter = new VT100EscapeFilter();
+            StringBuilder out = new StringBuilder();
+            for (int j = 0; j < txt.length(); j++) {
+                filter.filter(txt.substring(j, j + 1), out);
+            }
+            filter.flush(out);
+
+            assertThat(out.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        VT100EscapeFilter filter = new VT100EscapeFilter();
+        StringBuilder out = new StringBuilder();
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> filter.filter((String) null, out));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> filter.filter("txt", null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                filter.filter((char[]) null, 0, 0, out));
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() ->
+                filter.filter(new char[2], 1, 2, out));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> filter.flush(null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> VT100EscapeFilter.strip(null));
+    }
+}
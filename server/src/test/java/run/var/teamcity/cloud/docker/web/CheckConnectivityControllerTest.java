@@ -3,6 +3,8 @@ package run.var.teamcity.cloud.docker.web;
 import org.assertj.core.data.Offset;
 import org.junit.Before;
 import org.junit.Test;
+import run.var.teamcity.cloud.docker.client.DockerClient;
+import run.var.teamcity.cloud.docker.client.DockerClientConfig;
 import run.var.teamcity.cloud.docker.test.TestDockerClient;
 import run.var.teamcity.cloud.docker.test.TestDockerClientFactory;
 import run.var.teamcity.cloud.docker.test.TestHttpServletRequest;
@@ -56,7 +58,11 @@ public class CheckConnectivityControllerTest {
 
         assertThat(responseNode.getObject("version", null)).isNotNull();
 
-        TestDockerClient client = dockerClientFty.getClient();
+        // The client used for the connectivity check must be released once done.
+        assertThat(dockerClientFty.getClient().isClosed()).isTrue();
+
+        DockerClient client = dockerClientFty.createClientWithAPINegotiation(new DockerClientConfig(
+                TestDockerClient.TEST_CLIENT_URI, DockerCloudUtils.DOCKER_API_TARGET_VERSION));
 
         Node version = client.getVersion();
         EditableNode versionNode = responseNode.getObject("version");
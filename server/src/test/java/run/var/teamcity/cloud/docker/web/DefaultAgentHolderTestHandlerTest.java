@@ -10,6 +10,7 @@ import run.var.teamcity.cloud.docker.client.DockerClientConfig;
 import run.var.teamcity.cloud.docker.client.TestAgentHolderTestStatusListener;
 import run.var.teamcity.cloud.docker.test.TestDockerClient;
 import run.var.teamcity.cloud.docker.test.TestUtils;
+import run.var.teamcity.cloud.docker.util.VT100EscapeFilter;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -122,6 +123,73 @@ public class DefaultAgentHolderTestHandlerTest {
         assertThat(handler.getResources()).isSameAs(testCloudSupport.resources());
     }
 
+    @Test
+    public void getLogsMustOnlyReturnNewLogs() {
+        DefaultAgentHolderTestHandler handler = DefaultAgentHolderTestHandler.newTestInstance(createClientConfig());
+
+        AgentHolderTestLogs logs = handler.getLogs((cursor, filter) -> "line 1\nline 2\n", 0);
+
+        assertThat(logs.getText()).isEqualTo("line 1\nline 2\n");
+        assertThat(logs.getStart()).isZero();
+        assertThat(logs.getEnd()).isEqualTo(14);
+
+        logs = handler.getLogs((cursor, filter) -> "line 3\n", logs.getEnd());
+
+        assertThat(logs.getText()).isEqualTo("line 3\n");
+        assertThat(logs.getStart()).isEqualTo(14);
+
+        // Logs may be queried again from any cached offset.
+        logs = handler.getLogs((cursor, filter) -> "", 7);
+
+        assertThat(logs.getText()).isEqualTo("line 2\nline 3\n");
+    }
+
+    @Test
+    public void getLogsMustFilterSequencesSplitAcrossFetches() {
+        DefaultAgentHolderTestHandler handler = DefaultAgentHolderTestHandler.newTestInstance(createClientConfig());
+
+        AgentHolderTestLogs logs = handler.getLogs((cursor, filter) -> filter("line 1\n\u001B[1;3", filter), 0);
+
+        assertThat(logs.getText()).isEqualTo("line 1\n");
+
+        logs = handler.getLogs((cursor, filter) -> filter("2mline 2\n", filter), logs.getEnd());
+
+        assertThat(logs.getText()).isEqualTo("line 2\n");
+    }
+
+    @Test
+    public void getLogsMustRetainMostRecentLines() {
+        DefaultAgentHolderTestHandler handler = DefaultAgentHolderTestHandler.newTestInstance(createClientConfig());
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DefaultAgentHolderTestHandler.MAX_CACHED_LOG_LINES + 10; i++) {
+            sb.append(i % 10).append('\n');
+        }
+
+        AgentHolderTestLogs logs = handler.getLogs((cursor, filter) -> sb, 0);
+
+        // The last line is not terminated yet.
+        assertThat(logs.getStart()).isEqualTo(22);
+        assertThat(logs.getText()).hasSize((DefaultAgentHolderTestHandler.MAX_CACHED_LOG_LINES - 1) * 2);
+        assertThat(logs.getEnd()).isEqualTo(sb.length());
+
+        assertThat(handler.getLogs((cursor, filter) -> "", 0).getStart()).isEqualTo(22);
+    }
+
+    @Test
+    public void getLogsInvalidInput() {
+        DefaultAgentHolderTestHandler handler = DefaultAgentHolderTestHandler.newTestInstance(createClientConfig());
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> handler.getLogs(null, 0));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                handler.getLogs((cursor, filter) -> "", -1));
+    }
+
+    private CharSequence filter(String txt, VT100EscapeFilter filter) {
+        StringBuilder sb = new StringBuilder();
+        filter.filter(txt, sb);
+        return sb;
+    }
 
     private DockerCloudClientConfig createClientConfig() {
         return new DockerCloudClientConfig(testCloudSupport, TestUtils.TEST_UUID,
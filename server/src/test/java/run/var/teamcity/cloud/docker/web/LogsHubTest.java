@@ -0,0 +1,304 @@
+package run.var.teamcity.cloud.docker.web;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import run.var.teamcity.cloud.docker.TestDockerClientFacade;
+import run.var.teamcity.cloud.docker.TestDockerCloudSupport;
+import run.var.teamcity.cloud.docker.client.DockerClientConfig;
+import run.var.teamcity.cloud.docker.client.TestLiveStreamHandler;
+import run.var.teamcity.cloud.docker.test.TestDockerClient;
+import run.var.teamcity.cloud.docker.test.TestUtils;
+import run.var.teamcity.cloud.docker.util.DockerCloudUtils;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static run.var.teamcity.cloud.docker.test.TestUtils.waitUntil;
+
+/**
+ * {@link LogsHub} test suite.
+ */
+@SuppressWarnings("ConstantConditions")
+public class LogsHubTest {
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private TestDockerClientFacade clientFacade;
+    private ContainerTestReference testRef;
+    private List<TestLiveStreamHandler> streamHandlers;
+
+    @Before
+    public void init() {
+        executor = Executors.newCachedThreadPool();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        TestDockerCloudSupport cloudSupport = new TestDockerCloudSupport();
+        clientFacade = cloudSupport.getClientFacade();
+        streamHandlers = new ArrayList<>();
+        clientFacade.setLogsStreamHandlerSupplier(() -> {
+            TestLiveStreamHandler streamHandler = new TestLiveStreamHandler();
+            synchronized (streamHandlers) {
+                streamHandlers.add(streamHandler);
+            }
+            return streamHandler;
+        });
+        DockerClientConfig clientConfig = new DockerClientConfig(TestDockerClient.TEST_CLIENT_URI,
+                DockerCloudUtils.DOCKER_API_TARGET_VERSION);
+        testRef = ContainerTestReference.newTestReference(cloudSupport, TestUtils.TEST_UUID, clientConfig).
+                registerContainer("container_id");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void singleUpstreamStreamForAllSubscribers() {
+        LogsHub hub = new LogsHub(executor, scheduler);
+
+        TestSubscriber subscriber1 = new TestSubscriber();
+        TestSubscriber subscriber2 = new TestSubscriber();
+
+        hub.subscribe(testRef, subscriber1);
+        hub.subscribe(testRef, subscriber2);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        streamHandler.push("hello ").push("world");
+
+        waitUntil(() -> subscriber1.getText().equals("hello world") && subscriber2.getText().equals("hello world"));
+
+        assertThat(clientFacade.getStreamLogsCount()).isEqualTo(1);
+        assertThat(hub.getChannelCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void replayOnSubscription() {
+        LogsHub hub = new LogsHub(executor, scheduler, 10, 100, 5, Duration.ofSeconds(10));
+
+        TestSubscriber subscriber1 = new TestSubscriber();
+        hub.subscribe(testRef, subscriber1);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        streamHandler.push("01234").push("56789").push("abcde");
+
+        waitUntil(() -> subscriber1.getText().equals("0123456789abcde"));
+
+        TestSubscriber subscriber2 = new TestSubscriber();
+        hub.subscribe(testRef, subscriber2);
+
+        // Only the most recent chunks fitting in the replay buffer are replayed.
+        waitUntil(() -> subscriber2.getText().equals("56789abcde"));
+
+        streamHandler.push("fghij");
+
+        waitUntil(() -> subscriber2.getText().equals("56789abcdefghij"));
+    }
+
+    @Test
+    public void slowSubscriberMustBeResynced() {
+        LogsHub hub = new LogsHub(executor, scheduler, 10, 20, 5, Duration.ofSeconds(10));
+
+        TestSubscriber slowSubscriber = new TestSubscriber();
+        slowSubscriber.autoComplete = false;
+        TestSubscriber subscriber = new TestSubscriber();
+
+        hub.subscribe(testRef, slowSubscriber);
+        hub.subscribe(testRef, subscriber);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        streamHandler.push("01234");
+
+        waitUntil(() -> slowSubscriber.getText().equals("01234"));
+
+        // The slow subscriber did not complete its first send: subsequent chunks are queued until overflow.
+        streamHandler.push("56789").push("abcde").push("fghij").push("klmno").push("pqrst");
+
+        waitUntil(() -> subscriber.getText().equals("0123456789abcdefghijklmnopqrst"));
+
+        slowSubscriber.completePendingSend();
+
+        waitUntil(() -> slowSubscriber.getText().equals("01234" + LogsHub.RESYNC_MARKER + "klmnopqrst"));
+    }
+
+    @Test
+    public void upstreamMustBeClosedWithLastSubscriber() {
+        LogsHub hub = new LogsHub(executor, scheduler);
+
+        LogsHub.Subscription subscription1 = hub.subscribe(testRef, new TestSubscriber());
+        LogsHub.Subscription subscription2 = hub.subscribe(testRef, new TestSubscriber());
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+
+        subscription1.cancel();
+
+        assertThat(streamHandler.isClosed()).isFalse();
+
+        subscription2.cancel();
+        subscription2.cancel();
+
+        waitUntil(streamHandler::isClosed);
+
+        assertThat(hub.getChannelCount()).isZero();
+
+        // New subscribers will open a new stream.
+        hub.subscribe(testRef, new TestSubscriber());
+
+        waitUntil(() -> clientFacade.getStreamLogsCount() == 2);
+    }
+
+    @Test
+    public void subscribersMustBeClosedWhenUpstreamEnds() {
+        LogsHub hub = new LogsHub(executor, scheduler);
+
+        TestSubscriber subscriber = new TestSubscriber();
+        hub.subscribe(testRef, subscriber);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        streamHandler.push("last words");
+        streamHandler.end();
+
+        waitUntil(() -> subscriber.closeReason != null);
+
+        assertThat(subscriber.getText()).isEqualTo("last words");
+        assertThat(subscriber.failure).isFalse();
+        assertThat(hub.getChannelCount()).isZero();
+    }
+
+    @Test
+    public void framesMustBeCoalesced() {
+        LogsHub hub = new LogsHub(executor, scheduler, 1000, 2000, 1000, Duration.ofMillis(500));
+
+        TestSubscriber subscriber = new TestSubscriber();
+        hub.subscribe(testRef, subscriber);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            streamHandler.push("line " + i + "\n");
+            expected.append("line ").append(i).append("\n");
+        }
+
+        waitUntil(() -> subscriber.getText().equals(expected.toString()));
+
+        assertThat(subscriber.sendCount).isEqualTo(1);
+    }
+
+    @Test
+    public void frameSizeLimit() {
+        LogsHub hub = new LogsHub(executor, scheduler, 10, 100, 10, Duration.ofSeconds(10));
+
+        TestSubscriber subscriber = new TestSubscriber();
+        hub.subscribe(testRef, subscriber);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        streamHandler.push("01234").push("56789");
+
+        // Frame size reached: published without waiting for the time window.
+        waitUntil(() -> subscriber.getText().equals("0123456789"), 5);
+    }
+
+    @Test
+    public void multibyteCharactersSplitAcrossFragments() {
+        LogsHub hub = new LogsHub(executor, scheduler, 10, 100, 5, Duration.ofMillis(50));
+
+        TestSubscriber subscriber = new TestSubscriber();
+        hub.subscribe(testRef, subscriber);
+
+        byte[] bytes = "h\u00e9llo \u20ac \ud83d\ude00".getBytes(StandardCharsets.UTF_8);
+
+        TestLiveStreamHandler streamHandler = awaitStreamHandler();
+        for (byte b : bytes) {
+            streamHandler.push(new byte[] {b});
+        }
+
+        waitUntil(() -> subscriber.getText().equals("h\u00e9llo \u20ac \ud83d\ude00"));
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> new LogsHub(null, scheduler));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> new LogsHub(executor, null));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                new LogsHub(executor, scheduler, 10, 20, 5, null));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new LogsHub(executor, scheduler, -1, 10, 5, Duration.ZERO));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new LogsHub(executor, scheduler, 10, 10, 5, Duration.ZERO));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new LogsHub(executor, scheduler, 10, 20, 0, Duration.ZERO));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                new LogsHub(executor, scheduler, 10, 20, 5, Duration.ofMillis(-1)));
+
+        LogsHub hub = new LogsHub(executor, scheduler);
+
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() ->
+                hub.subscribe(null, new TestSubscriber()));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> hub.subscribe(testRef, null));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                hub.subscribe(ContainerTestReference.newTestReference(testRef.getCloudSupport(),
+                        TestUtils.TEST_UUID, testRef.getClientConfig()), new TestSubscriber()));
+    }
+
+    private TestLiveStreamHandler awaitStreamHandler() {
+        waitUntil(() -> {
+            synchronized (streamHandlers) {
+                return !streamHandlers.isEmpty();
+            }
+        });
+        synchronized (streamHandlers) {
+            return streamHandlers.get(streamHandlers.size() - 1);
+        }
+    }
+
+    private static class TestSubscriber implements LogsHub.Subscriber {
+
+        private final StringBuilder text = new StringBuilder();
+        volatile boolean autoComplete = true;
+        volatile int sendCount = 0;
+        volatile Runnable pendingCompletion;
+        volatile boolean failure;
+        volatile String closeReason;
+
+        @Override
+        public void send(@Nonnull String text, @Nonnull Runnable completionHandler) {
+            synchronized (this.text) {
+                this.text.append(text);
+                sendCount++;
+            }
+            if (autoComplete) {
+                completionHandler.run();
+            } else {
+                pendingCompletion = completionHandler;
+            }
+        }
+
+        @Override
+        public void close(boolean failure, @Nonnull String reason) {
+            this.failure = failure;
+            this.closeReason = reason;
+        }
+
+        String getText() {
+            synchronized (text) {
+                return text.toString();
+            }
+        }
+
+        void completePendingSend() {
+            autoComplete = true;
+            Runnable completion = pendingCompletion;
+            pendingCompletion = null;
+            completion.run();
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class TestAgentHolderTestManager implements AgentHolderTestManager {
 
     @Nonnull
     @Override
-    public String getLogs(@Nonnull UUID testUuid) {
+    public AgentHolderTestLogs getLogs(@Nonnull UUID testUuid, long offset) {
         throw new UnsupportedOperationException("Not implemented yet.");
     }
 